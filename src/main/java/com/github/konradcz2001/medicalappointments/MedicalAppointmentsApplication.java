@@ -2,8 +2,10 @@ package com.github.konradcz2001.medicalappointments;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MedicalAppointmentsApplication {
 
 
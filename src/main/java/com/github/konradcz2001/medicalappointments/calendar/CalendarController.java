@@ -0,0 +1,57 @@
+package com.github.konradcz2001.medicalappointments.calendar;
+
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a Java class representing a REST controller for the calendar feeds of doctors and clients.
+ * The feeds are served in the iCalendar format for calendar apps, which poll them with conditional requests.
+ */
+@RestController
+class CalendarController {
+    private final CalendarService service;
+
+    CalendarController(final CalendarService service) {
+        this.service = service;
+    }
+
+    /**
+     * Retrieves the calendar feed of a doctor with their visits and leaves.
+     *
+     * @param id              the ID of the doctor
+     * @param ifNoneMatch     the ETag of the feed the client has already, can be null
+     * @param ifModifiedSince the Last-Modified date of the feed the client has already, can be null
+     * @return a ResponseEntity containing the feed, or with a status of 304 Not Modified if the client has it already
+     */
+    @Operation(summary = "Retrieves the calendar feed of a doctor in the iCalendar format.")
+    @GetMapping("/doctors/{id}/calendar.ics")
+    @PreAuthorize("hasAuthority('DOCTOR') or hasAuthority('ADMIN')")
+    ResponseEntity<String> readDoctorCalendar(@PathVariable Long id,
+                                              @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                              @RequestHeader(name = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince){
+        return service.readCalendar(CalendarOwner.DOCTOR, id, ifNoneMatch, ifModifiedSince);
+    }
+
+    /**
+     * Retrieves the calendar feed of a client with their visits.
+     *
+     * @param id              the ID of the client
+     * @param ifNoneMatch     the ETag of the feed the client has already, can be null
+     * @param ifModifiedSince the Last-Modified date of the feed the client has already, can be null
+     * @return a ResponseEntity containing the feed, or with a status of 304 Not Modified if the client has it already
+     */
+    @Operation(summary = "Retrieves the calendar feed of a client in the iCalendar format.")
+    @GetMapping("/clients/{id}/calendar.ics")
+    @PreAuthorize("hasAuthority('CLIENT') or hasAuthority('ADMIN')")
+    ResponseEntity<String> readClientCalendar(@PathVariable Long id,
+                                              @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                              @RequestHeader(name = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince){
+        return service.readCalendar(CalendarOwner.CLIENT, id, ifNoneMatch, ifModifiedSince);
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.konradcz2001.medicalappointments.calendar;
+
+import java.time.LocalDateTime;
+
+/**
+ * A visit or a leave as it is written to a calendar feed.
+ * <p>
+ *  kind: "visit" or "leave", which together with the ID makes the UID of the event
+ *  id: the ID of the visit or the leave
+ *  start: the beginning of the event
+ *  end: the end of the event
+ *  summary: the title of the event
+ *  description: the details of the event, can be empty
+ *  isCancelled: whether the event is cancelled
+ */
+public record CalendarEvent(String kind, Long id, LocalDateTime start, LocalDateTime end, String summary,
+                            String description, boolean isCancelled) {
+}
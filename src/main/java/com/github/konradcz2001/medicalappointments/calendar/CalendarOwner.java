@@ -0,0 +1,9 @@
+package com.github.konradcz2001.medicalappointments.calendar;
+
+/**
+ * The kinds of users who have a calendar feed: a doctor sees their visits and leaves, a client sees their visits.
+ */
+public enum CalendarOwner {
+    DOCTOR,
+    CLIENT,
+}
@@ -0,0 +1,185 @@
+package com.github.konradcz2001.medicalappointments.calendar;
+
+import com.github.konradcz2001.medicalappointments.client.ClientRepository;
+import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.exception.MessageType;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
+import com.github.konradcz2001.medicalappointments.leave.LeaveRepository;
+import com.github.konradcz2001.medicalappointments.visit.VisitRepository;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * This is a service class that serves the calendar feeds of doctors and clients in the iCalendar format (RFC 5545).
+ * <p>
+ * A doctor's feed contains their visits and leaves, a client's feed contains their visits, each from PAST_DAYS days ago on.
+ * Every change of a visit or a leave increments the change counter of the affected owners with the touch method,
+ * in the transaction of the change. The counter makes the ETag of the feed and the time of its last change the Last-Modified date,
+ * so a poll of a calendar app that has the current feed already is answered with 304 Not Modified without reading any visit.
+ * Last-Modified has a precision of one second, while the feed can change several times within a second, so If-Modified-Since
+ * only matches a feed that has not changed during or after the second it names.
+ */
+@Service
+public class CalendarService {
+    static final int PAST_DAYS = 90;
+    private static final int MAX_LINE_OCTETS = 75;
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+    private static final DateTimeFormatter LOCAL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UTC_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final CalendarVersionRepository repository;
+    private final VisitRepository visitRepository;
+    private final LeaveRepository leaveRepository;
+    private final DoctorRepository doctorRepository;
+    private final ClientRepository clientRepository;
+
+    CalendarService(final CalendarVersionRepository repository, final VisitRepository visitRepository, final LeaveRepository leaveRepository,
+                    final DoctorRepository doctorRepository, final ClientRepository clientRepository) {
+        this.repository = repository;
+        this.visitRepository = visitRepository;
+        this.leaveRepository = leaveRepository;
+        this.doctorRepository = doctorRepository;
+        this.clientRepository = clientRepository;
+    }
+
+    /**
+     * Records a change of the calendar feed of a doctor or a client.
+     * It has to be called in the transaction that changes their visits or leaves.
+     *
+     * @param owner   whether the feed belongs to a doctor or a client
+     * @param ownerId the ID of the doctor or the client
+     */
+    public void touch(CalendarOwner owner, Long ownerId) {
+        repository.increment(owner.name(), ownerId, LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+    /**
+     * Retrieves the calendar feed of a doctor or a client, unless the client has its current version already.
+     *
+     * @param owner           whether the feed belongs to a doctor or a client
+     * @param id              the ID of the doctor or the client
+     * @param ifNoneMatch     the value of the If-None-Match header, can be null
+     * @param ifModifiedSince the value of the If-Modified-Since header, can be null
+     * @return a ResponseEntity containing the feed, or with a status of 304 Not Modified if the client has it already
+     * @throws ResourceNotFoundException if the doctor or the client with the specified ID is not found
+     */
+    ResponseEntity<String> readCalendar(CalendarOwner owner, Long id, String ifNoneMatch, String ifModifiedSince) {
+        boolean exists = owner == CalendarOwner.DOCTOR ? doctorRepository.existsById(id) : clientRepository.existsById(id);
+        if (!exists)
+            throw new ResourceNotFoundException(owner == CalendarOwner.DOCTOR ? MessageType.DOCTOR : MessageType.CLIENT, id);
+
+        Optional<CalendarVersion> version = repository.findById(new CalendarVersion.Key(owner, id));
+        String eTag = "\"" + owner.name().toLowerCase(Locale.ROOT) + "-" + id + "-" + version.map(CalendarVersion::getVersion).orElse(0L) + "\"";
+        Instant updatedAt = version.map(changed -> changed.getUpdatedAt().toInstant(ZoneOffset.UTC)).orElse(null);
+        Instant lastModified = updatedAt != null ? updatedAt.truncatedTo(ChronoUnit.SECONDS) : null;
+
+        if (notModified(eTag, updatedAt, ifNoneMatch, ifModifiedSince))
+            return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), eTag, lastModified).build();
+
+        LocalDateTime from = LocalDateTime.now().minusDays(PAST_DAYS);
+        List<CalendarEvent> events = owner == CalendarOwner.DOCTOR
+                ? Stream.concat(visitRepository.findAllCalendarEventsByDoctorId(id, from).stream(),
+                                leaveRepository.findAllCalendarEventsByDoctorId(id, from).stream())
+                        .sorted(Comparator.comparing(CalendarEvent::start))
+                        .toList()
+                : visitRepository.findAllCalendarEventsByClientId(id, from);
+
+        return withValidators(ResponseEntity.ok(), eTag, lastModified)
+                .contentType(TEXT_CALENDAR)
+                .body(render(events, lastModified != null ? lastModified : Instant.now()));
+    }
+
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder response, String eTag, Instant lastModified) {
+        response.eTag(eTag).cacheControl(CacheControl.noCache());
+        if (lastModified != null)
+            response.lastModified(lastModified);
+        return response;
+    }
+
+    /**
+     * Evaluates the conditional headers of a request, If-None-Match takes precedence over If-Modified-Since as RFC 9110 requires.
+     * If-Modified-Since matches only if the feed was last changed at least a second before it, a change within the second
+     * it names may have come after the response the date was taken from.
+     */
+    private static boolean notModified(String eTag, Instant updatedAt, String ifNoneMatch, String ifModifiedSince) {
+        if (ifNoneMatch != null)
+            return Arrays.stream(ifNoneMatch.split(",")).map(String::strip)
+                    .anyMatch(tag -> tag.equals(eTag) || tag.equals("W/" + eTag) || tag.equals("*"));
+        if (ifModifiedSince == null || updatedAt == null)
+            return false;
+        try {
+            return !updatedAt.plusSeconds(1).isAfter(ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static String render(List<CalendarEvent> events, Instant stamp) {
+        StringBuilder ics = new StringBuilder();
+        line(ics, "BEGIN:VCALENDAR");
+        line(ics, "VERSION:2.0");
+        line(ics, "PRODID:-//Medical Appointments//Calendar//EN");
+        line(ics, "CALSCALE:GREGORIAN");
+        line(ics, "METHOD:PUBLISH");
+        for (CalendarEvent event : events) {
+            line(ics, "BEGIN:VEVENT");
+            line(ics, "UID:" + event.kind() + "-" + event.id() + "@medical-appointments");
+            line(ics, "DTSTAMP:" + UTC_DATE_TIME.format(stamp));
+            line(ics, "DTSTART:" + LOCAL_DATE_TIME.format(event.start()));
+            line(ics, "DTEND:" + LOCAL_DATE_TIME.format(event.end()));
+            line(ics, "SUMMARY:" + escape(event.summary()));
+            if (event.description() != null && !event.description().isEmpty())
+                line(ics, "DESCRIPTION:" + escape(event.description()));
+            line(ics, "STATUS:" + (event.isCancelled() ? "CANCELLED" : "CONFIRMED"));
+            line(ics, "END:VEVENT");
+        }
+        line(ics, "END:VCALENDAR");
+        return ics.toString();
+    }
+
+    /**
+     * Appends a content line, folded into lines of at most MAX_LINE_OCTETS octets of UTF-8 without splitting a character.
+     */
+    private static void line(StringBuilder ics, String content) {
+        int octets = 0;
+        for (int i = 0; i < content.length(); ) {
+            int codePoint = content.codePointAt(i);
+            int size = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (octets + size > MAX_LINE_OCTETS) {
+                ics.append("\r\n ");
+                octets = 1;
+            }
+            ics.appendCodePoint(codePoint);
+            octets += size;
+            i += Character.charCount(codePoint);
+        }
+        ics.append("\r\n");
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n")
+                .replace("\r", "");
+    }
+}
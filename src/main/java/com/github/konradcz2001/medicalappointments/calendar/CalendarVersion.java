@@ -0,0 +1,58 @@
+package com.github.konradcz2001.medicalappointments.calendar;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * This code snippet represents the "CalendarVersion" class.
+ * <p>
+ * The "CalendarVersion" class is an entity class that represents the change counter of the calendar feed of a doctor or a client.
+ * It is mapped to the "calendar_versions" table in the database.
+ * <p>
+ * The class has the following attributes:
+ * - ownerType: Whether the feed belongs to a doctor or a client.
+ * - ownerId: The ID of the doctor or the client.
+ * - version: The number of changes of the feed, used in its ETag.
+ * - updatedAt: The time of the last change in UTC, used as its Last-Modified date.
+ * <p>
+ * Rows are created and incremented by CalendarVersionRepository.increment only, an owner without a row has not changed yet.
+ */
+@Entity
+@Table(name = "calendar_versions")
+@IdClass(CalendarVersion.Key.class)
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarVersion {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "owner_type", nullable = false)
+    CalendarOwner ownerType;
+    @Id
+    @Column(name = "owner_id", nullable = false)
+    Long ownerId;
+    @Column(name = "version", nullable = false)
+    long version;
+    @Column(name = "updated_at", nullable = false)
+    LocalDateTime updatedAt;
+
+    /**
+     * The composite identifier of a CalendarVersion, made of the type and the ID of the owner of the feed.
+     */
+    @Data
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        CalendarOwner ownerType;
+        Long ownerId;
+    }
+}
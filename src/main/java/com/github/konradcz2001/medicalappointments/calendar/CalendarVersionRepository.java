@@ -0,0 +1,22 @@
+package com.github.konradcz2001.medicalappointments.calendar;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * This is a Spring Data JPA repository of the change counters of calendar feeds.
+ * The increment method creates the counter of an owner on their first change and increments it on every following one
+ * in a single upsert, which locks only the row of that owner until the surrounding transaction commits.
+ */
+@Repository
+interface CalendarVersionRepository extends JpaRepository<CalendarVersion, CalendarVersion.Key> {
+    @Modifying
+    @Query(value = "INSERT INTO calendar_versions (owner_type, owner_id, version, updated_at) VALUES (:ownerType, :ownerId, 1, :updatedAt) " +
+            "ON CONFLICT (owner_type, owner_id) DO UPDATE SET version = calendar_versions.version + 1, updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    void increment(@Param("ownerType") String ownerType, @Param("ownerId") Long ownerId, @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -5,14 +5,21 @@ import com.github.konradcz2001.medicalappointments.client.DTO.ClientDTOMapper;
 import com.github.konradcz2001.medicalappointments.client.DTO.ClientReviewDTO;
 import com.github.konradcz2001.medicalappointments.doctor.Doctor;
 import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.doctor.ranking.TopDoctorsIndex;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.DuplicateEmailException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.EmptyPageException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongReviewException;
 import com.github.konradcz2001.medicalappointments.review.DTO.ReviewDTO;
 import com.github.konradcz2001.medicalappointments.review.DTO.ReviewDTOMapper;
+import com.github.konradcz2001.medicalappointments.review.DoctorRatingStatsRepository;
+import com.github.konradcz2001.medicalappointments.review.Rating;
 import com.github.konradcz2001.medicalappointments.review.Review;
 import com.github.konradcz2001.medicalappointments.review.ReviewRepository;
 import com.github.konradcz2001.medicalappointments.security.DTO.ChangePasswordDTO;
+import com.github.konradcz2001.medicalappointments.security.UserAccountRepository;
+import com.github.konradcz2001.medicalappointments.security.UserCredentialsChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -38,6 +45,8 @@ import static com.github.konradcz2001.medicalappointments.exception.MessageType.
  * <p>
  * The methods in this class handle various exceptions, such as EmptyPageException, ResourceNotFoundException, and WrongReviewException, and return appropriate responses using ResponseEntity.
  * The methods are annotated with appropriate JavaDoc comments to describe their functionality, parameters, and return values.
+ * Password changes and deletions of clients with an entry in the user directory publish a UserCredentialsChangedEvent, revoking the tokens issued to them before and evicting them from the UserDetailsCache.
+ * Creating, deleting and changing the password of a client also updates their entry in the user directory.
  * <p>
  * This class is annotated with @Service to indicate that it is a service component in the Spring framework.
  */
@@ -49,15 +58,23 @@ class ClientService {
     private final DoctorRepository doctorRepository;
     private final ReviewDTOMapper reviewDTOMapper;
     private final PasswordEncoder passwordEncoder;
+    private final DoctorRatingStatsRepository ratingStatsRepository;
+    private final TopDoctorsIndex topDoctorsIndex;
+    private final UserAccountRepository userAccountRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
-    ClientService(ClientRepository repository, ReviewRepository reviewRepository, ClientDTOMapper dtoMapper, DoctorRepository doctorRepository, ReviewDTOMapper reviewDTOMapper, PasswordEncoder passwordEncoder) {
+    ClientService(ClientRepository repository, ReviewRepository reviewRepository, ClientDTOMapper dtoMapper, DoctorRepository doctorRepository, ReviewDTOMapper reviewDTOMapper, PasswordEncoder passwordEncoder, DoctorRatingStatsRepository ratingStatsRepository, TopDoctorsIndex topDoctorsIndex, UserAccountRepository userAccountRepository, ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.reviewRepository = reviewRepository;
         this.dtoMapper = dtoMapper;
         this.doctorRepository = doctorRepository;
         this.reviewDTOMapper = reviewDTOMapper;
         this.passwordEncoder = passwordEncoder;
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.topDoctorsIndex = topDoctorsIndex;
+        this.userAccountRepository = userAccountRepository;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -143,12 +160,15 @@ class ClientService {
      *
      * @param client the Client object representing the client to be created
      * @return a ResponseEntity containing the created ClientDTO object
+     * @throws DuplicateEmailException if a client or a doctor with the email already exists
      */
     @Transactional
     ResponseEntity<ClientDTO> createClient(Client client){
+        userAccountRepository.checkAvailable(client.getEmail());
         client.setId(null);
         client.setReviews(new ArrayList<>());
         Client created = repository.save(client);
+        userAccountRepository.add(created);
         return ResponseEntity.created(URI.create("/" + created.getId())).body(dtoMapper.mapToDTO(created));
     }
 
@@ -180,7 +200,8 @@ class ClientService {
      * <p>
      * This method deletes a client from the repository based on the provided ID. The method first retrieves the client from the repository
      * using the findById method, passing the ID as a parameter. If the client is found, it is deleted from the repository using the deleteById
-     * method. Finally, a ResponseEntity with a status of 204 No Content is returned to indicate a successful operation.
+     * method, together with their reviews, which are first subtracted from the rating statistics of the reviewed doctors.
+     * Finally, a ResponseEntity with a status of 204 No Content is returned to indicate a successful operation.
      *
      * @param id the ID of the client to delete
      * @return a ResponseEntity with a status of 204 No Content
@@ -190,7 +211,11 @@ class ClientService {
     ResponseEntity<?> deleteClient(Long id){
         return repository.findById(id)
                 .map(client -> {
+                    removeRatings(client);
                     repository.deleteById(id);
+                    if (userAccountRepository.remove(client)) {
+                        eventPublisher.publishEvent(new UserCredentialsChangedEvent(client.getEmail()));
+                    }
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(CLIENT, id));
@@ -214,6 +239,9 @@ class ClientService {
                     }
                     client.setPassword(passwordEncoder.encode(dto.newPassword()));
                     repository.save(client);
+                    if (userAccountRepository.changePassword(client)) {
+                        eventPublisher.publishEvent(new UserCredentialsChangedEvent(client.getEmail()));
+                    }
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(CLIENT, id));
@@ -235,7 +263,11 @@ class ClientService {
                     if (!passwordEncoder.matches(password, client.getPassword())) {
                         throw new IllegalArgumentException("Invalid password");
                     }
+                    removeRatings(client);
                     repository.deleteById(id);
+                    if (userAccountRepository.remove(client)) {
+                        eventPublisher.publishEvent(new UserCredentialsChangedEvent(client.getEmail()));
+                    }
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(CLIENT, id));
@@ -248,7 +280,7 @@ class ClientService {
      * ReviewDTO object. The method first checks if the client and doctor exist in the repository. If the client already has
      * a review for the same doctor, a WrongReviewException is thrown. Otherwise, a new Review object is created and mapped
      * from the ReviewDTO. The client, doctor, and current date are set for the review. The review is then added to the client's
-     * list of reviews and saved in the repository. Finally, a ResponseEntity with a status of 204 No Content is returned to
+     * list of reviews and saved in the repository, and its rating is added to the rating statistics of the doctor. Finally, a ResponseEntity with a status of 204 No Content is returned to
      * indicate a successful operation.
      *
      * @param clientId the ID of the client
@@ -279,6 +311,7 @@ class ClientService {
                     //reviewRepository.save(review);
                     client.addReview(review);
                     repository.save(client);
+                    addRating(doctorId, review.getRating());
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(CLIENT, clientId));
@@ -288,9 +321,10 @@ class ClientService {
      * Updates a review for a client.
      * <p>
      * This method updates the review for a client with the specified client ID. It first checks if the client exists in the repository.
-     * If the client exists, it searches for the review with the specified review ID in the client's list of reviews.
+     * If the client exists, it reads and locks the review of the client with the specified review ID, so that concurrent
+     * updates of the review apply their rating changes to the statistics one after another, each from the rating left by the previous one.
      * If the review is found, it updates the review's details with the information provided in the 'toUpdate' parameter.
-     * The updated review is then saved in the review repository.
+     * The updated review is then saved in the review repository, and if its rating has changed, the rating statistics of the doctor are updated.
      * If the review is not found, a WrongReviewException is thrown.
      * If the client is not found, a ResourceNotFoundException is thrown.
      *
@@ -303,10 +337,14 @@ class ClientService {
     @Transactional
     ResponseEntity<?> updateReview(Long clientId, ReviewDTO toUpdate){
         return repository.findById(clientId)
-                .map(client -> client.getReviews().stream()
-                        .filter(review -> review.getId().equals(toUpdate.id())).findAny()
+                .map(client -> reviewRepository.findByIdAndClientIdForUpdate(toUpdate.id(), clientId)
                         .map(review -> {
+                            Rating previous = review.getRating();
                             reviewRepository.save(reviewDTOMapper.mapFromDTO(toUpdate, review));
+                            if (previous != review.getRating()) {
+                                removeRating(review.getDoctor().getId(), previous);
+                                addRating(review.getDoctor().getId(), review.getRating());
+                            }
                             return ResponseEntity.noContent().build();
                         }).orElseThrow(() -> new WrongReviewException("Client with id = " + clientId + " does not have a review with id = " + toUpdate.id())))
                 .orElseThrow(() -> new ResourceNotFoundException(CLIENT, clientId));
@@ -316,8 +354,8 @@ class ClientService {
      * Removes a review from a client.
      * <p>
      * This method removes a review from a client by finding the client with the given client ID and then
-     * searching for the review with the given review ID in the client's list of reviews. If the review is found,
-     * it is removed from the list and the client is saved back to the repository. If the review is not found,
+     * reading and locking the review of the client with the given review ID, so a review removed concurrently is not subtracted twice. If the review is found,
+     * it is removed from the list, the client is saved back to the repository and its rating is subtracted from the rating statistics of the doctor. If the review is not found,
      * a WrongReviewException is thrown with an appropriate error message. If the client is not found,
      * a ResourceNotFoundException is thrown with an appropriate error message.
      *
@@ -330,11 +368,11 @@ class ClientService {
     @Transactional
     ResponseEntity<?> removeReview(Long clientId, Long reviewId){
         return repository.findById(clientId)
-                .map(client -> client.getReviews().stream()
-                        .filter(review -> review.getId().equals(reviewId)).findAny()
+                .map(client -> reviewRepository.findByIdAndClientIdForUpdate(reviewId, clientId)
                         .map(review -> {
                             client.removeReview(review);
                             repository.save(client);
+                            removeRating(review.getDoctor().getId(), review.getRating());
                             return ResponseEntity.noContent().build();
                         })
                         .orElseThrow(() -> new WrongReviewException("Client with id = " + clientId + " does not have a review with id = " + reviewId)))
@@ -358,4 +396,27 @@ class ClientService {
 
         return ResponseEntity.ok(clients);
     }
+    /**
+     * Subtracts the ratings of all reviews of a client from the rating statistics of the reviewed doctors,
+     * before the reviews are deleted together with the client.
+     */
+    private void removeRatings(Client client) {
+        client.getReviews().forEach(review -> removeRating(review.getDoctor().getId(), review.getRating()));
+    }
+
+    /**
+     * Adds a rating to the rating statistics of the doctor and, once the transaction commits, to their place on the leaderboards.
+     */
+    private void addRating(Long doctorId, Rating rating) {
+        ratingStatsRepository.add(doctorId, rating);
+        topDoctorsIndex.addRating(doctorId, rating);
+    }
+
+    /**
+     * Subtracts a rating from the rating statistics of the doctor and, once the transaction commits, from their place on the leaderboards.
+     */
+    private void removeRating(Long doctorId, Rating rating) {
+        ratingStatsRepository.remove(doctorId, rating);
+        topDoctorsIndex.removeRating(doctorId, rating);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.github.konradcz2001.medicalappointments.common;
+
+/**
+ * How the total number of resources is computed for a paged listing, chosen by the client with the "count" parameter.
+ * EXACT runs a count query and returns a Page, it is the default.
+ * ESTIMATED returns a Page whose total comes from the planner statistics of the table instead of a count query,
+ * it is supported by unfiltered listings only, filtered ones reject it with a WrongCountModeException.
+ * NONE returns a Slice, which only tells whether there is a next page, without any count.
+ */
+public enum CountMode {
+    EXACT,
+    ESTIMATED,
+    NONE,
+}
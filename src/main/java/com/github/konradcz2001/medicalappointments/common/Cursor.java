@@ -0,0 +1,55 @@
+package com.github.konradcz2001.medicalappointments.common;
+
+import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * A position in a listing ordered by date and ID, newest first, used for keyset pagination.
+ * <p>
+ * The next page is read with a (date, id) &lt; (cursor.date, cursor.id) condition served by a composite index,
+ * so every page costs the same regardless of how deep it is. Clients get the cursor as an opaque URL-safe string.
+ *
+ * @param date the date of the last row of the previous page
+ * @param id   the ID of the last row of the previous page
+ */
+public record Cursor(LocalDateTime date, Long id) {
+    /**
+     * The position after the end of time, used to read the first page.
+     */
+    public static final Cursor FIRST = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    /**
+     * Decodes a cursor received from a client.
+     *
+     * @param cursor the encoded cursor, empty or null for the first page
+     * @return the decoded cursor
+     * @throws WrongCursorException if the cursor cannot be decoded
+     */
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return FIRST;
+
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 2)
+                throw new WrongCursorException("The cursor is not valid");
+            return new Cursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new WrongCursorException("The cursor is not valid");
+        }
+    }
+
+    /**
+     * Encodes the cursor to be sent to a client.
+     *
+     * @return the cursor as an opaque URL-safe string
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((date + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.konradcz2001.medicalappointments.common;
+
+import java.util.List;
+
+/**
+ * A page of a listing read with keyset pagination.
+ *
+ * @param content the resources of the page
+ * @param next    the cursor of the next page, null if this is the last page
+ * @param <T>     the type of the resources
+ */
+public record CursorPage<T>(List<T> content, String next) {
+}
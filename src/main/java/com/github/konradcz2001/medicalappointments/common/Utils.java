@@ -2,8 +2,16 @@ package com.github.konradcz2001.medicalappointments.common;
 
 import com.github.konradcz2001.medicalappointments.exception.exceptions.EmptyPageException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.List;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -13,8 +21,22 @@ import java.util.function.Supplier;
  * It retrieves all the resources from the suppliedResources using the get() method and maps them to DTOs using the dtoMapper.
  * If the resulting Page is empty, it throws an EmptyPageException.
  * Otherwise, it returns a ResponseEntity object with the mapped resources.
+ * <p>
+ * The "returnSliceResponse" method does the same for a Slice, which is read without a count query.
+ * A Page is a Slice too, so one endpoint can return either depending on the CountMode asked for.
+ * The "withEstimatedTotal" method turns a Slice into a Page with a total estimated from the planner statistics,
+ * corrected so that it is never smaller than the number of resources already read, and exact on the last page.
+ * <p>
+ * The "returnCursorResponse" method does the same for keyset pagination. It reads one resource more than the page size,
+ * at most MAX_CURSOR_PAGE_SIZE, to tell whether there is a next page without a count query,
+ * and returns the page with the cursor of its last resource as the cursor of the next page.
+ * <p>
+ * The "afterCommit" method runs an action once the current transaction commits, or immediately when there is none.
+ * It is used to keep in-memory indexes in line with the database without exposing changes that are rolled back.
  */
 public class Utils {
+    public static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     public static <T, S> ResponseEntity<Page<S>> returnResponse(Supplier<Page<T>> suppliedResources, DTOMapper<S, T> dtoMapper) {
         var all = suppliedResources.get()
                 .map(dtoMapper::mapToDTO);
@@ -24,4 +46,52 @@ public class Utils {
 
         return ResponseEntity.ok(all);
     }
+
+    public static <T, S> ResponseEntity<Slice<S>> returnSliceResponse(Supplier<? extends Slice<T>> suppliedResources, DTOMapper<S, T> dtoMapper) {
+        Slice<S> all = suppliedResources.get()
+                .map(dtoMapper::mapToDTO);
+
+        if(all.isEmpty())
+            throw new EmptyPageException();
+
+        return ResponseEntity.ok(all);
+    }
+
+    public static <T> Page<T> withEstimatedTotal(Slice<T> slice, long estimatedTotal) {
+        long read = (slice.getPageable().isPaged() ? slice.getPageable().getOffset() : 0) + slice.getNumberOfElements();
+        long total = slice.hasNext() ? Math.max(estimatedTotal, read + 1) : read;
+
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+
+    public static <T, S> ResponseEntity<CursorPage<S>> returnCursorResponse(int size, Function<Pageable, List<T>> suppliedResources,
+                                                                          Function<T, Cursor> cursorOf, DTOMapper<S, T> dtoMapper) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        List<T> resources = suppliedResources.apply(PageRequest.of(0, pageSize + 1));
+
+        if(resources.isEmpty())
+            throw new EmptyPageException();
+
+        String next = null;
+        if(resources.size() > pageSize) {
+            resources = resources.subList(0, pageSize);
+            next = cursorOf.apply(resources.get(pageSize - 1)).encode();
+        }
+
+        return ResponseEntity.ok(new CursorPage<>(resources.stream().map(dtoMapper::mapToDTO).toList(), next));
+    }
+
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
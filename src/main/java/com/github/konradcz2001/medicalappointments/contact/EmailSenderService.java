@@ -1,40 +1,33 @@
 package com.github.konradcz2001.medicalappointments.contact;
 
+import com.github.konradcz2001.medicalappointments.email.EmailOutbox;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 class EmailSenderService {
-    private final JavaMailSender mailSender;
-
-    @Value("${spring.mail.username}")
-    String fromMail;
+    private final EmailOutbox emailOutbox;
 
     @Value("${spring.mail.to.username}")
     String toMail;
 
     /**
-     * Sends an email using the provided EmailStructure object.
-     * Constructs a SimpleMailMessage with the email subject, user email, and body.
-     * Sets the sender's email address, recipient's email address, subject, and message content.
-     * Sends the email using the configured mail sender.
+     * Queues an email using the provided EmailStructure object.
+     * Constructs the message with the email subject, user email, and body, addressed to the recipient's email address.
+     * Writes the message to the EmailOutbox, from which it is sent in the background, so the request never waits for the mail server.
      *
      * @param emailStructure the EmailStructure object containing the email details
-     * @return ResponseEntity with status 200 (OK) indicating the email was sent successfully
+     * @return ResponseEntity with status 202 (Accepted) indicating the email was queued for sending
      */
+    @Transactional
     ResponseEntity<?> sendEmail(EmailStructure emailStructure) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromMail);
-        message.setTo(toMail);
-        message.setSubject(emailStructure.subject());
-        message.setText("User e-mail: " + emailStructure.userEmail() + "\n\nMessage: \n" + emailStructure.body());
-        mailSender.send(message);
+        emailOutbox.enqueue(toMail, emailStructure.subject(),
+                "User e-mail: " + emailStructure.userEmail() + "\n\nMessage: \n" + emailStructure.body());
 
-        return ResponseEntity.ok().build();
+        return ResponseEntity.accepted().build();
     }
 }
@@ -1,5 +1,6 @@
 package com.github.konradcz2001.medicalappointments.doctor.DTO;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.github.konradcz2001.medicalappointments.doctor.Address;
 import com.github.konradcz2001.medicalappointments.doctor.schedule.Schedule;
 import com.github.konradcz2001.medicalappointments.security.Role;
@@ -11,7 +12,10 @@ import java.util.Set;
 
 /**
  * Represents a data transfer object for a doctor, containing information such as id, first name, last name, email, role, verification status, avatar, profile description,
- * specializations, address, types of visits, and schedule.
+ * specializations, address, types of visits, schedule and rating.
+ * The avatar is only accepted in requests, responses carry the versioned avatarUrl and avatarThumbnailUrl
+ * served by GET /doctors/{id}/avatar and GET /doctors/{id}/avatar/thumbnail instead.
+ * The rating is read from the aggregated rating statistics of the doctor and is only returned in responses.
  */
 public record DoctorDTO(Long id,
                         @NotBlank(message = "First name must not be empty")
@@ -23,11 +27,18 @@ public record DoctorDTO(Long id,
                         String email,
                         Role role,
                         boolean isVerified,
+                        @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
                         byte[] avatar,
+                        @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+                        String avatarUrl,
+                        @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+                        String avatarThumbnailUrl,
                         @Size(max = 10000, message = "Maximum length is 10000 characters")
                         String profileDescription,
                         Set<DoctorSpecializationDTO> specializations,
                         Address address,
                         List<DoctorTypeOfVisitDTO> typesOfVisits,
-                        Schedule schedule) {
+                        Schedule schedule,
+                        @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+                        DoctorRatingDTO rating) {
 }
@@ -2,13 +2,17 @@ package com.github.konradcz2001.medicalappointments.doctor.DTO;
 
 
 import com.github.konradcz2001.medicalappointments.common.DTOMapper;
+import com.github.konradcz2001.medicalappointments.doctor.Address;
 import com.github.konradcz2001.medicalappointments.doctor.Doctor;
+import com.github.konradcz2001.medicalappointments.doctor.DoctorSummary;
 import com.github.konradcz2001.medicalappointments.leave.Leave;
+import com.github.konradcz2001.medicalappointments.review.DoctorRatingStats;
 import com.github.konradcz2001.medicalappointments.review.Review;
 import com.github.konradcz2001.medicalappointments.specialization.Specialization;
 import com.github.konradcz2001.medicalappointments.visit.type.TypeOfVisit;
 import org.springframework.stereotype.Service;
 
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -16,7 +20,8 @@ import java.util.stream.Collectors;
  * It is a service class used for mapping between Doctor and DoctorDTO objects.
  * <p>
  * The class provides methods to map a Doctor object to a DoctorDTO object and vice versa.
- * It also provides additional methods to map Leave, Specialization, TypeOfVisit and Review objects to their respective DTOs.
+ * It also provides additional methods to map Leave, Specialization, TypeOfVisit and Review objects to their respective DTOs,
+ * and DoctorSummary projections to the DoctorSummaryDTO used in doctor lists.
  * <p>
  * Note: The class is annotated with @Service to indicate that it is a Spring service component.
  */
@@ -25,6 +30,17 @@ public class DoctorDTOMapper implements DTOMapper<DoctorDTO, Doctor> {
 
     @Override
     public DoctorDTO mapToDTO(Doctor source) {
+        return mapToDTO(source, null);
+    }
+
+    /**
+     * Maps a doctor to a DoctorDTO together with their aggregated rating.
+     *
+     * @param source the doctor
+     * @param ratingStats the rating statistics of the doctor, null if the doctor has never been reviewed
+     * @return the DoctorDTO
+     */
+    public DoctorDTO mapToDTO(Doctor source, DoctorRatingStats ratingStats) {
         return new DoctorDTO(
                 source.getId(),
                 source.getFirstName(),
@@ -32,7 +48,9 @@ public class DoctorDTOMapper implements DTOMapper<DoctorDTO, Doctor> {
                 source.getEmail(),
                 source.getRole(),
                 source.isVerified(),
-                source.getAvatar(),
+                null,
+                avatarUrl(source.getId(), source.getAvatarHash(), "/avatar"),
+                avatarUrl(source.getId(), source.getAvatarHash(), "/avatar/thumbnail"),
                 source.getProfileDescription(),
                 source.getSpecializations().stream().map(specialization ->
                         new DoctorSpecializationDTO(specialization.getId(), specialization.getSpecialization()))
@@ -41,21 +59,46 @@ public class DoctorDTOMapper implements DTOMapper<DoctorDTO, Doctor> {
                 source.getTypesOfVisits().stream().map(type ->
                                 new DoctorTypeOfVisitDTO(type.getId(), type.getType(), type.getPrice(), type.getCurrency(), type.getDuration(), type.isActive()))
                         .collect(Collectors.toList()),
-                source.getSchedule()
+                source.getSchedule(),
+                mapToDoctorRatingDTO(ratingStats)
         );
     }
 
+    public DoctorRatingDTO mapToDoctorRatingDTO(DoctorRatingStats ratingStats) {
+        DoctorRatingStats stats = ratingStats != null ? ratingStats : new DoctorRatingStats();
+        return new DoctorRatingDTO(stats.getAverageRating(), stats.getReviewCount(), stats.histogram());
+    }
+
     @Override
     public Doctor mapFromDTO(DoctorDTO sourceDTO, Doctor target) {
         target.setFirstName(sourceDTO.firstName());
         target.setLastName(sourceDTO.lastName());
-        target.setAvatar(sourceDTO.avatar());
         target.setProfileDescription(sourceDTO.profileDescription());
         target.setAddress(sourceDTO.address());
 
         return target;
     }
 
+    public DoctorSummaryDTO mapToDoctorSummaryDTO(DoctorSummary summary, Set<DoctorSpecializationDTO> specializations) {
+        return new DoctorSummaryDTO(
+                summary.id(),
+                summary.firstName(),
+                summary.lastName(),
+                summary.email(),
+                summary.isVerified(),
+                avatarUrl(summary.id(), summary.avatarHash(), "/avatar"),
+                avatarUrl(summary.id(), summary.avatarHash(), "/avatar/thumbnail"),
+                new Address(summary.country(), summary.state(), summary.city(), summary.street(), summary.houseNumber(), summary.zipCode()),
+                specializations,
+                summary.averageRating(),
+                summary.reviewCount()
+        );
+    }
+
+    private static String avatarUrl(Long id, String avatarHash, String path) {
+        return avatarHash == null ? null : "/doctors/" + id + path + "?v=" + avatarHash;
+    }
+
     public DoctorLeaveDTO mapToDoctorLeaveDTO(Leave leave) {
         return new DoctorLeaveDTO(
                 leave.getId(),
@@ -0,0 +1,21 @@
+package com.github.konradcz2001.medicalappointments.doctor.DTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents a data transfer object for the first free slot of a doctor.
+ * <p>
+ *  doctorId: the unique identifier of the doctor
+ *  firstName: the first name of the doctor
+ *  lastName: the last name of the doctor
+ *  typeOfVisitId: the identifier of the doctor's type of visit the slot was found for
+ *  start: the time at which the visit can start
+ *  end: the time at which the visit would end
+ */
+public record DoctorEarliestSlotDTO(Long doctorId,
+                                    String firstName,
+                                    String lastName,
+                                    Long typeOfVisitId,
+                                    LocalDateTime start,
+                                    LocalDateTime end) {
+}
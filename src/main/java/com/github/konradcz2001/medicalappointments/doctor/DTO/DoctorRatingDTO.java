@@ -0,0 +1,15 @@
+package com.github.konradcz2001.medicalappointments.doctor.DTO;
+
+import com.github.konradcz2001.medicalappointments.review.Rating;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Represents a data transfer object for the aggregated rating of a doctor, containing the average rating rounded to two decimal places,
+ * null if the doctor has no reviews, the number of reviews and the number of reviews with each rating.
+ */
+public record DoctorRatingDTO(BigDecimal averageRating,
+                              long reviewCount,
+                              Map<Rating, Long> histogram) {
+}
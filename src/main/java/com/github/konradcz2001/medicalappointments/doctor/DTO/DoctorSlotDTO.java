@@ -0,0 +1,12 @@
+package com.github.konradcz2001.medicalappointments.doctor.DTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents a data transfer object for a free slot in a doctor's calendar.
+ * <p>
+ *  start: the time at which a visit can start
+ *  end: the time at which the visit would end
+ */
+public record DoctorSlotDTO(LocalDateTime start, LocalDateTime end) {
+}
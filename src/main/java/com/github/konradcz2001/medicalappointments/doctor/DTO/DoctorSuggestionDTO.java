@@ -0,0 +1,13 @@
+package com.github.konradcz2001.medicalappointments.doctor.DTO;
+
+import com.github.konradcz2001.medicalappointments.doctor.search.SuggestionType;
+
+/**
+ * Represents a data transfer object for a typeahead suggestion of the doctor search.
+ * <p>
+ *  text: the completed first name, last name, city or specialization
+ *  type: the field the text comes from
+ *  doctors: the number of doctors with this value
+ */
+public record DoctorSuggestionDTO(String text, SuggestionType type, int doctors) {
+}
@@ -0,0 +1,24 @@
+package com.github.konradcz2001.medicalappointments.doctor.DTO;
+
+import com.github.konradcz2001.medicalappointments.doctor.Address;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Represents a data transfer object for a doctor shown in doctor lists, containing information such as id, first name, last name, email,
+ * verification status, avatar URLs, address, specializations, average rating and number of reviews.
+ * The full DoctorDTO, with types of visits and schedule, is returned by GET /doctors/{id} only.
+ */
+public record DoctorSummaryDTO(Long id,
+                               String firstName,
+                               String lastName,
+                               String email,
+                               boolean isVerified,
+                               String avatarUrl,
+                               String avatarThumbnailUrl,
+                               Address address,
+                               Set<DoctorSpecializationDTO> specializations,
+                               BigDecimal averageRating,
+                               long reviewCount) {
+}
@@ -27,8 +27,11 @@ import java.util.Set;
  * The "Doctor" class has the following attributes:
  * - address: An embedded object representing the address of the doctor.
  * - isVerified: A boolean indicating whether the doctor is verified.
- * - avatar: A byte array representing the avatar of the doctor.
+ * - avatar: A byte array with an avatar uploaded before avatars were kept in the AvatarStore, null once it has been moved there.
+ * - avatarHash: The SHA-256 of the avatar, its name in the AvatarStore, also used to version and cache the avatar.
+ * - avatarContentType: The content type of the avatar.
  * - profileDescription: A string representing the profile description of the doctor.
+ * - searchDocument: A lowercased concatenation of the name and address, generated by the database and used for searching.
  * - reviews: A list of reviews associated with the doctor.
  * - specializations: A set of specializations that the doctor has.
  * - leaves: A list of leaves taken by the doctor.
@@ -52,9 +55,15 @@ public class Doctor extends User {
     boolean isVerified;
     @Column(name = "avatar")
     byte[] avatar;
+    @Column(name = "avatar_hash")
+    String avatarHash;
+    @Column(name = "avatar_content_type")
+    String avatarContentType;
     @Column(name = "profile_description")
     @Size(max = 10000, message = "Maximum length is 10000 characters")
     String profileDescription;
+    @Column(name = "search_document", insertable = false, updatable = false)
+    String searchDocument;
 
     @OneToMany(mappedBy = "doctor")
     List<Review> reviews = new ArrayList<>();
@@ -97,5 +106,4 @@ public class Doctor extends User {
         typesOfVisits.remove(type);
     }
 
-
 }
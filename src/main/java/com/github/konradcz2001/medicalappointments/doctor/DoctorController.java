@@ -8,11 +8,18 @@ import jakarta.annotation.security.PermitAll;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -34,14 +41,14 @@ class DoctorController {
      * Retrieves all doctors with pagination.
      *
      * @param pageable the pagination information
-     * @return the ResponseEntity with the page of DoctorDTOs
+     * @return the ResponseEntity with the page of DoctorSummaryDTOs
      */
     @Operation(summary = "Retrieves all doctors with pagination and parameter.",
             description = "All these parameters are not required. Swagger does not distinguish between individual endpoints. For more details, see the code."
     )
     @GetMapping
     @PermitAll
-    ResponseEntity<Page<DoctorDTO>> readAll(Pageable pageable){
+    ResponseEntity<Page<DoctorSummaryDTO>> readAll(Pageable pageable){
         return service.readAll(pageable);
     }
 
@@ -63,12 +70,12 @@ class DoctorController {
      *
      * @param firstName the first name of the doctors to retrieve
      * @param pageable  the pagination information
-     * @return a ResponseEntity containing a Page of DoctorDTO objects
+     * @return a ResponseEntity containing a Page of DoctorSummaryDTO objects
      */
     //@Operation(summary = "Retrieves all doctors with the given first name.")
     @GetMapping(params = "firstName")
     @PreAuthorize("hasAuthority('ADMIN')")
-    ResponseEntity<Page<DoctorDTO>> readAllByFirstName(@RequestParam String firstName, Pageable pageable){
+    ResponseEntity<Page<DoctorSummaryDTO>> readAllByFirstName(@RequestParam String firstName, Pageable pageable){
         return service.readAllByFirstName(firstName, pageable);
     }
 
@@ -77,12 +84,12 @@ class DoctorController {
      *
      * @param lastName the last name of the doctors to retrieve
      * @param pageable the pagination information
-     * @return a ResponseEntity containing a page of DoctorDTO objects
+     * @return a ResponseEntity containing a page of DoctorSummaryDTO objects
      */
     //@Operation(summary = "Retrieves all doctors with the given last name.")
     @GetMapping(params = "lastName")
     @PreAuthorize("hasAuthority('ADMIN')")
-    ResponseEntity<Page<DoctorDTO>> readAllByLastName(@RequestParam String lastName, Pageable pageable){
+    ResponseEntity<Page<DoctorSummaryDTO>> readAllByLastName(@RequestParam String lastName, Pageable pageable){
         return service.readAllByLastName(lastName, pageable);
     }
 
@@ -91,12 +98,12 @@ class DoctorController {
      *
      * @param specialization the specialization to filter the doctors by
      * @param pageable       the pagination information
-     * @return a ResponseEntity containing a page of DoctorDTO objects
+     * @return a ResponseEntity containing a page of DoctorSummaryDTO objects
      */
     //@Operation(summary = "Retrieves a page of doctors based on the specified specialization.")
     @GetMapping(params = "specialization")
     @PermitAll
-    ResponseEntity<Page<DoctorDTO>> readAllBySpecialization(@RequestParam String specialization, Pageable pageable){
+    ResponseEntity<Page<DoctorSummaryDTO>> readAllBySpecialization(@RequestParam String specialization, Pageable pageable){
         return service.readAllBySpecialization(specialization, pageable);
     }
 
@@ -105,15 +112,63 @@ class DoctorController {
      *
      * @param date     The date for which to retrieve available doctors.
      * @param pageable The pagination information.
-     * @return A ResponseEntity containing a Page of DoctorDTO objects representing the available doctors.
+     * @return A ResponseEntity containing a Slice of DoctorSummaryDTO objects representing the available doctors, without a total.
      */
     @Operation(summary = "Retrieves all available doctors on a specific date.")
     @GetMapping(path = "/available", params = "date")
     @PreAuthorize("hasAuthority('ADMIN')")
-    ResponseEntity<Page<DoctorDTO>> readAllAvailableByDate(@RequestParam LocalDateTime date, Pageable pageable){
+    ResponseEntity<Slice<DoctorSummaryDTO>> readAllAvailableByDate(@RequestParam LocalDateTime date, Pageable pageable){
         return service.readAllAvailableByDate(date, pageable);
     }
 
+    /**
+     * Retrieves the free slots of a doctor for a type of visit within a date range.
+     *
+     * @param id          the ID of the doctor
+     * @param from        the first day of the range
+     * @param to          the last day of the range (inclusive)
+     * @param typeOfVisit the ID of the doctor's type of visit
+     * @return a ResponseEntity containing the list of free slots ordered by start time
+     */
+    @Operation(summary = "Retrieves the free slots of a doctor for a type of visit within a date range.")
+    @GetMapping(path = "/{id}/slots", params = {"from", "to", "typeOfVisit"})
+    @PermitAll
+    ResponseEntity<List<DoctorSlotDTO>> readAllSlots(@PathVariable Long id, @RequestParam LocalDate from, @RequestParam LocalDate to, @RequestParam Long typeOfVisit){
+        return service.readAllSlots(id, from, to, typeOfVisit);
+    }
+
+    /**
+     * Retrieves the doctors of a specialization with the earliest free slot for a type of visit.
+     *
+     * @param specialization the name of the specialization
+     * @param typeOfVisit    the name of the type of visit
+     * @param from           the earliest acceptable start of the visit, now if not given
+     * @param limit          the maximum number of doctors to return
+     * @return a ResponseEntity containing the first free slot of each doctor, ordered by start time
+     */
+    @Operation(summary = "Retrieves the doctors of a specialization with the earliest free slot for a type of visit.")
+    @GetMapping(path = "/earliest-available", params = {"specialization", "typeOfVisit"})
+    @PermitAll
+    ResponseEntity<List<DoctorEarliestSlotDTO>> readEarliestAvailable(@RequestParam String specialization, @RequestParam String typeOfVisit,
+                                                                     @RequestParam(required = false) LocalDateTime from,
+                                                                     @RequestParam(defaultValue = "10") int limit){
+        return service.readEarliestAvailable(specialization, typeOfVisit, from, limit);
+    }
+
+    /**
+     * Retrieves typeahead suggestions of first names, last names, cities and specializations for the doctor search.
+     *
+     * @param prefix the typed prefix
+     * @param limit  the maximum number of suggestions to return
+     * @return a ResponseEntity containing the suggestions, the most common first
+     */
+    @Operation(summary = "Retrieves typeahead suggestions of first names, last names, cities and specializations for the doctor search.")
+    @GetMapping(path = "/suggest", params = "prefix")
+    @PermitAll
+    ResponseEntity<List<DoctorSuggestionDTO>> suggest(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit){
+        return service.suggest(prefix, limit);
+    }
+
     /**
      * Creates a new doctor.
      *
@@ -269,6 +324,65 @@ class DoctorController {
         return service.readAllSpecializations(id);
     }
 
+    /**
+     * Uploads a new avatar for a specific doctor.
+     *
+     * @param id   the ID of the doctor
+     * @param file the PNG, JPEG or GIF image
+     * @return a ResponseEntity indicating the success or failure of the operation
+     */
+    @Operation(summary = "Uploads a new avatar for a specific doctor.")
+    @PutMapping(value = "/{id}/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAuthority('DOCTOR') or hasAuthority('ADMIN')")
+    ResponseEntity<?> updateAvatar(@PathVariable Long id, @RequestParam("file") MultipartFile file){
+        return service.updateAvatar(id, file);
+    }
+
+    /**
+     * Removes the avatar of a specific doctor.
+     *
+     * @param id the ID of the doctor
+     * @return a ResponseEntity indicating the success or failure of the operation
+     */
+    @Operation(summary = "Removes the avatar of a specific doctor.")
+    @DeleteMapping("/{id}/avatar")
+    @PreAuthorize("hasAuthority('DOCTOR') or hasAuthority('ADMIN')")
+    ResponseEntity<?> deleteAvatar(@PathVariable Long id){
+        return service.deleteAvatar(id);
+    }
+
+    /**
+     * Retrieves the avatar of a specific doctor.
+     *
+     * @param id          the ID of the doctor
+     * @param version     the version of the avatar from the avatarUrl of the doctor
+     * @param ifNoneMatch the ETag of the avatar cached by the client
+     * @return a ResponseEntity streaming the image, or with a status of 304 Not Modified if it has not changed
+     */
+    @Operation(summary = "Retrieves the avatar of a specific doctor.")
+    @GetMapping("/{id}/avatar")
+    @PermitAll
+    ResponseEntity<StreamingResponseBody> readAvatar(@PathVariable Long id, @RequestParam(name = "v", required = false) String version,
+                                                     @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return service.readAvatar(id, false, version, ifNoneMatch);
+    }
+
+    /**
+     * Retrieves the square PNG thumbnail of the avatar of a specific doctor.
+     *
+     * @param id          the ID of the doctor
+     * @param version     the version of the avatar from the avatarThumbnailUrl of the doctor
+     * @param ifNoneMatch the ETag of the thumbnail cached by the client
+     * @return a ResponseEntity streaming the thumbnail, or with a status of 304 Not Modified if it has not changed
+     */
+    @Operation(summary = "Retrieves the thumbnail of the avatar of a specific doctor.")
+    @GetMapping("/{id}/avatar/thumbnail")
+    @PermitAll
+    ResponseEntity<StreamingResponseBody> readAvatarThumbnail(@PathVariable Long id, @RequestParam(name = "v", required = false) String version,
+                                                              @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return service.readAvatar(id, true, version, ifNoneMatch);
+    }
+
     /**
      * Retrieves all the reviews for a specific doctor.
      *
@@ -289,12 +403,12 @@ class DoctorController {
      * @param word The keyword to search for in doctor's information.
      * @param specialization The optional specialization to filter the search results.
      * @param pageable The pagination information for the search results.
-     * @return A ResponseEntity containing a Page of DoctorDTO objects matching the search criteria.
+     * @return A ResponseEntity containing a Page of DoctorSummaryDTO objects matching the search criteria.
      */
     @Operation(summary = "Search for doctors based on a given keyword and optional specialization.")
     @GetMapping(path = "/search", params = "word")
     @PermitAll
-    ResponseEntity<Page<DoctorDTO>> searchDoctors(@RequestParam String word, @RequestParam(required = false) String specialization, Pageable pageable){
+    ResponseEntity<Page<DoctorSummaryDTO>> searchDoctors(@RequestParam String word, @RequestParam(required = false) String specialization, Pageable pageable){
         return service.searchDoctors(word, specialization, pageable);
     }
 
@@ -1,28 +1,31 @@
 package com.github.konradcz2001.medicalappointments.doctor;
 
+import com.github.konradcz2001.medicalappointments.doctor.availability.DoctorSchedule;
+import com.github.konradcz2001.medicalappointments.doctor.avatar.AvatarMetadata;
+import com.github.konradcz2001.medicalappointments.doctor.search.DoctorSpecializationName;
+import com.github.konradcz2001.medicalappointments.doctor.search.SearchableDoctor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 //TODO organize DoctorRepository
 
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+public interface DoctorRepository extends JpaRepository<Doctor, Long>, JpaSpecificationExecutor<Doctor>, DoctorSummaryRepository {
 
     /**
      * User connected
      */
     Optional<Doctor> findByEmail(String email);
     Boolean existsByEmail(String email);
-    Page<Doctor> findAllByFirstNameContainingIgnoreCase(String firstName, Pageable pageable);
-    Page<Doctor> findAllByLastNameContainingIgnoreCase(String lastName, Pageable pageable);
     Page<Doctor> findAllByEmailContainingIgnoreCase(String email, Pageable pageable);
 
     /**
@@ -36,68 +39,54 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     Page<Doctor> findAllByAddress_ZipCodeContainingIgnoreCase(String zipCode, Pageable pageable);
 
     /**
-     * Leaves connected
+     * Schedule connected
      */
-    @Query(value = " SELECT DISTINCT doctors.id, first_name, last_name, email, country, state, city, " +
-            "street, house_number, zip_code, avatar, is_verified, schedule_id, profile_description FROM doctors " +
-            "JOIN leaves ON doctor_id = doctors.id " +
-            "WHERE start_date > ?1 OR end_date < ?1 " +
-            "ORDER BY doctors.id ",
-            nativeQuery = true)
-    Page<Doctor> findAllAvailableByDate(LocalDateTime date, Pageable pageable);
-
-    @Query(value = " SELECT DISTINCT doctors.id, first_name, last_name, email, phone_number, country, state, city, " +
-            "street, house_number, zip_code, avatar, is_verified, schedule_id, profile_description FROM doctors " +
-            "JOIN leaves ON doctor_id = doctors.id " +
-            "WHERE since_when > ?1 AND till_when < ?2 " +
-            "ORDER BY doctors.id ",
-            nativeQuery = true)
-    Page<Doctor> findAllByAnyLeaveIsBetween(Timestamp after, Timestamp before, Pageable pageable);
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.doctor.availability.DoctorSchedule(d.id, " +
+            "s.mondayStart, s.mondayEnd, s.tuesdayStart, s.tuesdayEnd, s.wednesdayStart, s.wednesdayEnd, " +
+            "s.thursdayStart, s.thursdayEnd, s.fridayStart, s.fridayEnd, s.saturdayStart, s.saturdayEnd, s.sundayStart, s.sundayEnd) " +
+            "FROM Doctor d LEFT JOIN d.schedule s WHERE d.id IN :ids")
+    List<DoctorSchedule> findAllSchedulesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Avatar connected
+     */
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.doctor.avatar.AvatarMetadata(d.avatarHash, d.avatarContentType) " +
+            "FROM Doctor d WHERE d.id = :id")
+    Optional<AvatarMetadata> findAvatarMetadataById(@Param("id") Long id);
+
+    @Query("SELECT d.avatar FROM Doctor d WHERE d.id = :id")
+    Optional<byte[]> findAvatarById(@Param("id") Long id);
+
+    /**
+     * Search connected
+     */
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.doctor.search.SearchableDoctor(d.id, d.firstName, d.lastName, " +
+            "d.address.country, d.address.state, d.address.city, d.address.zipCode, d.address.street, d.address.houseNumber) " +
+            "FROM Doctor d")
+    List<SearchableDoctor> findAllSearchable();
+
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.doctor.search.DoctorSpecializationName(d.id, s.specialization) " +
+            "FROM Doctor d JOIN d.specializations s")
+    List<DoctorSpecializationName> findAllSpecializationNames();
+
+    /**
+     * Summary connected
+     */
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.doctor.DoctorSpecialization(d.id, s.id, s.specialization) " +
+            "FROM Doctor d JOIN d.specializations s WHERE d.id IN :ids")
+    List<DoctorSpecialization> findAllSpecializationsByDoctorIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Ranking connected
+     */
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.doctor.DoctorSpecialization(d.id, s.id, s.specialization) " +
+            "FROM Doctor d JOIN d.specializations s")
+    List<DoctorSpecialization> findAllSpecializations();
 
     /**
      * Other
      */
     Page<Doctor> findAllByIsVerified(boolean isVerified, Pageable pageable);
 
-    @Query(value = " SELECT DISTINCT doctors.id, first_name, last_name, email, password, role, country, state, city, " +
-            "street, house_number, zip_code, avatar, is_verified, schedule_id, profile_description FROM doctors " +
-            "JOIN doctor_specialization ON doctor_id = doctors.id " +
-            "JOIN specializations ON specialization_id = specializations.id " +
-            "WHERE UPPER(specialization) LIKE '%' || UPPER(?1) || '%' " +
-            "ORDER BY first_name ",
-            nativeQuery = true)
-    Page<Doctor> findAllByAnySpecializationContainingIgnoreCase(String specialization, Pageable pageable);
-
-    @Query(value = " SELECT DISTINCT doctors.id, first_name, last_name, email, password, role, country, state, city, " +
-            "street, house_number, zip_code, avatar, is_verified, schedule_id, profile_description FROM doctors " +
-            "LEFT JOIN doctor_specialization ON doctor_id = doctors.id " +
-            "LEFT JOIN specializations ON specialization_id = specializations.id " +
-            "WHERE (LOWER(first_name) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(last_name) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(country) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(state) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(city) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(zip_code) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(street) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(house_number) LIKE '%' || LOWER(?1) || '%') ",
-            nativeQuery = true)
-    List<Doctor> search(String word);
-
-    @Query(value = " SELECT DISTINCT doctors.id, first_name, last_name, email, password, role, country, state, city, " +
-            "street, house_number, zip_code, avatar, is_verified, schedule_id, profile_description FROM doctors " +
-            "LEFT JOIN doctor_specialization ON doctor_id = doctors.id " +
-            "LEFT JOIN specializations ON specialization_id = specializations.id " +
-            "WHERE UPPER(specialization) LIKE UPPER(?2) " +
-            "AND (LOWER(first_name) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(last_name) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(country) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(state) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(city) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(zip_code) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(street) LIKE '%' || LOWER(?1) || '%' " +
-            "OR LOWER(house_number) LIKE '%' || LOWER(?1) || '%') ",
-            //countQuery = " SELECT count(*) FROM doctors ",
-            nativeQuery = true)
-    List<Doctor> searchWithSpecialization(String word, String specialization);
 
 }
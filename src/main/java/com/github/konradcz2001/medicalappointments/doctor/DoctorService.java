@@ -1,31 +1,66 @@
 package com.github.konradcz2001.medicalappointments.doctor;
 
 
+import com.github.konradcz2001.medicalappointments.calendar.CalendarOwner;
+import com.github.konradcz2001.medicalappointments.calendar.CalendarService;
 import com.github.konradcz2001.medicalappointments.doctor.DTO.*;
+import com.github.konradcz2001.medicalappointments.doctor.availability.AvailabilityIndex;
+import com.github.konradcz2001.medicalappointments.doctor.availability.BookableVisitType;
+import com.github.konradcz2001.medicalappointments.doctor.availability.DayAvailability;
+import com.github.konradcz2001.medicalappointments.doctor.availability.NextFreeSlotIndex;
+import com.github.konradcz2001.medicalappointments.doctor.avatar.AvatarMetadata;
+import com.github.konradcz2001.medicalappointments.doctor.avatar.AvatarStore;
+import com.github.konradcz2001.medicalappointments.doctor.avatar.StoredAvatar;
+import com.github.konradcz2001.medicalappointments.doctor.ranking.TopDoctorsIndex;
 import com.github.konradcz2001.medicalappointments.doctor.schedule.Schedule;
+import com.github.konradcz2001.medicalappointments.doctor.search.DoctorSearchIndex;
 import com.github.konradcz2001.medicalappointments.doctor.schedule.WeekDay;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.*;
 import com.github.konradcz2001.medicalappointments.leave.Leave;
 import com.github.konradcz2001.medicalappointments.leave.LeaveRepository;
+import com.github.konradcz2001.medicalappointments.review.DoctorRatingStatsRepository;
 import com.github.konradcz2001.medicalappointments.review.ReviewRepository;
 import com.github.konradcz2001.medicalappointments.security.DTO.ChangePasswordDTO;
+import com.github.konradcz2001.medicalappointments.security.UserAccountRepository;
+import com.github.konradcz2001.medicalappointments.security.UserCredentialsChangedEvent;
 import com.github.konradcz2001.medicalappointments.specialization.SpecializationRepository;
 import com.github.konradcz2001.medicalappointments.visit.type.TypeOfVisit;
 import com.github.konradcz2001.medicalappointments.visit.type.TypeOfVisitRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static com.github.konradcz2001.medicalappointments.common.Utils.returnResponse;
+import static com.github.konradcz2001.medicalappointments.exception.MessageType.AVATAR;
 import static com.github.konradcz2001.medicalappointments.exception.MessageType.DOCTOR;
 import static com.github.konradcz2001.medicalappointments.exception.MessageType.SPECIALIZATION;
 
@@ -35,10 +70,26 @@ import static com.github.konradcz2001.medicalappointments.exception.MessageType.
  * It also includes methods for adding and removing leaves and specializations for a doctor.
  * Additionally, it provides methods for retrieving all available doctors based on a specified date,
  * as well as retrieving all the leaves and reviews for a specific doctor.
+ * Free slots are served from the AvailabilityIndex, which is invalidated whenever leaves or schedules change,
+ * and the earliest available doctors from the NextFreeSlotIndex built on top of it.
+ * Changes of leaves are also recorded in the doctor's calendar feed.
+ * Searches are answered by the DoctorSearchIndex when it is enabled, which is updated by every method changing
+ * the searchable data of a doctor and also serves the typeahead suggestions.
+ * Avatars are kept as files in the AvatarStore, the doctor's row only references them by hash.
+ * Doctor lists are built from DoctorSummary projections and the specializations of a whole page, loaded with one query,
+ * so only GET /doctors/{id} loads the Doctor entity with its associations.
+ * Ratings are read from the rating statistics maintained with the reviews, never computed from the reviews themselves,
+ * and the names and specializations shown on the leaderboards of the TopDoctorsIndex are updated with the search index.
+ * Password changes and deletions of doctors with an entry in the user directory publish a UserCredentialsChangedEvent, revoking the tokens issued to them before and evicting them from the UserDetailsCache.
+ * Creating, deleting and changing the password of a doctor also updates their entry in the user directory.
  */
 @Service
 class DoctorService {
     private static final int MAX_VISIT_TYPES_PER_DOCTOR  = 30;
+    static final int AVAILABILITY_SCAN_SIZE = 100;
+    private static final int MAX_SLOTS_RANGE_DAYS = 31;
+    private static final int MAX_EARLIEST_AVAILABLE_LIMIT = 50;
+    private static final int MAX_SUGGESTIONS_LIMIT = 20;
 
     private final DoctorRepository repository;
     private final SpecializationRepository specializationRepository;
@@ -47,9 +98,21 @@ class DoctorService {
     private final TypeOfVisitRepository typeOfVisitRepository;
     private final DoctorDTOMapper dtoMapper;
     private final PasswordEncoder passwordEncoder;
+    private final AvailabilityIndex availabilityIndex;
+    private final NextFreeSlotIndex nextFreeSlotIndex;
+    private final DoctorSearchIndex searchIndex;
+    private final AvatarStore avatarStore;
+    private final CalendarService calendarService;
+    private final DoctorRatingStatsRepository ratingStatsRepository;
+    private final TopDoctorsIndex topDoctorsIndex;
+    private final UserAccountRepository userAccountRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     DoctorService(final DoctorRepository repository, final SpecializationRepository specializationRepository,
-                  final ReviewRepository reviewRepository, final LeaveRepository leaveRepository, final TypeOfVisitRepository typeOfVisitRepository, final DoctorDTOMapper dtoMapper, final PasswordEncoder passwordEncoder) {
+                  final ReviewRepository reviewRepository, final LeaveRepository leaveRepository, final TypeOfVisitRepository typeOfVisitRepository, final DoctorDTOMapper dtoMapper, final PasswordEncoder passwordEncoder,
+                  final AvailabilityIndex availabilityIndex, final NextFreeSlotIndex nextFreeSlotIndex, final DoctorSearchIndex searchIndex,
+                  final AvatarStore avatarStore, final CalendarService calendarService, final DoctorRatingStatsRepository ratingStatsRepository,
+                  final TopDoctorsIndex topDoctorsIndex, final UserAccountRepository userAccountRepository, final ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.specializationRepository = specializationRepository;
         this.reviewRepository = reviewRepository;
@@ -57,22 +120,31 @@ class DoctorService {
         this.typeOfVisitRepository = typeOfVisitRepository;
         this.dtoMapper = dtoMapper;
         this.passwordEncoder = passwordEncoder;
+        this.availabilityIndex = availabilityIndex;
+        this.nextFreeSlotIndex = nextFreeSlotIndex;
+        this.searchIndex = searchIndex;
+        this.avatarStore = avatarStore;
+        this.calendarService = calendarService;
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.topDoctorsIndex = topDoctorsIndex;
+        this.userAccountRepository = userAccountRepository;
+        this.eventPublisher = eventPublisher;
     }
 
 
     /**
-     * Retrieves all doctors with pagination.
+     * Retrieves summaries of all doctors with pagination, ordered by ID unless another order is requested.
      *
      * @param pageable the pagination information
      * @return the ResponseEntity with status 200 (OK) and the list of doctors in the body
      * @throws EmptyPageException if the page is empty
      */
-    ResponseEntity<Page<DoctorDTO>> readAll(Pageable pageable){
-        return returnResponse(() -> repository.findAll(pageable), dtoMapper);
+    ResponseEntity<Page<DoctorSummaryDTO>> readAll(Pageable pageable){
+        return returnSummaries(repository.findAllSummaries(null, withDefaultSort(pageable, Sort.unsorted())));
     }
 
     /**
-     * Retrieves a doctor by their ID.
+     * Retrieves a doctor by their ID, together with their aggregated rating.
      *
      * @param id the ID of the doctor to retrieve
      * @return the ResponseEntity containing the DoctorDTO if found, or throws a ResourceNotFoundException if not found
@@ -80,7 +152,7 @@ class DoctorService {
      */
     ResponseEntity<DoctorDTO> readById(Long id){
         return repository.findById(id)
-                .map(dtoMapper::mapToDTO)
+                .map(doctor -> dtoMapper.mapToDTO(doctor, ratingStatsRepository.findById(id).orElse(null)))
                 .map(ResponseEntity::ok)
                 .orElseThrow(() -> new ResourceNotFoundException(DOCTOR, id));
     }
@@ -90,10 +162,11 @@ class DoctorService {
      *
      * @param firstName the first name to search for
      * @param pageable  the pageable object specifying the page number and size
-     * @return a ResponseEntity containing a Page of DoctorDTO objects representing the matching doctors
+     * @return a ResponseEntity containing a Page of DoctorSummaryDTO objects representing the matching doctors
      */
-    ResponseEntity<Page<DoctorDTO>> readAllByFirstName(String firstName, Pageable pageable){
-        return returnResponse(() -> repository.findAllByFirstNameContainingIgnoreCase(firstName, pageable), dtoMapper);
+    ResponseEntity<Page<DoctorSummaryDTO>> readAllByFirstName(String firstName, Pageable pageable){
+        return returnSummaries(repository.findAllSummaries(DoctorSpecifications.attributeContains("firstName", firstName),
+                withDefaultSort(pageable, Sort.unsorted())));
     }
 
     /**
@@ -101,21 +174,63 @@ class DoctorService {
      *
      * @param lastName the last name to search for
      * @param pageable the pagination information
-     * @return a ResponseEntity containing a page of DoctorDTO objects
+     * @return a ResponseEntity containing a page of DoctorSummaryDTO objects
      */
-    ResponseEntity<Page<DoctorDTO>> readAllByLastName(String lastName, Pageable pageable){
-        return returnResponse(() -> repository.findAllByLastNameContainingIgnoreCase(lastName, pageable), dtoMapper);
+    ResponseEntity<Page<DoctorSummaryDTO>> readAllByLastName(String lastName, Pageable pageable){
+        return returnSummaries(repository.findAllSummaries(DoctorSpecifications.attributeContains("lastName", lastName),
+                withDefaultSort(pageable, Sort.unsorted())));
     }
 
     /**
-     * Retrieves a page of doctors with the specified specialization.
+     * Retrieves a page of doctors having a specialization containing the specified text, ordered by first name by default.
      *
      * @param specialization the specialization to search for
      * @param pageable       the pagination information
-     * @return a ResponseEntity containing a page of DoctorDTO objects
+     * @return a ResponseEntity containing a page of DoctorSummaryDTO objects
      */
-    ResponseEntity<Page<DoctorDTO>> readAllBySpecialization(String specialization, Pageable pageable){
-        return returnResponse(() -> repository.findAllByAnySpecializationContainingIgnoreCase(specialization, pageable), dtoMapper);
+    ResponseEntity<Page<DoctorSummaryDTO>> readAllBySpecialization(String specialization, Pageable pageable){
+        return returnSummaries(repository.findAllSummaries(DoctorSpecifications.hasSpecializationContaining(specialization),
+                withDefaultSort(pageable, Sort.by("firstName"))));
+    }
+
+    /**
+     * Adds the specializations of a page of doctor summaries, loaded with a single query, and maps them to DTOs.
+     *
+     * @throws EmptyPageException if the page is empty
+     */
+    private ResponseEntity<Page<DoctorSummaryDTO>> returnSummaries(Page<DoctorSummary> summaries){
+        if(summaries.isEmpty())
+            throw new EmptyPageException();
+
+        return ResponseEntity.ok(summaries.map(toSummaryDTO(summaries.getContent())));
+    }
+
+    private ResponseEntity<Slice<DoctorSummaryDTO>> returnSummaries(Slice<DoctorSummary> summaries){
+        if(summaries.isEmpty())
+            throw new EmptyPageException();
+
+        return ResponseEntity.ok(summaries.map(toSummaryDTO(summaries.getContent())));
+    }
+
+    /**
+     * Maps summaries to DTOs with the specializations of all the given doctors, loaded with one query.
+     */
+    private Function<DoctorSummary, DoctorSummaryDTO> toSummaryDTO(List<DoctorSummary> summaries){
+        Map<Long, Set<DoctorSpecializationDTO>> specializations = repository.findAllSpecializationsByDoctorIdIn(summaries.stream().map(DoctorSummary::id).toList()).stream()
+                .collect(Collectors.groupingBy(DoctorSpecialization::doctorId,
+                        Collectors.mapping(spec -> new DoctorSpecializationDTO(spec.id(), spec.specialization()), Collectors.toSet())));
+
+        return summary -> dtoMapper.mapToDoctorSummaryDTO(summary, specializations.getOrDefault(summary.id(), Set.of()));
+    }
+
+    /**
+     * Orders the page by the given sort when no order is requested, and by ID after that, so pages do not overlap.
+     */
+    private static Pageable withDefaultSort(Pageable pageable, Sort defaultSort){
+        Sort sort = (pageable.getSort().isSorted() ? pageable.getSort() : defaultSort).and(Sort.by("id"));
+        return pageable.isPaged()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort)
+                : Pageable.unpaged(sort);
     }
 
     /**
@@ -130,6 +245,12 @@ class DoctorService {
         return repository.findById(id)
                 .map(doctor -> {
                     repository.deleteById(id);
+                    if (userAccountRepository.remove(doctor)) {
+                        eventPublisher.publishEvent(new UserCredentialsChangedEvent(doctor.getEmail()));
+                    }
+                    availabilityIndex.invalidate(id);
+                    searchIndex.remove(id);
+                    topDoctorsIndex.remove(id);
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(DOCTOR, id));
@@ -153,6 +274,9 @@ class DoctorService {
                     }
                     doctor.setPassword(passwordEncoder.encode(dto.newPassword()));
                     repository.save(doctor);
+                    if (userAccountRepository.changePassword(doctor)) {
+                        eventPublisher.publishEvent(new UserCredentialsChangedEvent(doctor.getEmail()));
+                    }
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(DOCTOR, id));
@@ -175,6 +299,12 @@ class DoctorService {
                         throw new IllegalArgumentException("Invalid password");
                     }
                     repository.deleteById(id);
+                    if (userAccountRepository.remove(doctor)) {
+                        eventPublisher.publishEvent(new UserCredentialsChangedEvent(doctor.getEmail()));
+                    }
+                    availabilityIndex.invalidate(id);
+                    searchIndex.remove(id);
+                    topDoctorsIndex.remove(id);
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(DOCTOR, id));
@@ -220,6 +350,8 @@ class DoctorService {
         doctor.addLeave(leave);
 
         repository.save(doctor);
+        availabilityIndex.invalidate(id);
+        calendarService.touch(CalendarOwner.DOCTOR, id);
 
         return ResponseEntity.noContent().build();
     }
@@ -241,6 +373,8 @@ class DoctorService {
                         .map(leave -> {
                             doctor.removeLeave(leave);
                             repository.save(doctor);
+                            availabilityIndex.invalidate(doctorId);
+                            calendarService.touch(CalendarOwner.DOCTOR, doctorId);
                             return ResponseEntity.noContent().build();
                         })
                         .orElseThrow(() -> new WrongLeaveException("Doctor with id = " + doctorId + " does not have the specified leave with id = " + leaveId)))
@@ -264,6 +398,8 @@ class DoctorService {
                         .map(spec ->{
                             doctor.removeSpecialization(spec);
                             repository.save(doctor);
+                            searchIndex.index(doctor);
+                            topDoctorsIndex.index(doctor);
                             return ResponseEntity.noContent().build();
                         })
                         .orElseThrow(() -> new WrongSpecializationException("Doctor with id = " + doctorId + " does not have the specified specialization with id = " + specializationId)))
@@ -271,14 +407,130 @@ class DoctorService {
     }
 
     /**
-     * Retrieves all available doctors based on the specified date.
+     * Retrieves a slice of the doctors available on the specified date.
+     * A doctor is available if the minute of the date is covered by their schedule
+     * and is not taken by any of their leaves or non-cancelled visits, as answered by the AvailabilityIndex.
+     * The doctors working at that minute are read in the requested order, ID by default, AVAILABILITY_SCAN_SIZE at a time,
+     * and checked against the index until the slice is filled, so the work is bounded by the requested page
+     * rather than the number of all doctors. No total is computed, as it would take checking every doctor.
      *
      * @param date     the date to filter the available doctors
      * @param pageable the pagination information
-     * @return a ResponseEntity containing a Page of DoctorDTO objects representing the available doctors
+     * @return a ResponseEntity containing a Slice of DoctorSummaryDTO objects representing the available doctors
      */
-    ResponseEntity<Page<DoctorDTO>> readAllAvailableByDate(LocalDateTime date, Pageable pageable){
-        return returnResponse(() -> repository.findAllAvailableByDate(date, pageable), dtoMapper);
+    ResponseEntity<Slice<DoctorSummaryDTO>> readAllAvailableByDate(LocalDateTime date, Pageable pageable){
+        LocalDate day = date.toLocalDate();
+        Specification<Doctor> worksAt = DoctorSpecifications.worksAt(date);
+        long skip = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() + 1 : Integer.MAX_VALUE;
+
+        List<DoctorSummary> available = new ArrayList<>();
+        Pageable chunk = PageRequest.of(0, AVAILABILITY_SCAN_SIZE, withDefaultSort(pageable, Sort.unsorted()).getSort());
+        Slice<DoctorSummary> candidates;
+        do {
+            candidates = repository.findSummarySlice(worksAt, chunk);
+            Map<Long, SortedMap<LocalDate, DayAvailability>> availability =
+                    availabilityIndex.forDoctors(candidates.map(DoctorSummary::id).toList(), day, day);
+            for (DoctorSummary candidate : candidates) {
+                if (!availability.get(candidate.id()).get(day).isFreeAt(date.toLocalTime()))
+                    continue;
+                if (skip > 0)
+                    skip--;
+                else if (available.size() < limit)
+                    available.add(candidate);
+            }
+            chunk = chunk.next();
+        } while (candidates.hasNext() && available.size() < limit);
+
+        if(pageable.isUnpaged())
+            return returnSummaries(new SliceImpl<>(available));
+
+        boolean hasNext = available.size() > pageable.getPageSize();
+        return returnSummaries(new SliceImpl<>(hasNext ? available.subList(0, pageable.getPageSize()) : available, pageable, hasNext));
+    }
+
+    private List<DoctorSummary> findAllSummariesByIdOrdered(List<Long> ids){
+        if(ids.isEmpty())
+            return List.of();
+
+        Map<Long, DoctorSummary> summaries = repository.findAllSummaries(DoctorSpecifications.hasIdIn(ids), Pageable.unpaged()).stream()
+                .collect(Collectors.toMap(DoctorSummary::id, summary -> summary));
+        return ids.stream().map(summaries::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Retrieves the free slots of a doctor for the given type of visit within a date range.
+     * The slots are built from the doctor's schedule, leaves and non-cancelled visits, slots in the past are skipped.
+     *
+     * @param id            the ID of the doctor
+     * @param from          the first day of the range
+     * @param to            the last day of the range (inclusive)
+     * @param typeOfVisitId the ID of the doctor's type of visit which determines the length of the slots
+     * @return a ResponseEntity containing the list of free slots ordered by start time
+     * @throws ResourceNotFoundException if the doctor with the specified ID is not found
+     * @throws WrongVisitException if the range is reversed or longer than MAX_SLOTS_RANGE_DAYS days
+     * @throws WrongTypeOfVisitException if the doctor does not have an active type of visit with the specified ID
+     */
+    ResponseEntity<List<DoctorSlotDTO>> readAllSlots(Long id, LocalDate from, LocalDate to, Long typeOfVisitId){
+        if(!repository.existsById(id))
+            throw new ResourceNotFoundException(DOCTOR, id);
+        if(to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_SLOTS_RANGE_DAYS)
+            throw new WrongVisitException("The date range must not be reversed or longer than " + MAX_SLOTS_RANGE_DAYS + " days");
+
+        TypeOfVisit typeOfVisit = typeOfVisitRepository.findById(typeOfVisitId)
+                .filter(type -> type.isActive() && type.getDoctor().getId().equals(id))
+                .orElseThrow(() -> new WrongTypeOfVisitException("Doctor with id = " + id + " does not have the specified type of visit with id = " + typeOfVisitId));
+        int duration = typeOfVisit.getDuration();
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate firstDay = from.isBefore(now.toLocalDate()) ? now.toLocalDate() : from;
+        List<DoctorSlotDTO> slots = new ArrayList<>();
+        if(firstDay.isAfter(to))
+            return ResponseEntity.ok(slots);
+
+        availabilityIndex.forDoctor(id, firstDay, to).forEach((day, availability) ->
+                availability.startTimes(duration).stream()
+                        .map(day::atTime)
+                        .filter(start -> start.isAfter(now))
+                        .forEach(start -> slots.add(new DoctorSlotDTO(start, start.plusMinutes(duration)))));
+
+        return ResponseEntity.ok(slots);
+    }
+
+    /**
+     * Retrieves the doctors of a specialization who can see a patient the soonest for a type of visit with the given name.
+     * Types of visits are matched by name, since every doctor defines their own, ignoring case.
+     *
+     * @param specialization the name of the specialization
+     * @param type           the name of the type of visit
+     * @param from           the earliest acceptable start of the visit, now if null or in the past
+     * @param limit          the maximum number of doctors to return, at most MAX_EARLIEST_AVAILABLE_LIMIT
+     * @return a ResponseEntity containing the first free slot of each doctor, ordered by start time
+     */
+    ResponseEntity<List<DoctorEarliestSlotDTO>> readEarliestAvailable(String specialization, String type, LocalDateTime from, int limit){
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime searchFrom = from == null || from.isBefore(now) ? now : from;
+
+        Map<Long, BookableVisitType> shortestTypes = new HashMap<>();
+        for (BookableVisitType candidate : typeOfVisitRepository.findAllBookableBySpecializationAndType(specialization, type)) {
+            shortestTypes.merge(candidate.doctorId(), candidate,
+                    (current, other) -> other.duration() < current.duration() ? other : current);
+        }
+
+        Map<Long, Integer> durations = new HashMap<>();
+        shortestTypes.forEach((doctorId, candidate) -> durations.put(doctorId, candidate.duration()));
+
+        List<DoctorEarliestSlotDTO> result = nextFreeSlotIndex.nextFreeSlots(durations, searchFrom).entrySet().stream()
+                .map(slot -> {
+                    BookableVisitType candidate = shortestTypes.get(slot.getKey());
+                    return new DoctorEarliestSlotDTO(candidate.doctorId(), candidate.firstName(), candidate.lastName(),
+                            candidate.typeOfVisitId(), slot.getValue(), slot.getValue().plusMinutes(candidate.duration()));
+                })
+                .sorted(Comparator.comparing(DoctorEarliestSlotDTO::start).thenComparing(DoctorEarliestSlotDTO::doctorId))
+                .limit(Math.max(1, Math.min(limit, MAX_EARLIEST_AVAILABLE_LIMIT)))
+                .toList();
+
+        return ResponseEntity.ok(result);
     }
 
 //    private boolean isAvailableByDate(LocalDateTime date, Doctor doctor){
@@ -294,30 +546,43 @@ class DoctorService {
      *
      * @param doctor The doctor object containing the information of the new doctor to be created.
      * @return A ResponseEntity containing the created doctor's DTO and a status code of 201 (Created).
+     * @throws DuplicateEmailException if a client or a doctor with the email already exists
      */
     @Transactional
     ResponseEntity<DoctorDTO> createDoctor(Doctor doctor){
+        userAccountRepository.checkAvailable(doctor.getEmail());
         doctor.setId(null);
         doctor.setSpecializations(new HashSet<>());
         doctor.setLeaves(new ArrayList<>());
         doctor.setReviews(new ArrayList<>());
         Doctor created =  repository.save(doctor);
+        userAccountRepository.add(created);
+        searchIndex.index(created);
+        topDoctorsIndex.index(created);
         return ResponseEntity.created(URI.create("/" + created.getId())).body(dtoMapper.mapToDTO(created));
     }
 
     /**
      * Updates a doctor with the specified ID using the provided DoctorDTO object.
+     * An avatar sent in the DTO is put into the AvatarStore, the same way as an uploaded one.
      *
      * @param id       The ID of the doctor to update.
      * @param toUpdate The DoctorDTO object containing the updated information.
      * @return A ResponseEntity with a status of 204 No Content if the doctor is successfully updated.
      * @throws ResourceNotFoundException If the doctor with the specified ID is not found.
+     * @throws WrongAvatarException If the avatar is too large or not a supported image.
      */
     @Transactional
     ResponseEntity<?> updateDoctor(Long id, DoctorDTO toUpdate){
         return repository.findById(id)
                 .map(doctor -> {
-                    repository.save(dtoMapper.mapFromDTO(toUpdate, doctor));
+                    dtoMapper.mapFromDTO(toUpdate, doctor);
+                    // responses do not carry the avatar, so a missing one keeps the current avatar
+                    if (toUpdate.avatar() != null)
+                        setAvatar(doctor, avatarStore.store(new ByteArrayInputStream(toUpdate.avatar())));
+                    repository.save(doctor);
+                    searchIndex.index(doctor);
+                    topDoctorsIndex.index(doctor);
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(DOCTOR, id));
@@ -341,6 +606,128 @@ class DoctorService {
         return ResponseEntity.ok(doctors);
     }
 
+    /**
+     * Replaces the avatar of a doctor with an uploaded image.
+     * The image is streamed into the AvatarStore, which deduplicates it and generates its thumbnail,
+     * only its hash and content type are kept in the doctor's row.
+     *
+     * @param id   the ID of the doctor
+     * @param file the uploaded PNG, JPEG or GIF image
+     * @return a ResponseEntity with a status of 204 No Content if the avatar is successfully replaced
+     * @throws ResourceNotFoundException if the doctor with the specified ID is not found
+     * @throws WrongAvatarException      if the file is empty, too large or not a supported image
+     */
+    @Transactional
+    ResponseEntity<?> updateAvatar(Long id, MultipartFile file) {
+        Doctor doctor = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(DOCTOR, id));
+        if (file.isEmpty())
+            throw new WrongAvatarException("The avatar must not be empty");
+
+        try (InputStream image = file.getInputStream()) {
+            setAvatar(doctor, avatarStore.store(image));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        repository.save(doctor);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Removes the avatar of a doctor.
+     * The stored files are kept, as other doctors may use the same image.
+     *
+     * @param id the ID of the doctor
+     * @return a ResponseEntity with a status of 204 No Content if the avatar is successfully removed
+     * @throws ResourceNotFoundException if the doctor with the specified ID is not found
+     */
+    @Transactional
+    ResponseEntity<?> deleteAvatar(Long id) {
+        Doctor doctor = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(DOCTOR, id));
+        doctor.setAvatar(null);
+        doctor.setAvatarHash(null);
+        doctor.setAvatarContentType(null);
+        repository.save(doctor);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Retrieves the avatar of a doctor or its thumbnail with a strong ETag, based on the SHA-256 of the image.
+     * The hash is checked against If-None-Match before the image itself is opened.
+     * Versioned avatar URLs, which change with the image, are cached for a year, other requests have to be revalidated.
+     * The file is copied to the response with FileChannel.transferTo, avatars uploaded before the AvatarStore existed
+     * are copied to it on their first read.
+     *
+     * @param id          the ID of the doctor
+     * @param thumbnail   whether to retrieve the thumbnail instead of the original image
+     * @param version     the version from the avatar URL, can be null
+     * @param ifNoneMatch the value of the If-None-Match header, can be null
+     * @return a ResponseEntity streaming the image, or with a status of 304 Not Modified if the client has it already
+     * @throws ResourceNotFoundException if the doctor with the specified ID is not found or has no avatar
+     */
+    ResponseEntity<StreamingResponseBody> readAvatar(Long id, boolean thumbnail, String version, String ifNoneMatch) {
+        AvatarMetadata avatar = repository.findAvatarMetadataById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(DOCTOR, id));
+        if (avatar.hash() == null)
+            throw new ResourceNotFoundException(AVATAR, id);
+
+        String hash = avatar.hash();
+        String eTag = thumbnail ? "\"" + hash + "-thumbnail\"" : "\"" + hash + "\"";
+        CacheControl cacheControl = hash.equals(version)
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.noCache().cachePublic();
+
+        if (ifNoneMatch != null && Arrays.stream(ifNoneMatch.split(",")).map(String::strip).anyMatch(tag -> tag.equals(eTag) || tag.equals("*")))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+
+        Path file = findStoredAvatar(hash, thumbnail)
+                .or(() -> importLegacyAvatar(id, hash, thumbnail))
+                .orElseThrow(() -> new ResourceNotFoundException(AVATAR, id));
+        MediaType contentType = thumbnail ? MediaType.IMAGE_PNG
+                : avatar.contentType() != null ? MediaType.parseMediaType(avatar.contentType())
+                : MediaType.APPLICATION_OCTET_STREAM;
+        try {
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(cacheControl)
+                    .contentType(contentType)
+                    .contentLength(Files.size(file))
+                    .body(out -> avatarStore.transferTo(file, out));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Optional<Path> findStoredAvatar(String hash, boolean thumbnail) {
+        return thumbnail ? avatarStore.findThumbnail(hash) : avatarStore.findOriginal(hash);
+    }
+
+    /**
+     * Copies an avatar still kept in the doctor's row to the AvatarStore, the row is cleared by the next upload.
+     * Images the AvatarStore does not accept are left where they are and are not served.
+     */
+    private Optional<Path> importLegacyAvatar(Long id, String hash, boolean thumbnail) {
+        return repository.findAvatarById(id)
+                .flatMap(image -> {
+                    try {
+                        avatarStore.store(new ByteArrayInputStream(image));
+                    } catch (WrongAvatarException e) {
+                        return Optional.empty();
+                    }
+                    return findStoredAvatar(hash, thumbnail);
+                });
+    }
+
+    /**
+     * Points the doctor to an image kept in the AvatarStore and drops the image kept in the row, if any.
+     */
+    private static void setAvatar(Doctor doctor, StoredAvatar avatar) {
+        doctor.setAvatar(null);
+        doctor.setAvatarHash(avatar.hash());
+        doctor.setAvatarContentType(avatar.contentType());
+    }
+
     /**
      * Retrieves all specializations of a doctor with the given ID.
      *
@@ -388,6 +775,8 @@ class DoctorService {
                             ));
 
                     repository.save(doctor);
+                    searchIndex.index(doctor);
+                    topDoctorsIndex.index(doctor);
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(DOCTOR, doctorId));
@@ -411,72 +800,56 @@ class DoctorService {
     }
 
 
-//    ResponseEntity<Page<DoctorDTO>> searchDoctors(String word, String specialization, Pageable pageable) {
-//
-//        if (specialization == null)
-//            return returnResponse(() -> repository.search(word, pageable), dtoMapper);
-//        return returnResponse(() -> repository.searchWithSpecialization(word, specialization, pageable), dtoMapper);
-//    }
-
-
     /**
      * Searches for doctors based on the given search word and specialization.
+     * Every word of the phrase has to occur in the doctor's name or address, ignoring case.
+     * When the DoctorSearchIndex is enabled and built, the matching is done in memory and only the requested page is loaded.
+     * Otherwise the search, sorting and pagination are done by a single query.
+     * Both ways match the same doctors and sort them by first name ignoring case unless the pageable specifies otherwise.
      *
      * @param word The search word to look for in the doctor's information.
      * @param specialization The specialization to filter the search results, can be null.
      * @param pageable The pagination information for the search results.
-     * @return A ResponseEntity containing a Page of DoctorDTO objects matching the search criteria.
+     * @return A ResponseEntity containing a Page of DoctorSummaryDTO objects matching the search criteria.
      * @throws EmptyPageException if the search word is empty or no results are found.
      */
-    ResponseEntity<Page<DoctorDTO>> searchDoctors(String word, String specialization, Pageable pageable) {
-        String[] parts = word.split(" ");
-        List<String> stringsList = Arrays.stream(parts)
+    ResponseEntity<Page<DoctorSummaryDTO>> searchDoctors(String word, String specialization, Pageable pageable) {
+        List<String> words = Arrays.stream(word.split(" "))
                 .filter(part -> !part.isEmpty())
                 .toList();
 
-        if (stringsList.isEmpty())
+        if (words.isEmpty())
             throw new EmptyPageException();
 
-        List<Set<Doctor>> resultList = new ArrayList<>();
-
-        for (String wordPart : stringsList) {
-            List<Doctor> doctorsList;
-
-            if (specialization == null)
-                doctorsList = repository.search(wordPart);
-            else
-                doctorsList = repository.searchWithSpecialization(wordPart, specialization);
-
-            resultList.add(new HashSet<>(doctorsList));
+        Optional<Page<Long>> indexed = searchIndex.search(words, specialization, pageable);
+        if (indexed.isPresent()) {
+            Page<Long> ids = indexed.get();
+            return returnSummaries(new PageImpl<>(findAllSummariesByIdOrdered(ids.getContent()), ids.getPageable(), ids.getTotalElements()));
         }
 
-        Set<Doctor> commonDoctors = findCommonElements(resultList);
-
-        List<Doctor> commonDoctorList = new ArrayList<>(commonDoctors);
-        commonDoctorList.sort(Comparator.comparing(Doctor::getFirstName));
-
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), commonDoctorList.size());
-        Page<Doctor> doctorPage = new PageImpl<>(commonDoctorList.subList(start, end), pageable, commonDoctorList.size());
+        Specification<Doctor> specification = DoctorSpecifications.containsAllWords(words);
+        if (specialization != null)
+            specification = specification.and(DoctorSpecifications.hasSpecialization(specialization));
 
-        return returnResponse(() -> doctorPage, dtoMapper);
+        return returnSummaries(repository.findAllSummaries(specification, withDefaultSort(pageable, DoctorSearchIndex.DEFAULT_SORT)));
     }
 
-
     /**
-     * Finds the common elements among the list of sets of Doctors.
+     * Retrieves typeahead suggestions for the doctor search from the DoctorSearchIndex, without querying the database.
      *
-     * @param resultList the list of sets of Doctors to find common elements from
-     * @return a set of Doctors that are common among all sets in the input list
+     * @param prefix the typed prefix, ignoring case
+     * @param limit  the maximum number of suggestions to return, at most MAX_SUGGESTIONS_LIMIT
+     * @return a ResponseEntity containing the first names, last names, cities and specializations starting with the prefix,
+     * the ones matching the most doctors first
      */
-    private Set<Doctor> findCommonElements(List<Set<Doctor>> resultList) {
-        if (resultList.isEmpty()) return Collections.emptySet();
+    ResponseEntity<List<DoctorSuggestionDTO>> suggest(String prefix, int limit) {
+        if (prefix.isBlank())
+            return ResponseEntity.ok(List.of());
 
-        Set<Doctor> commonDoctors = new HashSet<>(resultList.get(0));
-        for (Set<Doctor> set : resultList) {
-            commonDoctors.retainAll(set);
-        }
-        return commonDoctors;
+        List<DoctorSuggestionDTO> suggestions = searchIndex.suggest(prefix.strip(), Math.max(1, Math.min(limit, MAX_SUGGESTIONS_LIMIT))).stream()
+                .map(suggestion -> new DoctorSuggestionDTO(suggestion.text(), suggestion.type(), suggestion.doctors()))
+                .toList();
+        return ResponseEntity.ok(suggestions);
     }
 
 
@@ -542,6 +915,7 @@ class DoctorService {
 
         doctor.setSchedule(schedule);
         repository.save(doctor);
+        availabilityIndex.invalidate(id);
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
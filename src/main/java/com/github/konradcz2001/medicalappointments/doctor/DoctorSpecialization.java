@@ -0,0 +1,7 @@
+package com.github.konradcz2001.medicalappointments.doctor;
+
+/**
+ * One of the specializations of a doctor, loaded for a whole page of DoctorSummary objects at once.
+ */
+public record DoctorSpecialization(Long doctorId, Integer id, String specialization) {
+}
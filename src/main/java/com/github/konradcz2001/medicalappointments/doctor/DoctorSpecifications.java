@@ -0,0 +1,123 @@
+package com.github.konradcz2001.medicalappointments.doctor;
+
+import com.github.konradcz2001.medicalappointments.doctor.schedule.Schedule;
+import com.github.konradcz2001.medicalappointments.specialization.Specialization;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Specifications used to search for doctors with a single query.
+ * <p>
+ * Words are matched against the search document of a doctor, a lowercased concatenation of the name and address columns
+ * maintained by the database and covered by a trigram index, so every word is a single indexed LIKE condition.
+ * Specializations are matched with a correlated subquery, so a doctor with several specializations is returned once.
+ */
+class DoctorSpecifications {
+    private static final char ESCAPE_CHAR = '\\';
+
+    private DoctorSpecifications() {
+    }
+
+    /**
+     * Matches doctors whose name or address contains every given word, ignoring case.
+     *
+     * @param words the words to look for, each of them may occur in a different column
+     * @return the specification matching doctors containing all the words
+     */
+    static Specification<Doctor> containsAllWords(List<String> words) {
+        return (root, query, cb) -> cb.and(words.stream()
+                .map(word -> cb.like(root.get("searchDocument"), "%" + escape(word.toLowerCase(Locale.ROOT)) + "%", ESCAPE_CHAR))
+                .toArray(Predicate[]::new));
+    }
+
+    /**
+     * Matches doctors having a specialization with the given name, ignoring case.
+     *
+     * @param specialization the name of the specialization
+     * @return the specification matching doctors with the specialization
+     */
+    static Specification<Doctor> hasSpecialization(String specialization) {
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<Doctor> doctor = subquery.correlate(root);
+            Join<Doctor, Specialization> specializations = doctor.join("specializations");
+            subquery.select(doctor.get("id"))
+                    .where(cb.equal(cb.upper(specializations.get("specialization")), specialization.toUpperCase(Locale.ROOT)));
+            return cb.exists(subquery);
+        };
+    }
+
+    /**
+     * Matches doctors having a specialization whose name contains the given text, ignoring case.
+     *
+     * @param text the text the name of the specialization should contain
+     * @return the specification matching doctors with such a specialization
+     */
+    static Specification<Doctor> hasSpecializationContaining(String text) {
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<Doctor> doctor = subquery.correlate(root);
+            Join<Doctor, Specialization> specializations = doctor.join("specializations");
+            subquery.select(doctor.get("id"))
+                    .where(cb.like(cb.upper(specializations.get("specialization")), "%" + escape(text.toUpperCase(Locale.ROOT)) + "%", ESCAPE_CHAR));
+            return cb.exists(subquery);
+        };
+    }
+
+    /**
+     * Matches doctors whose attribute contains the given text, ignoring case.
+     *
+     * @param attribute the name of the attribute, such as firstName
+     * @param text      the text the attribute should contain
+     * @return the specification matching doctors whose attribute contains the text
+     */
+    static Specification<Doctor> attributeContains(String attribute, String text) {
+        return (root, query, cb) ->
+                cb.like(cb.lower(root.get(attribute)), "%" + escape(text.toLowerCase(Locale.ROOT)) + "%", ESCAPE_CHAR);
+    }
+
+    /**
+     * Matches doctors with one of the given IDs.
+     *
+     * @param ids the IDs of the doctors
+     * @return the specification matching the doctors
+     */
+    static Specification<Doctor> hasIdIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    /**
+     * Matches doctors whose schedule covers the minute of the given date, the way their DayAvailability does.
+     * Leaves and visits are not taken into account, so it only narrows down the doctors that can be available.
+     *
+     * @param date the date whose minute should be within the working hours
+     * @return the specification matching doctors working at that minute
+     */
+    static Specification<Doctor> worksAt(LocalDateTime date) {
+        String day = date.getDayOfWeek().name().toLowerCase(Locale.ROOT);
+        LocalTime nextMinute = date.toLocalTime().truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        return (root, query, cb) -> {
+            if (nextMinute.equals(LocalTime.MIDNIGHT))
+                return cb.disjunction();
+            Join<Doctor, Schedule> schedule = root.join("schedule");
+            return cb.and(cb.lessThan(schedule.get(day + "Start"), nextMinute),
+                    cb.greaterThanOrEqualTo(schedule.get(day + "End"), nextMinute));
+        };
+    }
+
+    private static String escape(String word) {
+        return word.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.konradcz2001.medicalappointments.doctor;
+
+import java.math.BigDecimal;
+
+/**
+ * The columns of a doctor shown in doctor lists, selected without loading the Doctor entity and its associations,
+ * together with their aggregated rating, the average rating is null if the doctor has no reviews.
+ */
+public record DoctorSummary(Long id, String firstName, String lastName, String email, boolean isVerified, String avatarHash,
+                            String country, String state, String city, String street, String houseNumber, String zipCode,
+                            BigDecimal averageRating, long reviewCount) {
+}
@@ -0,0 +1,31 @@
+package com.github.konradcz2001.medicalappointments.doctor;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Repository fragment selecting DoctorSummary projections of the doctors matching a specification.
+ */
+public interface DoctorSummaryRepository {
+
+    /**
+     * Retrieves a page of summaries of the doctors matching the specification.
+     * The count query is skipped when the size of the page already tells the total.
+     *
+     * @param specification the specification to match, can be null to match all doctors
+     * @param pageable      the pagination information
+     * @return a page of DoctorSummary objects
+     */
+    Page<DoctorSummary> findAllSummaries(Specification<Doctor> specification, Pageable pageable);
+
+    /**
+     * Retrieves a slice of summaries of the doctors matching the specification, without a count query.
+     *
+     * @param specification the specification to match, can be null to match all doctors
+     * @param pageable      the pagination information
+     * @return a slice of DoctorSummary objects
+     */
+    Slice<DoctorSummary> findSummarySlice(Specification<Doctor> specification, Pageable pageable);
+}
@@ -0,0 +1,121 @@
+package com.github.konradcz2001.medicalappointments.doctor;
+
+import com.github.konradcz2001.medicalappointments.review.DoctorRatingStats;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.JpaEntityJoin;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.sqm.tree.SqmJoinType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * Criteria API implementation of the DoctorSummaryRepository, picked up by Spring Data as a fragment of the DoctorRepository.
+ * <p>
+ * The rating statistics of every doctor are left joined by the doctor's ID, so the summaries can also be sorted by
+ * averageRating and reviewCount, doctors without reviews are sorted as if their average rating and number of reviews were 0.
+ */
+class DoctorSummaryRepositoryImpl implements DoctorSummaryRepository {
+    private final EntityManager entityManager;
+
+    DoctorSummaryRepositoryImpl(final EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Page<DoctorSummary> findAllSummaries(Specification<Doctor> specification, Pageable pageable) {
+        TypedQuery<DoctorSummary> typedQuery = summaryQuery(specification, pageable.getSort());
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<DoctorSummary> content = typedQuery.getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(specification));
+    }
+
+    @Override
+    public Slice<DoctorSummary> findSummarySlice(Specification<Doctor> specification, Pageable pageable) {
+        TypedQuery<DoctorSummary> typedQuery = summaryQuery(specification, pageable.getSort());
+        if (pageable.isUnpaged())
+            return new SliceImpl<>(typedQuery.getResultList(), pageable, false);
+
+        // one more summary than requested tells whether there is a next slice
+        typedQuery.setFirstResult((int) pageable.getOffset());
+        typedQuery.setMaxResults(pageable.getPageSize() + 1);
+        List<DoctorSummary> content = typedQuery.getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    private TypedQuery<DoctorSummary> summaryQuery(Specification<Doctor> specification, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<DoctorSummary> query = cb.createQuery(DoctorSummary.class);
+        Root<Doctor> root = query.from(Doctor.class);
+        JpaEntityJoin<DoctorRatingStats> stats = ((JpaRoot<Doctor>) root).join(DoctorRatingStats.class, SqmJoinType.LEFT);
+        stats.on(cb.equal(stats.get("doctorId"), root.get("id")));
+        Path<Address> address = root.get("address");
+        query.select(cb.construct(DoctorSummary.class,
+                root.get("id"), root.get("firstName"), root.get("lastName"), root.get("email"), root.get("isVerified"), root.get("avatarHash"),
+                address.get("country"), address.get("state"), address.get("city"), address.get("street"), address.get("houseNumber"), address.get("zipCode"),
+                stats.get("averageRating"), cb.coalesce(stats.<Long>get("reviewCount"), 0L)));
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        query.orderBy(toOrdersWithRating(sort, root, stats, cb));
+
+        return entityManager.createQuery(query);
+    }
+
+    /**
+     * Translates the sort into orders, averageRating and reviewCount are read from the joined rating statistics, other properties from the doctor.
+     */
+    private static List<Order> toOrdersWithRating(Sort sort, Root<Doctor> root, From<?, DoctorRatingStats> stats, CriteriaBuilder cb) {
+        return sort.stream()
+                .flatMap(order -> {
+                    Expression<?> value = switch (order.getProperty()) {
+                        case "averageRating" -> cb.coalesce(stats.<BigDecimal>get("averageRating"), BigDecimal.ZERO);
+                        case "reviewCount" -> cb.coalesce(stats.<Long>get("reviewCount"), 0L);
+                        default -> null;
+                    };
+                    if (value == null)
+                        return toOrders(Sort.by(order), root, cb).stream();
+                    return Stream.of(order.isAscending() ? cb.asc(value) : cb.desc(value));
+                })
+                .toList();
+    }
+
+    private long count(Specification<Doctor> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Doctor> root = query.from(Doctor.class);
+        query.select(cb.count(root));
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
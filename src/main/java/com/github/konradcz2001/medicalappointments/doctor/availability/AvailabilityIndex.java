@@ -0,0 +1,194 @@
+package com.github.konradcz2001.medicalappointments.doctor.availability;
+
+import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.doctor.schedule.WeekDay;
+import com.github.konradcz2001.medicalappointments.leave.LeaveRepository;
+import com.github.konradcz2001.medicalappointments.visit.VisitRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static com.github.konradcz2001.medicalappointments.common.Utils.afterCommit;
+
+/**
+ * In-memory index of doctors' availability, kept as one DayAvailability bitmap per doctor and day.
+ * <p>
+ * Missing days are built from the doctor's schedule, leaves and non-cancelled visits with three queries,
+ * regardless of how many doctors and days are requested. Services that change visits, leaves or schedules
+ * invalidate the affected entries; invalidation happens after the surrounding transaction commits,
+ * so readers never cache a state that has been rolled back. Each doctor has a version number that changes
+ * on every invalidation, which prevents a reader that started before a change from caching stale data.
+ * <p>
+ * Only days from today up to CACHE_HORIZON_DAYS ahead are cached, and the cache is cleared when it grows
+ * beyond MAX_CACHED_DAYS entries.
+ */
+@Component
+public class AvailabilityIndex {
+    private static final int CACHE_HORIZON_DAYS = 90;
+    private static final int MAX_CACHED_DAYS = 200_000;
+    private static final int LOAD_BATCH_SIZE = 1_000;
+
+    private final DoctorRepository doctorRepository;
+    private final LeaveRepository leaveRepository;
+    private final VisitRepository visitRepository;
+    private final Map<DoctorDay, DayAvailability> days = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    AvailabilityIndex(final DoctorRepository doctorRepository, final LeaveRepository leaveRepository, final VisitRepository visitRepository) {
+        this.doctorRepository = doctorRepository;
+        this.leaveRepository = leaveRepository;
+        this.visitRepository = visitRepository;
+    }
+
+    /**
+     * Retrieves the availability of a doctor for every day of the given range.
+     *
+     * @param doctorId the ID of the doctor
+     * @param from     the first day of the range
+     * @param to       the last day of the range (inclusive)
+     * @return the availability of the doctor per day, ordered by day
+     */
+    public SortedMap<LocalDate, DayAvailability> forDoctor(Long doctorId, LocalDate from, LocalDate to) {
+        return forDoctors(List.of(doctorId), from, to).get(doctorId);
+    }
+
+    /**
+     * Retrieves the availability of several doctors for every day of the given range.
+     * Doctors missing any day of the range are loaded together, with the same three queries as a single doctor
+     * for every LOAD_BATCH_SIZE doctors.
+     *
+     * @param doctorIds the IDs of the doctors
+     * @param from      the first day of the range
+     * @param to        the last day of the range (inclusive)
+     * @return the availability per doctor and day, days ordered
+     */
+    public Map<Long, SortedMap<LocalDate, DayAvailability>> forDoctors(Collection<Long> doctorIds, LocalDate from, LocalDate to) {
+        Map<Long, SortedMap<LocalDate, DayAvailability>> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        for (Long doctorId : doctorIds) {
+            SortedMap<LocalDate, DayAvailability> cached = cachedDays(doctorId, from, to);
+            if (cached == null)
+                missing.add(doctorId);
+            else
+                result.put(doctorId, cached);
+        }
+
+        for (int i = 0; i < missing.size(); i += LOAD_BATCH_SIZE)
+            load(missing.subList(i, Math.min(i + LOAD_BATCH_SIZE, missing.size())), from, to).forEach((key, availability) ->
+                    result.computeIfAbsent(key.doctorId(), id -> new TreeMap<>()).put(key.day(), availability));
+        return result;
+    }
+
+    /**
+     * Returns the version of the doctor's availability. The version changes whenever the availability
+     * of the doctor is invalidated, so it can be used to validate data derived from the index.
+     *
+     * @param doctorId the ID of the doctor
+     * @return the current version of the doctor's availability
+     */
+    public long version(Long doctorId) {
+        return versions.computeIfAbsent(doctorId, id -> new AtomicLong()).get();
+    }
+
+    /**
+     * Invalidates the days of the doctor touched by the given period, e.g. after a visit was booked or cancelled.
+     *
+     * @param doctorId the ID of the doctor
+     * @param start    the beginning of the period
+     * @param end      the end of the period
+     */
+    public void invalidate(Long doctorId, LocalDateTime start, LocalDateTime end) {
+        afterCommit(() -> {
+            versions.computeIfAbsent(doctorId, id -> new AtomicLong()).incrementAndGet();
+            for (LocalDate day = start.toLocalDate(); !day.isAfter(end.toLocalDate()); day = day.plusDays(1))
+                days.remove(new DoctorDay(doctorId, day));
+        });
+    }
+
+    /**
+     * Invalidates all days of the doctor, e.g. after the doctor's schedule or leaves changed.
+     *
+     * @param doctorId the ID of the doctor
+     */
+    public void invalidate(Long doctorId) {
+        afterCommit(() -> {
+            versions.computeIfAbsent(doctorId, id -> new AtomicLong()).incrementAndGet();
+            days.keySet().removeIf(key -> key.doctorId().equals(doctorId));
+        });
+    }
+
+    /**
+     * Builds the availability of the given doctors for every day of the range and caches the days within the horizon.
+     */
+    private Map<DoctorDay, DayAvailability> load(Collection<Long> doctorIds, LocalDate from, LocalDate to) {
+        Map<Long, Long> loadedVersions = doctorIds.stream()
+                .collect(Collectors.toMap(id -> id, this::version));
+
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+
+        Map<Long, List<WeekDay>> workingDays = new HashMap<>();
+        for (DoctorSchedule schedule : doctorRepository.findAllSchedulesByIdIn(doctorIds))
+            workingDays.put(schedule.doctorId(), schedule.listOfDays());
+
+        Map<Long, List<BusyPeriod>> busyPeriods = new HashMap<>();
+        leaveRepository.findAllBusyPeriods(doctorIds, start, end)
+                .forEach(period -> busyPeriods.computeIfAbsent(period.doctorId(), id -> new ArrayList<>()).add(period));
+        visitRepository.findAllBusyPeriods(doctorIds, start, end)
+                .forEach(period -> busyPeriods.computeIfAbsent(period.doctorId(), id -> new ArrayList<>()).add(period));
+
+        Map<DoctorDay, DayAvailability> result = new HashMap<>();
+        for (Long doctorId : doctorIds) {
+            List<WeekDay> week = workingDays.get(doctorId);
+            List<BusyPeriod> busy = busyPeriods.getOrDefault(doctorId, List.of());
+
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                WeekDay workingDay = week == null ? null : week.get(day.getDayOfWeek().getValue() - 1);
+                result.put(new DoctorDay(doctorId, day), DayAvailability.of(day, workingDay, busy));
+            }
+        }
+
+        cache(result, loadedVersions);
+        return result;
+    }
+
+    /**
+     * Returns the cached days of the doctor, or null if any day of the range is not cached.
+     */
+    private SortedMap<LocalDate, DayAvailability> cachedDays(Long doctorId, LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, DayAvailability> result = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DayAvailability availability = days.get(new DoctorDay(doctorId, day));
+            if (availability == null)
+                return null;
+            result.put(day, availability);
+        }
+        return result;
+    }
+
+    private void cache(Map<DoctorDay, DayAvailability> loaded, Map<Long, Long> loadedVersions) {
+        if (days.size() > MAX_CACHED_DAYS)
+            days.clear();
+
+        LocalDate today = LocalDate.now();
+        LocalDate horizon = today.plusDays(CACHE_HORIZON_DAYS);
+        loaded.forEach((key, availability) -> {
+            if (key.day().isBefore(today) || key.day().isAfter(horizon))
+                return;
+
+            days.put(key, availability);
+            // the doctor's data changed while it was being loaded, so what was just cached may be stale
+            if (version(key.doctorId()) != loadedVersions.get(key.doctorId()))
+                days.remove(key, availability);
+        });
+    }
+
+    private record DoctorDay(Long doctorId, LocalDate day) {
+    }
+}
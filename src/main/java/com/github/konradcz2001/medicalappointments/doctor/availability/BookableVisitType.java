@@ -0,0 +1,13 @@
+package com.github.konradcz2001.medicalappointments.doctor.availability;
+
+/**
+ * Represents an active type of visit offered by a doctor, together with the doctor's name.
+ * <p>
+ *  doctorId: the ID of the doctor
+ *  firstName: the first name of the doctor
+ *  lastName: the last name of the doctor
+ *  typeOfVisitId: the ID of the type of visit
+ *  duration: the duration of the visit in minutes
+ */
+public record BookableVisitType(Long doctorId, String firstName, String lastName, Long typeOfVisitId, Integer duration) {
+}
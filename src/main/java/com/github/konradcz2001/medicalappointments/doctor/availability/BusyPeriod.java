@@ -0,0 +1,13 @@
+package com.github.konradcz2001.medicalappointments.doctor.availability;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents a period in which a doctor cannot accept visits, e.g. a leave or an already booked visit.
+ * <p>
+ *  doctorId: the ID of the doctor
+ *  start: the beginning of the period (inclusive)
+ *  end: the end of the period (exclusive)
+ */
+public record BusyPeriod(Long doctorId, LocalDateTime start, LocalDateTime end) {
+}
@@ -0,0 +1,111 @@
+package com.github.konradcz2001.medicalappointments.doctor.availability;
+
+import com.github.konradcz2001.medicalappointments.doctor.schedule.WeekDay;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Represents the availability of a doctor on a single day as a bitmap with one bit per minute of the day.
+ * A set bit means that the minute is covered by the doctor's schedule and is not taken by a leave or a visit.
+ * <p>
+ * Instances are immutable, so they can be shared between threads once created.
+ */
+public final class DayAvailability {
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final DayAvailability UNAVAILABLE = new DayAvailability(new BitSet(MINUTES_PER_DAY));
+
+    private final BitSet freeMinutes;
+
+    private DayAvailability(BitSet freeMinutes) {
+        this.freeMinutes = freeMinutes;
+    }
+
+    /**
+     * Builds the availability of a day from the working hours of that day and the busy periods touching it.
+     *
+     * @param date        the day to build the availability for
+     * @param workingDay  the working hours of the doctor on that day, may be null or have no hours set
+     * @param busyPeriods the leaves and visits of the doctor, periods outside the day are ignored
+     * @return the availability of the doctor on the given day
+     */
+    public static DayAvailability of(LocalDate date, WeekDay workingDay, List<BusyPeriod> busyPeriods) {
+        if (workingDay == null || workingDay.getStart() == null || workingDay.getEnd() == null)
+            return UNAVAILABLE;
+
+        int workStart = minuteOfDay(workingDay.getStart());
+        int workEnd = minuteOfDay(workingDay.getEnd());
+        if (workStart >= workEnd)
+            return UNAVAILABLE;
+
+        BitSet free = new BitSet(MINUTES_PER_DAY);
+        free.set(workStart, workEnd);
+
+        LocalDateTime dayStart = date.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        for (BusyPeriod period : busyPeriods) {
+            if (!period.start().isBefore(dayEnd) || !period.end().isAfter(dayStart))
+                continue;
+
+            int from = period.start().isAfter(dayStart) ? minuteOfDay(period.start().toLocalTime()) : 0;
+            int to = period.end().isBefore(dayEnd) ? minutesUntil(dayStart, period.end()) : MINUTES_PER_DAY;
+            free.clear(from, to);
+        }
+
+        return free.isEmpty() ? UNAVAILABLE : new DayAvailability(free);
+    }
+
+    /**
+     * Checks whether the doctor is free at the given time of the day.
+     *
+     * @param time the time to check
+     * @return true if the minute containing the given time is free, false otherwise
+     */
+    public boolean isFreeAt(LocalTime time) {
+        return freeMinutes.get(minuteOfDay(time));
+    }
+
+    /**
+     * Checks whether the doctor has any free minute on this day.
+     *
+     * @return true if no minute is free, false otherwise
+     */
+    public boolean isFullyBooked() {
+        return freeMinutes.isEmpty();
+    }
+
+    /**
+     * Lists the start times of visits of the given duration that fit into the free periods of the day.
+     * Consecutive start times within one free period are one duration apart.
+     *
+     * @param duration the duration of the visit in minutes
+     * @return the start times in ascending order
+     */
+    public List<LocalTime> startTimes(int duration) {
+        List<LocalTime> result = new ArrayList<>();
+        int step = Math.max(duration, 1);
+
+        int runStart = freeMinutes.nextSetBit(0);
+        while (runStart >= 0) {
+            int runEnd = freeMinutes.nextClearBit(runStart);
+            for (int minute = runStart; minute + duration <= runEnd; minute += step)
+                result.add(LocalTime.MIN.plusMinutes(minute));
+            runStart = freeMinutes.nextSetBit(runEnd);
+        }
+        return result;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static int minutesUntil(LocalDateTime dayStart, LocalDateTime end) {
+        // a period ending within a minute still takes that whole minute
+        return (int) Math.min(MINUTES_PER_DAY, (ChronoUnit.SECONDS.between(dayStart, end) + 59) / 60);
+    }
+}
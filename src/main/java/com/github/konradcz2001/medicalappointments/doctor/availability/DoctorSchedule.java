@@ -0,0 +1,35 @@
+package com.github.konradcz2001.medicalappointments.doctor.availability;
+
+import com.github.konradcz2001.medicalappointments.doctor.schedule.WeekDay;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Represents the working hours of a doctor loaded as plain columns, without the Schedule and Doctor entities.
+ * All hours are null if the doctor has not set a schedule.
+ */
+public record DoctorSchedule(Long doctorId,
+                             LocalTime mondayStart, LocalTime mondayEnd,
+                             LocalTime tuesdayStart, LocalTime tuesdayEnd,
+                             LocalTime wednesdayStart, LocalTime wednesdayEnd,
+                             LocalTime thursdayStart, LocalTime thursdayEnd,
+                             LocalTime fridayStart, LocalTime fridayEnd,
+                             LocalTime saturdayStart, LocalTime saturdayEnd,
+                             LocalTime sundayStart, LocalTime sundayEnd) {
+
+    /**
+     * Returns the working hours for each day of the week, starting with Monday, like Schedule.getListOfDays().
+     */
+    public List<WeekDay> listOfDays() {
+        return List.of(
+                new WeekDay(mondayStart, mondayEnd),
+                new WeekDay(tuesdayStart, tuesdayEnd),
+                new WeekDay(wednesdayStart, wednesdayEnd),
+                new WeekDay(thursdayStart, thursdayEnd),
+                new WeekDay(fridayStart, fridayEnd),
+                new WeekDay(saturdayStart, saturdayEnd),
+                new WeekDay(sundayStart, sundayEnd)
+        );
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.konradcz2001.medicalappointments.doctor.availability;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the first free slot of each doctor for a given visit duration.
+ * <p>
+ * An entry remembers the slot found when searching from a given time, together with the version of the doctor's
+ * availability it was computed from. It answers every later search starting between that time and the slot itself,
+ * until the doctor's availability changes. Bookings, cancellations, leaves and schedule updates bump the version
+ * in the AvailabilityIndex, so only the doctors affected by a change are searched again, and the search itself
+ * runs over the cached day bitmaps.
+ */
+@Component
+public class NextFreeSlotIndex {
+    private static final int SEARCH_HORIZON_DAYS = 60;
+    private static final int SEARCH_CHUNK_DAYS = 7;
+    private static final int MAX_ENTRIES = 100_000;
+
+    private final AvailabilityIndex availabilityIndex;
+    private final Map<DoctorDuration, Entry> entries = new ConcurrentHashMap<>();
+
+    NextFreeSlotIndex(final AvailabilityIndex availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    /**
+     * Finds the first free slot of each doctor starting at or after the given time.
+     * Doctors without a free slot within SEARCH_HORIZON_DAYS days are left out of the result.
+     *
+     * @param durations the visit duration in minutes per doctor ID
+     * @param from      the earliest acceptable start of the slot
+     * @return the start of the first free slot per doctor ID
+     */
+    public Map<Long, LocalDateTime> nextFreeSlots(Map<Long, Integer> durations, LocalDateTime from) {
+        Map<Long, LocalDateTime> result = new HashMap<>();
+        Map<Long, Long> versions = new HashMap<>();
+        List<Long> stale = new ArrayList<>();
+
+        durations.forEach((doctorId, duration) -> {
+            long version = availabilityIndex.version(doctorId);
+            Entry entry = entries.get(new DoctorDuration(doctorId, duration));
+
+            if (entry != null && entry.answers(version, from))
+                result.put(doctorId, entry.slot());
+            else {
+                versions.put(doctorId, version);
+                stale.add(doctorId);
+            }
+        });
+
+        if (stale.isEmpty())
+            return result;
+
+        // most searches end within the first days, so load them for all stale doctors at once
+        LocalDate firstDay = from.toLocalDate();
+        availabilityIndex.forDoctors(stale, firstDay, firstDay.plusDays(SEARCH_CHUNK_DAYS - 1));
+
+        if (entries.size() > MAX_ENTRIES)
+            entries.clear();
+
+        for (Long doctorId : stale) {
+            int duration = durations.get(doctorId);
+            search(doctorId, duration, from).ifPresent(slot -> {
+                entries.put(new DoctorDuration(doctorId, duration), new Entry(versions.get(doctorId), from, slot));
+                result.put(doctorId, slot);
+            });
+        }
+        return result;
+    }
+
+    private Optional<LocalDateTime> search(Long doctorId, int duration, LocalDateTime from) {
+        LocalDate firstDay = from.toLocalDate();
+        LocalDate lastDay = firstDay.plusDays(SEARCH_HORIZON_DAYS - 1);
+
+        for (LocalDate chunkStart = firstDay; !chunkStart.isAfter(lastDay); chunkStart = chunkStart.plusDays(SEARCH_CHUNK_DAYS)) {
+            LocalDate chunkEnd = chunkStart.plusDays(SEARCH_CHUNK_DAYS - 1);
+            for (Map.Entry<LocalDate, DayAvailability> day : availabilityIndex.forDoctor(doctorId, chunkStart, chunkEnd).entrySet()) {
+                for (LocalTime startTime : day.getValue().startTimes(duration)) {
+                    LocalDateTime start = day.getKey().atTime(startTime);
+                    if (!start.isBefore(from))
+                        return Optional.of(start);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private record DoctorDuration(Long doctorId, int duration) {
+    }
+
+    /**
+     * The first free slot found when searching from the given time. The slot set of a doctor does not depend on
+     * where the search starts, so the same slot is the answer for any search starting between that time and the slot.
+     */
+    private record Entry(long version, LocalDateTime searchedFrom, LocalDateTime slot) {
+        boolean answers(long currentVersion, LocalDateTime from) {
+            return version == currentVersion && !from.isBefore(searchedFrom) && !from.isAfter(slot);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.github.konradcz2001.medicalappointments.doctor.avatar;
+
+/**
+ * The avatar columns of a doctor, loaded without the rest of the entity.
+ * Both values are null if the doctor has no avatar.
+ */
+public record AvatarMetadata(String hash, String contentType) {
+}
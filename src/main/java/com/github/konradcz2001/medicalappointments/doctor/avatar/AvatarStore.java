@@ -0,0 +1,196 @@
+package com.github.konradcz2001.medicalappointments.doctor.avatar;
+
+import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongAvatarException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Content-addressed file storage of doctors' avatars.
+ * <p>
+ * Every image is stored once under the SHA-256 of its content, in a directory named after the first two characters
+ * of the hash, next to a THUMBNAIL_SIZE pixels square PNG thumbnail generated when the image is first stored.
+ * Uploading an image that is already stored only computes its hash, so doctors sharing an image share the files.
+ * Files are written to a temporary file and moved into place, so readers never see a partially written image.
+ */
+@Component
+public class AvatarStore {
+    static final int THUMBNAIL_SIZE = 128;
+    private static final String THUMBNAIL_SUFFIX = "-thumbnail.png";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path root;
+    private final long maxBytes;
+
+    AvatarStore(@Value("${app.avatar.storage-dir:avatars}") final String root,
+                @Value("${app.avatar.max-bytes:2097152}") final long maxBytes) {
+        this.root = Path.of(root);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Stores an image read from the stream, unless an identical image is stored already.
+     * The stream is copied to disk while its hash is computed, so the image is never held in memory as a whole.
+     *
+     * @param image the content of a PNG, JPEG or GIF image
+     * @return the hash and the content type of the stored image
+     * @throws WrongAvatarException if the image is empty, larger than the allowed size or not a supported image
+     */
+    public StoredAvatar store(InputStream image) {
+        try {
+            Files.createDirectories(root);
+            Path upload = Files.createTempFile(root, "upload-", ".tmp");
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                try (InputStream in = new DigestInputStream(image, digest);
+                     OutputStream out = Files.newOutputStream(upload)) {
+                    copy(in, out);
+                }
+
+                MediaType contentType = contentType(upload);
+                String hash = HexFormat.of().formatHex(digest.digest());
+                Path original = original(hash);
+                Path thumbnail = thumbnail(hash);
+
+                if (Files.notExists(original) || Files.notExists(thumbnail)) {
+                    BufferedImage decoded = ImageIO.read(upload.toFile());
+                    if (decoded == null)
+                        throw new WrongAvatarException("The avatar is not a valid image");
+
+                    Files.createDirectories(original.getParent());
+                    writeThumbnail(decoded, thumbnail);
+                    Files.move(upload, original, StandardCopyOption.ATOMIC_MOVE);
+                }
+                return new StoredAvatar(hash, contentType.toString());
+            } finally {
+                Files.deleteIfExists(upload);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Finds the stored image with the given hash.
+     *
+     * @param hash the SHA-256 of the image
+     * @return the path of the image, or an empty Optional if it is not stored
+     */
+    public Optional<Path> findOriginal(String hash) {
+        return Optional.of(original(hash)).filter(Files::exists);
+    }
+
+    /**
+     * Finds the thumbnail of the stored image with the given hash.
+     *
+     * @param hash the SHA-256 of the image
+     * @return the path of the PNG thumbnail, or an empty Optional if the image is not stored
+     */
+    public Optional<Path> findThumbnail(String hash) {
+        return Optional.of(thumbnail(hash)).filter(Files::exists);
+    }
+
+    /**
+     * Writes a stored file to the stream with FileChannel.transferTo, without copying it through the heap.
+     *
+     * @param file the path of a stored image or thumbnail
+     * @param out  the stream to write to
+     * @throws IOException if the file cannot be read or the stream cannot be written
+     */
+    public void transferTo(Path file, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            for (long position = 0; position < size; )
+                position += channel.transferTo(position, size - position, target);
+        }
+    }
+
+    private Path original(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path thumbnail(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash + THUMBNAIL_SUFFIX);
+    }
+
+    private void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            total += read;
+            if (total > maxBytes)
+                throw new WrongAvatarException("The avatar must not be larger than " + maxBytes + " bytes");
+            out.write(buffer, 0, read);
+        }
+        if (total == 0)
+            throw new WrongAvatarException("The avatar must not be empty");
+    }
+
+    /**
+     * Recognizes the format of an image from its first bytes.
+     */
+    private static MediaType contentType(Path image) throws IOException {
+        byte[] header = new byte[4];
+        try (InputStream in = Files.newInputStream(image)) {
+            int length = in.readNBytes(header, 0, header.length);
+            if (length >= 4 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G')
+                return MediaType.IMAGE_PNG;
+            if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF)
+                return MediaType.IMAGE_JPEG;
+            if (length >= 4 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8')
+                return MediaType.IMAGE_GIF;
+        }
+        throw new WrongAvatarException("The avatar must be a PNG, JPEG or GIF image");
+    }
+
+    /**
+     * Crops the middle square of the image and scales it down to the thumbnail size.
+     */
+    private static void writeThumbnail(BufferedImage image, Path target) throws IOException {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        int x = (image.getWidth() - side) / 2;
+        int y = (image.getHeight() - side) / 2;
+
+        BufferedImage thumbnail = new BufferedImage(THUMBNAIL_SIZE, THUMBNAIL_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, THUMBNAIL_SIZE, THUMBNAIL_SIZE, x, y, x + side, y + side, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Path temporary = Files.createTempFile(target.getParent(), "thumbnail-", ".tmp");
+        try {
+            ImageIO.write(thumbnail, "png", temporary.toFile());
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
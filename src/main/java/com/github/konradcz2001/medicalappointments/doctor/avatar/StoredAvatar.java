@@ -0,0 +1,7 @@
+package com.github.konradcz2001.medicalappointments.doctor.avatar;
+
+/**
+ * An avatar kept in the AvatarStore, identified by the SHA-256 of its content.
+ */
+public record StoredAvatar(String hash, String contentType) {
+}
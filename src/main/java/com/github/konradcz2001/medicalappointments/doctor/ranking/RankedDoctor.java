@@ -0,0 +1,9 @@
+package com.github.konradcz2001.medicalappointments.doctor.ranking;
+
+import java.math.BigDecimal;
+
+/**
+ * A doctor on the leaderboard of a specialization, with their average rating, number of reviews and the Bayesian score they are ranked by.
+ */
+public record RankedDoctor(Long doctorId, String firstName, String lastName, BigDecimal averageRating, long reviewCount, double score) {
+}
@@ -0,0 +1,297 @@
+package com.github.konradcz2001.medicalappointments.doctor.ranking;
+
+import com.github.konradcz2001.medicalappointments.doctor.Doctor;
+import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.doctor.DoctorSpecialization;
+import com.github.konradcz2001.medicalappointments.doctor.search.SearchableDoctor;
+import com.github.konradcz2001.medicalappointments.review.DoctorRatingStats;
+import com.github.konradcz2001.medicalappointments.review.DoctorRatingStatsRepository;
+import com.github.konradcz2001.medicalappointments.review.Rating;
+import com.github.konradcz2001.medicalappointments.specialization.Specialization;
+import com.github.konradcz2001.medicalappointments.specialization.SpecializationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static com.github.konradcz2001.medicalappointments.common.Utils.afterCommit;
+
+/**
+ * In-memory leaderboards of the best rated doctors of every specialization.
+ * <p>
+ * Doctors are ranked by the Bayesian average of their ratings, which adds priorWeight virtual reviews with the average rating
+ * of all reviews, so a doctor with a few five-star reviews does not outrank one with hundreds of almost perfect ones.
+ * The prior is taken when the index is built and kept until the next build, so a review only changes the score of the reviewed doctor.
+ * <p>
+ * Every specialization keeps its MAX_LIMIT best doctors with at least one review as an immutable list, read without locking.
+ * Changes of reviews, doctors and specializations are applied once their transactions commit, and only re-rank the boards
+ * of the affected doctor's specializations. When a leader of a full board drops to its last place or leaves it, the board is
+ * refilled from the ratings of all doctors of the specialization, which are kept in memory too, so reading a board never touches the database.
+ */
+@Component
+public class TopDoctorsIndex {
+    public static final int MAX_LIMIT = 20;
+    private static final Comparator<RankedDoctor> ORDER = Comparator.comparingDouble(RankedDoctor::score).reversed()
+            .thenComparing(Comparator.comparingLong(RankedDoctor::reviewCount).reversed())
+            .thenComparing(RankedDoctor::doctorId);
+
+    private final DoctorRepository doctorRepository;
+    private final SpecializationRepository specializationRepository;
+    private final DoctorRatingStatsRepository ratingStatsRepository;
+    private final double priorWeight;
+
+    private final Map<Long, Entry> doctors = new HashMap<>();
+    private final Map<Integer, Set<Long>> members = new HashMap<>();
+    private final Map<Integer, List<RankedDoctor>> boards = new ConcurrentHashMap<>();
+    private double priorMean;
+    private volatile boolean ready;
+
+    TopDoctorsIndex(final DoctorRepository doctorRepository, final SpecializationRepository specializationRepository,
+                    final DoctorRatingStatsRepository ratingStatsRepository,
+                    @Value("${app.doctor.top.prior-weight:10}") final double priorWeight) {
+        this.doctorRepository = doctorRepository;
+        this.specializationRepository = specializationRepository;
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.priorWeight = priorWeight;
+    }
+
+    /**
+     * Builds the leaderboards from the database, replacing their current content.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void build() {
+        doctors.clear();
+        members.clear();
+        boards.clear();
+
+        for (SearchableDoctor doctor : doctorRepository.findAllSearchable())
+            doctors.put(doctor.doctorId(), new Entry(doctor.firstName(), doctor.lastName()));
+        for (Integer specializationId : specializationRepository.findAllIds())
+            members.put(specializationId, new HashSet<>());
+        for (DoctorSpecialization specialization : doctorRepository.findAllSpecializations()) {
+            Entry entry = doctors.get(specialization.doctorId());
+            Set<Long> doctorIds = members.get(specialization.id());
+            if (entry != null && doctorIds != null) {
+                entry.specializations.add(specialization.id());
+                doctorIds.add(specialization.doctorId());
+            }
+        }
+
+        long count = 0;
+        long sum = 0;
+        for (DoctorRatingStats stats : ratingStatsRepository.findAll()) {
+            Entry entry = doctors.get(stats.getDoctorId());
+            if (entry == null)
+                continue;
+            stats.histogram().forEach((rating, reviews) -> entry.counts[rating.ordinal()] = reviews);
+            count += entry.count();
+            sum += entry.sum();
+        }
+        priorMean = count == 0 ? (Rating.values().length + 1) / 2.0 : (double) sum / count;
+
+        members.keySet().forEach(specializationId -> boards.put(specializationId, rankMembers(specializationId)));
+        ready = true;
+    }
+
+    /**
+     * Returns the best rated doctors of a specialization.
+     *
+     * @param specializationId the ID of the specialization
+     * @param limit            the maximum number of doctors, at most MAX_LIMIT
+     * @return the doctors ordered from the best one, or an empty Optional if the specialization is not known or the index is not built yet
+     */
+    public Optional<List<RankedDoctor>> top(Integer specializationId, int limit) {
+        if (!ready)
+            return Optional.empty();
+        return Optional.ofNullable(boards.get(specializationId))
+                .map(board -> board.subList(0, Math.min(limit, board.size())));
+    }
+
+    /**
+     * Adds a review with the given rating to the score of the doctor once the current transaction commits.
+     *
+     * @param doctorId the ID of the reviewed doctor
+     * @param rating   the rating of the review
+     */
+    public void addRating(Long doctorId, Rating rating) {
+        afterCommit(() -> adjust(doctorId, rating, 1));
+    }
+
+    /**
+     * Removes a review with the given rating from the score of the doctor once the current transaction commits.
+     *
+     * @param doctorId the ID of the reviewed doctor
+     * @param rating   the rating of the review
+     */
+    public void removeRating(Long doctorId, Rating rating) {
+        afterCommit(() -> adjust(doctorId, rating, -1));
+    }
+
+    /**
+     * Adds or updates the name and the specializations of the doctor once the current transaction commits.
+     *
+     * @param doctor the created or updated doctor
+     */
+    public void index(Doctor doctor) {
+        Long doctorId = doctor.getId();
+        String firstName = doctor.getFirstName();
+        String lastName = doctor.getLastName();
+        Set<Integer> specializations = doctor.getSpecializations().stream().map(Specialization::getId).collect(Collectors.toSet());
+
+        afterCommit(() -> update(doctorId, firstName, lastName, specializations));
+    }
+
+    /**
+     * Removes the doctor from the leaderboards once the current transaction commits.
+     *
+     * @param doctorId the ID of the deleted doctor
+     */
+    public void remove(Long doctorId) {
+        afterCommit(() -> delete(doctorId));
+    }
+
+    /**
+     * Adds an empty leaderboard of a created specialization once the current transaction commits.
+     *
+     * @param specializationId the ID of the created specialization
+     */
+    public void addSpecialization(Integer specializationId) {
+        afterCommit(() -> createBoard(specializationId));
+    }
+
+    /**
+     * Removes the leaderboard of a deleted specialization once the current transaction commits.
+     *
+     * @param specializationId the ID of the deleted specialization
+     */
+    public void removeSpecialization(Integer specializationId) {
+        afterCommit(() -> deleteBoard(specializationId));
+    }
+
+    private synchronized void adjust(Long doctorId, Rating rating, int delta) {
+        Entry entry = doctors.computeIfAbsent(doctorId, id -> new Entry(null, null));
+        entry.counts[rating.ordinal()] = Math.max(0, entry.counts[rating.ordinal()] + delta);
+        entry.specializations.forEach(specializationId -> rerank(specializationId, doctorId));
+    }
+
+    private synchronized void update(Long doctorId, String firstName, String lastName, Set<Integer> specializations) {
+        Entry entry = doctors.computeIfAbsent(doctorId, id -> new Entry(firstName, lastName));
+        entry.firstName = firstName;
+        entry.lastName = lastName;
+
+        Set<Integer> affected = new HashSet<>(entry.specializations);
+        affected.addAll(specializations);
+        entry.specializations.clear();
+        for (Integer specializationId : specializations) {
+            Set<Long> doctorIds = members.get(specializationId);
+            if (doctorIds != null) {
+                doctorIds.add(doctorId);
+                entry.specializations.add(specializationId);
+            }
+        }
+        for (Integer specializationId : affected) {
+            if (!entry.specializations.contains(specializationId) && members.containsKey(specializationId))
+                members.get(specializationId).remove(doctorId);
+            rerank(specializationId, doctorId);
+        }
+    }
+
+    private synchronized void delete(Long doctorId) {
+        Entry entry = doctors.remove(doctorId);
+        if (entry == null)
+            return;
+        for (Integer specializationId : entry.specializations) {
+            members.get(specializationId).remove(doctorId);
+            rerank(specializationId, doctorId);
+        }
+    }
+
+    private synchronized void createBoard(Integer specializationId) {
+        members.putIfAbsent(specializationId, new HashSet<>());
+        boards.putIfAbsent(specializationId, List.of());
+    }
+
+    private synchronized void deleteBoard(Integer specializationId) {
+        Set<Long> doctorIds = members.remove(specializationId);
+        if (doctorIds != null)
+            doctorIds.forEach(doctorId -> doctors.get(doctorId).specializations.remove(specializationId));
+        boards.remove(specializationId);
+    }
+
+    /**
+     * Moves the doctor to their current place on the board of the specialization.
+     * A leader of a full board that ends up last or leaves it may be overtaken by a doctor that was not on it,
+     * so the board is then ranked again from all doctors of the specialization.
+     */
+    private void rerank(Integer specializationId, Long doctorId) {
+        List<RankedDoctor> board = boards.get(specializationId);
+        if (board == null)
+            return;
+
+        List<RankedDoctor> updated = new ArrayList<>(board);
+        boolean wasLeader = updated.removeIf(leader -> leader.doctorId().equals(doctorId));
+        Entry entry = doctors.get(doctorId);
+        if (entry != null && entry.isRankedIn(specializationId))
+            updated.add(entry.rank(doctorId));
+        updated.sort(ORDER);
+
+        if (wasLeader && board.size() == MAX_LIMIT
+                && (updated.size() < MAX_LIMIT || updated.get(MAX_LIMIT - 1).doctorId().equals(doctorId)))
+            boards.put(specializationId, rankMembers(specializationId));
+        else
+            boards.put(specializationId, List.copyOf(updated.subList(0, Math.min(updated.size(), MAX_LIMIT))));
+    }
+
+    private List<RankedDoctor> rankMembers(Integer specializationId) {
+        return members.getOrDefault(specializationId, Set.of()).stream()
+                .filter(doctorId -> doctors.get(doctorId).isRankedIn(specializationId))
+                .map(doctorId -> doctors.get(doctorId).rank(doctorId))
+                .sorted(ORDER)
+                .limit(MAX_LIMIT)
+                .toList();
+    }
+
+    /**
+     * The name, specializations and number of reviews with each rating of a doctor.
+     */
+    private class Entry {
+        private String firstName;
+        private String lastName;
+        private final Set<Integer> specializations = new HashSet<>();
+        private final long[] counts = new long[Rating.values().length];
+
+        private Entry(String firstName, String lastName) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+
+        private long count() {
+            return Arrays.stream(counts).sum();
+        }
+
+        private long sum() {
+            long sum = 0;
+            for (int ordinal = 0; ordinal < counts.length; ordinal++)
+                sum += (ordinal + 1) * counts[ordinal];
+            return sum;
+        }
+
+        private boolean isRankedIn(Integer specializationId) {
+            return specializations.contains(specializationId) && count() > 0;
+        }
+
+        private RankedDoctor rank(Long doctorId) {
+            long count = count();
+            long sum = sum();
+            return new RankedDoctor(doctorId, firstName, lastName,
+                    BigDecimal.valueOf(sum).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP), count,
+                    (priorWeight * priorMean + sum) / (priorWeight + count));
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.github.konradcz2001.medicalappointments.doctor.search;
+
+import com.github.konradcz2001.medicalappointments.doctor.Address;
+import com.github.konradcz2001.medicalappointments.doctor.Doctor;
+import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.specialization.Specialization;
+import com.github.konradcz2001.medicalappointments.specialization.SpecializationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.github.konradcz2001.medicalappointments.common.Utils.afterCommit;
+
+/**
+ * In-memory index over the names, address fields and specialization names of doctors.
+ * <p>
+ * For search, every doctor gets a dense ordinal, and every 1, 2 and 3 character long gram of its name and address fields
+ * points to a BitSet of the ordinals containing it. These are the columns of the search_document of the database route,
+ * so both routes match the same doctors, specializations only filter by their whole name. A word of up to three characters
+ * is answered by a single posting list, longer words by intersecting the postings of their trigrams and checking the few
+ * remaining candidates, so a search never touches the database. The ordinals are also kept sorted by the lowercase
+ * first name for paging, the DEFAULT_SORT both routes use. The ordinals of removed doctors are reused by the doctors
+ * added later, so the documents and postings do not outgrow the number of doctors.
+ * The n-gram postings are only maintained when the app.doctor.search.in-memory property is enabled.
+ * <p>
+ * For typeahead, first names, last names, cities and specialization names are kept in a map sorted by their
+ * lowercase form, so the completions of a prefix form a contiguous range, each with the number of doctors using it.
+ * <p>
+ * The index is built when the application is ready and updated after the transactions changing doctors or specializations
+ * commit. Until it is built, search returns an empty Optional and the caller is expected to fall back to the database.
+ */
+@Component
+public class DoctorSearchIndex {
+    public static final Sort DEFAULT_SORT = Sort.by(Sort.Order.asc("firstName").ignoreCase());
+    private static final int MAX_GRAM_LENGTH = 3;
+
+    private final DoctorRepository doctorRepository;
+    private final SpecializationRepository specializationRepository;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, BitSet> postings = new HashMap<>();
+    private final Map<String, BitSet> specializations = new HashMap<>();
+    private final NavigableMap<String, Term> terms = new TreeMap<>();
+    private volatile int[] order;
+    private volatile boolean ready;
+
+    DoctorSearchIndex(final DoctorRepository doctorRepository, final SpecializationRepository specializationRepository,
+                      @Value("${app.doctor.search.in-memory:false}") final boolean enabled) {
+        this.doctorRepository = doctorRepository;
+        this.specializationRepository = specializationRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Builds the index from the database, replacing its current content.
+     * The write lock is held while loading, so changes committed in the meantime are applied on top of the loaded state.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            documents.clear();
+            live.clear();
+            postings.clear();
+            specializations.clear();
+            terms.clear();
+            order = null;
+
+            for (String name : specializationRepository.findAllNames())
+                term(SuggestionType.SPECIALIZATION, name).registered = true;
+
+            Map<Long, List<String>> specializationNames = new HashMap<>();
+            for (DoctorSpecializationName name : doctorRepository.findAllSpecializationNames())
+                specializationNames.computeIfAbsent(name.doctorId(), id -> new ArrayList<>()).add(name.specialization());
+
+            for (SearchableDoctor doctor : doctorRepository.findAllSearchable()) {
+                put(new Document(doctor.doctorId(), doctor.firstName(),
+                        List.of(nullToEmpty(doctor.firstName()), nullToEmpty(doctor.lastName()), nullToEmpty(doctor.country()),
+                                nullToEmpty(doctor.state()), nullToEmpty(doctor.city()), nullToEmpty(doctor.zipCode()),
+                                nullToEmpty(doctor.street()), nullToEmpty(doctor.houseNumber())),
+                        specializationNames.getOrDefault(doctor.doctorId(), List.of())));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches for doctors containing every word in their name or address, ignoring case.
+     *
+     * @param words          the words to look for, not empty
+     * @param specialization the name of a specialization the doctors must have, ignoring case, can be null
+     * @param pageable       the pagination information, only the DEFAULT_SORT by first name ignoring case is supported
+     * @return the page of IDs of matching doctors ordered by lowercase first name and ID, or an empty Optional
+     * if the index is disabled, not built yet or cannot apply the requested sort
+     */
+    public Optional<Page<Long>> search(List<String> words, String specialization, Pageable pageable) {
+        if (!enabled || !ready || !(pageable.getSort().isUnsorted() || pageable.getSort().equals(DEFAULT_SORT)))
+            return Optional.empty();
+
+        lock.readLock().lock();
+        try {
+            BitSet matches = (BitSet) live.clone();
+            if (specialization != null)
+                matches.and(specializations.getOrDefault(normalize(specialization), new BitSet()));
+            for (String word : words) {
+                if (matches.isEmpty())
+                    break;
+                matchWord(normalize(word), matches);
+            }
+
+            int total = matches.cardinality();
+            long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+            int size = pageable.isPaged() ? pageable.getPageSize() : total;
+
+            List<Long> ids = new ArrayList<>(Math.min(size, total));
+            long skipped = 0;
+            for (int ordinal : sortedOrdinals()) {
+                if (ids.size() == size)
+                    break;
+                if (!matches.get(ordinal))
+                    continue;
+                if (skipped++ < offset)
+                    continue;
+                ids.add(documents.get(ordinal).doctorId());
+            }
+
+            return Optional.of(pageable.isPaged() ? new PageImpl<>(ids, pageable, total) : new PageImpl<>(ids));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the most common first names, last names, cities and specialization names starting with the given prefix, ignoring case.
+     *
+     * @param prefix the typed prefix, not blank
+     * @param limit  the maximum number of suggestions to return
+     * @return the suggestions ordered by the number of doctors they match, then by length and text,
+     * or an empty list if the index is not built yet
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (!ready)
+            return List.of();
+
+        String from = normalize(prefix);
+        Comparator<Term> byRelevance = Comparator.comparingInt((Term term) -> term.doctors).reversed()
+                .thenComparingInt(term -> term.text.length())
+                .thenComparing(term -> term.text);
+
+        lock.readLock().lock();
+        try {
+            // keeps the best terms seen so far, the worst of them on top
+            PriorityQueue<Term> best = new PriorityQueue<>(limit + 1, byRelevance.reversed());
+            for (Term term : terms.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+                best.add(term);
+                if (best.size() > limit)
+                    best.poll();
+            }
+
+            return best.stream()
+                    .sorted(byRelevance)
+                    .map(term -> new Suggestion(term.text, term.type, term.doctors))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the doctor in the index once the current transaction commits.
+     * The indexed values are taken from the entity when this method is called.
+     *
+     * @param doctor the created or updated doctor
+     */
+    public void index(Doctor doctor) {
+        Address address = doctor.getAddress() == null ? new Address() : doctor.getAddress();
+        Document document = new Document(doctor.getId(), doctor.getFirstName(),
+                List.of(nullToEmpty(doctor.getFirstName()), nullToEmpty(doctor.getLastName()), nullToEmpty(address.getCountry()),
+                        nullToEmpty(address.getState()), nullToEmpty(address.getCity()), nullToEmpty(address.getZipCode()),
+                        nullToEmpty(address.getStreet()), nullToEmpty(address.getHouseNumber())),
+                doctor.getSpecializations().stream().map(Specialization::getSpecialization).toList());
+
+        afterCommit(() -> write(() -> put(document)));
+    }
+
+    /**
+     * Removes the doctor from the index once the current transaction commits.
+     *
+     * @param doctorId the ID of the deleted doctor
+     */
+    public void remove(Long doctorId) {
+        afterCommit(() -> write(() -> {
+            Integer ordinal = ordinals.remove(doctorId);
+            if (ordinal != null) {
+                unlink(ordinal);
+                documents.set(ordinal, null);
+            }
+        }));
+    }
+
+    /**
+     * Renames a specialization in the documents of all doctors having it, once the current transaction commits.
+     *
+     * @param oldName the current name of the specialization
+     * @param newName the new name of the specialization
+     */
+    public void renameSpecialization(String oldName, String newName) {
+        afterCommit(() -> write(() -> {
+            for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+                Document document = documents.get(ordinal);
+                if (document.specializations().stream().noneMatch(name -> normalize(name).equals(normalize(oldName))))
+                    continue;
+
+                List<String> renamed = document.specializations().stream()
+                        .map(name -> normalize(name).equals(normalize(oldName)) ? newName : name)
+                        .toList();
+                put(new Document(document.doctorId(), document.firstName(), document.fields(), renamed));
+            }
+
+            Term old = terms.get(termKey(SuggestionType.SPECIALIZATION, oldName));
+            if (old != null) {
+                old.registered = false;
+                release(old);
+            }
+            term(SuggestionType.SPECIALIZATION, newName).registered = true;
+        }));
+    }
+
+    /**
+     * Adds a specialization to the suggestions once the current transaction commits, before any doctor has it.
+     *
+     * @param name the name of the created specialization
+     */
+    public void addSpecialization(String name) {
+        afterCommit(() -> write(() -> term(SuggestionType.SPECIALIZATION, name).registered = true));
+    }
+
+    /**
+     * Removes a specialization from the suggestions once the current transaction commits.
+     *
+     * @param name the name of the deleted specialization
+     */
+    public void removeSpecialization(String name) {
+        afterCommit(() -> write(() -> {
+            Term term = terms.get(termKey(SuggestionType.SPECIALIZATION, name));
+            if (term != null) {
+                term.registered = false;
+                release(term);
+            }
+        }));
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Narrows the matches to the documents containing the word in any of their fields.
+     */
+    private void matchWord(String word, BitSet matches) {
+        if (word.length() <= MAX_GRAM_LENGTH) {
+            matches.and(postings.getOrDefault(word, new BitSet()));
+            return;
+        }
+
+        for (int i = 0; i + MAX_GRAM_LENGTH <= word.length() && !matches.isEmpty(); i++)
+            matches.and(postings.getOrDefault(word.substring(i, i + MAX_GRAM_LENGTH), new BitSet()));
+
+        // sharing all trigrams does not guarantee that the word occurs as a whole
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            if (!documents.get(ordinal).contains(word))
+                matches.clear(ordinal);
+        }
+    }
+
+    private void put(Document document) {
+        Integer ordinal = ordinals.get(document.doctorId());
+        if (ordinal == null) {
+            // the first ordinal not taken by a doctor, freed by a removal or past the last one
+            ordinal = live.nextClearBit(0);
+            if (ordinal == documents.size())
+                documents.add(document);
+            else
+                documents.set(ordinal, document);
+            ordinals.put(document.doctorId(), ordinal);
+        } else {
+            unlink(ordinal);
+            documents.set(ordinal, document);
+        }
+
+        live.set(ordinal);
+        if (enabled) {
+            for (String gram : document.grams())
+                postings.computeIfAbsent(gram, key -> new BitSet()).set(ordinal);
+            for (String name : document.specializations())
+                specializations.computeIfAbsent(normalize(name), key -> new BitSet()).set(ordinal);
+        }
+        document.suggestions().forEach((type, texts) -> texts.forEach(text -> term(type, text).doctors++));
+        order = null;
+    }
+
+    private void unlink(int ordinal) {
+        Document document = documents.get(ordinal);
+        if (enabled) {
+            for (String gram : document.grams())
+                clear(postings, gram, ordinal);
+            for (String name : document.specializations())
+                clear(specializations, normalize(name), ordinal);
+        }
+        document.suggestions().forEach((type, texts) -> texts.forEach(text -> {
+            Term term = terms.get(termKey(type, text));
+            if (term != null) {
+                term.doctors--;
+                release(term);
+            }
+        }));
+        live.clear(ordinal);
+        order = null;
+    }
+
+    private Term term(SuggestionType type, String text) {
+        return terms.computeIfAbsent(termKey(type, text), key -> new Term(text, type));
+    }
+
+    private void release(Term term) {
+        if (term.doctors <= 0 && !term.registered)
+            terms.remove(termKey(term.type, term.text));
+    }
+
+    /**
+     * The key of a term, its lowercase text first so that all terms starting with a prefix are adjacent.
+     */
+    private static String termKey(SuggestionType type, String text) {
+        return normalize(text) + '\u0000' + type.ordinal();
+    }
+
+    private static void clear(Map<String, BitSet> index, String key, int ordinal) {
+        BitSet bits = index.get(key);
+        if (bits == null)
+            return;
+        bits.clear(ordinal);
+        if (bits.isEmpty())
+            index.remove(key);
+    }
+
+    /**
+     * Returns the live ordinals sorted by lowercase first name and doctor ID, as the database orders by DEFAULT_SORT.
+     * The order is rebuilt lazily after changes;
+     * concurrent readers may both rebuild it, which yields the same result.
+     */
+    private int[] sortedOrdinals() {
+        int[] sorted = order;
+        if (sorted != null)
+            return sorted;
+
+        Comparator<Document> byName = Comparator.comparing(document -> document.firstName() == null ? null : normalize(document.firstName()),
+                Comparator.nullsLast(Comparator.naturalOrder()));
+        sorted = live.stream().boxed()
+                .sorted(Comparator.comparing(documents::get, byName.thenComparing(Document::doctorId)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        order = sorted;
+        return sorted;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static String nullToEmpty(String text) {
+        return text == null ? "" : text;
+    }
+
+    /**
+     * The indexed values of a doctor. Fields and specialization names are kept as given, grams are built from the lowercase form of the fields.
+     */
+    private record Document(Long doctorId, String firstName, List<String> fields, List<String> specializations) {
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            for (String text : searchableFields()) {
+                for (int length = 1; length <= MAX_GRAM_LENGTH; length++) {
+                    for (int i = 0; i + length <= text.length(); i++)
+                        grams.add(text.substring(i, i + length));
+                }
+            }
+            return grams;
+        }
+
+        boolean contains(String word) {
+            return searchableFields().stream().anyMatch(text -> text.contains(word));
+        }
+
+        Map<SuggestionType, Set<String>> suggestions() {
+            Map<SuggestionType, Set<String>> suggestions = new EnumMap<>(SuggestionType.class);
+            addSuggestion(suggestions, SuggestionType.FIRST_NAME, fields.get(0));
+            addSuggestion(suggestions, SuggestionType.LAST_NAME, fields.get(1));
+            addSuggestion(suggestions, SuggestionType.CITY, fields.get(4));
+            specializations.forEach(name -> addSuggestion(suggestions, SuggestionType.SPECIALIZATION, name));
+            return suggestions;
+        }
+
+        private static void addSuggestion(Map<SuggestionType, Set<String>> suggestions, SuggestionType type, String text) {
+            if (!text.isBlank())
+                suggestions.computeIfAbsent(type, key -> new TreeSet<>(String.CASE_INSENSITIVE_ORDER)).add(text.strip());
+        }
+
+        private List<String> searchableFields() {
+            return fields.stream().map(DoctorSearchIndex::normalize).toList();
+        }
+    }
+
+    /**
+     * A typeahead suggestion, shown with the casing of the first text that created it.
+     * A registered specialization is kept even when no doctor has it.
+     */
+    private static final class Term {
+        final String text;
+        final SuggestionType type;
+        int doctors;
+        boolean registered;
+
+        Term(String text, SuggestionType type) {
+            this.text = text;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.konradcz2001.medicalappointments.doctor.search;
+
+/**
+ * The name of one of the specializations of a doctor, loaded to build the DoctorSearchIndex.
+ */
+public record DoctorSpecializationName(Long doctorId, String specialization) {
+}
@@ -0,0 +1,15 @@
+package com.github.konradcz2001.medicalappointments.doctor.search;
+
+/**
+ * The searchable columns of a doctor, loaded without the rest of the entity to build the DoctorSearchIndex.
+ */
+public record SearchableDoctor(Long doctorId,
+                               String firstName,
+                               String lastName,
+                               String country,
+                               String state,
+                               String city,
+                               String zipCode,
+                               String street,
+                               String houseNumber) {
+}
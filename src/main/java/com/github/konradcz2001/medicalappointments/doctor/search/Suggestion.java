@@ -0,0 +1,7 @@
+package com.github.konradcz2001.medicalappointments.doctor.search;
+
+/**
+ * A completion of a typed prefix, together with the number of doctors it would match.
+ */
+public record Suggestion(String text, SuggestionType type, int doctors) {
+}
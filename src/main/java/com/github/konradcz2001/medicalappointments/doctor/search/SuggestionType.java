@@ -0,0 +1,11 @@
+package com.github.konradcz2001.medicalappointments.doctor.search;
+
+/**
+ * The field of a doctor a typeahead suggestion comes from.
+ */
+public enum SuggestionType {
+    FIRST_NAME,
+    LAST_NAME,
+    CITY,
+    SPECIALIZATION
+}
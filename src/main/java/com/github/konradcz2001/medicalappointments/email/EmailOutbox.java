@@ -0,0 +1,34 @@
+package com.github.konradcz2001.medicalappointments.email;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Queues emails to be sent by the EmailOutboxSender.
+ * <p>
+ * An email is written to the outbox in the transaction of the caller, so it is sent if and only if the caller commits,
+ * and the caller never waits for the mail server.
+ */
+@Component
+public class EmailOutbox {
+    private final OutboxEmailRepository repository;
+
+    EmailOutbox(final OutboxEmailRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Queues a plain text email, it has to be called in a transaction.
+     *
+     * @param recipient the address to send the email to
+     * @param subject   the subject of the email
+     * @param body      the content of the email
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String recipient, String subject, String body) {
+        repository.save(new OutboxEmail(recipient, subject, body, LocalDateTime.now()));
+    }
+}
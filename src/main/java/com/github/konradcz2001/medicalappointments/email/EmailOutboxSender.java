@@ -0,0 +1,164 @@
+package com.github.konradcz2001.medicalappointments.email;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends the emails of the outbox in the background.
+ * <p>
+ * Every poll claims batches of due emails until a batch is not full. Claiming locks the emails with SKIP LOCKED and leases them
+ * for the lease time in a short transaction, so the mail server is never called with a transaction open, and an email claimed
+ * by a sender that dies is claimed again once its lease ends. A batch is sent with one call of the JavaMailSender,
+ * which delivers all its messages over a single SMTP connection. Sent emails are deleted, failed ones are retried with an
+ * exponential backoff from the initial backoff up to the maximum one, and an email failing maxAttempts times is marked DEAD.
+ * Emails are delivered at least once, a sender dying after sending a batch makes it sent again.
+ */
+@Component
+public class EmailOutboxSender {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEmailRepository repository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final String sender;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    EmailOutboxSender(final OutboxEmailRepository repository, final JavaMailSender mailSender, final PlatformTransactionManager transactionManager,
+                      @Value("${spring.mail.username}") final String sender,
+                      @Value("${app.email.outbox.batch-size:50}") final int batchSize,
+                      @Value("${app.email.outbox.max-attempts:8}") final int maxAttempts,
+                      @Value("${app.email.outbox.lease:5m}") final Duration lease,
+                      @Value("${app.email.outbox.initial-backoff:30s}") final Duration initialBackoff,
+                      @Value("${app.email.outbox.max-backoff:1h}") final Duration maxBackoff) {
+        this.repository = repository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sender = sender;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval-ms:5000}")
+    void sendDue() {
+        int claimed;
+        do {
+            claimed = sendBatch();
+        } while (claimed == batchSize);
+    }
+
+    /**
+     * Claims, sends and settles one batch of due emails.
+     *
+     * @return the number of emails claimed
+     */
+    int sendBatch() {
+        List<OutboxEmail> batch = transactionTemplate.execute(status -> claim(LocalDateTime.now()));
+        if (batch == null || batch.isEmpty())
+            return 0;
+
+        Map<OutboxEmail, Exception> failures = new IdentityHashMap<>();
+        Map<MimeMessage, OutboxEmail> messages = new LinkedHashMap<>();
+        for (OutboxEmail email : batch) {
+            try {
+                messages.put(toMessage(email), email);
+            } catch (MessagingException e) {
+                failures.put(email, e);
+            }
+        }
+        if (!messages.isEmpty())
+            send(messages, failures);
+
+        transactionTemplate.executeWithoutResult(status -> settle(batch, failures, LocalDateTime.now()));
+        return batch.size();
+    }
+
+    private List<OutboxEmail> claim(LocalDateTime now) {
+        List<OutboxEmail> due = repository.findAllDueForUpdate(now, PageRequest.of(0, batchSize));
+        due.forEach(email -> email.setNextAttemptAt(now.plus(lease)));
+        return due;
+    }
+
+    private MimeMessage toMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(sender);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody());
+        return message;
+    }
+
+    /**
+     * Sends the messages over one connection and records the ones that failed.
+     */
+    private void send(Map<MimeMessage, OutboxEmail> messages, Map<OutboxEmail, Exception> failures) {
+        try {
+            mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty())
+                messages.values().forEach(email -> failures.put(email, e));
+            e.getFailedMessages().forEach((message, cause) -> failures.put(messages.get(message), cause));
+        } catch (MailException e) {
+            messages.values().forEach(email -> failures.put(email, e));
+        }
+    }
+
+    private void settle(List<OutboxEmail> batch, Map<OutboxEmail, Exception> failures, LocalDateTime now) {
+        List<Long> sent = new ArrayList<>();
+        List<OutboxEmail> failed = new ArrayList<>();
+        for (OutboxEmail email : batch) {
+            Exception failure = failures.get(email);
+            if (failure == null) {
+                sent.add(email.getId());
+                continue;
+            }
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(abbreviate(String.valueOf(failure.getMessage())));
+            if (email.getAttempts() >= maxAttempts)
+                email.setStatus(EmailStatus.DEAD);
+            else
+                email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+            failed.add(email);
+        }
+        if (!sent.isEmpty())
+            repository.deleteAllByIdInBatch(sent);
+        repository.saveAll(failed);
+    }
+
+    /**
+     * Returns the delay before the next attempt, doubling the initial backoff with every failed attempt up to the maximum backoff.
+     */
+    Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private static String abbreviate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,9 @@
+package com.github.konradcz2001.medicalappointments.email;
+
+/**
+ * The state of an email in the outbox, PENDING until it is sent and deleted, or DEAD once it failed too many times.
+ */
+public enum EmailStatus {
+    PENDING,
+    DEAD
+}
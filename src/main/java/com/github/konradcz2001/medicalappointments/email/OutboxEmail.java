@@ -0,0 +1,65 @@
+package com.github.konradcz2001.medicalappointments.email;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * This code snippet represents the "OutboxEmail" class.
+ * <p>
+ * The "OutboxEmail" class is an entity class that represents an email waiting in the outbox to be sent.
+ * It is mapped to the "email_outbox" table in the database.
+ * <p>
+ * The class has the following attributes:
+ * - id: The unique identifier of the email.
+ * - recipient: The address the email is sent to.
+ * - subject: The subject of the email.
+ * - body: The plain text content of the email.
+ * - status: Whether the email is still to be sent or has failed too many times.
+ * - attempts: The number of failed attempts to send the email.
+ * - nextAttemptAt: The time from which the email may be claimed by a sender.
+ * - lastError: The error of the last failed attempt, null if there was none.
+ * - createdAt: The time the email was written to the outbox.
+ */
+@Entity
+@Table(name = "email_outbox")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@NoArgsConstructor
+public class OutboxEmail {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+    @Column(name = "recipient", nullable = false)
+    String recipient;
+    @Column(name = "subject", nullable = false)
+    String subject;
+    @Column(name = "body", nullable = false)
+    String body;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    EmailStatus status;
+    @Column(name = "attempts", nullable = false)
+    int attempts;
+    @Column(name = "next_attempt_at", nullable = false)
+    LocalDateTime nextAttemptAt;
+    @Column(name = "last_error")
+    String lastError;
+    @Column(name = "created_at", nullable = false)
+    LocalDateTime createdAt;
+
+    public OutboxEmail(String recipient, String subject, String body, LocalDateTime now) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.status = EmailStatus.PENDING;
+        this.nextAttemptAt = now;
+        this.createdAt = now;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.konradcz2001.medicalappointments.email;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * This is a Spring Data JPA repository of the email outbox.
+ * <p>
+ * findAllDueForUpdate locks the emails it returns and skips the ones locked by another sender,
+ * so concurrent senders claim disjoint batches without waiting for each other.
+ */
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT e FROM OutboxEmail e WHERE e.status = com.github.konradcz2001.medicalappointments.email.EmailStatus.PENDING " +
+            "AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt, e.id")
+    List<OutboxEmail> findAllDueForUpdate(@Param("now") LocalDateTime now, Pageable limit);
+}
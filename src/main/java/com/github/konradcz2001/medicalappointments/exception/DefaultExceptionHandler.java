@@ -3,6 +3,8 @@ package com.github.konradcz2001.medicalappointments.exception;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
@@ -10,6 +12,7 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.time.LocalDateTime;
 
@@ -20,13 +23,18 @@ import static org.springframework.http.HttpStatus.*;
  * It contains methods annotated with @ExceptionHandler to handle specific exceptions and return ResponseEntity<ApiError>.
  * The class provides exception handling for ResourceNotFoundException, EmptyPageException, WrongLeaveException, WrongSpecializationException,
  * WrongScheduleException, WrongReviewException, ConstraintViolationException, WrongTypeOfVisitException, WrongVisitException,
+ * WrongAvatarException, MaxUploadSizeExceededException, WrongCursorException, WrongCountModeException,
  * InsufficientAuthenticationException, AuthenticationException, DuplicateEmailException, WrongUserException, BadCredentialsException,
- * and MethodArgumentNotValidException. It also has a generic exception handler for any other type of Exception.
+ * MethodArgumentNotValidException, TooManyLoginAttemptsException and PasswordHashingOverloadedException, the last two with a Retry-After header.
+ * Violations of the visit overlap constraints are reported as WrongVisitException.
+ * It also has a generic exception handler for any other type of Exception.
  * Each exception handler method constructs an ApiError object with details such as class name, request URI, error message, HTTP status code,
  * and local date and time, and returns a ResponseEntity with the ApiError object and corresponding HTTP status.
  */
 @ControllerAdvice
 public class DefaultExceptionHandler {
+    private static final String VISITS_DOCTOR_NO_OVERLAP = "visits_doctor_no_overlap";
+    private static final String VISITS_CLIENT_NO_OVERLAP = "visits_client_no_overlap";
 
     @ExceptionHandler({ResourceNotFoundException.class, EmptyPageException.class})
     public ResponseEntity<ApiError> handleNotFoundException(RuntimeException ex, HttpServletRequest request){
@@ -42,7 +50,8 @@ public class DefaultExceptionHandler {
 
     @ExceptionHandler({WrongLeaveException.class, WrongSpecializationException.class, WrongScheduleException.class,
             WrongReviewException.class, ConstraintViolationException.class, WrongTypeOfVisitException.class,
-            WrongVisitException.class})
+            WrongVisitException.class, WrongAvatarException.class, MaxUploadSizeExceededException.class, WrongCursorException.class,
+            WrongCountModeException.class})
     public ResponseEntity<ApiError> handleWrongDataException(RuntimeException ex, HttpServletRequest request){
         ApiError apiError = new ApiError(
                 request.getClass().getSimpleName(),
@@ -54,6 +63,29 @@ public class DefaultExceptionHandler {
         return new ResponseEntity<>(apiError, BAD_REQUEST);
     }
 
+    /**
+     * Translates violations of the visit overlap constraints into the same response as the conflict checks
+     * in the visit service, so that a booking race lost in the database looks like any other conflict.
+     * Other integrity violations are handled as unexpected errors.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiError> handleDataIntegrityViolationException(DataIntegrityViolationException ex, HttpServletRequest request){
+        if(violatesConstraint(ex, VISITS_DOCTOR_NO_OVERLAP))
+            return handleWrongDataException(new WrongVisitException("The visit conflicts with another doctor's visit"), request);
+        if(violatesConstraint(ex, VISITS_CLIENT_NO_OVERLAP))
+            return handleWrongDataException(new WrongVisitException("The visit conflicts with another of your visits"), request);
+
+        return handleException(ex, request);
+    }
+
+    private boolean violatesConstraint(Throwable ex, String constraint){
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains(constraint))
+                return true;
+        }
+        return false;
+    }
+
     @ExceptionHandler({InsufficientAuthenticationException.class, AuthenticationException.class,
             DuplicateEmailException.class, WrongUserException.class})
     public ResponseEntity<ApiError> handleAuthenticationException(AuthenticationException ex, HttpServletRequest request){
@@ -79,6 +111,34 @@ public class DefaultExceptionHandler {
         return new ResponseEntity<>(apiError, UNAUTHORIZED);
     }
 
+    @ExceptionHandler(TooManyLoginAttemptsException.class)
+    public ResponseEntity<ApiError> handleTooManyLoginAttemptsException(TooManyLoginAttemptsException ex, HttpServletRequest request){
+        ApiError apiError = new ApiError(
+                request.getClass().getSimpleName(),
+                request.getRequestURI(),
+                ex.getMessage(),
+                TOO_MANY_REQUESTS.value(),
+                LocalDateTime.now());
+
+        return ResponseEntity.status(TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(apiError);
+    }
+
+    @ExceptionHandler(PasswordHashingOverloadedException.class)
+    public ResponseEntity<ApiError> handlePasswordHashingOverloadedException(PasswordHashingOverloadedException ex, HttpServletRequest request){
+        ApiError apiError = new ApiError(
+                request.getClass().getSimpleName(),
+                request.getRequestURI(),
+                ex.getMessage(),
+                SERVICE_UNAVAILABLE.value(),
+                LocalDateTime.now());
+
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(apiError);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiError> handleValidationException(MethodArgumentNotValidException ex, HttpServletRequest request) {
         String errorMessage = ex.getBindingResult().getFieldErrors().get(0).getDefaultMessage();
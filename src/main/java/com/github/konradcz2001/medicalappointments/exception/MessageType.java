@@ -6,7 +6,7 @@ import lombok.Getter;
 /**
  * This code snippet represents an enum called MessageType. It is used to define different types of messages in the ResourceNotFoundException.
  * Each message type has a corresponding value associated with it.
- * The enum includes the following message types: SPECIALIZATION, LEAVE, DOCTOR, CLIENT, VISIT, and REVIEW.
+ * The enum includes the following message types: SPECIALIZATION, LEAVE, DOCTOR, CLIENT, VISIT, REVIEW, and AVATAR.
  * The value of each message type is stored as a string.
  */
 @Getter
@@ -17,7 +17,8 @@ public enum MessageType {
     DOCTOR("Doctor"),
     CLIENT("Client"),
     VISIT("Visit"),
-    REVIEW("Review");
+    REVIEW("Review"),
+    AVATAR("Avatar of doctor");
 
     private final String value;
 
@@ -0,0 +1,16 @@
+package com.github.konradcz2001.medicalappointments.exception.exceptions;
+
+
+/**
+ * Represents a custom exception for an overloaded password hashing pool.
+ * <p>
+ * This exception is thrown when a password cannot be hashed or checked because all threads of the BoundedPasswordEncoder are busy
+ * and its queue is full, so the request is rejected at once instead of waiting.
+ * It extends the RuntimeException class.
+ */
+public class PasswordHashingOverloadedException extends RuntimeException {
+
+    public PasswordHashingOverloadedException() {
+        super("The server is busy, try again in a moment");
+    }
+}
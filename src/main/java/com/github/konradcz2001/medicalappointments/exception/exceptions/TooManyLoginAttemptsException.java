@@ -0,0 +1,22 @@
+package com.github.konradcz2001.medicalappointments.exception.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Represents a custom exception for too many failed logins.
+ * <p>
+ * This exception is thrown when an account has failed to log in too many times within the window of the LoginThrottle,
+ * before the password is checked.
+ * It extends the RuntimeException class.
+ * <p>
+ * Param retryAfterSeconds - the number of seconds after which the account can try to log in again
+ */
+@Getter
+public class TooManyLoginAttemptsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyLoginAttemptsException(long retryAfterSeconds) {
+        super("Too many failed login attempts, try again in " + retryAfterSeconds + " seconds");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.konradcz2001.medicalappointments.exception.exceptions;
+
+
+/**
+ * Represents a custom exception for wrong avatar.
+ * <p>
+ * This exception is thrown when an uploaded avatar is empty, too large or not a supported image.
+ * It extends the RuntimeException class.
+ * <p>
+ * Param message - the error message associated with the exception
+ */
+public class WrongAvatarException extends RuntimeException {
+
+    public WrongAvatarException(String message) {
+        super(message);
+    }
+}
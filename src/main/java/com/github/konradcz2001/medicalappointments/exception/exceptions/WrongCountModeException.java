@@ -0,0 +1,17 @@
+package com.github.konradcz2001.medicalappointments.exception.exceptions;
+
+import com.github.konradcz2001.medicalappointments.common.CountMode;
+
+/**
+ * Represents a custom exception for wrong count mode.
+ * <p>
+ * This exception is thrown when a listing cannot compute its total the way the client asked for,
+ * such as an estimated total of a filtered listing. It extends the RuntimeException class.
+ * <p>
+ * Param count - the count mode that is not supported
+ */
+public class WrongCountModeException extends RuntimeException {
+    public WrongCountModeException(CountMode count) {
+        super("Count mode " + count + " is not supported by this listing");
+    }
+}
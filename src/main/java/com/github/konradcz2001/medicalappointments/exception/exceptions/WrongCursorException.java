@@ -0,0 +1,15 @@
+package com.github.konradcz2001.medicalappointments.exception.exceptions;
+
+/**
+ * Represents a custom exception for wrong cursor.
+ * <p>
+ * This exception is thrown when a cursor of keyset pagination cannot be decoded.
+ * It extends the RuntimeException class.
+ * <p>
+ * Param message - the error message associated with the exception
+ */
+public class WrongCursorException extends RuntimeException {
+    public WrongCursorException(String message) {
+        super(message);
+    }
+}
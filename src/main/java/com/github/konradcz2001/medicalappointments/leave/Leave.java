@@ -24,7 +24,7 @@ import java.time.LocalDateTime;
  * - id: The unique identifier for the leave.
  * - startDate: The start date of the leave.
  * - endDate: The end date of the leave.
- * - doctor: The doctor who took the leave.
+ * - doctor: The doctor who took the leave, loaded lazily, as leaves are mapped with the ID of the doctor only.
  * <p>
  * The class provides getters and setters for all the attributes.
  * <p>
@@ -49,7 +49,7 @@ public class Leave {
     @FutureOrPresent(message = "End date must not be in the past")
     LocalDateTime endDate;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", nullable = false)
     @NotNull(message = "Doctor must not be empty")
     Doctor doctor;
@@ -1,5 +1,6 @@
 package com.github.konradcz2001.medicalappointments.leave;
 
+import com.github.konradcz2001.medicalappointments.common.CursorPage;
 import com.github.konradcz2001.medicalappointments.leave.DTO.LeaveDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.data.domain.Page;
@@ -38,6 +39,37 @@ class LeaveController {
         return service.readAll(pageable);
     }
 
+    /**
+     * Retrieves all leave records with keyset pagination.
+     * Send an empty cursor for the first page and the returned next cursor for every following one.
+     *
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of leaves on the page
+     * @return a ResponseEntity containing a CursorPage of LeaveDTO objects and the cursor of the next page
+     */
+    @Operation(summary = "Retrieves all leave records with keyset pagination.")
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    ResponseEntity<CursorPage<LeaveDTO>> readAllByCursor(@RequestParam String cursor, @RequestParam(defaultValue = "20") int size){
+        return service.readAllByCursor(cursor, size);
+    }
+
+    /**
+     * Retrieves the leave records of a doctor with keyset pagination.
+     * Send an empty cursor for the first page and the returned next cursor for every following one.
+     *
+     * @param doctorId the ID of the doctor
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of leaves on the page
+     * @return a ResponseEntity containing a CursorPage of LeaveDTO objects and the cursor of the next page
+     */
+    @Operation(summary = "Retrieves the leave records of a doctor with keyset pagination.")
+    @GetMapping(params = {"doctorId", "cursor"})
+    @PreAuthorize("hasAuthority('DOCTOR') or hasAuthority('ADMIN')")
+    ResponseEntity<CursorPage<LeaveDTO>> readAllByDoctorIdAndCursor(@RequestParam Long doctorId, @RequestParam String cursor, @RequestParam(defaultValue = "20") int size){
+        return service.readAllByDoctorIdAndCursor(doctorId, cursor, size);
+    }
+
     /**
      * Retrieves a leave record by its ID.
      *
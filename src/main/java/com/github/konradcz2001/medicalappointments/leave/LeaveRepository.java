@@ -1,11 +1,17 @@
 package com.github.konradcz2001.medicalappointments.leave;
 
+import com.github.konradcz2001.medicalappointments.calendar.CalendarEvent;
+import com.github.konradcz2001.medicalappointments.doctor.availability.BusyPeriod;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * This code snippet represents the LeaveRepository interface.
@@ -20,8 +26,13 @@ import java.time.LocalDateTime;
  * - findAllByEndDateBefore: Retrieves all leaves with an end date before the specified date.
  * - findAllByStartDateAfterAndEndDateBefore: Retrieves all leaves with a start date after the specified "after" date and an end date before the specified "before" date.
  * - findAllByDoctorId: Retrieves all leaves for a specific doctor ID.
+ * - findAllBusyPeriods: Retrieves the leaves of the given doctors overlapping the specified period, as busy periods.
+ * - findAllCalendarEventsByDoctorId: Retrieves the leaves of a doctor ending after the specified date, as events of their calendar feed.
+ * - findAllBefore, findAllByDoctorIdBefore: Retrieve leaves for keyset pagination, latest start date first,
+ *   starting after the given (start date, id) position.
  * <p>
  * Note: The interface uses Spring Data JPA's Pageable interface for pagination.
+ * Leaves are mapped with the ID of the doctor only, which is read from the lazy proxy, so the finders need no entity graph.
  */
 @Repository
 public interface LeaveRepository extends JpaRepository<Leave, Long> {
@@ -31,4 +42,18 @@ public interface LeaveRepository extends JpaRepository<Leave, Long> {
     Page<Leave> findAllByEndDateBefore(LocalDateTime date, Pageable pageable);
     Page<Leave> findAllByStartDateAfterAndEndDateBefore(LocalDateTime after, LocalDateTime before, Pageable pageable);
     Page<Leave> findAllByDoctorId(Long doctorId, Pageable pageable);
+
+    @Query("SELECT l FROM Leave l WHERE (l.startDate, l.id) < (:date, :id) ORDER BY l.startDate DESC, l.id DESC")
+    List<Leave> findAllBefore(@Param("date") LocalDateTime date, @Param("id") Long id, Pageable limit);
+
+    @Query("SELECT l FROM Leave l WHERE l.doctor.id = :doctorId AND (l.startDate, l.id) < (:date, :id) ORDER BY l.startDate DESC, l.id DESC")
+    List<Leave> findAllByDoctorIdBefore(@Param("doctorId") Long doctorId, @Param("date") LocalDateTime date, @Param("id") Long id, Pageable limit);
+
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.doctor.availability.BusyPeriod(l.doctor.id, l.startDate, l.endDate) " +
+            "FROM Leave l WHERE l.doctor.id IN :doctorIds AND l.startDate < :end AND l.endDate > :start")
+    List<BusyPeriod> findAllBusyPeriods(@Param("doctorIds") Collection<Long> doctorIds, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.calendar.CalendarEvent('leave', l.id, l.startDate, l.endDate, 'Leave', '', false) " +
+            "FROM Leave l WHERE l.doctor.id = :doctorId AND l.endDate > :from ORDER BY l.startDate")
+    List<CalendarEvent> findAllCalendarEventsByDoctorId(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from);
 }
@@ -1,7 +1,11 @@
 package com.github.konradcz2001.medicalappointments.leave;
 
+import com.github.konradcz2001.medicalappointments.common.Cursor;
+import com.github.konradcz2001.medicalappointments.common.CursorPage;
 import com.github.konradcz2001.medicalappointments.exception.MessageType;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.EmptyPageException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongCursorException;
 import com.github.konradcz2001.medicalappointments.leave.DTO.LeaveDTO;
 import com.github.konradcz2001.medicalappointments.leave.DTO.LeaveDTOMapper;
 import org.springframework.data.domain.Page;
@@ -11,6 +15,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 
+import static com.github.konradcz2001.medicalappointments.common.Utils.returnCursorResponse;
 import static com.github.konradcz2001.medicalappointments.common.Utils.returnResponse;
 
 /**
@@ -40,6 +45,37 @@ class LeaveService {
         return returnResponse(() -> repository.findAll(pageable), dtoMapper);
     }
 
+    /**
+     * Retrieves a page of all the leaves with keyset pagination, latest start date first, without counting them.
+     *
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of leaves on the page, at most MAX_CURSOR_PAGE_SIZE
+     * @return a ResponseEntity containing a CursorPage of LeaveDTO objects and the cursor of the next page
+     * @throws EmptyPageException  if the page is empty
+     * @throws WrongCursorException if the cursor cannot be decoded
+     */
+    ResponseEntity<CursorPage<LeaveDTO>> readAllByCursor(String cursor, int size) {
+        Cursor position = Cursor.decode(cursor);
+        return returnCursorResponse(size, limit -> repository.findAllBefore(position.date(), position.id(), limit),
+                leave -> new Cursor(leave.getStartDate(), leave.getId()), dtoMapper);
+    }
+
+    /**
+     * Retrieves a page of the leaves of a doctor with keyset pagination, latest start date first, without counting them.
+     *
+     * @param doctorId the ID of the doctor
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of leaves on the page, at most MAX_CURSOR_PAGE_SIZE
+     * @return a ResponseEntity containing a CursorPage of LeaveDTO objects and the cursor of the next page
+     * @throws EmptyPageException  if the page is empty
+     * @throws WrongCursorException if the cursor cannot be decoded
+     */
+    ResponseEntity<CursorPage<LeaveDTO>> readAllByDoctorIdAndCursor(Long doctorId, String cursor, int size) {
+        Cursor position = Cursor.decode(cursor);
+        return returnCursorResponse(size, limit -> repository.findAllByDoctorIdBefore(doctorId, position.date(), position.id(), limit),
+                leave -> new Cursor(leave.getStartDate(), leave.getId()), dtoMapper);
+    }
+
     /**
      * Retrieves a leave with the specified ID.
      *
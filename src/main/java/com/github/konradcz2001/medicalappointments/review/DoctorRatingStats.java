@@ -0,0 +1,72 @@
+package com.github.konradcz2001.medicalappointments.review;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * This code snippet represents the "DoctorRatingStats" class.
+ * <p>
+ * The "DoctorRatingStats" class is an entity class that represents the aggregated ratings of a doctor.
+ * It is mapped to the "doctor_rating_stats" table in the database.
+ * <p>
+ * The class has the following attributes:
+ * - doctorId: The ID of the doctor.
+ * - oneStar, twoStars, threeStars, fourStars, fiveStars: The number of reviews with each rating.
+ * - reviewCount: The number of all reviews, computed by the database.
+ * - averageRating: The average number of stars rounded to two decimal places, computed by the database, null if there are no reviews.
+ * <p>
+ * The counters are changed by DoctorRatingStatsRepository only, a doctor without a row has no reviews.
+ */
+@Entity
+@Table(name = "doctor_rating_stats")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorRatingStats {
+    @Id
+    @Column(name = "doctor_id")
+    Long doctorId;
+    @Column(name = "one_star", nullable = false)
+    long oneStar;
+    @Column(name = "two_stars", nullable = false)
+    long twoStars;
+    @Column(name = "three_stars", nullable = false)
+    long threeStars;
+    @Column(name = "four_stars", nullable = false)
+    long fourStars;
+    @Column(name = "five_stars", nullable = false)
+    long fiveStars;
+    @Column(name = "review_count", insertable = false, updatable = false)
+    long reviewCount;
+    @Column(name = "average_rating", insertable = false, updatable = false)
+    BigDecimal averageRating;
+
+    /**
+     * Returns the number of reviews with each rating.
+     *
+     * @return the number of reviews per rating, in the order of the ratings
+     */
+    public Map<Rating, Long> histogram() {
+        Map<Rating, Long> histogram = new EnumMap<>(Rating.class);
+        histogram.put(Rating.ONE_STAR, oneStar);
+        histogram.put(Rating.TWO_STARS, twoStars);
+        histogram.put(Rating.THREE_STARS, threeStars);
+        histogram.put(Rating.FOUR_STARS, fourStars);
+        histogram.put(Rating.FIVE_STARS, fiveStars);
+        return histogram;
+    }
+}
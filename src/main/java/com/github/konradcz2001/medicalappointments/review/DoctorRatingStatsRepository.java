@@ -0,0 +1,58 @@
+package com.github.konradcz2001.medicalappointments.review;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * This is a Spring Data JPA repository of the aggregated ratings of doctors.
+ * <p>
+ * The add and remove methods have to be called in the transaction that creates, updates or deletes a review.
+ * They change the counter of a single rating with one statement, which is atomic and locks only the row of the doctor
+ * until the transaction commits, so concurrent reviews of one doctor are never lost. add is an upsert creating the row
+ * on the first review of the doctor, remove is a plain update, because Postgres checks the constraints of the proposed row
+ * of an upsert before resolving the conflict, so a negative counter would be rejected even when the row exists.
+ */
+@Repository
+public interface DoctorRatingStatsRepository extends JpaRepository<DoctorRatingStats, Long> {
+    @Modifying
+    @Query(value = "INSERT INTO doctor_rating_stats (doctor_id, one_star, two_stars, three_stars, four_stars, five_stars) " +
+            "VALUES (:doctorId, :oneStar, :twoStars, :threeStars, :fourStars, :fiveStars) " +
+            "ON CONFLICT (doctor_id) DO UPDATE SET " +
+            "one_star = doctor_rating_stats.one_star + EXCLUDED.one_star, " +
+            "two_stars = doctor_rating_stats.two_stars + EXCLUDED.two_stars, " +
+            "three_stars = doctor_rating_stats.three_stars + EXCLUDED.three_stars, " +
+            "four_stars = doctor_rating_stats.four_stars + EXCLUDED.four_stars, " +
+            "five_stars = doctor_rating_stats.five_stars + EXCLUDED.five_stars", nativeQuery = true)
+    void increment(@Param("doctorId") Long doctorId, @Param("oneStar") int oneStar, @Param("twoStars") int twoStars,
+                   @Param("threeStars") int threeStars, @Param("fourStars") int fourStars, @Param("fiveStars") int fiveStars);
+
+    @Modifying
+    @Query(value = "UPDATE doctor_rating_stats SET " +
+            "one_star = one_star - :oneStar, " +
+            "two_stars = two_stars - :twoStars, " +
+            "three_stars = three_stars - :threeStars, " +
+            "four_stars = four_stars - :fourStars, " +
+            "five_stars = five_stars - :fiveStars " +
+            "WHERE doctor_id = :doctorId", nativeQuery = true)
+    void decrement(@Param("doctorId") Long doctorId, @Param("oneStar") int oneStar, @Param("twoStars") int twoStars,
+                   @Param("threeStars") int threeStars, @Param("fourStars") int fourStars, @Param("fiveStars") int fiveStars);
+
+    default void add(Long doctorId, Rating rating) {
+        int[] deltas = deltas(rating);
+        increment(doctorId, deltas[0], deltas[1], deltas[2], deltas[3], deltas[4]);
+    }
+
+    default void remove(Long doctorId, Rating rating) {
+        int[] deltas = deltas(rating);
+        decrement(doctorId, deltas[0], deltas[1], deltas[2], deltas[3], deltas[4]);
+    }
+
+    private static int[] deltas(Rating rating) {
+        int[] deltas = new int[Rating.values().length];
+        deltas[rating.ordinal()] = 1;
+        return deltas;
+    }
+}
@@ -26,6 +26,7 @@ import java.time.LocalDateTime;
  * - constructor: creates a new instance of the Review class with the given parameters
  * <p>
  * Note: The Review class is annotated with JPA annotations for persistence.
+ * The doctor and the client are lazy, the ReviewRepository finders fetch them with an entity graph where their names are mapped.
  */
 @Entity
 @Table(name = "reviews")
@@ -47,12 +48,12 @@ public class Review {
     @Size(max = 500, message = "Maximum length is 500 characters")
     String description;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id")
     @NotNull(message = "Doctor must not be empty")
     Doctor doctor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id")
     @NotNull(message = "Client must not be empty")
     Client client;
@@ -1,9 +1,12 @@
 package com.github.konradcz2001.medicalappointments.review;
 
+import com.github.konradcz2001.medicalappointments.common.CountMode;
+import com.github.konradcz2001.medicalappointments.common.CursorPage;
 import com.github.konradcz2001.medicalappointments.review.DTO.ReviewDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -29,13 +32,61 @@ class ReviewController {
      * Retrieves all reviews.
      *
      * @param pageable the pagination information
-     * @return a ResponseEntity containing a Page of ReviewDTO objects
+     * @param count    how the total number is computed: EXACT (default), ESTIMATED or NONE for a Slice without a count
+     * @return a ResponseEntity containing a Page of ReviewDTO objects, or a Slice if the count is skipped
      */
     @Operation(summary = "Retrieves all reviews.")
     @GetMapping
     @PreAuthorize("hasAuthority('ADMIN')")
-    ResponseEntity<Page<ReviewDTO>> readAll(Pageable pageable){
-        return service.readAll(pageable);
+    ResponseEntity<Slice<ReviewDTO>> readAll(Pageable pageable, @RequestParam(defaultValue = "EXACT") CountMode count){
+        return service.readAll(pageable, count);
+    }
+
+    /**
+     * Retrieves all reviews with keyset pagination.
+     * Send an empty cursor for the first page and the returned next cursor for every following one.
+     *
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of reviews on the page
+     * @return a ResponseEntity containing a CursorPage of ReviewDTO objects and the cursor of the next page
+     */
+    @Operation(summary = "Retrieves all reviews with keyset pagination.")
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    ResponseEntity<CursorPage<ReviewDTO>> readAllByCursor(@RequestParam String cursor, @RequestParam(defaultValue = "20") int size){
+        return service.readAllByCursor(cursor, size);
+    }
+
+    /**
+     * Retrieves the reviews of a doctor with keyset pagination.
+     * Send an empty cursor for the first page and the returned next cursor for every following one.
+     *
+     * @param doctorId the ID of the doctor
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of reviews on the page
+     * @return a ResponseEntity containing a CursorPage of ReviewDTO objects and the cursor of the next page
+     */
+    @Operation(summary = "Retrieves the reviews of a doctor with keyset pagination.")
+    @GetMapping(params = {"doctorId", "cursor"})
+    @PreAuthorize("hasAuthority('DOCTOR') or hasAuthority('ADMIN')")
+    ResponseEntity<CursorPage<ReviewDTO>> readAllByDoctorIdAndCursor(@RequestParam Long doctorId, @RequestParam String cursor, @RequestParam(defaultValue = "20") int size){
+        return service.readAllByDoctorIdAndCursor(doctorId, cursor, size);
+    }
+
+    /**
+     * Retrieves the reviews written by a client with keyset pagination.
+     * Send an empty cursor for the first page and the returned next cursor for every following one.
+     *
+     * @param clientId the ID of the client
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of reviews on the page
+     * @return a ResponseEntity containing a CursorPage of ReviewDTO objects and the cursor of the next page
+     */
+    @Operation(summary = "Retrieves the reviews written by a client with keyset pagination.")
+    @GetMapping(params = {"clientId", "cursor"})
+    @PreAuthorize("hasAuthority('CLIENT') or hasAuthority('ADMIN')")
+    ResponseEntity<CursorPage<ReviewDTO>> readAllByClientIdAndCursor(@RequestParam Long clientId, @RequestParam String cursor, @RequestParam(defaultValue = "20") int size){
+        return service.readAllByClientIdAndCursor(clientId, cursor, size);
     }
 
     /**
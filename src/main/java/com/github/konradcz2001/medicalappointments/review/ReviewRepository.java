@@ -1,28 +1,75 @@
 package com.github.konradcz2001.medicalappointments.review;
 
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * This is a Java interface that extends the JpaRepository interface. It represents a repository for the Review entity.
  * The interface provides methods for querying the Review entities based on different criteria such as doctor ID, client ID, date range, rating, etc.
  * The methods return a Page object containing the matching Review entities, which can be used for pagination purposes.
+ * Finders whose reviews are mapped with the names of the doctor and the client fetch both with an entity graph,
+ * the reviews of a client are mapped with the ID of the doctor only, so the doctor stays a lazy proxy.
+ * The Slice finder reads all reviews without running a count query,
+ * and estimateCount reads the number of reviews from the planner statistics instead of counting them.
+ * The "Before" finders read reviews for keyset pagination, newest first, starting after the given (date, id) position.
+ * findByIdAndClientIdForUpdate locks the review until the end of the transaction, so its rating is read once no other
+ * transaction can change it, and changes of the rating statistics derived from it are not applied twice.
  * The interface is annotated with the @Repository annotation to indicate that it is a Spring Data repository.
  */
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
+    @Override
+    @EntityGraph(attributePaths = {"doctor", "client"})
+    Page<Review> findAll(Pageable pageable);
+    @EntityGraph(attributePaths = {"doctor", "client"})
     Page<Review> findAllByDoctorId(Long id, Pageable pageable);
     Page<Review> findAllByClientId(Long id, Pageable pageable);
+    @EntityGraph(attributePaths = {"doctor", "client"})
     Page<Review> findAllByDateAfterAndDateBefore(LocalDateTime after, LocalDateTime before, Pageable pageable);
+    @EntityGraph(attributePaths = {"doctor", "client"})
     Page<Review> findAllByDateAfter(LocalDateTime after, Pageable pageable);
+    @EntityGraph(attributePaths = {"doctor", "client"})
     Page<Review> findAllByDateBefore(LocalDateTime before, Pageable pageable);
+    @EntityGraph(attributePaths = {"doctor", "client"})
     Page<Review> findAllByRatingLessThan(Rating rating, Pageable pageable);
+    @EntityGraph(attributePaths = {"doctor", "client"})
     Page<Review> findAllByRatingGreaterThan(Rating rating, Pageable pageable);
+    @EntityGraph(attributePaths = {"doctor", "client"})
     Page<Review> findAllByRating(Rating rating, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"doctor", "client"})
+    Slice<Review> findAllBy(Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.id = :id AND r.client.id = :clientId")
+    Optional<Review> findByIdAndClientIdForUpdate(@Param("id") Long id, @Param("clientId") Long clientId);
+
+    @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = CAST('reviews' AS regclass)", nativeQuery = true)
+    long estimateCount();
+
+    @EntityGraph(attributePaths = {"doctor", "client"})
+    @Query("SELECT r FROM Review r WHERE (r.date, r.id) < (:date, :id) ORDER BY r.date DESC, r.id DESC")
+    List<Review> findAllBefore(@Param("date") LocalDateTime date, @Param("id") Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = {"doctor", "client"})
+    @Query("SELECT r FROM Review r WHERE r.doctor.id = :doctorId AND (r.date, r.id) < (:date, :id) ORDER BY r.date DESC, r.id DESC")
+    List<Review> findAllByDoctorIdBefore(@Param("doctorId") Long doctorId, @Param("date") LocalDateTime date, @Param("id") Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = {"doctor", "client"})
+    @Query("SELECT r FROM Review r WHERE r.client.id = :clientId AND (r.date, r.id) < (:date, :id) ORDER BY r.date DESC, r.id DESC")
+    List<Review> findAllByClientIdBefore(@Param("clientId") Long clientId, @Param("date") LocalDateTime date, @Param("id") Long id, Pageable limit);
+
 }
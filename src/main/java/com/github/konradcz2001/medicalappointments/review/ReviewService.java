@@ -1,17 +1,26 @@
 package com.github.konradcz2001.medicalappointments.review;
 
+import com.github.konradcz2001.medicalappointments.common.CountMode;
+import com.github.konradcz2001.medicalappointments.common.Cursor;
+import com.github.konradcz2001.medicalappointments.common.CursorPage;
 import com.github.konradcz2001.medicalappointments.exception.MessageType;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.EmptyPageException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongCursorException;
 import com.github.konradcz2001.medicalappointments.review.DTO.ReviewDTO;
 import com.github.konradcz2001.medicalappointments.review.DTO.ReviewDTOMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 
+import static com.github.konradcz2001.medicalappointments.common.Utils.returnCursorResponse;
 import static com.github.konradcz2001.medicalappointments.common.Utils.returnResponse;
+import static com.github.konradcz2001.medicalappointments.common.Utils.returnSliceResponse;
+import static com.github.konradcz2001.medicalappointments.common.Utils.withEstimatedTotal;
 
 /**
  * This code snippet represents a class named ReviewService.
@@ -33,12 +42,65 @@ class ReviewService {
 
     /**
      * Retrieves all the reviews.
+     * The total number of reviews is counted, estimated from the planner statistics or skipped, depending on the count mode.
      *
      * @param pageable the pagination information
-     * @return a ResponseEntity containing a Page of ReviewDTO objects representing all the reviews
+     * @param count    how the total number of reviews is computed
+     * @return a ResponseEntity containing a Page of ReviewDTO objects representing all the reviews, or a Slice if the count is skipped
      */
-    ResponseEntity<Page<ReviewDTO>> readAll(Pageable pageable) {
-        return returnResponse(() -> repository.findAll(pageable), dtoMapper);
+    ResponseEntity<Slice<ReviewDTO>> readAll(Pageable pageable, CountMode count) {
+        return switch (count) {
+            case EXACT -> returnSliceResponse(() -> repository.findAll(pageable), dtoMapper);
+            case ESTIMATED -> returnSliceResponse(() -> withEstimatedTotal(repository.findAllBy(pageable), repository.estimateCount()), dtoMapper);
+            case NONE -> returnSliceResponse(() -> repository.findAllBy(pageable), dtoMapper);
+        };
+    }
+
+    /**
+     * Retrieves a page of all the reviews with keyset pagination, newest first, without counting them.
+     *
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of reviews on the page, at most MAX_CURSOR_PAGE_SIZE
+     * @return a ResponseEntity containing a CursorPage of ReviewDTO objects and the cursor of the next page
+     * @throws EmptyPageException  if the page is empty
+     * @throws WrongCursorException if the cursor cannot be decoded
+     */
+    ResponseEntity<CursorPage<ReviewDTO>> readAllByCursor(String cursor, int size) {
+        Cursor position = Cursor.decode(cursor);
+        return returnCursorResponse(size, limit -> repository.findAllBefore(position.date(), position.id(), limit),
+                review -> new Cursor(review.getDate(), review.getId()), dtoMapper);
+    }
+
+    /**
+     * Retrieves a page of the reviews of a doctor with keyset pagination, newest first, without counting them.
+     *
+     * @param doctorId the ID of the doctor
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of reviews on the page, at most MAX_CURSOR_PAGE_SIZE
+     * @return a ResponseEntity containing a CursorPage of ReviewDTO objects and the cursor of the next page
+     * @throws EmptyPageException  if the page is empty
+     * @throws WrongCursorException if the cursor cannot be decoded
+     */
+    ResponseEntity<CursorPage<ReviewDTO>> readAllByDoctorIdAndCursor(Long doctorId, String cursor, int size) {
+        Cursor position = Cursor.decode(cursor);
+        return returnCursorResponse(size, limit -> repository.findAllByDoctorIdBefore(doctorId, position.date(), position.id(), limit),
+                review -> new Cursor(review.getDate(), review.getId()), dtoMapper);
+    }
+
+    /**
+     * Retrieves a page of the reviews written by a client with keyset pagination, newest first, without counting them.
+     *
+     * @param clientId the ID of the client
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of reviews on the page, at most MAX_CURSOR_PAGE_SIZE
+     * @return a ResponseEntity containing a CursorPage of ReviewDTO objects and the cursor of the next page
+     * @throws EmptyPageException  if the page is empty
+     * @throws WrongCursorException if the cursor cannot be decoded
+     */
+    ResponseEntity<CursorPage<ReviewDTO>> readAllByClientIdAndCursor(Long clientId, String cursor, int size) {
+        Cursor position = Cursor.decode(cursor);
+        return returnCursorResponse(size, limit -> repository.findAllByClientIdBefore(clientId, position.date(), position.id(), limit),
+                review -> new Cursor(review.getDate(), review.getId()), dtoMapper);
     }
 
     /**
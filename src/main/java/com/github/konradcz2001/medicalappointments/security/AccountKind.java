@@ -0,0 +1,16 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import com.github.konradcz2001.medicalappointments.common.User;
+import com.github.konradcz2001.medicalappointments.doctor.Doctor;
+
+/**
+ * Whether a UserAccount belongs to a client or a doctor, which tells the table its user ID refers to.
+ */
+public enum AccountKind {
+    CLIENT,
+    DOCTOR;
+
+    public static AccountKind of(User user) {
+        return user instanceof Doctor ? DOCTOR : CLIENT;
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import java.security.Principal;
+
+/**
+ * The principal of a request authenticated from the claims of its token, without loading the user from the database.
+ */
+public record AuthenticatedUser(Long id, String email, Role role) implements Principal {
+    @Override
+    public String getName() {
+        return email;
+    }
+}
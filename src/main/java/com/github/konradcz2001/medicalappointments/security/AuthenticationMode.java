@@ -0,0 +1,14 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+/**
+ * How the JWTAuthenticationFilter turns a valid token into the authenticated principal, set by the app.security.authentication-mode property.
+ * <p>
+ * DATABASE loads the user by the email in the token subject on every request.
+ * CACHED loads the user through the UserDetailsCache, so only the first request of a user in its time to live reaches the database.
+ * CLAIMS builds the principal from the id and role claims of the verified token and only checks the CredentialEpochs in memory.
+ */
+public enum AuthenticationMode {
+    DATABASE,
+    CACHED,
+    CLAIMS
+}
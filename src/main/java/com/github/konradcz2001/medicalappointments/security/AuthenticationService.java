@@ -5,78 +5,87 @@ import com.github.konradcz2001.medicalappointments.client.ClientRepository;
 import com.github.konradcz2001.medicalappointments.common.User;
 import com.github.konradcz2001.medicalappointments.doctor.Doctor;
 import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
-import com.github.konradcz2001.medicalappointments.exception.exceptions.DuplicateEmailException;
+import com.github.konradcz2001.medicalappointments.doctor.search.DoctorSearchIndex;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongRoleException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongUserException;
 import com.github.konradcz2001.medicalappointments.security.DTO.UserRegisterDTO;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
-
-
+/**
+ * Registers and logs in clients and doctors.
+ * <p>
+ * Every registered user gets an entry in the user directory, which keeps emails unique across clients and doctors.
+ * Logging in authenticates the user with the UserAccount loaded by the UserDetailsServiceImp and issues the token from it,
+ * so a login takes one lookup of the email. The LoginThrottle rejects the logins of an account failing too often before its password is checked.
+ */
 @Service
 public class AuthenticationService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final ClientRepository clientRepository;
     private final DoctorRepository doctorRepository;
+    private final UserAccountRepository userAccountRepository;
     private final AuthenticationManager authenticationManager;
+    private final DoctorSearchIndex doctorSearchIndex;
+    private final LoginThrottle loginThrottle;
 
-    public AuthenticationService(PasswordEncoder passwordEncoder, JwtService jwtService, ClientRepository clientRepository, DoctorRepository doctorRepository, AuthenticationManager authenticationManager) {
+    public AuthenticationService(PasswordEncoder passwordEncoder, JwtService jwtService, ClientRepository clientRepository, DoctorRepository doctorRepository,
+                                 UserAccountRepository userAccountRepository, AuthenticationManager authenticationManager, DoctorSearchIndex doctorSearchIndex,
+                                 LoginThrottle loginThrottle) {
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.clientRepository = clientRepository;
         this.doctorRepository = doctorRepository;
+        this.userAccountRepository = userAccountRepository;
         this.authenticationManager = authenticationManager;
+        this.doctorSearchIndex = doctorSearchIndex;
+        this.loginThrottle = loginThrottle;
     }
 
     @Transactional
     public AuthenticationResponse register(UserRegisterDTO request){
+        if(request.role() != Role.CLIENT && request.role() != Role.DOCTOR)
+            throw new WrongRoleException();
+        userAccountRepository.checkAvailable(request.email());
 
         if(request.role() == Role.CLIENT){
-            if(clientRepository.existsByEmail(request.email()))
-                throw new DuplicateEmailException("Client");
-
             Client client = (Client)createUser(request, new Client());
             clientRepository.save(client);
+            userAccountRepository.add(client);
 
             String token = jwtService.generateToken(client);
             return new AuthenticationResponse(token);
         }
-        else if(request.role() == Role.DOCTOR){
-            if(doctorRepository.existsByEmail(request.email()))
-                throw new DuplicateEmailException("Doctor");
 
-            Doctor doctor = (Doctor)createUser(request, new Doctor());
-            doctorRepository.save(doctor);
+        Doctor doctor = (Doctor)createUser(request, new Doctor());
+        doctorRepository.save(doctor);
+        userAccountRepository.add(doctor);
+        doctorSearchIndex.index(doctor);
 
-            String token = jwtService.generateToken(doctor);
-            return new AuthenticationResponse(token);
-        }
-        throw new WrongRoleException();
+        String token = jwtService.generateToken(doctor);
+        return new AuthenticationResponse(token);
     }
 
     public AuthenticationResponse authenticate(User request) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
-
-
-
-        Optional<Client> client = clientRepository.findByEmail(request.getUsername());
-        if(client.isPresent()){
-            String token = jwtService.generateToken(client.get());
-            return new AuthenticationResponse(token);
+        loginThrottle.checkAllowed(request.getUsername());
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
+        } catch (AuthenticationException e) {
+            loginThrottle.recordFailure(request.getUsername());
+            throw e;
         }
+        loginThrottle.reset(request.getUsername());
 
-        Optional<Doctor> doctor = doctorRepository.findByEmail(request.getUsername());
-        if(doctor.isPresent()){
-            String token = jwtService.generateToken(doctor.get());
-            return new AuthenticationResponse(token);
-        }
+        if(authentication.getPrincipal() instanceof UserAccount account)
+            return new AuthenticationResponse(jwtService.generateToken(account));
 
         throw new WrongUserException();
     }
@@ -0,0 +1,51 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory table of the credential epochs of users, used to reject the tokens issued before a user's password changed
+ * or their account was deleted, without a database lookup per request.
+ * <p>
+ * The epoch of a user is the time in milliseconds of the last change of their credentials, recorded once the transaction
+ * making the change commits. Every token carries the epoch of its user at the time it was issued and is revoked when the
+ * current epoch is greater. An entry is only kept while tokens issued before the change can still be unexpired, so the table
+ * holds the users whose credentials changed within the last JwtService.EXPIRATION_TIME milliseconds, and an absent user
+ * has epoch 0. Epochs only grow, so a token is never accepted again after an entry is dropped and recorded anew.
+ * The table is not persisted, so the revocations made before a restart of the application are not enforced after it.
+ */
+@Component
+public class CredentialEpochs {
+    private final Map<String, Long> epochs = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the current credential epoch of a user, to be put into the tokens issued to them.
+     *
+     * @param email the email of the user
+     * @return the current epoch of the user, 0 if their credentials have not changed recently
+     */
+    public long current(String email) {
+        return epochs.getOrDefault(email, 0L);
+    }
+
+    /**
+     * Tells whether a token has been revoked by a later change of its user's credentials.
+     *
+     * @param email      the email of the user
+     * @param tokenEpoch the epoch carried by the token
+     * @return true if the credentials of the user have changed since the token was issued
+     */
+    public boolean isRevoked(String email, long tokenEpoch) {
+        return tokenEpoch < current(email);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        long now = System.currentTimeMillis();
+        epochs.values().removeIf(changedAt -> changedAt + JwtService.EXPIRATION_TIME < now);
+        epochs.merge(event.email(), now, (previous, next) -> Math.max(previous + 1, next));
+    }
+}
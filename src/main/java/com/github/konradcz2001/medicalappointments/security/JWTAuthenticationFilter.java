@@ -1,12 +1,15 @@
 package com.github.konradcz2001.medicalappointments.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,14 +17,32 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
+/**
+ * Authenticates requests carrying a bearer token.
+ * <p>
+ * Depending on the app.security.authentication-mode property, the principal is either the user loaded by the email
+ * in the token subject, from the database or the UserDetailsCache, or an AuthenticatedUser built from the claims of the verified token, in which case
+ * a request costs a signature check and a lookup in the in-memory CredentialEpochs only.
+ * Any way the token is parsed and verified once per request.
+ */
 @Component
-@RequiredArgsConstructor
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsServiceImp userDetailsServiceImp;
+    private final UserDetailsCache userDetailsCache;
+    private final AuthenticationMode authenticationMode;
 
+    public JWTAuthenticationFilter(JwtService jwtService, UserDetailsServiceImp userDetailsServiceImp, UserDetailsCache userDetailsCache,
+                                   @Value("${app.security.authentication-mode:database}") AuthenticationMode authenticationMode) {
+        this.jwtService = jwtService;
+        this.userDetailsServiceImp = userDetailsServiceImp;
+        this.userDetailsCache = userDetailsCache;
+        this.authenticationMode = authenticationMode;
+    }
 
 
     @Override
@@ -38,16 +59,18 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String token = authorizationHeader.substring(7);
-        final String username = jwtService.extractUsername(token);
-
-        if(username != null && SecurityContextHolder.getContext().getAuthentication() == null){
-            UserDetails userDetails = userDetailsServiceImp.loadUserByUsername(username);
-            if(jwtService.isValid(token, userDetails)){
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        if(SecurityContextHolder.getContext().getAuthentication() == null){
+            final Claims claims = jwtService.verify(token);
+            if(authenticationMode == AuthenticationMode.CLAIMS)
+                jwtService.extractAuthenticatedUser(claims).ifPresent(user -> authenticate(request, user,
+                        List.of(new SimpleGrantedAuthority(user.role().name()))));
+            else if(claims.getSubject() != null){
+                UserDetails userDetails = authenticationMode == AuthenticationMode.CACHED
+                        ? userDetailsCache.loadUserByUsername(claims.getSubject())
+                        : userDetailsServiceImp.loadUserByUsername(claims.getSubject());
+                if(jwtService.isValid(claims, userDetails))
+                    authenticate(request, userDetails, userDetails.getAuthorities());
             }
         }
 
@@ -55,4 +78,11 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
     }
 
+    private static void authenticate(HttpServletRequest request, Object principal, Collection<? extends GrantedAuthority> authorities) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(principal, null, authorities);
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
 }
@@ -2,6 +2,7 @@ package com.github.konradcz2001.medicalappointments.security;
 
 import com.github.konradcz2001.medicalappointments.common.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -11,59 +12,121 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.Optional;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies the signed tokens of users.
+ * <p>
+ * The signing key is decoded and the parser built once, both are immutable and shared by all requests.
+ * A request verifies its token with a single parse and passes the resulting claims around, instead of parsing it for every claim.
+ */
 @Service
 public class JwtService {
+    private static final String ROLE_CLAIM = "role";
+    private static final String ID_CLAIM = "id";
+    private static final String EPOCH_CLAIM = "epoch";
+    static final int EXPIRATION_TIME = 60 * 60 * 1000; //an hour
 
-    @Value("${app.jwt.secret.key}")
-    private String SECRET_KEY;
-    private static final int EXPIRATION_TIME = 60 * 60 * 1000; //an hour
+    private final CredentialEpochs credentialEpochs;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
 
+    public JwtService(CredentialEpochs credentialEpochs, @Value("${app.jwt.secret.key}") String secretKey) {
+        this.credentialEpochs = credentialEpochs;
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64URL.decode(secretKey));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
+    /**
+     * Verifies the signature and the expiration of the token and returns its claims.
+     *
+     * @param token the signed token
+     * @return the claims of the token
+     * @throws io.jsonwebtoken.JwtException if the token is expired, malformed or its signature is not valid
+     */
+    public Claims verify(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
-    public boolean isValid(String token, UserDetails userDetails) {
-        String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        return claimsResolver.apply(verify(token));
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Tells whether the verified claims belong to the user and have not expired.
+     *
+     * @param claims      the claims returned by verify
+     * @param userDetails the user loaded by the subject of the claims
+     * @return true if the claims were issued to the user and are not expired, nor issued before the last password change
+     * of the user if it is a UserAccount
+     */
+    public boolean isValid(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject()) && !claims.getExpiration().before(new Date())
+                && !(userDetails instanceof UserAccount account && epoch(claims) < account.getCredentialEpoch());
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public boolean isValid(String token, UserDetails userDetails) {
+        return isValid(verify(token), userDetails);
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Builds the authenticated user from the verified claims, without loading the user from the database.
+     *
+     * @param claims the claims returned by verify
+     * @return the user the claims were issued to, or an empty Optional if they lack the id or role claim
+     * or have been revoked by a change of the user's credentials
+     */
+    public Optional<AuthenticatedUser> extractAuthenticatedUser(Claims claims) {
+        String email = claims.getSubject();
+        Number id = claims.get(ID_CLAIM, Number.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+
+        if (email == null || id == null || role == null || credentialEpochs.isRevoked(email, epoch(claims)))
+            return Optional.empty();
+        return Optional.of(new AuthenticatedUser(id.longValue(), email, Role.valueOf(role)));
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSingInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public Optional<AuthenticatedUser> extractAuthenticatedUser(String token) {
+        return extractAuthenticatedUser(verify(token));
+    }
+
+    private static long epoch(Claims claims) {
+        Number epoch = claims.get(EPOCH_CLAIM, Number.class);
+        return epoch == null ? 0 : epoch.longValue();
     }
 
     public String generateToken(User user) {
-        return Jwts.builder()
-                .subject(user.getUsername())
-                .claim("role", user.getRole())
-                .claim("id", user.getId())
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSingInKey())
-                .compact();
+        return generateToken(user.getUsername(), user.getRole(), user.getId(), credentialEpochs.current(user.getUsername()));
     }
 
-    private SecretKey getSingInKey() {
-        byte[] keyBytes = Decoders.BASE64URL.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Issues a token to the owner of an account, carrying the later of its persisted and in-memory credential epochs.
+     *
+     * @param account the account of the authenticated user
+     * @return the signed token
+     */
+    public String generateToken(UserAccount account) {
+        return generateToken(account.getEmail(), account.getRole(), account.getUserId(),
+                Math.max(account.getCredentialEpoch(), credentialEpochs.current(account.getEmail())));
+    }
+
+    private String generateToken(String email, Role role, Long id, long epoch) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .subject(email)
+                .claim(ROLE_CLAIM, role)
+                .claim(ID_CLAIM, id)
+                .claim(EPOCH_CLAIM, epoch)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + EXPIRATION_TIME))
+                .signWith(signingKey)
+                .compact();
     }
 }
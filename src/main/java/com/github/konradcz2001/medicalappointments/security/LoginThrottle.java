@@ -0,0 +1,63 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.TooManyLoginAttemptsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throttles the failed logins of every account, so brute-force traffic against an account stops costing password hashing.
+ * <p>
+ * The failures of an account are counted from its first failure for the length of the window. Once they reach maxFailures,
+ * the logins of the account are rejected before the password is checked until the window ends. A successful login clears the count.
+ * At most maximumAccounts accounts are tracked, the ones failing least recently are forgotten first.
+ */
+@Component
+public class LoginThrottle {
+    private final int maxFailures;
+    private final Duration window;
+    private final Cache<String, AtomicInteger> failures;
+
+    LoginThrottle(@Value("${app.security.login-throttle.max-failures:10}") int maxFailures,
+                  @Value("${app.security.login-throttle.window:15m}") Duration window,
+                  @Value("${app.security.login-throttle.maximum-accounts:100000}") long maximumAccounts) {
+        this.maxFailures = maxFailures;
+        this.window = window;
+        this.failures = Caffeine.newBuilder()
+                .maximumSize(maximumAccounts)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    /**
+     * Checks that the account may try to log in.
+     *
+     * @param email the email the login is attempted for
+     * @throws TooManyLoginAttemptsException if the account has failed to log in maxFailures times within the window
+     */
+    public void checkAllowed(String email) {
+        AtomicInteger count = failures.getIfPresent(key(email));
+        if (count != null && count.get() >= maxFailures) {
+            Duration age = failures.policy().expireAfterWrite()
+                    .flatMap(expiration -> expiration.ageOf(key(email)))
+                    .orElse(Duration.ZERO);
+            throw new TooManyLoginAttemptsException(Math.max(1, window.minus(age).toSeconds()));
+        }
+    }
+
+    public void recordFailure(String email) {
+        failures.get(key(email), key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void reset(String email) {
+        failures.invalidate(key(email));
+    }
+
+    private static String key(String email) {
+        return email == null ? "" : email;
+    }
+}
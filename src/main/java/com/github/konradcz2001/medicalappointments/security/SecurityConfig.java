@@ -57,10 +57,16 @@ public class SecurityConfig {
                                 .requestMatchers(HttpMethod.GET, "/doctors/{id}/leaves").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/doctors/{id}/specializations").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/doctors/{id}/reviews").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/doctors/{id}/avatar").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/doctors/{id}/avatar/thumbnail").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/doctors/search").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/doctors/suggest").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/doctors/{id}/types-of-visits").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/doctors/{id}/slots").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/doctors/earliest-available").permitAll()
                                 //SPECIALIZATION
                                 .requestMatchers(HttpMethod.GET, "/specializations").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/doctors/specializations/{id}/top-doctors").permitAll()
                                 //OTHER
                                 .anyRequest().authenticated()
                 )
@@ -72,9 +78,14 @@ public class SecurityConfig {
                 .build();
     }
 
+    /**
+     * BCrypt running on the bounded pool of a BoundedPasswordEncoder, of half of the available processors unless set.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.security.password-hashing.threads:0}") int threads,
+                                           @Value("${app.security.password-hashing.queue-capacity:100}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity);
     }
 
     @Bean
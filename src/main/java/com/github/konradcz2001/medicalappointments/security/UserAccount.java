@@ -0,0 +1,103 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import com.github.konradcz2001.medicalappointments.common.User;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This code snippet represents the "UserAccount" class.
+ * <p>
+ * The "UserAccount" class is an entity class that represents an entry of the user directory, mapping an email to the client or doctor owning it.
+ * It is mapped to the "user_accounts" table in the database.
+ * <p>
+ * The class has the following attributes:
+ * - email: The email of the user, unique across clients and doctors.
+ * - kind: Whether the user is a client or a doctor.
+ * - userId: The ID of the client or the doctor.
+ * - password: The password hash of the user.
+ * - role: The role of the user.
+ * - credentialEpoch: The time in milliseconds of the last password change, tokens carrying an earlier epoch are not valid.
+ * <p>
+ * It is the UserDetails loaded by the UserDetailsServiceImp, so authenticating a user takes a single lookup by the primary key.
+ */
+@Entity
+@Table(name = "user_accounts")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserAccount implements UserDetails {
+    @Id
+    @Column(name = "email")
+    String email;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false)
+    AccountKind kind;
+    @Column(name = "user_id", nullable = false)
+    Long userId;
+    @Column(name = "password", nullable = false)
+    String password;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "role", nullable = false)
+    Role role;
+    @Column(name = "credential_epoch", nullable = false)
+    long credentialEpoch;
+
+    /**
+     * Creates the directory entry of a saved client or doctor.
+     *
+     * @param user the client or the doctor, with their ID assigned
+     * @return the account of the user
+     */
+    public static UserAccount of(User user) {
+        return new UserAccount(user.getEmail(), AccountKind.of(user),
+                user.getId(), user.getPassword(), user.getRole(), 0);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import com.github.konradcz2001.medicalappointments.common.User;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.DuplicateEmailException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * This is a Spring Data JPA repository of the user directory, keyed by email.
+ * <p>
+ * Its methods have to be called in the transaction that registers, changes the password of or deletes a client or a doctor.
+ * checkAvailable has to be called before the user is saved, the primary key of the directory rejects an email taken concurrently.
+ * Entries are added with a plain INSERT rather than save, which would merge an entry with an assigned email and overwrite
+ * the entry of a user who took the email concurrently.
+ * Entries are changed and deleted by the kind and ID of their user rather than by email, so a user never touches the entry
+ * of another user sharing their email.
+ */
+@Repository
+public interface UserAccountRepository extends JpaRepository<UserAccount, String> {
+    @Modifying
+    @Query(value = "INSERT INTO user_accounts (email, kind, user_id, password, role, credential_epoch) " +
+            "VALUES (:email, :kind, :userId, :password, :role, 0)", nativeQuery = true)
+    void insert(@Param("email") String email, @Param("kind") String kind, @Param("userId") Long userId,
+                @Param("password") String password, @Param("role") String role);
+
+    @Modifying
+    @Query(value = "UPDATE user_accounts SET password = :password, credential_epoch = GREATEST(credential_epoch + 1, :epoch) " +
+            "WHERE kind = :kind AND user_id = :userId", nativeQuery = true)
+    int changePassword(@Param("kind") String kind, @Param("userId") Long userId, @Param("password") String password, @Param("epoch") long epoch);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_accounts WHERE kind = :kind AND user_id = :userId", nativeQuery = true)
+    int delete(@Param("kind") String kind, @Param("userId") Long userId);
+
+    /**
+     * Checks that no client or doctor has the email yet.
+     *
+     * @param email the email of a user about to be created
+     * @throws DuplicateEmailException if the email is taken
+     */
+    default void checkAvailable(String email) {
+        if (existsById(email))
+            throw new DuplicateEmailException("User");
+    }
+
+    /**
+     * Adds the entry of a saved client or doctor to the directory.
+     *
+     * @param user the client or the doctor, with their ID assigned
+     * @throws DuplicateEmailException if the email has been taken since checkAvailable was called
+     */
+    default void add(User user) {
+        try {
+            insert(user.getEmail(), AccountKind.of(user).name(), user.getId(), user.getPassword(), user.getRole().name());
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateEmailException("User");
+        }
+    }
+
+    /**
+     * Stores the new password hash of a client or a doctor and revokes the tokens issued to them before.
+     *
+     * @param user the client or the doctor, with their new password hash
+     * @return true if the user has an entry in the directory, false otherwise
+     */
+    default boolean changePassword(User user) {
+        return changePassword(AccountKind.of(user).name(), user.getId(), user.getPassword(), System.currentTimeMillis()) > 0;
+    }
+
+    /**
+     * Deletes the entry of a client or a doctor from the directory.
+     *
+     * @param user the client or the doctor being deleted
+     * @return true if the user had an entry in the directory, false otherwise
+     */
+    default boolean remove(User user) {
+        return delete(AccountKind.of(user).name(), user.getId()) > 0;
+    }
+}
@@ -0,0 +1,9 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+/**
+ * Published when the password of a user changes or their account is deleted, so that the tokens issued to them before stop being accepted.
+ *
+ * @param email the email of the user
+ */
+public record UserCredentialsChangedEvent(String email) {
+}
@@ -0,0 +1,59 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Size- and time-bounded cache of the users loaded by the UserDetailsServiceImp, keyed by email.
+ * <p>
+ * It keeps the UserAccount entries of the user directory, which hold no associations, and are never modified once loaded.
+ * An entry is invalidated once the transaction publishing a UserCredentialsChangedEvent for its user commits,
+ * so a changed password or a deleted account takes effect on the next request. Invalidating waits for a load of the same user
+ * in progress, so an entry read before the commit is never left behind. The hits and misses are published to the MeterRegistry
+ * as the cache.gets metric of the userDetails cache.
+ * It is deliberately not a UserDetailsService bean, so the UserDetailsServiceImp stays the only one used by the AuthenticationManager.
+ */
+@Component
+public class UserDetailsCache {
+    static final String CACHE_NAME = "userDetails";
+
+    private final UserDetailsServiceImp userDetailsService;
+    private final Cache<String, UserDetails> cache;
+
+    UserDetailsCache(UserDetailsServiceImp userDetailsService, MeterRegistry meterRegistry,
+                     @Value("${app.security.user-details-cache.maximum-size:10000}") long maximumSize,
+                     @Value("${app.security.user-details-cache.time-to-live:5m}") Duration timeToLive) {
+        this.userDetailsService = userDetailsService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Retrieves the user with the given email, loading them with the UserDetailsServiceImp on a miss.
+     *
+     * @param username the email of the user
+     * @return the account of the user
+     * @throws UsernameNotFoundException if no client or doctor has the email, which is not cached
+     */
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return cache.get(username, userDetailsService::loadUserByUsername);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        cache.invalidate(event.email());
+    }
+}
@@ -1,36 +1,25 @@
 package com.github.konradcz2001.medicalappointments.security;
 
-import com.github.konradcz2001.medicalappointments.client.Client;
-import com.github.konradcz2001.medicalappointments.client.ClientRepository;
-import com.github.konradcz2001.medicalappointments.doctor.Doctor;
-import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
-
+/**
+ * Loads users from the user directory, a client and a doctor alike are resolved with one lookup of their UserAccount by email.
+ */
 @Service
 public class UserDetailsServiceImp implements UserDetailsService {
 
-    private final DoctorRepository doctorRepository;
-    private final ClientRepository clientRepository;
+    private final UserAccountRepository userAccountRepository;
 
-    public UserDetailsServiceImp(DoctorRepository doctorRepository, ClientRepository clientRepository) {
-        this.doctorRepository = doctorRepository;
-        this.clientRepository = clientRepository;
+    public UserDetailsServiceImp(UserAccountRepository userAccountRepository) {
+        this.userAccountRepository = userAccountRepository;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Optional<Client> client = clientRepository.findByEmail(username);
-        if (client.isPresent())
-            return client.get();
-        Optional<Doctor> doctor = doctorRepository.findByEmail(username);
-        if (doctor.isPresent())
-            return doctor.get();
-
-        throw new UsernameNotFoundException(username);
+        return userAccountRepository.findById(username)
+                .orElseThrow(() -> new UsernameNotFoundException(username));
     }
 }
@@ -2,19 +2,24 @@ package com.github.konradcz2001.medicalappointments.specialization.DTO;
 
 
 import com.github.konradcz2001.medicalappointments.common.DTOMapper;
+import com.github.konradcz2001.medicalappointments.doctor.ranking.RankedDoctor;
 import com.github.konradcz2001.medicalappointments.specialization.Specialization;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
 /**
  * This is a class named SpecializationDTOMapper that implements the DTOMapper interface.
  * It is responsible for mapping Specialization objects to SpecializationDTO objects and vice versa.
  * The class is annotated with @Service, indicating that it is a Spring service component.
  * <p>
- * The class has two methods:
+ * The class has three methods:
  * - mapToDTO: This method takes a Specialization object as input and returns a SpecializationDTO object.
  *   It maps the id and specialization fields from the Specialization object to the corresponding fields in the SpecializationDTO object.
  * - mapFromDTO: This method takes a SpecializationDTO object and a Specialization object as input and returns the modified Specialization object.
  *   It sets the specialization field of the Specialization object to the value from the SpecializationDTO object.
+ * - mapToTopDoctorDTO: This method takes a RankedDoctor from the leaderboard of a specialization and returns a TopDoctorDTO object.
  * <p>
  * Note: The SpecializationDTOMapper class is used for mapping Specialization objects to SpecializationDTO objects and vice versa.
  */
@@ -35,4 +40,15 @@ public class SpecializationDTOMapper implements DTOMapper<SpecializationDTO, Spe
         return target;
     }
 
+    public TopDoctorDTO mapToTopDoctorDTO(RankedDoctor source) {
+        return new TopDoctorDTO(
+                source.doctorId(),
+                source.firstName(),
+                source.lastName(),
+                source.averageRating(),
+                source.reviewCount(),
+                BigDecimal.valueOf(source.score()).setScale(2, RoundingMode.HALF_UP)
+        );
+    }
+
 }
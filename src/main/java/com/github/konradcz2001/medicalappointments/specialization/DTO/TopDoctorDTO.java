@@ -0,0 +1,21 @@
+package com.github.konradcz2001.medicalappointments.specialization.DTO;
+
+import java.math.BigDecimal;
+
+/**
+ * Represents a data transfer object for a doctor on the leaderboard of a specialization.
+ * <p>
+ * This record contains the following fields:
+ * - id: The ID of the doctor.
+ * - firstName, lastName: The name of the doctor.
+ * - averageRating: The average number of stars of the doctor's reviews, rounded to two decimal places.
+ * - reviewCount: The number of the doctor's reviews.
+ * - score: The Bayesian average the leaderboard is ordered by, rounded to two decimal places.
+ */
+public record TopDoctorDTO(Long id,
+                           String firstName,
+                           String lastName,
+                           BigDecimal averageRating,
+                           long reviewCount,
+                           BigDecimal score) {
+}
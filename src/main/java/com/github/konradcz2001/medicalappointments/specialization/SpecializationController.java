@@ -1,6 +1,7 @@
 package com.github.konradcz2001.medicalappointments.specialization;
 
 import com.github.konradcz2001.medicalappointments.specialization.DTO.SpecializationDTO;
+import com.github.konradcz2001.medicalappointments.specialization.DTO.TopDoctorDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.annotation.security.PermitAll;
 import jakarta.validation.Valid;
@@ -10,6 +11,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * This class represents a controller for handling specializations in the medical appointments system.
  * It provides methods for retrieving, creating, updating, and deleting specializations.
@@ -56,6 +59,23 @@ class SpecializationController {
         return service.readById(id);
     }
 
+    /**
+     * This method handles the HTTP GET request to retrieve the best rated doctors of a specialization.
+     *
+     * @param id The ID of the specialization.
+     * @param limit The maximum number of doctors, 10 by default and at most 20.
+     * @return A ResponseEntity representing the result of the retrieval operation.
+     *         If the specialization is found, it returns a ResponseEntity with a success status code (200 OK)
+     *         and the list of doctors ranked by the Bayesian average of their ratings in the response body.
+     *         If the specialization is not found, it throws a ResourceNotFoundException.
+     */
+    @Operation(summary = "Retrieves the best rated doctors of a specialization.")
+    @GetMapping("/{id}/top-doctors")
+    @PermitAll
+    ResponseEntity<List<TopDoctorDTO>> readTopDoctors(@PathVariable Integer id, @RequestParam(required = false) Integer limit){
+        return service.readTopDoctors(id, limit);
+    }
+
     /**
      * This method handles the HTTP GET request to retrieve a specialization by its name.
      *
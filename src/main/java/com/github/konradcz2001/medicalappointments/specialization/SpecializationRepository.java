@@ -1,8 +1,10 @@
 package com.github.konradcz2001.medicalappointments.specialization;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -10,9 +12,11 @@ import java.util.Optional;
  * It extends the JpaRepository interface, which is a Spring Data JPA interface for generic CRUD operations on a repository for a specific type.
  * The repository is used to perform database operations on the Specialization entity.
  * <p>
- * The interface declares two methods:
+ * The interface declares four methods:
  * - findFirstBySpecialization(String specialization): Returns an Optional object that may contain the first Specialization entity with the given specialization.
  * - existsBySpecialization(String specialization): Returns a boolean value indicating whether a Specialization entity with the given specialization exists in the database.
+ * - findAllNames(): Returns the names of all specializations, without loading the entities.
+ * - findAllIds(): Returns the IDs of all specializations, without loading the entities.
  * <p>
  * The interface is annotated with @Repository, indicating that it is a Spring Data repository component.
  * It is used to enable the automatic scanning and registration of the repository bean in the Spring application context.
@@ -21,4 +25,10 @@ import java.util.Optional;
 public interface SpecializationRepository extends JpaRepository<Specialization, Integer> {
     Optional<Specialization> findFirstBySpecialization(String specialization);
     boolean existsBySpecialization(String specialization);
+
+    @Query("SELECT s.specialization FROM Specialization s")
+    List<String> findAllNames();
+
+    @Query("SELECT s.id FROM Specialization s")
+    List<Integer> findAllIds();
 }
@@ -1,9 +1,12 @@
 package com.github.konradcz2001.medicalappointments.specialization;
 
+import com.github.konradcz2001.medicalappointments.doctor.ranking.TopDoctorsIndex;
+import com.github.konradcz2001.medicalappointments.doctor.search.DoctorSearchIndex;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongSpecializationException;
 import com.github.konradcz2001.medicalappointments.specialization.DTO.SpecializationDTO;
 import com.github.konradcz2001.medicalappointments.specialization.DTO.SpecializationDTOMapper;
+import com.github.konradcz2001.medicalappointments.specialization.DTO.TopDoctorDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -12,22 +15,31 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.net.URI;
 import java.util.HashSet;
+import java.util.List;
 
 import static com.github.konradcz2001.medicalappointments.common.Utils.returnResponse;
 import static com.github.konradcz2001.medicalappointments.exception.MessageType.SPECIALIZATION;
 
 /**
  * Service class for managing specializations.
- * This class provides methods for retrieving, creating, updating, and deleting specializations.
+ * This class provides methods for retrieving, creating, updating, and deleting specializations,
+ * and for retrieving the best rated doctors of a specialization from the TopDoctorsIndex.
  */
 @Service
 class SpecializationService {
+    private static final int DEFAULT_TOP_DOCTORS_LIMIT = 10;
+
     private final SpecializationRepository repository;
     private final SpecializationDTOMapper dtoMapper;
+    private final DoctorSearchIndex searchIndex;
+    private final TopDoctorsIndex topDoctorsIndex;
 
-    SpecializationService(final SpecializationRepository repository, SpecializationDTOMapper dtoMapper) {
+    SpecializationService(final SpecializationRepository repository, SpecializationDTOMapper dtoMapper, final DoctorSearchIndex searchIndex,
+                          final TopDoctorsIndex topDoctorsIndex) {
         this.repository = repository;
         this.dtoMapper = dtoMapper;
+        this.searchIndex = searchIndex;
+        this.topDoctorsIndex = topDoctorsIndex;
     }
 
 
@@ -108,6 +120,8 @@ class SpecializationService {
         specialization.setId(null);
         specialization.setDoctors(new HashSet<>());
         Specialization created = repository.save(specialization);
+        searchIndex.addSpecialization(created.getSpecialization());
+        topDoctorsIndex.addSpecialization(created.getId());
         return ResponseEntity.created(URI.create("/" + created.getId())).body(dtoMapper.mapToDTO(created));
     }
 
@@ -123,7 +137,9 @@ class SpecializationService {
     ResponseEntity<?> updateSpecialization(Integer id, SpecializationDTO toUpdate){
         return repository.findById(id)
                 .map(spec -> {
+                    String oldName = spec.getSpecialization();
                     repository.save(dtoMapper.mapFromDTO(toUpdate, spec));
+                    searchIndex.renameSpecialization(oldName, spec.getSpecialization());
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(SPECIALIZATION, id.longValue()));
@@ -141,8 +157,31 @@ class SpecializationService {
         return repository.findById(id)
                 .map(spec -> {
                     repository.deleteById(id);
+                    searchIndex.removeSpecialization(spec.getSpecialization());
+                    topDoctorsIndex.removeSpecialization(id);
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(SPECIALIZATION, id.longValue()));
     }
+    /**
+     * Retrieves the best rated doctors of a specialization, ranked by the Bayesian average of their ratings.
+     * <p>
+     * The doctors are read from the TopDoctorsIndex, so the database is only queried while the index is not built yet,
+     * to tell an unknown specialization from one whose leaderboard is not available yet.
+     *
+     * @param id    the ID of the specialization
+     * @param limit the maximum number of doctors, at most TopDoctorsIndex.MAX_LIMIT, DEFAULT_TOP_DOCTORS_LIMIT if null
+     * @return a ResponseEntity containing the list of TopDoctorDTO objects, ordered from the best one
+     * @throws ResourceNotFoundException if the specialization with the given ID is not found
+     */
+    ResponseEntity<List<TopDoctorDTO>> readTopDoctors(Integer id, Integer limit){
+        int size = limit == null ? DEFAULT_TOP_DOCTORS_LIMIT : Math.max(1, Math.min(limit, TopDoctorsIndex.MAX_LIMIT));
+        return topDoctorsIndex.top(id, size)
+                .map(doctors -> ResponseEntity.ok(doctors.stream().map(dtoMapper::mapToTopDoctorDTO).toList()))
+                .orElseGet(() -> {
+                    if (!repository.existsById(id))
+                        throw new ResourceNotFoundException(SPECIALIZATION, id.longValue());
+                    return ResponseEntity.ok(List.of());
+                });
+    }
 }
@@ -41,6 +41,7 @@ public class VisitDTOMapper implements DTOMapper<VisitDTO, Visit> {
         // the Doctor is already set
 
         target.setDate(sourceDTO.date());
+        target.setEndDate(sourceDTO.date().plusMinutes(sourceDTO.typeOfVisit().duration()));
         target.setTypeOfVisit(type);
         target.setNotes(sourceDTO.notes());
         return target;
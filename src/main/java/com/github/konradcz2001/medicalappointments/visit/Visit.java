@@ -1,6 +1,7 @@
 package com.github.konradcz2001.medicalappointments.visit;
 
 import com.github.konradcz2001.medicalappointments.client.Client;
+import com.github.konradcz2001.medicalappointments.doctor.Doctor;
 import com.github.konradcz2001.medicalappointments.visit.type.TypeOfVisit;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.FutureOrPresent;
@@ -17,13 +18,16 @@ import java.time.LocalDateTime;
  * The Visit class has the following properties:
  * - id: a unique identifier for the visit
  * - date: the date of the visit
+ * - endDate: the date the visit ends, derived from the duration of its type
  * - type: the type of the visit
  * - notes: additional notes for the visit
  * - price: the price of the visit
- * - doctor: the doctor associated with the visit
+ * - doctor: the doctor associated with the visit, denormalized from the type of the visit
  * - client: the client associated with the visit
+ * - reminderSentAt: the time the reminder of the visit was queued, null until then
  * <p>
  * Note: The Visit class is annotated with JPA annotations for persistence and validation.
+ * All the associations are lazy, the VisitRepository finders fetch the type of the visit with an entity graph.
  */
 @Entity
 @Table(name = "visits")
@@ -40,22 +44,25 @@ public class Visit {
     @NotNull(message = "Date must not be empty")
     @FutureOrPresent(message = "Date must not be in the past")
     LocalDateTime date;
+    @Column(name = "end_date", nullable = false)
+    LocalDateTime endDate;
     @Column(name = "notes")
     @Size(max = 500, message = "Maximum length is 500 characters")
     String notes;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "type_id", nullable = false)
     @NotNull(message = "Type of visit must not be empty")
     TypeOfVisit typeOfVisit;
     @Column(name = "is_cancelled", nullable = false)
     boolean isCancelled;
-//    @ManyToOne
-//    @JoinColumn(name = "doctor_id", nullable = false)
-//    @NotNull(message = "Doctor must not be empty")
-//    Doctor doctor;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    Doctor doctor;
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id", nullable = false)
     @NotNull(message = "Client must not be empty")
     Client client;
+    @Column(name = "reminder_sent_at")
+    LocalDateTime reminderSentAt;
 
 }
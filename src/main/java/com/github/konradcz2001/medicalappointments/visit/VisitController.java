@@ -1,13 +1,17 @@
 package com.github.konradcz2001.medicalappointments.visit;
 
+import com.github.konradcz2001.medicalappointments.common.CountMode;
+import com.github.konradcz2001.medicalappointments.common.CursorPage;
 import com.github.konradcz2001.medicalappointments.visit.DTO.VisitDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -22,15 +26,18 @@ import java.time.LocalDateTime;
 @RequestMapping("/visits")
 class VisitController {
     private final VisitService service;
+    private final VisitExportService exportService;
 
-    VisitController(final VisitService service) {
+    VisitController(final VisitService service, final VisitExportService exportService) {
         this.service = service;
+        this.exportService = exportService;
     }
 
     /**
      * Retrieves all visits with pagination.
      *
      * @param pageable the pagination information
+     * @param count    how the total number is computed: EXACT (default), ESTIMATED or NONE for a Slice without a count
      * @return a ResponseEntity containing a Page of VisitDTO objects with a success status code if the visits are retrieved successfully,
      *         or a ResponseEntity with an error status code if the visits cannot be retrieved
      */
@@ -40,8 +47,8 @@ class VisitController {
     )
     @GetMapping
     @PreAuthorize("hasAuthority('ADMIN')")
-    ResponseEntity<Page<VisitDTO>> readAll(Pageable pageable){
-        return service.readAll(pageable);
+    ResponseEntity<Slice<VisitDTO>> readAll(Pageable pageable, @RequestParam(defaultValue = "EXACT") CountMode count){
+        return service.readAll(pageable, count);
     }
 
     /**
@@ -124,14 +131,15 @@ class VisitController {
      *
      * @param doctorId       the ID of the doctor
      * @param pageable the pagination information
+     * @param count    how the total number is computed: EXACT (default) or NONE for a Slice without a count, ESTIMATED is rejected
      * @return a ResponseEntity containing a Page of VisitDTO objects with a success status code if the visits are retrieved successfully,
      *         or a ResponseEntity with an error status code if the visits cannot be retrieved
      */
     //@Operation(summary = "Retrieves all visits with a doctor ID matching the specified ID.")
     @GetMapping(params = "doctorId")
     @PreAuthorize("hasAuthority('DOCTOR') or hasAuthority('ADMIN')")
-    ResponseEntity<Page<VisitDTO>> readAllByDoctorId(@RequestParam Long doctorId, Pageable pageable){
-        return service.readAllByDoctorId(doctorId, pageable);
+    ResponseEntity<Slice<VisitDTO>> readAllByDoctorId(@RequestParam Long doctorId, Pageable pageable, @RequestParam(defaultValue = "EXACT") CountMode count){
+        return service.readAllByDoctorId(doctorId, pageable, count);
     }
 
     /**
@@ -155,14 +163,15 @@ class VisitController {
      *
      * @param clientId the ID of the client
      * @param pageable the pagination information
+     * @param count    how the total number is computed: EXACT (default) or NONE for a Slice without a count, ESTIMATED is rejected
      * @return a ResponseEntity containing a Page of VisitDTO objects with a success status code if the visits are retrieved successfully,
      *         or a ResponseEntity with an error status code if the visits cannot be retrieved
      */
     //@Operation(summary = "Retrieves all visits associated with the specified client ID.")
     @GetMapping(params = "clientId")
     @PreAuthorize("hasAuthority('CLIENT') or hasAuthority('ADMIN')")
-    ResponseEntity<Page<VisitDTO>> readAllByClientId(@RequestParam Long clientId, Pageable pageable){
-        return service.readAllByClientId(clientId, pageable);
+    ResponseEntity<Slice<VisitDTO>> readAllByClientId(@RequestParam Long clientId, Pageable pageable, @RequestParam(defaultValue = "EXACT") CountMode count){
+        return service.readAllByClientId(clientId, pageable, count);
     }
 
     /**
@@ -181,6 +190,70 @@ class VisitController {
         return service.readAllByClientIdAndCancellationStatus(clientId, isCancelled, pageable);
     }
 
+    /**
+     * Retrieves all visits with keyset pagination.
+     * Send an empty cursor for the first page and the returned next cursor for every following one.
+     *
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of visits on the page
+     * @return a ResponseEntity containing a CursorPage of VisitDTO objects and the cursor of the next page
+     */
+    @Operation(summary = "Retrieves all visits with keyset pagination.")
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    ResponseEntity<CursorPage<VisitDTO>> readAllByCursor(@RequestParam String cursor, @RequestParam(defaultValue = "20") int size){
+        return service.readAllByCursor(cursor, size);
+    }
+
+    /**
+     * Retrieves the visits of a doctor with keyset pagination.
+     * Send an empty cursor for the first page and the returned next cursor for every following one.
+     *
+     * @param doctorId the ID of the doctor
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of visits on the page
+     * @return a ResponseEntity containing a CursorPage of VisitDTO objects and the cursor of the next page
+     */
+    @Operation(summary = "Retrieves the visits of a doctor with keyset pagination.")
+    @GetMapping(params = {"doctorId", "cursor"})
+    @PreAuthorize("hasAuthority('DOCTOR') or hasAuthority('ADMIN')")
+    ResponseEntity<CursorPage<VisitDTO>> readAllByDoctorIdAndCursor(@RequestParam Long doctorId, @RequestParam String cursor, @RequestParam(defaultValue = "20") int size){
+        return service.readAllByDoctorIdAndCursor(doctorId, cursor, size);
+    }
+
+    /**
+     * Retrieves the visits of a client with keyset pagination.
+     * Send an empty cursor for the first page and the returned next cursor for every following one.
+     *
+     * @param clientId the ID of the client
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of visits on the page
+     * @return a ResponseEntity containing a CursorPage of VisitDTO objects and the cursor of the next page
+     */
+    @Operation(summary = "Retrieves the visits of a client with keyset pagination.")
+    @GetMapping(params = {"clientId", "cursor"})
+    @PreAuthorize("hasAuthority('CLIENT') or hasAuthority('ADMIN')")
+    ResponseEntity<CursorPage<VisitDTO>> readAllByClientIdAndCursor(@RequestParam Long clientId, @RequestParam String cursor, @RequestParam(defaultValue = "20") int size){
+        return service.readAllByClientIdAndCursor(clientId, cursor, size);
+    }
+
+    /**
+     * Exports the visits of a doctor starting in the specified range, streamed without pagination.
+     *
+     * @param doctorId the ID of the doctor
+     * @param from     the beginning of the range (inclusive)
+     * @param to       the end of the range (exclusive)
+     * @param format   the format of the export, "ndjson" (default) or "csv"
+     * @return a ResponseEntity streaming the visits as an attachment
+     */
+    @Operation(summary = "Exports the visits of a doctor in a date range as NDJSON or CSV.")
+    @GetMapping(value = "/export", params = "doctorId")
+    @PreAuthorize("hasAuthority('DOCTOR') or hasAuthority('ADMIN')")
+    ResponseEntity<StreamingResponseBody> exportVisits(@RequestParam Long doctorId, @RequestParam LocalDateTime from, @RequestParam LocalDateTime to,
+                                                       @RequestParam(defaultValue = "ndjson") String format){
+        return exportService.exportVisits(doctorId, from, to, format);
+    }
+
     /**
      * Retrieves all visits with the specified price.
      *
@@ -0,0 +1,22 @@
+package com.github.konradcz2001.medicalappointments.visit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A visit as it is written to an export, read with a constructor expression so that exported visits are never
+ * managed by the persistence context.
+ * <p>
+ *  id: the ID of the visit
+ *  date: the beginning of the visit
+ *  endDate: the end of the visit
+ *  type: the type of the visit
+ *  price: the price of the type of the visit
+ *  currency: the currency of the price
+ *  clientId: the ID of the client
+ *  isCancelled: whether the visit is cancelled
+ *  notes: the notes of the visit, can be null
+ */
+public record VisitExportRow(Long id, LocalDateTime date, LocalDateTime endDate, String type, BigDecimal price,
+                             String currency, Long clientId, boolean isCancelled, String notes) {
+}
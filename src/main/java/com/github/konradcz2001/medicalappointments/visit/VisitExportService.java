@@ -0,0 +1,150 @@
+package com.github.konradcz2001.medicalappointments.visit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongVisitException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static com.github.konradcz2001.medicalappointments.exception.MessageType.DOCTOR;
+
+/**
+ * This is a service class that exports the visits of a doctor in a date range as NDJSON or CSV.
+ * <p>
+ * The visits are streamed from a database cursor straight to the response, one row at a time,
+ * so an export takes the same memory whatever its size and runs a single query without offsets or counts.
+ * The response is written after the request handler returns, so the cursor is read in its own read-only transaction.
+ */
+@Service
+class VisitExportService {
+    private static final String CSV_HEADER = "id,date,end_date,type,price,currency,client_id,is_cancelled,notes";
+
+    private final VisitRepository repository;
+    private final DoctorRepository doctorRepository;
+    private final ObjectWriter rowWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    VisitExportService(final VisitRepository repository, final DoctorRepository doctorRepository,
+                       final ObjectMapper objectMapper, final PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.doctorRepository = doctorRepository;
+        this.rowWriter = objectMapper.writerFor(VisitExportRow.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Exports the visits of a doctor starting in the given range, ordered by date.
+     *
+     * @param doctorId the ID of the doctor
+     * @param from     the beginning of the range (inclusive)
+     * @param to       the end of the range (exclusive)
+     * @param format   the format of the export, "ndjson" or "csv"
+     * @return a ResponseEntity streaming the visits as an attachment
+     * @throws WrongVisitException       if the format is not supported or the range is empty
+     * @throws ResourceNotFoundException if the doctor with the specified ID is not found
+     */
+    ResponseEntity<StreamingResponseBody> exportVisits(Long doctorId, LocalDateTime from, LocalDateTime to, String format) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        if (!from.isBefore(to))
+            throw new WrongVisitException("The beginning of the export range must be before its end");
+        if (!doctorRepository.existsById(doctorId))
+            throw new ResourceNotFoundException(DOCTOR, doctorId);
+
+        ContentDisposition attachment = ContentDisposition.attachment()
+                .filename("visits-" + doctorId + "." + exportFormat.extension)
+                .build();
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, attachment.toString())
+                .body(out -> transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<VisitExportRow> rows = repository.streamAllByDoctorIdForExport(doctorId, from, to)) {
+                        write(rows.iterator(), exportFormat, out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+    }
+
+    private void write(Iterator<VisitExportRow> rows, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV)
+            writer.write(CSV_HEADER + "\r\n");
+
+        while (rows.hasNext()) {
+            VisitExportRow row = rows.next();
+            if (format == ExportFormat.CSV)
+                writeCsv(row, writer);
+            else
+                writer.write(rowWriter.writeValueAsString(row) + "\n");
+        }
+        writer.flush();
+    }
+
+    private static void writeCsv(VisitExportRow row, Writer writer) throws IOException {
+        writer.write(String.join(",",
+                String.valueOf(row.id()),
+                String.valueOf(row.date()),
+                String.valueOf(row.endDate()),
+                csvField(row.type()),
+                row.price().toPlainString(),
+                csvField(row.currency()),
+                String.valueOf(row.clientId()),
+                String.valueOf(row.isCancelled()),
+                csvField(row.notes())));
+        writer.write("\r\n");
+    }
+
+    /**
+     * Quotes a text field as RFC 4180 requires when it contains a separator, a quote or a line break.
+     */
+    private static String csvField(String value) {
+        if (value == null)
+            return "";
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r"))
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        return value;
+    }
+
+    private enum ExportFormat {
+        NDJSON(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8), "ndjson"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        ExportFormat(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        private static ExportFormat of(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new WrongVisitException("The export format must be ndjson or csv");
+            }
+        }
+    }
+}
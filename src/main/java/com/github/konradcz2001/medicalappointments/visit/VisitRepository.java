@@ -1,13 +1,26 @@
 package com.github.konradcz2001.medicalappointments.visit;
 
+import com.github.konradcz2001.medicalappointments.calendar.CalendarEvent;
+import com.github.konradcz2001.medicalappointments.doctor.availability.BusyPeriod;
+import com.github.konradcz2001.medicalappointments.visit.reminder.VisitReminder;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 
 /**
@@ -16,21 +29,114 @@ import java.util.List;
  * It extends JpaRepository for Visit entities with Long as the identifier type.
  * The interface provides methods to retrieve Visit entities based on various criteria such as date, type of visit, doctor, client, price, and cancellation status.
  * The methods support pagination using Pageable.
+ * The paged finders fetch the type of the visit with an entity graph, the only association the VisitDTO is mapped from,
+ * while the doctor and the client stay lazy proxies whose IDs are read without loading them.
+ * The Slice finders read the same visits as their Page counterparts without running a count query,
+ * and estimateCount reads the number of visits from the planner statistics instead of counting them.
+ * The "Before" finders read visits for keyset pagination, newest first, starting after the given (date, id) position.
+ * streamAllByDoctorIdForExport reads the visits of a doctor for an export through a database cursor with a small fetch size,
+ * as rows that are not managed by the persistence context, so it has to be consumed in a transaction.
+ * The calendar event finders read the visits of a doctor or a client ending after the given date for their calendar feed.
+ * The exists methods look for non-cancelled visits overlapping the half-open range [start, end) and are served by the GiST exclusion constraints on time_range.
+ * The reminder methods claim the visits due for a reminder: findAllReminderDueIdsForUpdate reads them from the partial reminder index,
+ * locking them and skipping the ones claimed by another dispatcher, markRemindersSent records their reminders as sent
+ * and findAllRemindersByIdIn reads what the reminders are made of. skipMissedReminders marks a batch of visits which started
+ * before their reminder was queued as reminded at their start, the way the migration adding reminders marked past visits,
+ * so they leave the partial reminder index.
  */
 @Repository
 public interface VisitRepository extends JpaRepository<Visit, Long> {
+    @Override
+    @EntityGraph(attributePaths = "typeOfVisit")
+    Page<Visit> findAll(Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
     Page<Visit> findAllByDateAfter(LocalDateTime date, Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
     Page<Visit> findAllByDateBefore(LocalDateTime date, Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
     Page<Visit> findAllByDateAfterAndDateBefore(LocalDateTime after, LocalDateTime before, Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
     Page<Visit> findAllByTypeOfVisitTypeContainingIgnoreCase(String type, Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
     Page<Visit> findAllByTypeOfVisit_Doctor_Id(Long doctorId, Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
     Page<Visit> findAllByTypeOfVisit_Doctor_IdAndIsCancelled(Long doctorId, boolean isCancelled, Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
     Page<Visit> findAllByClientId(Long client, Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
     Page<Visit> findAllByClientIdAndIsCancelled(Long clientId, boolean isCancelled, Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
     Page<Visit> findAllByTypeOfVisitPrice(BigDecimal price, Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
     Page<Visit> findAllByTypeOfVisitPriceLessThanEqual(BigDecimal price, Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
     Page<Visit> findAllByTypeOfVisitPriceGreaterThanEqual(BigDecimal price, Pageable pageable);
 
-    List<Visit> findAllByTypeOfVisit_Doctor_Id(Long doctorId);
-    List<Visit> findAllByClientId(Long client);
+    @EntityGraph(attributePaths = "typeOfVisit")
+    Slice<Visit> findAllBy(Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
+    Slice<Visit> findSliceByTypeOfVisit_Doctor_Id(Long doctorId, Pageable pageable);
+    @EntityGraph(attributePaths = "typeOfVisit")
+    Slice<Visit> findSliceByClientId(Long clientId, Pageable pageable);
+
+    @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = CAST('visits' AS regclass)", nativeQuery = true)
+    long estimateCount();
+
+
+    @EntityGraph(attributePaths = "typeOfVisit")
+    @Query("SELECT v FROM Visit v WHERE (v.date, v.id) < (:date, :id) ORDER BY v.date DESC, v.id DESC")
+    List<Visit> findAllBefore(@Param("date") LocalDateTime date, @Param("id") Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = "typeOfVisit")
+    @Query("SELECT v FROM Visit v WHERE v.doctor.id = :doctorId AND (v.date, v.id) < (:date, :id) ORDER BY v.date DESC, v.id DESC")
+    List<Visit> findAllByDoctorIdBefore(@Param("doctorId") Long doctorId, @Param("date") LocalDateTime date, @Param("id") Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = "typeOfVisit")
+    @Query("SELECT v FROM Visit v WHERE v.client.id = :clientId AND (v.date, v.id) < (:date, :id) ORDER BY v.date DESC, v.id DESC")
+    List<Visit> findAllByClientIdBefore(@Param("clientId") Long clientId, @Param("date") LocalDateTime date, @Param("id") Long id, Pageable limit);
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.visit.VisitExportRow(v.id, v.date, v.endDate, t.type, t.price, t.currency, v.client.id, v.isCancelled, v.notes) " +
+            "FROM Visit v JOIN v.typeOfVisit t WHERE v.doctor.id = :doctorId AND v.date >= :from AND v.date < :to ORDER BY v.date, v.id")
+    Stream<VisitExportRow> streamAllByDoctorIdForExport(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.calendar.CalendarEvent('visit', v.id, v.date, v.endDate, t.type, " +
+            "CONCAT('Client: ', c.firstName, ' ', c.lastName), v.isCancelled) " +
+            "FROM Visit v JOIN v.typeOfVisit t JOIN v.client c WHERE v.doctor.id = :doctorId AND v.endDate > :from ORDER BY v.date")
+    List<CalendarEvent> findAllCalendarEventsByDoctorId(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from);
+
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.calendar.CalendarEvent('visit', v.id, v.date, v.endDate, t.type, " +
+            "CONCAT('Doctor: ', d.firstName, ' ', d.lastName), v.isCancelled) " +
+            "FROM Visit v JOIN v.typeOfVisit t JOIN v.doctor d WHERE v.client.id = :clientId AND v.endDate > :from ORDER BY v.date")
+    List<CalendarEvent> findAllCalendarEventsByClientId(@Param("clientId") Long clientId, @Param("from") LocalDateTime from);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM visits WHERE doctor_id = :doctorId AND is_cancelled = false " +
+            "AND time_range && tsrange(:start, :end, '[)'))", nativeQuery = true)
+    boolean existsActiveVisitOfDoctorOverlapping(@Param("doctorId") Long doctorId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM visits WHERE client_id = :clientId AND is_cancelled = false " +
+            "AND time_range && tsrange(:start, :end, '[)'))", nativeQuery = true)
+    boolean existsActiveVisitOfClientOverlapping(@Param("clientId") Long clientId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.doctor.availability.BusyPeriod(v.doctor.id, v.date, v.endDate) " +
+            "FROM Visit v WHERE v.doctor.id IN :doctorIds AND v.isCancelled = false AND v.endDate > :start AND v.date < :end")
+    List<BusyPeriod> findAllBusyPeriods(@Param("doctorIds") Collection<Long> doctorIds, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query(value = "SELECT id FROM visits WHERE is_cancelled = false AND reminder_sent_at IS NULL AND date > :from AND date <= :to " +
+            "ORDER BY date, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> findAllReminderDueIdsForUpdate(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "UPDATE visits SET reminder_sent_at = date WHERE id IN (" +
+            "SELECT id FROM visits WHERE is_cancelled = false AND reminder_sent_at IS NULL AND date <= :now " +
+            "ORDER BY date, id LIMIT :limit FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int skipMissedReminders(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Visit v SET v.reminderSentAt = :sentAt WHERE v.id IN :ids")
+    void markRemindersSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.visit.reminder.VisitReminder(v.id, v.date, t.type, c.email, c.firstName, d.firstName, d.lastName) " +
+            "FROM Visit v JOIN v.typeOfVisit t JOIN v.client c JOIN v.doctor d WHERE v.id IN :ids ORDER BY v.date, v.id")
+    List<VisitReminder> findAllRemindersByIdIn(@Param("ids") Collection<Long> ids);
 }
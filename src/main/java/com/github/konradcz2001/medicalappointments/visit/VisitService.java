@@ -1,9 +1,18 @@
 package com.github.konradcz2001.medicalappointments.visit;
 
+import com.github.konradcz2001.medicalappointments.calendar.CalendarOwner;
+import com.github.konradcz2001.medicalappointments.calendar.CalendarService;
+import com.github.konradcz2001.medicalappointments.common.CountMode;
+import com.github.konradcz2001.medicalappointments.common.Cursor;
+import com.github.konradcz2001.medicalappointments.common.CursorPage;
 import com.github.konradcz2001.medicalappointments.client.ClientRepository;
 import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.doctor.availability.AvailabilityIndex;
 import com.github.konradcz2001.medicalappointments.doctor.schedule.WeekDay;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.EmptyPageException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongCursorException;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongCountModeException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongVisitException;
 import com.github.konradcz2001.medicalappointments.leave.Leave;
 import com.github.konradcz2001.medicalappointments.visit.DTO.VisitDTO;
@@ -11,6 +20,7 @@ import com.github.konradcz2001.medicalappointments.visit.DTO.VisitDTOMapper;
 import com.github.konradcz2001.medicalappointments.visit.type.TypeOfVisit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,7 +31,10 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 
+import static com.github.konradcz2001.medicalappointments.common.Utils.returnCursorResponse;
 import static com.github.konradcz2001.medicalappointments.common.Utils.returnResponse;
+import static com.github.konradcz2001.medicalappointments.common.Utils.returnSliceResponse;
+import static com.github.konradcz2001.medicalappointments.common.Utils.withEstimatedTotal;
 import static com.github.konradcz2001.medicalappointments.exception.MessageType.*;
 
 /**
@@ -29,6 +42,8 @@ import static com.github.konradcz2001.medicalappointments.exception.MessageType.
  * It provides methods for creating, reading, updating, and deleting visits.
  * The class also includes methods for retrieving visits based on different criteria such as ID, type, date, price, doctor, and client.
  * The class uses a VisitRepository, DoctorRepository, ClientRepository, and VisitDTOMapper for data access and mapping.
+ * Every change of a visit invalidates the affected days in the AvailabilityIndex and the calendar feeds of its doctor and client.
+ * Moving a visit to another date makes the VisitReminderDispatcher remind it again.
  */
 @Service
 class VisitService {
@@ -36,16 +51,31 @@ class VisitService {
     private final DoctorRepository doctorRepository;
     private final ClientRepository clientRepository;
     private final VisitDTOMapper dtoMapper;
+    private final AvailabilityIndex availabilityIndex;
+    private final CalendarService calendarService;
 
-    VisitService(final VisitRepository repository, final DoctorRepository doctorRepository, final ClientRepository clientRepository, VisitDTOMapper dtoMapper) {
+    VisitService(final VisitRepository repository, final DoctorRepository doctorRepository, final ClientRepository clientRepository, VisitDTOMapper dtoMapper,
+                 final AvailabilityIndex availabilityIndex, final CalendarService calendarService) {
         this.repository = repository;
         this.doctorRepository = doctorRepository;
         this.clientRepository = clientRepository;
         this.dtoMapper = dtoMapper;
+        this.availabilityIndex = availabilityIndex;
+        this.calendarService = calendarService;
     }
 
 
 
+    /**
+     * Creates a new visit for the doctor and the client specified in the given VisitDTO.
+     * The visit is rejected if it overlaps the doctor's leave, another non-cancelled visit of the doctor or the client,
+     * or falls outside the doctor's schedule.
+     *
+     * @param visitDTO the VisitDTO object representing the visit to create
+     * @return a ResponseEntity containing the created VisitDTO object
+     * @throws ResourceNotFoundException if the doctor or the client is not found
+     * @throws WrongVisitException if the visit conflicts with the doctor's leaves, visits or schedule, or with the client's visits
+     */
     @Transactional
     ResponseEntity<VisitDTO> createVisit(VisitDTO visitDTO){
         Long doctorId = visitDTO.typeOfVisit().doctorId();
@@ -54,11 +84,14 @@ class VisitService {
         return doctorRepository.findById(doctorId)
                 .map(doctor -> clientRepository.findById(clientId)
                             .map( client -> {
+                                    LocalDateTime visitStart = visitDTO.date();
+                                    LocalDateTime visitEnd = visitStart.plusMinutes(visitDTO.typeOfVisit().duration());
+
                                     if(conflictWithLeaves(doctor.getLeaves(), visitDTO))
                                         throw new WrongVisitException("The visit conflicts with the doctor's leave");
-                                    if(conflictWithAnotherVisit(repository.findAllByTypeOfVisit_Doctor_Id(doctorId), visitDTO))
+                                    if(repository.existsActiveVisitOfDoctorOverlapping(doctorId, visitStart, visitEnd))
                                         throw new WrongVisitException("The visit conflicts with another doctor's visit");
-                                    if(conflictWithAnotherVisit(repository.findAllByClientId(clientId), visitDTO))
+                                    if(repository.existsActiveVisitOfClientOverlapping(clientId, visitStart, visitEnd))
                                         throw new WrongVisitException("The visit conflicts with another of your visits");
                                     if(conflictWithSchedule(doctor.getSchedule().getListOfDays(), visitDTO))
                                         throw new WrongVisitException("The visit conflicts with the doctor's schedule");
@@ -66,16 +99,29 @@ class VisitService {
 
                                     Visit visit = new Visit();
                                     visit.setClient(client);
+                                    visit.setDoctor(doctor);
                                     TypeOfVisit typeOfVisit = new TypeOfVisit();
                                     typeOfVisit.setDoctor(doctor);
                                     visit.setTypeOfVisit(typeOfVisit);
                                     Visit result = repository.save(dtoMapper.mapFromDTO(visitDTO, visit));
+                                    availabilityIndex.invalidate(doctorId, result.getDate(), result.getEndDate());
+                                    touchCalendars(result);
                                     return ResponseEntity.created(URI.create("/" + result.getId())).body(dtoMapper.mapToDTO(result));
                             })
                             .orElseThrow(() -> new ResourceNotFoundException(CLIENT, clientId)))
                 .orElseThrow(() -> new ResourceNotFoundException(DOCTOR, doctorId));
     }
 
+    /**
+     * Records a change of the visit in the calendar feeds of its doctor and its client.
+     *
+     * @param visit the changed visit
+     */
+    private void touchCalendars(Visit visit){
+        calendarService.touch(CalendarOwner.DOCTOR, visit.getDoctor().getId());
+        calendarService.touch(CalendarOwner.CLIENT, visit.getClient().getId());
+    }
+
     /**
      * Checks if the provided visit conflicts with any leaves taken by the doctor.
      *
@@ -97,27 +143,6 @@ class VisitService {
         return false;
     }
 
-    /**
-     * Checks if the provided visit conflicts with any other existing visits.
-     *
-     * @param visits the list of existing visits to check for conflicts
-     * @param visitDTO the VisitDTO object representing the visit to check for conflicts
-     * @return true if there is a conflict with any other visits, false otherwise
-     */
-    private boolean conflictWithAnotherVisit(List<Visit> visits, VisitDTO visitDTO){
-        LocalDateTime visitStart = visitDTO.date();
-        LocalDateTime visitEnd = visitStart.plusMinutes(visitDTO.typeOfVisit().duration());
-
-        for (Visit v : visits) {
-            LocalDateTime vStart = v.getDate();
-            LocalDateTime vEnd = vStart.plusMinutes(v.getTypeOfVisit().getDuration());
-
-            if (visitStart.isBefore(vEnd) && visitEnd.isAfter(vStart))
-                return true;
-        }
-        return false;
-    }
-
     /**
      * Checks if the provided visit conflicts with the schedule of the doctor on the specified days.
      *
@@ -147,12 +172,18 @@ class VisitService {
 
     /**
      * Retrieves all visits with pagination.
+     * The total number of visits is counted, estimated from the planner statistics or skipped, depending on the count mode.
      *
      * @param pageable the pagination information
-     * @return a ResponseEntity containing a Page of VisitDTO objects representing the visits
+     * @param count    how the total number of visits is computed
+     * @return a ResponseEntity containing a Page of VisitDTO objects representing the visits, or a Slice if the count is skipped
      */
-    ResponseEntity<Page<VisitDTO>> readAll(Pageable pageable){
-        return returnResponse(() -> repository.findAll(pageable), dtoMapper);
+    ResponseEntity<Slice<VisitDTO>> readAll(Pageable pageable, CountMode count){
+        return switch (count) {
+            case EXACT -> returnSliceResponse(() -> repository.findAll(pageable), dtoMapper);
+            case ESTIMATED -> returnSliceResponse(() -> withEstimatedTotal(repository.findAllBy(pageable), repository.estimateCount()), dtoMapper);
+            case NONE -> returnSliceResponse(() -> repository.findAllBy(pageable), dtoMapper);
+        };
     }
 
     /**
@@ -218,12 +249,20 @@ class VisitService {
     /**
      * Retrieves all visits with a doctor of visit ID matching the specified ID.
      *
+     * There are no planner statistics per doctor, so an estimated count is not supported.
+     *
      * @param doctorId       the ID of the doctor of visit to search for
      * @param pageable the pagination information
-     * @return a ResponseEntity containing a Page of VisitDTO objects representing the visits
+     * @param count    how the total number of visits is computed
+     * @return a ResponseEntity containing a Page of VisitDTO objects representing the visits, or a Slice if the count is skipped
+     * @throws WrongCountModeException if an estimated count is asked for
      */
-    ResponseEntity<Page<VisitDTO>> readAllByDoctorId(Long doctorId, Pageable pageable){
-        return returnResponse(() -> repository.findAllByTypeOfVisit_Doctor_Id(doctorId, pageable), dtoMapper);
+    ResponseEntity<Slice<VisitDTO>> readAllByDoctorId(Long doctorId, Pageable pageable, CountMode count){
+        return switch (count) {
+            case EXACT -> returnSliceResponse(() -> repository.findAllByTypeOfVisit_Doctor_Id(doctorId, pageable), dtoMapper);
+            case ESTIMATED -> throw new WrongCountModeException(count);
+            case NONE -> returnSliceResponse(() -> repository.findSliceByTypeOfVisit_Doctor_Id(doctorId, pageable), dtoMapper);
+        };
     }
 
     /**
@@ -240,13 +279,20 @@ class VisitService {
 
     /**
      * Retrieves all visits associated with the specified client ID.
+     * There are no planner statistics per client, so an estimated count is not supported.
      *
      * @param clientId the ID of the client
      * @param pageable the pagination information
-     * @return a ResponseEntity containing a Page of VisitDTO objects representing the visits
+     * @param count    how the total number of visits is computed
+     * @return a ResponseEntity containing a Page of VisitDTO objects representing the visits, or a Slice if the count is skipped
+     * @throws WrongCountModeException if an estimated count is asked for
      */
-    ResponseEntity<Page<VisitDTO>> readAllByClientId(Long clientId, Pageable pageable){
-        return returnResponse(() -> repository.findAllByClientId(clientId, pageable), dtoMapper);
+    ResponseEntity<Slice<VisitDTO>> readAllByClientId(Long clientId, Pageable pageable, CountMode count){
+        return switch (count) {
+            case EXACT -> returnSliceResponse(() -> repository.findAllByClientId(clientId, pageable), dtoMapper);
+            case ESTIMATED -> throw new WrongCountModeException(count);
+            case NONE -> returnSliceResponse(() -> repository.findSliceByClientId(clientId, pageable), dtoMapper);
+        };
     }
 
     /**
@@ -261,6 +307,53 @@ class VisitService {
         return returnResponse(() -> repository.findAllByClientIdAndIsCancelled(clientId, isCancelled, pageable), dtoMapper);
     }
 
+    /**
+     * Retrieves a page of all the visits with keyset pagination, newest first, without counting them.
+     *
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of visits on the page, at most MAX_CURSOR_PAGE_SIZE
+     * @return a ResponseEntity containing a CursorPage of VisitDTO objects and the cursor of the next page
+     * @throws EmptyPageException  if the page is empty
+     * @throws WrongCursorException if the cursor cannot be decoded
+     */
+    ResponseEntity<CursorPage<VisitDTO>> readAllByCursor(String cursor, int size) {
+        Cursor position = Cursor.decode(cursor);
+        return returnCursorResponse(size, limit -> repository.findAllBefore(position.date(), position.id(), limit),
+                visit -> new Cursor(visit.getDate(), visit.getId()), dtoMapper);
+    }
+
+    /**
+     * Retrieves a page of a doctor's visits with keyset pagination, newest first, without counting them.
+     *
+     * @param doctorId the ID of the doctor
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of visits on the page, at most MAX_CURSOR_PAGE_SIZE
+     * @return a ResponseEntity containing a CursorPage of VisitDTO objects and the cursor of the next page
+     * @throws EmptyPageException  if the page is empty
+     * @throws WrongCursorException if the cursor cannot be decoded
+     */
+    ResponseEntity<CursorPage<VisitDTO>> readAllByDoctorIdAndCursor(Long doctorId, String cursor, int size) {
+        Cursor position = Cursor.decode(cursor);
+        return returnCursorResponse(size, limit -> repository.findAllByDoctorIdBefore(doctorId, position.date(), position.id(), limit),
+                visit -> new Cursor(visit.getDate(), visit.getId()), dtoMapper);
+    }
+
+    /**
+     * Retrieves a page of a client's visits with keyset pagination, newest first, without counting them.
+     *
+     * @param clientId the ID of the client
+     * @param cursor the cursor returned with the previous page, empty for the first page
+     * @param size   the number of visits on the page, at most MAX_CURSOR_PAGE_SIZE
+     * @return a ResponseEntity containing a CursorPage of VisitDTO objects and the cursor of the next page
+     * @throws EmptyPageException  if the page is empty
+     * @throws WrongCursorException if the cursor cannot be decoded
+     */
+    ResponseEntity<CursorPage<VisitDTO>> readAllByClientIdAndCursor(Long clientId, String cursor, int size) {
+        Cursor position = Cursor.decode(cursor);
+        return returnCursorResponse(size, limit -> repository.findAllByClientIdBefore(clientId, position.date(), position.id(), limit),
+                visit -> new Cursor(visit.getDate(), visit.getId()), dtoMapper);
+    }
+
     /**
      * Updates a visit with the specified ID.
      *
@@ -273,7 +366,14 @@ class VisitService {
     ResponseEntity<?> updateVisit(Long id, VisitDTO toUpdate){
         return repository.findById(id)
                 .map(visit -> {
-                    repository.save(dtoMapper.mapFromDTO(toUpdate, visit));
+                    availabilityIndex.invalidate(visit.getDoctor().getId(), visit.getDate(), visit.getEndDate());
+                    LocalDateTime previousDate = visit.getDate();
+                    Visit mapped = dtoMapper.mapFromDTO(toUpdate, visit);
+                    if (!mapped.getDate().equals(previousDate))
+                        mapped.setReminderSentAt(null);
+                    Visit updated = repository.save(mapped);
+                    availabilityIndex.invalidate(updated.getDoctor().getId(), updated.getDate(), updated.getEndDate());
+                    touchCalendars(updated);
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(VISIT, id));
@@ -291,6 +391,8 @@ class VisitService {
         return repository.findById(id)
                 .map(visit -> {
                     repository.deleteById(id);
+                    availabilityIndex.invalidate(visit.getDoctor().getId(), visit.getDate(), visit.getEndDate());
+                    touchCalendars(visit);
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(VISIT, id));
@@ -310,6 +412,8 @@ class VisitService {
                 .map(visit -> {
                     visit.setCancelled(true);
                     repository.save(visit);
+                    availabilityIndex.invalidate(visit.getDoctor().getId(), visit.getDate(), visit.getEndDate());
+                    touchCalendars(visit);
                     return ResponseEntity.noContent().build();
                 })
                 .orElseThrow(() -> new ResourceNotFoundException(VISIT, id));
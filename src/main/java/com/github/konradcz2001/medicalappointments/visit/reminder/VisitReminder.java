@@ -0,0 +1,17 @@
+package com.github.konradcz2001.medicalappointments.visit.reminder;
+
+import java.time.LocalDateTime;
+
+/**
+ * What the reminder of a visit is made of.
+ * <p>
+ *  visitId: the ID of the visit
+ *  date: the beginning of the visit
+ *  type: the name of the type of the visit
+ *  clientEmail: the address the reminder is sent to
+ *  clientFirstName: the first name of the client
+ *  doctorFirstName, doctorLastName: the name of the doctor
+ */
+public record VisitReminder(Long visitId, LocalDateTime date, String type, String clientEmail, String clientFirstName,
+                            String doctorFirstName, String doctorLastName) {
+}
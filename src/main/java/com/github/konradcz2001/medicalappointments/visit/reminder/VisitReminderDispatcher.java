@@ -0,0 +1,101 @@
+package com.github.konradcz2001.medicalappointments.visit.reminder;
+
+import com.github.konradcz2001.medicalappointments.email.EmailOutbox;
+import com.github.konradcz2001.medicalappointments.visit.VisitRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Queues reminder emails of the non-cancelled visits starting within the lead time.
+ * <p>
+ * Every poll claims batches of due visits until a batch is not full, each in its own short transaction that locks the visits
+ * with SKIP LOCKED, records their reminders as sent and writes the reminders to the EmailOutbox, which sends them in the background.
+ * The due visits are read from a partial index holding only the visits still waiting for a reminder, so a batch costs
+ * the same however many visits there are, and a claimed visit leaves the index, so every reminder is queued once
+ * even with several dispatchers running.
+ * Visits which started before they were claimed, e.g. while the application was down, are never reminded. Every poll first
+ * marks them as skipped in batches of the same size, so they leave the index instead of piling up at its beginning.
+ */
+@Component
+public class VisitReminderDispatcher {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final VisitRepository visitRepository;
+    private final EmailOutbox emailOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration leadTime;
+    private final int batchSize;
+
+    VisitReminderDispatcher(final VisitRepository visitRepository, final EmailOutbox emailOutbox, final PlatformTransactionManager transactionManager,
+                            @Value("${app.visit.reminder.lead-time:24h}") final Duration leadTime,
+                            @Value("${app.visit.reminder.batch-size:500}") final int batchSize) {
+        this.visitRepository = visitRepository;
+        this.emailOutbox = emailOutbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.leadTime = leadTime;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.visit.reminder.poll-interval-ms:60000}")
+    void dispatchDue() {
+        int skipped;
+        do {
+            skipped = skipMissedBatch(LocalDateTime.now());
+        } while (skipped == batchSize);
+
+        int claimed;
+        do {
+            claimed = dispatchBatch(LocalDateTime.now());
+        } while (claimed == batchSize);
+    }
+
+    /**
+     * Marks one batch of visits which started without a reminder as skipped.
+     *
+     * @param now the current time
+     * @return the number of visits skipped
+     */
+    int skipMissedBatch(LocalDateTime now) {
+        Integer skipped = transactionTemplate.execute(status -> visitRepository.skipMissedReminders(now, batchSize));
+        return skipped == null ? 0 : skipped;
+    }
+
+    /**
+     * Claims one batch of visits starting within the lead time from now and queues their reminders.
+     *
+     * @param now the current time
+     * @return the number of visits claimed
+     */
+    int dispatchBatch(LocalDateTime now) {
+        Integer claimed = transactionTemplate.execute(status -> {
+            List<Long> ids = visitRepository.findAllReminderDueIdsForUpdate(now, now.plus(leadTime), batchSize);
+            if (ids.isEmpty())
+                return 0;
+
+            visitRepository.markRemindersSent(ids, now);
+            visitRepository.findAllRemindersByIdIn(ids)
+                    .forEach(reminder -> emailOutbox.enqueue(reminder.clientEmail(), subject(reminder), body(reminder)));
+            return ids.size();
+        });
+        return claimed == null ? 0 : claimed;
+    }
+
+    private static String subject(VisitReminder reminder) {
+        return "Reminder: " + reminder.type() + " on " + DATE_FORMAT.format(reminder.date());
+    }
+
+    private static String body(VisitReminder reminder) {
+        return "Hello " + reminder.clientFirstName() + ",\n\n" +
+                "this is a reminder of your visit \"" + reminder.type() + "\" with Dr. " + reminder.doctorFirstName() + " " +
+                reminder.doctorLastName() + " on " + DATE_FORMAT.format(reminder.date()) + ".\n\n" +
+                "If you cannot come, please cancel the visit in the application.";
+    }
+}
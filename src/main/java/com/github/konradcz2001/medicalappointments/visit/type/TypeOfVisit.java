@@ -18,7 +18,7 @@ import java.math.BigDecimal;
  * - currency: The currency in which the price is specified.
  * - duration: The duration of the visit in minutes.
  * - isActive: Is TypeOfVisit active (client has an opportunity to select it).
- * - doctor: The doctor associated with this type of visit.
+ * - doctor: The doctor associated with this type of visit, loaded lazily.
  * <p>
  * The class provides getters and setters for all attributes, as well as constructors for creating instances of the class.
  * <p>
@@ -62,7 +62,7 @@ public class TypeOfVisit {
     @Column(name = "is_active", nullable = false)
     boolean isActive = true;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", nullable = false)
     @NotNull(message = "Doctor must not be empty")
     Doctor doctor;
@@ -1,16 +1,27 @@
 package com.github.konradcz2001.medicalappointments.visit.type;
 
+import com.github.konradcz2001.medicalappointments.doctor.availability.BookableVisitType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * This interface represents a repository for TypeOfVisit entities, extending JpaRepository.
- * It provides a method to find all TypeOfVisit entities by a specific doctor's ID with pagination support.
+ * It provides a method to find all TypeOfVisit entities by a specific doctor's ID with pagination support,
+ * and a method to find the active types of visits with a given name offered by doctors of a given specialization.
  */
 @Repository
 public interface TypeOfVisitRepository extends JpaRepository<TypeOfVisit, Long> {
     Page<TypeOfVisit> findAllByDoctorId(Long id, Pageable pageable);
     Page<TypeOfVisit> findAllByDoctorIdAndIsActive(Long id, boolean isActive, Pageable pageable);
+
+    @Query("SELECT new com.github.konradcz2001.medicalappointments.doctor.availability.BookableVisitType(d.id, d.firstName, d.lastName, t.id, t.duration) " +
+            "FROM TypeOfVisit t JOIN t.doctor d JOIN d.specializations s " +
+            "WHERE t.isActive = true AND UPPER(t.type) = UPPER(:type) AND UPPER(s.specialization) = UPPER(:specialization)")
+    List<BookableVisitType> findAllBookableBySpecializationAndType(@Param("specialization") String specialization, @Param("type") String type);
 }
@@ -0,0 +1,12 @@
+ALTER TABLE visits ADD COLUMN end_date TIMESTAMP WITHOUT TIME ZONE;
+
+UPDATE visits v
+SET end_date = v.date + make_interval(mins => t.duration)
+FROM types_of_visits t
+WHERE t.id = v.type_id;
+
+ALTER TABLE visits ALTER COLUMN end_date SET NOT NULL;
+
+CREATE INDEX idx_types_of_visits_doctor_id ON types_of_visits (doctor_id);
+CREATE INDEX idx_visits_type_active_range ON visits (type_id, date, end_date) WHERE is_cancelled = false;
+CREATE INDEX idx_visits_client_active_range ON visits (client_id, date, end_date) WHERE is_cancelled = false;
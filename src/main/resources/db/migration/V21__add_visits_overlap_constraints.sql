@@ -0,0 +1,23 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE visits ADD COLUMN doctor_id BIGINT;
+
+UPDATE visits v
+SET doctor_id = t.doctor_id
+FROM types_of_visits t
+WHERE t.id = v.type_id;
+
+ALTER TABLE visits ALTER COLUMN doctor_id SET NOT NULL;
+ALTER TABLE visits ADD CONSTRAINT fk_visits_doctor_id FOREIGN KEY (doctor_id) REFERENCES doctors (id);
+
+ALTER TABLE visits ADD COLUMN time_range TSRANGE GENERATED ALWAYS AS (tsrange(date, end_date, '[)')) STORED;
+
+-- Two non-cancelled visits of the same doctor (or the same client) must never overlap.
+-- The constraints also serve as the range indexes used by the conflict checks.
+ALTER TABLE visits ADD CONSTRAINT visits_doctor_no_overlap
+    EXCLUDE USING gist (doctor_id WITH =, time_range WITH &&) WHERE (is_cancelled = false);
+ALTER TABLE visits ADD CONSTRAINT visits_client_no_overlap
+    EXCLUDE USING gist (client_id WITH =, time_range WITH &&) WHERE (is_cancelled = false);
+
+DROP INDEX idx_visits_type_active_range;
+DROP INDEX idx_visits_client_active_range;
@@ -0,0 +1,2 @@
+-- Serves the availability index, which loads the non-cancelled visits of doctors ending after a given day.
+CREATE INDEX idx_visits_doctor_active_end_date ON visits (doctor_id, end_date) WHERE is_cancelled = false;
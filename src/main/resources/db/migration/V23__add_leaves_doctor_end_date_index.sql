@@ -0,0 +1,2 @@
+-- Serves the availability index, which loads the leaves of doctors ending after a given day.
+CREATE INDEX idx_leaves_doctor_end_date ON leaves (doctor_id, end_date);
@@ -0,0 +1,12 @@
+-- A lowercased document of the searchable columns of a doctor, maintained by the database,
+-- with a trigram index that serves the substring (LIKE '%word%') search of doctors.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE doctors ADD COLUMN search_document TEXT GENERATED ALWAYS AS (
+    lower(coalesce(first_name, '') || ' ' || coalesce(last_name, '') || ' ' ||
+          coalesce(country, '') || ' ' || coalesce(state, '') || ' ' ||
+          coalesce(city, '') || ' ' || coalesce(zip_code, '') || ' ' ||
+          coalesce(street, '') || ' ' || coalesce(house_number, ''))
+) STORED;
+
+CREATE INDEX idx_doctors_search_document ON doctors USING gin (search_document gin_trgm_ops);
@@ -0,0 +1,4 @@
+-- SHA-256 of the avatar, used as its ETag and as the version in avatar URLs.
+ALTER TABLE doctors ADD COLUMN avatar_hash VARCHAR(64);
+
+UPDATE doctors SET avatar_hash = encode(sha256(avatar), 'hex') WHERE avatar IS NOT NULL;
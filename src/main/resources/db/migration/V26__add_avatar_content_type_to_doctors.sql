@@ -0,0 +1,10 @@
+-- Content type of the avatar, kept next to its hash since avatars are served from the AvatarStore.
+ALTER TABLE doctors ADD COLUMN avatar_content_type VARCHAR(50);
+
+UPDATE doctors SET avatar_content_type = CASE
+        WHEN substring(avatar FROM 1 FOR 4) = '\x89504e47'::bytea THEN 'image/png'
+        WHEN substring(avatar FROM 1 FOR 3) = '\xffd8ff'::bytea THEN 'image/jpeg'
+        WHEN substring(avatar FROM 1 FOR 4) = '\x47494638'::bytea THEN 'image/gif'
+        ELSE 'application/octet-stream'
+    END
+WHERE avatar IS NOT NULL;
@@ -0,0 +1,11 @@
+-- Serve keyset pagination over (date, id), newest first, without sorting or skipping rows.
+CREATE INDEX idx_visits_date_id ON visits (date, id);
+CREATE INDEX idx_visits_doctor_date_id ON visits (doctor_id, date, id);
+CREATE INDEX idx_visits_client_date_id ON visits (client_id, date, id);
+
+CREATE INDEX idx_reviews_date_id ON reviews (date, id);
+CREATE INDEX idx_reviews_doctor_date_id ON reviews (doctor_id, date, id);
+CREATE INDEX idx_reviews_client_date_id ON reviews (client_id, date, id);
+
+CREATE INDEX idx_leaves_start_date_id ON leaves (start_date, id);
+CREATE INDEX idx_leaves_doctor_start_date_id ON leaves (doctor_id, start_date, id);
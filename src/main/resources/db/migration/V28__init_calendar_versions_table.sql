@@ -0,0 +1,9 @@
+-- A change counter per calendar feed owner, bumped with every change of their visits or leaves,
+-- so that calendar polls can be answered with 304 Not Modified without reading the visits.
+CREATE TABLE calendar_versions (
+                       owner_type VARCHAR(10) NOT NULL,
+                       owner_id BIGINT NOT NULL,
+                       version BIGINT NOT NULL,
+                       updated_at TIMESTAMP NOT NULL, -- UTC
+                       PRIMARY KEY (owner_type, owner_id)
+);
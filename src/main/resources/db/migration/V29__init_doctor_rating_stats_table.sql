@@ -0,0 +1,27 @@
+-- The number of reviews of every rating per doctor, maintained in the transactions changing reviews,
+-- so that ratings are shown and sorted by without reading the reviews. Ratings are stored by ordinal, 0 is one star.
+CREATE TABLE doctor_rating_stats (
+                       doctor_id BIGINT PRIMARY KEY,
+                       one_star BIGINT NOT NULL DEFAULT 0 CHECK (one_star >= 0),
+                       two_stars BIGINT NOT NULL DEFAULT 0 CHECK (two_stars >= 0),
+                       three_stars BIGINT NOT NULL DEFAULT 0 CHECK (three_stars >= 0),
+                       four_stars BIGINT NOT NULL DEFAULT 0 CHECK (four_stars >= 0),
+                       five_stars BIGINT NOT NULL DEFAULT 0 CHECK (five_stars >= 0),
+                       review_count BIGINT GENERATED ALWAYS AS (one_star + two_stars + three_stars + four_stars + five_stars) STORED,
+                       average_rating NUMERIC(3, 2) GENERATED ALWAYS AS (
+                           CASE WHEN one_star + two_stars + three_stars + four_stars + five_stars = 0 THEN NULL
+                                ELSE ROUND((one_star + 2 * two_stars + 3 * three_stars + 4 * four_stars + 5 * five_stars)::NUMERIC
+                                           / (one_star + two_stars + three_stars + four_stars + five_stars), 2)
+                           END) STORED,
+                       CONSTRAINT fk_doctor_rating_stats_doctor_id FOREIGN KEY (doctor_id) REFERENCES doctors (id) ON DELETE CASCADE
+);
+
+INSERT INTO doctor_rating_stats (doctor_id, one_star, two_stars, three_stars, four_stars, five_stars)
+SELECT doctor_id,
+       COUNT(*) FILTER (WHERE rating = 0),
+       COUNT(*) FILTER (WHERE rating = 1),
+       COUNT(*) FILTER (WHERE rating = 2),
+       COUNT(*) FILTER (WHERE rating = 3),
+       COUNT(*) FILTER (WHERE rating = 4)
+FROM reviews
+GROUP BY doctor_id;
@@ -0,0 +1,34 @@
+-- The directory of all accounts, resolving an email to the client or doctor owning it with one indexed lookup.
+-- It is maintained in the transactions registering, changing the password of and deleting users, and makes emails
+-- unique across clients and doctors. credential_epoch is the time in milliseconds of the last password change.
+CREATE TABLE user_accounts (
+                       email VARCHAR(100) PRIMARY KEY,
+                       kind VARCHAR(10) NOT NULL CHECK (kind IN ('CLIENT', 'DOCTOR')),
+                       user_id BIGINT NOT NULL,
+                       password VARCHAR(68) NOT NULL,
+                       role VARCHAR(10) NOT NULL,
+                       credential_epoch BIGINT NOT NULL DEFAULT 0,
+                       CONSTRAINT uq_user_accounts_kind_user_id UNIQUE (kind, user_id)
+);
+
+-- A client and a doctor sharing an email cannot both be in the directory, and dropping either would lock them out,
+-- so the migration fails listing the shared emails, one of each pair has to be changed before it is run again
+DO $$
+DECLARE
+    shared_emails TEXT;
+BEGIN
+    SELECT string_agg(c.email, ', ' ORDER BY c.email) INTO shared_emails
+    FROM clients c
+    JOIN doctors d ON d.email = c.email;
+    IF shared_emails IS NOT NULL THEN
+        RAISE EXCEPTION 'Emails shared by a client and a doctor: %', shared_emails;
+    END IF;
+END $$;
+
+INSERT INTO user_accounts (email, kind, user_id, password, role)
+SELECT email, 'CLIENT', id, password, role
+FROM clients;
+
+INSERT INTO user_accounts (email, kind, user_id, password, role)
+SELECT email, 'DOCTOR', id, password, role
+FROM doctors;
@@ -0,0 +1,16 @@
+-- Emails waiting to be sent, written in the transaction of the change they report and sent by the EmailOutboxSender.
+-- A row is deleted once sent. next_attempt_at is when the row may be claimed again, either after its lease
+-- or after a failed attempt, and a row failing too many times is kept as DEAD for inspection.
+CREATE TABLE email_outbox (
+                       id BIGSERIAL PRIMARY KEY,
+                       recipient VARCHAR(100) NOT NULL,
+                       subject VARCHAR(200) NOT NULL,
+                       body VARCHAR(5000) NOT NULL,
+                       status VARCHAR(10) NOT NULL CHECK (status IN ('PENDING', 'DEAD')),
+                       attempts INT NOT NULL DEFAULT 0,
+                       next_attempt_at TIMESTAMP NOT NULL,
+                       last_error VARCHAR(1000),
+                       created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_email_outbox_pending_next_attempt_at ON email_outbox (next_attempt_at) WHERE status = 'PENDING';
@@ -0,0 +1,9 @@
+-- The time the reminder of a visit was queued, NULL until then. The partial index holds only the visits still waiting
+-- for a reminder, ordered by date, so the VisitReminderDispatcher reads the beginning of the reminder window without
+-- scanning past or already reminded visits, and a visit leaves the index once its reminder is queued or it is cancelled.
+ALTER TABLE visits ADD COLUMN reminder_sent_at TIMESTAMP;
+
+-- Visits that already took place are never reminded
+UPDATE visits SET reminder_sent_at = date WHERE date <= NOW();
+
+CREATE INDEX idx_visits_reminder_due ON visits (date, id) WHERE is_cancelled = false AND reminder_sent_at IS NULL;
@@ -0,0 +1,174 @@
+package com.github.konradcz2001.medicalappointments.calendar;
+
+import com.github.konradcz2001.medicalappointments.client.ClientRepository;
+import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
+import com.github.konradcz2001.medicalappointments.leave.LeaveRepository;
+import com.github.konradcz2001.medicalappointments.visit.VisitRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CalendarServiceTest {
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 3, 1, 12, 30, 15);
+
+    @Mock
+    private CalendarVersionRepository repository;
+
+    @Mock
+    private VisitRepository visitRepository;
+
+    @Mock
+    private LeaveRepository leaveRepository;
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private ClientRepository clientRepository;
+
+    @InjectMocks
+    private CalendarService underTest;
+
+    @Test
+    void shouldAnswerNotModifiedWithoutReadingVisitsWhenETagMatches() {
+        // Arrange
+        when(doctorRepository.existsById(1L)).thenReturn(true);
+        when(repository.findById(new CalendarVersion.Key(CalendarOwner.DOCTOR, 1L)))
+                .thenReturn(Optional.of(new CalendarVersion(CalendarOwner.DOCTOR, 1L, 7, UPDATED_AT)));
+
+        // Act
+        ResponseEntity<String> response = underTest.readCalendar(CalendarOwner.DOCTOR, 1L, "\"doctor-1-7\"", null);
+
+        // Assert
+        assertEquals(304, response.getStatusCode().value());
+        assertEquals("\"doctor-1-7\"", response.getHeaders().getETag());
+        assertNull(response.getBody());
+        verify(visitRepository, never()).findAllCalendarEventsByDoctorId(anyLong(), any());
+        verify(leaveRepository, never()).findAllCalendarEventsByDoctorId(anyLong(), any());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhenNotModifiedSinceLastPoll() {
+        // Arrange
+        when(clientRepository.existsById(2L)).thenReturn(true);
+        when(repository.findById(new CalendarVersion.Key(CalendarOwner.CLIENT, 2L)))
+                .thenReturn(Optional.of(new CalendarVersion(CalendarOwner.CLIENT, 2L, 3, UPDATED_AT)));
+
+        // Act
+        ResponseEntity<String> response = underTest.readCalendar(CalendarOwner.CLIENT, 2L, null, "Fri, 01 Mar 2024 12:30:16 GMT");
+
+        // Assert
+        assertEquals(304, response.getStatusCode().value());
+        verify(visitRepository, never()).findAllCalendarEventsByClientId(anyLong(), any());
+    }
+
+    @Test
+    void shouldRenderCalendarWhenModifiedWithinSecondOfLastPoll() {
+        // Arrange
+        when(clientRepository.existsById(2L)).thenReturn(true);
+        when(repository.findById(new CalendarVersion.Key(CalendarOwner.CLIENT, 2L)))
+                .thenReturn(Optional.of(new CalendarVersion(CalendarOwner.CLIENT, 2L, 4, UPDATED_AT.plusNanos(500_000_000))));
+
+        // Act
+        ResponseEntity<String> response = underTest.readCalendar(CalendarOwner.CLIENT, 2L, null, "Fri, 01 Mar 2024 12:30:15 GMT");
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(UPDATED_AT.toInstant(ZoneOffset.UTC).toEpochMilli(), response.getHeaders().getLastModified());
+        verify(visitRepository).findAllCalendarEventsByClientId(eq(2L), any());
+    }
+
+    @Test
+    void shouldRenderDoctorCalendarWithVisitsAndLeaves() {
+        // Arrange
+        LocalDateTime date = LocalDateTime.of(2024, 3, 10, 9, 0);
+        when(doctorRepository.existsById(1L)).thenReturn(true);
+        when(repository.findById(new CalendarVersion.Key(CalendarOwner.DOCTOR, 1L)))
+                .thenReturn(Optional.of(new CalendarVersion(CalendarOwner.DOCTOR, 1L, 7, UPDATED_AT)));
+        when(visitRepository.findAllCalendarEventsByDoctorId(eq(1L), any())).thenReturn(List.of(
+                new CalendarEvent("visit", 5L, date, date.plusMinutes(30), "Consultation, extended", "Client: John Smith", true)));
+        when(leaveRepository.findAllCalendarEventsByDoctorId(eq(1L), any())).thenReturn(List.of(
+                new CalendarEvent("leave", 3L, date.minusDays(2), date.minusDays(1), "Leave", "", false)));
+
+        // Act
+        ResponseEntity<String> response = underTest.readCalendar(CalendarOwner.DOCTOR, 1L, "\"doctor-1-6\"", null);
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("text/calendar;charset=UTF-8", Objects.requireNonNull(response.getHeaders().getContentType()).toString());
+        assertEquals("\"doctor-1-7\"", response.getHeaders().getETag());
+        assertEquals(UPDATED_AT.toInstant(ZoneOffset.UTC).toEpochMilli(), response.getHeaders().getLastModified());
+
+        String body = Objects.requireNonNull(response.getBody());
+        assertTrue(body.startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"));
+        assertTrue(body.indexOf("UID:leave-3@medical-appointments") < body.indexOf("UID:visit-5@medical-appointments"));
+        assertTrue(body.contains("DTSTAMP:20240301T123015Z\r\n"));
+        assertTrue(body.contains("DTSTART:20240310T090000\r\nDTEND:20240310T093000\r\n"));
+        assertTrue(body.contains("SUMMARY:Consultation\\, extended\r\n"));
+        assertTrue(body.contains("STATUS:CANCELLED\r\n"));
+        assertTrue(body.endsWith("END:VCALENDAR\r\n"));
+    }
+
+    @Test
+    void shouldFoldLongLines() {
+        // Arrange
+        LocalDateTime date = LocalDateTime.of(2024, 3, 10, 9, 0);
+        when(clientRepository.existsById(2L)).thenReturn(true);
+        when(repository.findById(new CalendarVersion.Key(CalendarOwner.CLIENT, 2L))).thenReturn(Optional.empty());
+        when(visitRepository.findAllCalendarEventsByClientId(eq(2L), any())).thenReturn(List.of(
+                new CalendarEvent("visit", 5L, date, date.plusMinutes(30), "Consultation", "Doctor: " + "ż".repeat(60), false)));
+
+        // Act
+        ResponseEntity<String> response = underTest.readCalendar(CalendarOwner.CLIENT, 2L, null, null);
+
+        // Assert
+        assertEquals("\"client-2-0\"", response.getHeaders().getETag());
+        for (String line : Objects.requireNonNull(response.getBody()).split("\r\n"))
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75);
+        assertTrue(response.getBody().replace("\r\n ", "").contains("DESCRIPTION:Doctor: " + "ż".repeat(60) + "\r\n"));
+    }
+
+    @Test
+    void shouldThrowResourceNotFoundExceptionWhenClientDoesNotExist() {
+        // Arrange
+        when(clientRepository.existsById(2L)).thenReturn(false);
+
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.readCalendar(CalendarOwner.CLIENT, 2L, null, null))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void shouldIncrementVersionOfOwner() {
+        // Act
+        underTest.touch(CalendarOwner.DOCTOR, 1L);
+
+        // Assert
+        verify(repository).increment(eq("DOCTOR"), eq(1L), any(LocalDateTime.class));
+    }
+}
@@ -5,14 +5,20 @@ import com.github.konradcz2001.medicalappointments.client.DTO.ClientDTOMapper;
 import com.github.konradcz2001.medicalappointments.client.DTO.ClientReviewDTO;
 import com.github.konradcz2001.medicalappointments.doctor.Doctor;
 import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.doctor.ranking.TopDoctorsIndex;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.DuplicateEmailException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongReviewException;
 import com.github.konradcz2001.medicalappointments.review.DTO.ReviewDTO;
 import com.github.konradcz2001.medicalappointments.review.DTO.ReviewDTOMapper;
+import com.github.konradcz2001.medicalappointments.review.DoctorRatingStatsRepository;
 import com.github.konradcz2001.medicalappointments.review.Rating;
 import com.github.konradcz2001.medicalappointments.review.Review;
 import com.github.konradcz2001.medicalappointments.review.ReviewRepository;
+import com.github.konradcz2001.medicalappointments.security.DTO.ChangePasswordDTO;
 import com.github.konradcz2001.medicalappointments.security.Role;
+import com.github.konradcz2001.medicalappointments.security.UserAccountRepository;
+import com.github.konradcz2001.medicalappointments.security.UserCredentialsChangedEvent;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -20,10 +26,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -47,6 +55,16 @@ class ClientServiceTest {
     private DoctorRepository doctorRepository;
     @Spy
     private ReviewDTOMapper reviewDTOMapper;
+    @Mock
+    private DoctorRatingStatsRepository ratingStatsRepository;
+    @Mock
+    private TopDoctorsIndex topDoctorsIndex;
+    @Mock
+    private UserAccountRepository userAccountRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PasswordEncoder passwordEncoder;
     @InjectMocks
     private ClientService underTest;
 
@@ -87,6 +105,20 @@ class ClientServiceTest {
         assertEquals("name", response.getBody().firstName());
         verify(client).setReviews(new ArrayList<>());
         verify(client).setId(null);
+        verify(userAccountRepository).add(client);
+    }
+
+    @Test
+    void shouldNotCreateClientWithEmailOfAnotherUser() {
+        // Arrange
+        Client client = new Client();
+        client.setEmail("doctor@mail.com");
+        doThrow(new DuplicateEmailException("User")).when(userAccountRepository).checkAvailable("doctor@mail.com");
+
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.createClient(client))
+                .isInstanceOf(DuplicateEmailException.class);
+        verify(repository, never()).save(any());
     }
 
 
@@ -123,7 +155,12 @@ class ClientServiceTest {
         Long id = 1L;
         Client client1 = new Client();
         client1.setId(1L);
+        client1.setEmail("client@mail.com");
+        Doctor doctor = new Doctor();
+        doctor.setId(2L);
+        client1.addReview(new Review(1L, null, Rating.FOUR_STARS, null, doctor, client1));
         when(repository.findById(id)).thenReturn(Optional.of(client1));
+        when(userAccountRepository.remove(client1)).thenReturn(true);
 
         // Act
         var response = underTest.deleteClient(id);
@@ -131,6 +168,31 @@ class ClientServiceTest {
         // Assert
         assertEquals(HttpStatusCode.valueOf(204), response.getStatusCode());
         verify(repository).deleteById(id);
+        verify(ratingStatsRepository).remove(2L, Rating.FOUR_STARS);
+        verify(userAccountRepository).remove(client1);
+        verify(eventPublisher).publishEvent(new UserCredentialsChangedEvent("client@mail.com"));
+    }
+
+    @Test
+    void shouldChangePasswordAndRevokeIssuedTokens() {
+        // Arrange
+        Client client = new Client();
+        client.setId(1L);
+        client.setEmail("client@mail.com");
+        client.setPassword("old-hash");
+        when(repository.findById(1L)).thenReturn(Optional.of(client));
+        when(passwordEncoder.matches("old", "old-hash")).thenReturn(true);
+        when(passwordEncoder.encode("new")).thenReturn("new-hash");
+        when(userAccountRepository.changePassword(client)).thenReturn(true);
+
+        // Act
+        var response = underTest.changePassword(1L, new ChangePasswordDTO("old", "new"));
+
+        // Assert
+        assertEquals(HttpStatusCode.valueOf(204), response.getStatusCode());
+        assertEquals("new-hash", client.getPassword());
+        verify(userAccountRepository).changePassword(client);
+        verify(eventPublisher).publishEvent(new UserCredentialsChangedEvent("client@mail.com"));
     }
 
     @Test
@@ -148,7 +210,7 @@ class ClientServiceTest {
 
         Review review1 = new Review(1L, null, null, null, doctor1, client);
         Review review2 = new Review(2L, null, null, null, doctor2, client);
-        ReviewDTO toAdd = new ReviewDTO(1L, null, null, null, 3L, 1L, null, null, null);
+        ReviewDTO toAdd = new ReviewDTO(1L, null, Rating.THREE_STARS, null, 3L, 1L, null, null, null);
 
         client.addReview(review1);
         client.addReview(review2);
@@ -173,6 +235,8 @@ class ClientServiceTest {
         assertEquals(1, review.getClient().getId());
         assertEquals(3, review.getDoctor().getId());
         assertNotNull(review.getDate());
+        verify(ratingStatsRepository).add(3L, Rating.THREE_STARS);
+        verify(topDoctorsIndex).addRating(3L, Rating.THREE_STARS);
     }
 
     @Test
@@ -245,6 +309,7 @@ class ClientServiceTest {
         Client client = new Client();
         Review original = new Review();
         original.setId(1L);
+        original.setRating(Rating.TWO_STARS);
         Doctor doctor = new Doctor();
         doctor.setId(2L);
         original.setDoctor(doctor);
@@ -254,6 +319,7 @@ class ClientServiceTest {
         ReviewDTO toUpdate = new ReviewDTO(1L, null, Rating.FIVE_STARS, "description", 5L, 3L, null, null, null);
 
         when(repository.findById(clientId)).thenReturn(Optional.of(client));
+        when(reviewRepository.findByIdAndClientIdForUpdate(1L, clientId)).thenReturn(Optional.of(original));
 
         // Act
         var response = underTest.updateReview(clientId, toUpdate);
@@ -270,6 +336,32 @@ class ClientServiceTest {
         assertNotNull(review.getDate());
         assertEquals(doctor.getId(), review.getDoctor().getId());
         assertNull(review.getClient());
+        verify(ratingStatsRepository).remove(2L, Rating.TWO_STARS);
+        verify(ratingStatsRepository).add(2L, Rating.FIVE_STARS);
+    }
+
+    @Test
+    void shouldNotChangeRatingStatsWhenUpdatedReviewKeepsItsRating() {
+        // Arrange
+        Long clientId = 1L;
+        Client client = new Client();
+        Doctor doctor = new Doctor();
+        doctor.setId(2L);
+        client.setId(clientId);
+        Review original = new Review(1L, null, Rating.FIVE_STARS, "old", doctor, client);
+        client.addReview(original);
+
+        ReviewDTO toUpdate = new ReviewDTO(1L, null, Rating.FIVE_STARS, "new", 2L, 1L, null, null, null);
+
+        when(repository.findById(clientId)).thenReturn(Optional.of(client));
+        when(reviewRepository.findByIdAndClientIdForUpdate(1L, clientId)).thenReturn(Optional.of(original));
+
+        // Act
+        underTest.updateReview(clientId, toUpdate);
+
+        // Assert
+        verify(reviewRepository).save(any());
+        verifyNoInteractions(ratingStatsRepository);
     }
 
     @Test
@@ -288,6 +380,7 @@ class ClientServiceTest {
         ReviewDTO toUpdate = new ReviewDTO(2L, null, Rating.FIVE_STARS, "description", 5L, 3L, null, null, null);
 
         when(repository.findById(clientId)).thenReturn(Optional.of(client));
+        when(reviewRepository.findByIdAndClientIdForUpdate(2L, clientId)).thenReturn(Optional.empty());
 
         // Act
         // Assert
@@ -305,13 +398,17 @@ class ClientServiceTest {
         Client client = new Client();
         client.setId(clientId);
 
+        Doctor doctor = new Doctor();
+        doctor.setId(3L);
+
         Review review1 = new Review(1L, null, null, null, null, client);
-        Review review2 = new Review(2L, null, null, null, null, client);
+        Review review2 = new Review(2L, null, Rating.ONE_STAR, null, doctor, client);
 
         client.addReview(review1);
         client.addReview(review2);
 
         when(repository.findById(clientId)).thenReturn(Optional.of(client));
+        when(reviewRepository.findByIdAndClientIdForUpdate(reviewId, clientId)).thenReturn(Optional.of(review2));
 
         // Act
         var response = underTest.removeReview(clientId, reviewId);
@@ -320,6 +417,8 @@ class ClientServiceTest {
         assertEquals(HttpStatusCode.valueOf(204), response.getStatusCode());
         verify(repository).save(client);
         assertEquals(1, client.getReviews().size());
+        verify(ratingStatsRepository).remove(3L, Rating.ONE_STAR);
+        verify(topDoctorsIndex).removeRating(3L, Rating.ONE_STAR);
     }
 
 
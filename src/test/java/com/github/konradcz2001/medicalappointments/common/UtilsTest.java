@@ -1,22 +1,30 @@
 package com.github.konradcz2001.medicalappointments.common;
 
 import com.github.konradcz2001.medicalappointments.exception.exceptions.EmptyPageException;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongCursorException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatusCode;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
 
+import static com.github.konradcz2001.medicalappointments.common.Utils.returnCursorResponse;
 import static com.github.konradcz2001.medicalappointments.common.Utils.returnResponse;
+import static com.github.konradcz2001.medicalappointments.common.Utils.withEstimatedTotal;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.*;
@@ -63,4 +71,79 @@ class UtilsTest {
         assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
         assertTrue(response.hasBody());
     }
+
+    @Test
+    void shouldReturnCursorOfLastResourceWhenThereIsNextPage() {
+        // Arrange
+        LocalDateTime date = LocalDateTime.of(2024, 5, 1, 10, 30);
+        List<Cursor> resources = List.of(new Cursor(date, 3L), new Cursor(date, 2L), new Cursor(date.minusDays(1), 7L));
+        List<Pageable> limits = new ArrayList<>();
+        DTOMapper<Long, Cursor> mapper = new DTOMapper<>() {
+            @Override
+            public Long mapToDTO(Cursor source) {
+                return source.id();
+            }
+
+            @Override
+            public Cursor mapFromDTO(Long sourceDTO, Cursor target) {
+                return target;
+            }
+        };
+
+        // Act
+        var response = returnCursorResponse(2, limit -> {
+            limits.add(limit);
+            return resources;
+        }, cursor -> cursor, mapper);
+
+        // Assert
+        assertEquals(3, limits.get(0).getPageSize());
+        assertEquals(List.of(3L, 2L), Objects.requireNonNull(response.getBody()).content());
+        assertEquals(new Cursor(date, 2L), Cursor.decode(response.getBody().next()));
+    }
+
+    @Test
+    void shouldReturnNoCursorOnLastPage() {
+        // Act
+        var response = returnCursorResponse(2, limit -> List.of(1), number -> Cursor.FIRST, dtoMapper);
+
+        // Assert
+        assertNull(Objects.requireNonNull(response.getBody()).next());
+        assertEquals(1, response.getBody().content().size());
+    }
+
+    @Test
+    void shouldDecodeEmptyCursorAsFirstPageAndRejectInvalidOne() {
+        // Act & Assert
+        assertEquals(Cursor.FIRST, Cursor.decode(""));
+        assertThatThrownBy(() -> Cursor.decode("not a cursor"))
+                .isInstanceOf(WrongCursorException.class)
+                .hasMessage("The cursor is not valid");
+    }
+
+    @Test
+    void shouldNotLetEstimatedTotalBeSmallerThanResourcesAlreadyRead() {
+        // Arrange
+        var slice = new SliceImpl<>(List.of(1, 2), PageRequest.of(3, 2), true);
+
+        // Act
+        Page<Integer> page = withEstimatedTotal(slice, 5);
+
+        // Assert
+        assertEquals(9, page.getTotalElements());
+        assertTrue(page.hasNext());
+    }
+
+    @Test
+    void shouldUseExactTotalOnLastPageWithEstimatedTotal() {
+        // Arrange
+        var slice = new SliceImpl<>(List.of(1), PageRequest.of(2, 2), false);
+
+        // Act
+        Page<Integer> page = withEstimatedTotal(slice, 1000);
+
+        // Assert
+        assertEquals(5, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+    }
 }
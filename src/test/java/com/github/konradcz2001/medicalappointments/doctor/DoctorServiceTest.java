@@ -1,40 +1,74 @@
 package com.github.konradcz2001.medicalappointments.doctor;
 
+import com.github.konradcz2001.medicalappointments.calendar.CalendarOwner;
+import com.github.konradcz2001.medicalappointments.calendar.CalendarService;
 import com.github.konradcz2001.medicalappointments.client.Client;
 import com.github.konradcz2001.medicalappointments.doctor.DTO.*;
+import com.github.konradcz2001.medicalappointments.doctor.availability.AvailabilityIndex;
+import com.github.konradcz2001.medicalappointments.doctor.availability.BookableVisitType;
+import com.github.konradcz2001.medicalappointments.doctor.availability.BusyPeriod;
+import com.github.konradcz2001.medicalappointments.doctor.availability.DayAvailability;
+import com.github.konradcz2001.medicalappointments.doctor.availability.NextFreeSlotIndex;
+import com.github.konradcz2001.medicalappointments.doctor.avatar.AvatarMetadata;
+import com.github.konradcz2001.medicalappointments.doctor.avatar.AvatarStore;
+import com.github.konradcz2001.medicalappointments.doctor.avatar.StoredAvatar;
+import com.github.konradcz2001.medicalappointments.doctor.ranking.TopDoctorsIndex;
 import com.github.konradcz2001.medicalappointments.doctor.schedule.Schedule;
+import com.github.konradcz2001.medicalappointments.doctor.schedule.WeekDay;
+import com.github.konradcz2001.medicalappointments.doctor.search.DoctorSearchIndex;
+import com.github.konradcz2001.medicalappointments.doctor.search.Suggestion;
+import com.github.konradcz2001.medicalappointments.doctor.search.SuggestionType;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.*;
 import com.github.konradcz2001.medicalappointments.leave.Leave;
 import com.github.konradcz2001.medicalappointments.leave.LeaveRepository;
+import com.github.konradcz2001.medicalappointments.review.DoctorRatingStats;
+import com.github.konradcz2001.medicalappointments.review.DoctorRatingStatsRepository;
 import com.github.konradcz2001.medicalappointments.review.Review;
 import com.github.konradcz2001.medicalappointments.review.ReviewRepository;
 import com.github.konradcz2001.medicalappointments.security.Role;
+import com.github.konradcz2001.medicalappointments.security.UserAccountRepository;
+import com.github.konradcz2001.medicalappointments.security.UserCredentialsChangedEvent;
 import com.github.konradcz2001.medicalappointments.specialization.Specialization;
 import com.github.konradcz2001.medicalappointments.specialization.SpecializationRepository;
 import com.github.konradcz2001.medicalappointments.visit.type.TypeOfVisit;
 import com.github.konradcz2001.medicalappointments.visit.type.TypeOfVisitRepository;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -49,11 +83,32 @@ class DoctorServiceTest {
     private LeaveRepository leaveRepository;
     @Mock
     private TypeOfVisitRepository typeOfVisitRepository;
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+    @Mock
+    private NextFreeSlotIndex nextFreeSlotIndex;
+    @Mock
+    private DoctorSearchIndex searchIndex;
+    @Mock
+    private AvatarStore avatarStore;
+
+    @Mock
+    private CalendarService calendarService;
+    @Mock
+    private DoctorRatingStatsRepository ratingStatsRepository;
+    @Mock
+    private TopDoctorsIndex topDoctorsIndex;
+    @Mock
+    private UserAccountRepository userAccountRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @Spy
     private DoctorDTOMapper dtoMapper;
 
     @InjectMocks
     private DoctorService underTest;
+    @TempDir
+    private Path tempDir;
 
 
 
@@ -349,6 +404,7 @@ class DoctorServiceTest {
         assertEquals(HttpStatusCode.valueOf(204), response.getStatusCode());
         assertEquals(1, doctor.getLeaves().size());
         verify(repository).save(isA(Doctor.class));
+        verify(calendarService).touch(CalendarOwner.DOCTOR, 1L);
     }
 
     @Test
@@ -468,6 +524,29 @@ class DoctorServiceTest {
         assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
         assertEquals(DoctorDTO.class, Objects.requireNonNull(response.getBody()).getClass());
         assertEquals(2, response.getBody().id());
+        assertEquals(0, response.getBody().rating().reviewCount());
+        assertNull(response.getBody().rating().averageRating());
+    }
+
+    @Test
+    void shouldFindDoctorByIdWithRatingFromStats() {
+        // Arrange
+        Doctor doctor = new Doctor();
+        doctor.setId(2L);
+        DoctorRatingStats stats = new DoctorRatingStats(2L, 1, 0, 0, 2, 3, 6, new BigDecimal("3.83"));
+
+        when(repository.findById(2L)).thenReturn(Optional.of(doctor));
+        when(ratingStatsRepository.findById(2L)).thenReturn(Optional.of(stats));
+
+        // Act
+        var response = underTest.readById(2L);
+
+        // Assert
+        DoctorRatingDTO rating = Objects.requireNonNull(response.getBody()).rating();
+        assertEquals(new BigDecimal("3.83"), rating.averageRating());
+        assertEquals(6, rating.reviewCount());
+        assertEquals(List.of(1L, 0L, 0L, 2L, 3L), List.copyOf(rating.histogram().values()));
+        verify(reviewRepository, never()).findAllByDoctorId(any(), any());
     }
 
     @Test
@@ -490,6 +569,7 @@ class DoctorServiceTest {
         verify(doctor).setSpecializations(new HashSet<>());
         verify(doctor).setLeaves(new ArrayList<>());
         verify(doctor).setReviews(new ArrayList<>());
+        verify(userAccountRepository).add(doctor);
     }
 
     @Test
@@ -498,7 +578,7 @@ class DoctorServiceTest {
         Long id = 1L;
         Doctor original = new Doctor();
         original.setId(id);
-        DoctorDTO toUpdate = new DoctorDTO(2L, "name2", "lastname2", "email2", Role.DOCTOR,true, null, "description2", null, null, null, null);
+        DoctorDTO toUpdate = new DoctorDTO(2L, "name2", "lastname2", "email2", Role.DOCTOR,true, null, null, null, "description2", null, null, null, null, null);
 
         when(repository.findById(id)).thenReturn(Optional.of(original));
 
@@ -520,43 +600,194 @@ class DoctorServiceTest {
     }
 
     @Test
-    @Disabled
     void shouldFindAllDoctorAvailableByDate() {
         // Arrange
-        LocalDateTime date = LocalDateTime.now().plusDays(5);
+        LocalDate day = LocalDate.now().plusDays(5);
+        LocalDateTime date = day.atTime(10, 0);
+        WeekDay workingDay = new WeekDay(LocalTime.of(8, 0), LocalTime.of(16, 0));
+
+        when(repository.findSummarySlice(any(), eq(PageRequest.of(0, DoctorService.AVAILABILITY_SCAN_SIZE, Sort.by("id")))))
+                .thenReturn(new SliceImpl<>(List.of(summary(1L), summary(2L), summary(3L), summary(4L))));
+        when(availabilityIndex.forDoctors(List.of(1L, 2L, 3L, 4L), day, day)).thenReturn(Map.of(
+                1L, new TreeMap<>(Map.of(day, DayAvailability.of(day, workingDay,
+                        List.of(new BusyPeriod(1L, day.minusDays(1).atStartOfDay(), day.plusDays(1).atStartOfDay()))))),
+                2L, new TreeMap<>(Map.of(day, DayAvailability.of(day, workingDay, List.of()))),
+                3L, new TreeMap<>(Map.of(day, DayAvailability.of(day, workingDay,
+                        List.of(new BusyPeriod(3L, day.atTime(9, 0), day.atTime(9, 30)))))),
+                4L, new TreeMap<>(Map.of(day, DayAvailability.of(day, null, List.of())))));
+        Pageable pageable = Pageable.ofSize(1).withPage(1);
 
-        Doctor doctor1 = new Doctor();
-        Doctor doctor2 = new Doctor();
-        Doctor doctor3 = new Doctor();
+        // Act
+        var response = underTest.readAllAvailableByDate(date, pageable);
 
-        doctor1.setId(1L);
-        doctor2.setId(2L);
-        doctor3.setId(3L);
+        // Assert
+        assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
+        assertEquals(List.of(3L), Objects.requireNonNull(response.getBody()).map(DoctorSummaryDTO::id).getContent());
+        assertFalse(response.getBody().hasNext());
+    }
 
-        LocalDateTime now = LocalDateTime.now();
-        Leave leave1 = new Leave(1L, now.plusDays(1), now.plusDays(6), doctor1);
-        Leave leave2 = new Leave(2L, now.plusDays(6), now.plusDays(7), doctor2);
-        Leave leave3 = new Leave(3L, now.plusDays(4), now.plusDays(8), doctor3);
+    @Test
+    void shouldStopCheckingAvailabilityOnceSliceOfAvailableDoctorsIsFilled() {
+        // Arrange
+        LocalDate day = LocalDate.now().plusDays(5);
+        LocalDateTime date = day.atTime(10, 0);
+        DayAvailability free = DayAvailability.of(day, new WeekDay(LocalTime.of(8, 0), LocalTime.of(16, 0)), List.of());
+        Sort sort = Sort.by(Sort.Order.desc("reviewCount"), Sort.Order.asc("id"));
 
-        doctor1.addLeave(leave1);
-        doctor2.addLeave(leave2);
-        doctor3.addLeave(leave3);
+        when(repository.findSummarySlice(any(), eq(PageRequest.of(0, DoctorService.AVAILABILITY_SCAN_SIZE, sort))))
+                .thenReturn(new SliceImpl<>(List.of(summary(5L), summary(2L), summary(7L)),
+                        PageRequest.of(0, DoctorService.AVAILABILITY_SCAN_SIZE, sort), true));
+        when(availabilityIndex.forDoctors(List.of(5L, 2L, 7L), day, day)).thenReturn(Map.of(
+                5L, new TreeMap<>(Map.of(day, free)), 2L, new TreeMap<>(Map.of(day, free)), 7L, new TreeMap<>(Map.of(day, free))));
 
+        // Act
+        var response = underTest.readAllAvailableByDate(date, PageRequest.of(0, 2, Sort.by(Sort.Order.desc("reviewCount"))));
 
-        Page<Doctor> doctors = new PageImpl<>(List.of(doctor1, doctor2, doctor3));
-        Pageable pageable = Pageable.ofSize(10).withPage(0);
+        // Assert
+        assertEquals(List.of(5L, 2L), Objects.requireNonNull(response.getBody()).map(DoctorSummaryDTO::id).getContent());
+        assertTrue(response.getBody().hasNext());
+        verify(repository, times(1)).findSummarySlice(any(), any());
+    }
 
-        when(repository.findAll(pageable)).thenReturn(doctors);
+    @Test
+    void shouldStreamAvatarFromStoreWithETagAndLongCacheForVersionedUrl() throws IOException {
+        // Arrange
+        Long id = 1L;
+        Path file = Files.write(tempDir.resolve("abc"), new byte[]{(byte) 0x89, 'P', 'N', 'G', 1, 2, 3});
+        when(repository.findAvatarMetadataById(id)).thenReturn(Optional.of(new AvatarMetadata("abc", "image/png")));
+        when(avatarStore.findOriginal("abc")).thenReturn(Optional.of(file));
+        OutputStream out = new ByteArrayOutputStream();
 
         // Act
-        var response = underTest.readAllAvailableByDate(date, pageable);
+        var response = underTest.readAvatar(id, false, "abc", null);
+        Objects.requireNonNull(response.getBody()).writeTo(out);
 
         // Assert
-        assertEquals(1, Objects.requireNonNull(response.getBody()).getTotalElements());
-        assertEquals(1, response.getBody().getTotalPages());
         assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
-        assertEquals(DoctorDTO.class, response.getBody().getContent().get(0).getClass());
-        assertEquals(2, response.getBody().getContent().get(0).id());
+        assertEquals("\"abc\"", response.getHeaders().getETag());
+        assertEquals(MediaType.IMAGE_PNG, response.getHeaders().getContentType());
+        assertEquals(7, response.getHeaders().getContentLength());
+        assertEquals("max-age=31536000, public, immutable", response.getHeaders().getCacheControl());
+        verify(avatarStore).transferTo(file, out);
+        verify(repository, never()).findAvatarById(anyLong());
+    }
+
+    @Test
+    void shouldStreamThumbnailAsPngWithItsOwnETag() throws IOException {
+        // Arrange
+        Long id = 1L;
+        Path file = Files.write(tempDir.resolve("abc-thumbnail.png"), new byte[]{1, 2});
+        when(repository.findAvatarMetadataById(id)).thenReturn(Optional.of(new AvatarMetadata("abc", "image/jpeg")));
+        when(avatarStore.findThumbnail("abc")).thenReturn(Optional.of(file));
+
+        // Act
+        var response = underTest.readAvatar(id, true, null, null);
+
+        // Assert
+        assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
+        assertEquals("\"abc-thumbnail\"", response.getHeaders().getETag());
+        assertEquals(MediaType.IMAGE_PNG, response.getHeaders().getContentType());
+        assertEquals("no-cache, public", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void shouldMoveAvatarKeptInRowToStoreOnFirstRead() throws IOException {
+        // Arrange
+        Long id = 1L;
+        byte[] avatar = {1, 2, 3};
+        Path file = Files.write(tempDir.resolve("abc"), avatar);
+        when(repository.findAvatarMetadataById(id)).thenReturn(Optional.of(new AvatarMetadata("abc", "image/png")));
+        when(avatarStore.findOriginal("abc")).thenReturn(Optional.empty(), Optional.of(file));
+        when(repository.findAvatarById(id)).thenReturn(Optional.of(avatar));
+
+        // Act
+        var response = underTest.readAvatar(id, false, null, null);
+
+        // Assert
+        assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
+        verify(avatarStore).store(any(InputStream.class));
+    }
+
+    @Test
+    void shouldReturnNotModifiedAvatarWithoutOpeningIt() {
+        // Arrange
+        Long id = 1L;
+        when(repository.findAvatarMetadataById(id)).thenReturn(Optional.of(new AvatarMetadata("abc", "image/png")));
+
+        // Act
+        var response = underTest.readAvatar(id, false, null, "\"old\", \"abc\"");
+
+        // Assert
+        assertEquals(HttpStatusCode.valueOf(304), response.getStatusCode());
+        assertEquals("no-cache, public", response.getHeaders().getCacheControl());
+        verifyNoInteractions(avatarStore);
+        verify(repository, never()).findAvatarById(anyLong());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenDoctorHasNoAvatar() {
+        // Arrange
+        Long id = 1L;
+        when(repository.findAvatarMetadataById(id)).thenReturn(Optional.of(new AvatarMetadata(null, null)));
+
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.readAvatar(id, false, null, null))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Avatar of doctor with id = 1 not found");
+    }
+
+    @Test
+    void shouldStoreUploadedAvatarAndDropAvatarKeptInRow() {
+        // Arrange
+        Long id = 1L;
+        Doctor doctor = new Doctor();
+        doctor.setAvatar(new byte[]{1, 2, 3});
+        MockMultipartFile file = new MockMultipartFile("file", "avatar.png", "image/png", new byte[]{4, 5, 6});
+        when(repository.findById(id)).thenReturn(Optional.of(doctor));
+        when(avatarStore.store(any(InputStream.class))).thenReturn(new StoredAvatar("def", "image/png"));
+
+        // Act
+        var response = underTest.updateAvatar(id, file);
+
+        // Assert
+        assertEquals(HttpStatusCode.valueOf(204), response.getStatusCode());
+        assertNull(doctor.getAvatar());
+        assertEquals("def", doctor.getAvatarHash());
+        assertEquals("image/png", doctor.getAvatarContentType());
+        verify(repository).save(doctor);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenUploadedAvatarIsEmpty() {
+        // Arrange
+        Long id = 1L;
+        when(repository.findById(id)).thenReturn(Optional.of(new Doctor()));
+        MockMultipartFile file = new MockMultipartFile("file", new byte[0]);
+
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.updateAvatar(id, file))
+                .isInstanceOf(WrongAvatarException.class)
+                .hasMessage("The avatar must not be empty");
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void shouldMapAvatarToVersionedUrlsAndKeepItWhenUpdatedWithoutAvatar() {
+        // Arrange
+        Doctor doctor = new Doctor();
+        doctor.setId(5L);
+        doctor.setAvatarHash("abc");
+        doctor.setAvatarContentType("image/png");
+
+        // Act
+        DoctorDTO dto = dtoMapper.mapToDTO(doctor);
+        dtoMapper.mapFromDTO(dto, doctor);
+
+        // Assert
+        assertNull(dto.avatar());
+        assertEquals("/doctors/5/avatar?v=abc", dto.avatarUrl());
+        assertEquals("/doctors/5/avatar/thumbnail?v=abc", dto.avatarThumbnailUrl());
+        assertEquals("abc", doctor.getAvatarHash());
     }
 
     @Test
@@ -565,7 +796,9 @@ class DoctorServiceTest {
         Long id = 1L;
         Doctor doctor1 = new Doctor();
         doctor1.setId(1L);
+        doctor1.setEmail("doctor@mail.com");
         when(repository.findById(id)).thenReturn(Optional.of(doctor1));
+        when(userAccountRepository.remove(doctor1)).thenReturn(true);
 
         // Act
         var response = underTest.deleteDoctor(id);
@@ -573,6 +806,10 @@ class DoctorServiceTest {
         // Assert
         assertEquals(HttpStatusCode.valueOf(204), response.getStatusCode());
         verify(repository).deleteById(id);
+        verify(searchIndex).remove(id);
+        verify(topDoctorsIndex).remove(id);
+        verify(userAccountRepository).remove(doctor1);
+        verify(eventPublisher).publishEvent(new UserCredentialsChangedEvent("doctor@mail.com"));
     }
 
     @Test
@@ -589,17 +826,20 @@ class DoctorServiceTest {
         verify(repository, never()).deleteById(id);
     }
 
+    private static DoctorSummary summary(Long id) {
+        return new DoctorSummary(id, "John", "Doe", "john@doe.com", true, null, "Poland", null, "Warsaw", null, null, null, null, 0);
+    }
+
     @Test
-    void shouldFindAllDoctors() {
+    void shouldFindAllDoctorsWithSpecializationsLoadedForWholePage() {
         // Arrange
-        Doctor doctor1 = new Doctor();
-        Doctor doctor2 = new Doctor();
-        doctor1.setId(1L);
-        doctor2.setId(2L);
-        Page<Doctor> doctors = new PageImpl<>(List.of(doctor1, doctor2));
+        Page<DoctorSummary> summaries = new PageImpl<>(List.of(summary(1L), summary(2L)));
         Pageable pageable = Pageable.ofSize(10).withPage(0);
 
-        when(repository.findAll(pageable)).thenReturn(doctors);
+        when(repository.findAllSummaries(null, PageRequest.of(0, 10, Sort.by("id")))).thenReturn(summaries);
+        when(repository.findAllSpecializationsByDoctorIdIn(List.of(1L, 2L))).thenReturn(List.of(
+                new DoctorSpecialization(1L, 4, "Cardiology"),
+                new DoctorSpecialization(1L, 5, "Dermatology")));
 
         // Act
         var response = underTest.readAll(pageable);
@@ -608,18 +848,21 @@ class DoctorServiceTest {
         assertEquals(2, Objects.requireNonNull(response.getBody()).getTotalElements());
         assertEquals(1, response.getBody().getTotalPages());
         assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
-        assertEquals(DoctorDTO.class, response.getBody().getContent().get(0).getClass());
-        assertEquals(2, response.getBody().getContent().get(1).id());
-
+        DoctorSummaryDTO first = response.getBody().getContent().get(0);
+        assertEquals(Set.of(new DoctorSpecializationDTO(4, "Cardiology"), new DoctorSpecializationDTO(5, "Dermatology")), first.specializations());
+        assertEquals("Warsaw", first.address().getCity());
+        assertEquals(Set.of(), response.getBody().getContent().get(1).specializations());
+        verify(repository, times(1)).findAllSpecializationsByDoctorIdIn(any());
+        verify(repository, never()).findAll(any(Pageable.class));
     }
 
     @Test
     void shouldThrowEmptyPageException() {
         // Arrange
-        Page<Doctor> doctors = new PageImpl<>(List.of());
+        Page<DoctorSummary> summaries = new PageImpl<>(List.of());
         Pageable pageable = Pageable.ofSize(10).withPage(0);
 
-        when(repository.findAll(pageable)).thenReturn(doctors);
+        when(repository.findAllSummaries(any(), any(Pageable.class))).thenReturn(summaries);
 
         // Act
         // Assert
@@ -720,6 +963,7 @@ class DoctorServiceTest {
         // Assert
         assertEquals(HttpStatusCode.valueOf(204), response.getStatusCode());
         verify(repository).save(doctor);
+        verify(availabilityIndex).invalidate(doctorId);
     }
 
     @Test
@@ -738,18 +982,99 @@ class DoctorServiceTest {
                 .hasMessageContaining("start time can not be after end time");
     }
 
+    @Test
+    void shouldReadAllSlots() {
+        // Arrange
+        Long doctorId = 1L;
+        Long typeOfVisitId = 2L;
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        LocalDate day = LocalDate.now().plusDays(1);
+        DayAvailability availability = DayAvailability.of(day, new WeekDay(LocalTime.of(9, 0), LocalTime.of(11, 0)),
+                List.of(new BusyPeriod(doctorId, day.atTime(9, 30), day.atTime(10, 0))));
+
+        when(repository.existsById(doctorId)).thenReturn(true);
+        when(typeOfVisitRepository.findById(typeOfVisitId)).thenReturn(Optional.of(new TypeOfVisit(typeOfVisitId, "Consultation", BigDecimal.TEN, "USD", 30, true, doctor)));
+        when(availabilityIndex.forDoctor(doctorId, day, day)).thenReturn(new TreeMap<>(Map.of(day, availability)));
+
+        // Act
+        var response = underTest.readAllSlots(doctorId, day, day, typeOfVisitId);
+
+        // Assert
+        assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
+        assertEquals(List.of(
+                new DoctorSlotDTO(day.atTime(9, 0), day.atTime(9, 30)),
+                new DoctorSlotDTO(day.atTime(10, 0), day.atTime(10, 30)),
+                new DoctorSlotDTO(day.atTime(10, 30), day.atTime(11, 0))
+        ), response.getBody());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenReadingSlotsForTypeOfVisitOfAnotherDoctor() {
+        // Arrange
+        Long doctorId = 1L;
+        Long typeOfVisitId = 2L;
+        Doctor anotherDoctor = new Doctor();
+        anotherDoctor.setId(3L);
+        LocalDate day = LocalDate.now().plusDays(1);
+
+        when(repository.existsById(doctorId)).thenReturn(true);
+        when(typeOfVisitRepository.findById(typeOfVisitId)).thenReturn(Optional.of(new TypeOfVisit(typeOfVisitId, "Consultation", BigDecimal.TEN, "USD", 30, true, anotherDoctor)));
+
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.readAllSlots(doctorId, day, day, typeOfVisitId))
+                .isInstanceOf(WrongTypeOfVisitException.class)
+                .hasMessageContaining("does not have the specified type of visit");
+        verifyNoInteractions(availabilityIndex);
+    }
+
+    @Test
+    void shouldReadEarliestAvailableDoctorsOrderedByFirstFreeSlot() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        LocalDateTime firstSlot = from.plusHours(1);
+        LocalDateTime secondSlot = from.plusHours(2);
+
+        when(typeOfVisitRepository.findAllBookableBySpecializationAndType("Cardiology", "Consultation")).thenReturn(List.of(
+                new BookableVisitType(1L, "John", "Doe", 10L, 30),
+                new BookableVisitType(2L, "Anna", "Smith", 20L, 45),
+                new BookableVisitType(2L, "Anna", "Smith", 21L, 15),
+                new BookableVisitType(3L, "Mark", "Brown", 30L, 30)));
+        when(nextFreeSlotIndex.nextFreeSlots(Map.of(1L, 30, 2L, 15, 3L, 30), from))
+                .thenReturn(Map.of(1L, secondSlot, 2L, firstSlot, 3L, secondSlot.plusDays(1)));
+
+        // Act
+        var response = underTest.readEarliestAvailable("Cardiology", "Consultation", from, 2);
+
+        // Assert
+        assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
+        assertEquals(List.of(
+                new DoctorEarliestSlotDTO(2L, "Anna", "Smith", 21L, firstSlot, firstSlot.plusMinutes(15)),
+                new DoctorEarliestSlotDTO(1L, "John", "Doe", 10L, secondSlot, secondSlot.plusMinutes(30))
+        ), response.getBody());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenReadingSlotsForTooLongRange() {
+        // Arrange
+        Long doctorId = 1L;
+        LocalDate day = LocalDate.now().plusDays(1);
+
+        when(repository.existsById(doctorId)).thenReturn(true);
+
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.readAllSlots(doctorId, day, day.plusDays(31), 2L))
+                .isInstanceOf(WrongVisitException.class);
+    }
+
     @Test
     void shouldSearchDoctorsBySpecialization() {
         // Arrange
         String word = "John";
         String specialization = "Cardiology";
         Pageable pageable = PageRequest.of(0, 10);
-        Doctor doctor1 = new Doctor();
-        doctor1.setFirstName("Amy");
-        Doctor doctor2 = new Doctor();
-        doctor2.setFirstName("Bob");
 
-        when(repository.searchWithSpecialization(word, specialization)).thenReturn(List.of(doctor1, doctor2));
+        when(repository.findAllSummaries(any(), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(summary(1L), summary(2L)), pageable, 2));
 
         // Act
         var response = underTest.searchDoctors(word, specialization, pageable);
@@ -757,7 +1082,7 @@ class DoctorServiceTest {
         // Assert
         assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
         assertEquals(2, Objects.requireNonNull(response.getBody()).getTotalElements());
-        assertEquals(DoctorDTO.class, response.getBody().getContent().get(0).getClass());
+        assertEquals(DoctorSummaryDTO.class, response.getBody().getContent().get(0).getClass());
     }
 
     @Test
@@ -765,12 +1090,8 @@ class DoctorServiceTest {
         // Arrange
         String word = "John";
         Pageable pageable = PageRequest.of(0, 10);
-        Doctor doctor1 = new Doctor();
-        doctor1.setFirstName("Amy");
-        Doctor doctor2 = new Doctor();
-        doctor2.setFirstName("Bob");
 
-        when(repository.search(word)).thenReturn(List.of(doctor1, doctor2));
+        when(repository.findAllSummaries(any(), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(summary(1L), summary(2L)), pageable, 2));
 
         // Act
         var response = underTest.searchDoctors(word, null, pageable);
@@ -778,6 +1099,58 @@ class DoctorServiceTest {
         // Assert
         assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
         assertEquals(2, Objects.requireNonNull(response.getBody()).getTotalElements());
-        assertEquals(DoctorDTO.class, response.getBody().getContent().get(0).getClass());
+        assertEquals(DoctorSummaryDTO.class, response.getBody().getContent().get(0).getClass());
+
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(repository).findAllSummaries(any(), pageableCaptor.capture());
+        assertEquals(DoctorSearchIndex.DEFAULT_SORT.and(Sort.by("id")), pageableCaptor.getValue().getSort());
+    }
+
+    @Test
+    void shouldSearchDoctorsWithSearchIndex() {
+        // Arrange
+        Pageable pageable = PageRequest.of(1, 2);
+
+        when(searchIndex.search(List.of("john", "warsaw"), null, pageable))
+                .thenReturn(Optional.of(new PageImpl<>(List.of(7L, 3L), pageable, 5)));
+        when(repository.findAllSummaries(any(), eq(Pageable.unpaged()))).thenReturn(new PageImpl<>(List.of(summary(3L), summary(7L))));
+
+        // Act
+        var response = underTest.searchDoctors("john  warsaw", null, pageable);
+
+        // Assert
+        assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
+        assertEquals(5, Objects.requireNonNull(response.getBody()).getTotalElements());
+        assertEquals(List.of(7L, 3L), response.getBody().getContent().stream().map(DoctorSummaryDTO::id).toList());
+        verify(repository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void shouldSuggestCompletionsWithinLimit() {
+        // Arrange
+        when(searchIndex.suggest("car", 20)).thenReturn(List.of(
+                new Suggestion("Cardiology", SuggestionType.SPECIALIZATION, 4),
+                new Suggestion("Carter", SuggestionType.LAST_NAME, 1)));
+
+        // Act
+        var response = underTest.suggest(" car ", 100);
+
+        // Assert
+        assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
+        assertEquals(List.of(
+                new DoctorSuggestionDTO("Cardiology", SuggestionType.SPECIALIZATION, 4),
+                new DoctorSuggestionDTO("Carter", SuggestionType.LAST_NAME, 1)
+        ), response.getBody());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenSearchPhraseIsBlank() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.searchDoctors("  ", null, pageable))
+                .isInstanceOf(EmptyPageException.class);
+        verify(repository, never()).findAllSummaries(any(), any(Pageable.class));
     }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.github.konradcz2001.medicalappointments.doctor;
+
+import com.github.konradcz2001.medicalappointments.doctor.schedule.Schedule;
+import com.github.konradcz2001.medicalappointments.security.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+class DoctorSummaryRepositoryTest {
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+
+    @Autowired
+    private DoctorRepository underTest;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void shouldFindSliceOfDoctorsWorkingAtMinuteOfDate() {
+        // Arrange
+        Long early = persistDoctor("Anna", new Schedule(LocalTime.of(8, 0), LocalTime.of(10, 0)));
+        Long late = persistDoctor("Bob", new Schedule(LocalTime.of(10, 0), LocalTime.of(16, 0)));
+        Long allDay = persistDoctor("Carl", new Schedule(LocalTime.of(6, 0), LocalTime.of(20, 0)));
+        persistDoctor("Dan", null);
+        LocalDateTime date = MONDAY.atTime(9, 59, 30);
+
+        // Act
+        Slice<DoctorSummary> first = underTest.findSummarySlice(DoctorSpecifications.worksAt(date), PageRequest.of(0, 1, Sort.by("firstName")));
+        Slice<DoctorSummary> second = underTest.findSummarySlice(DoctorSpecifications.worksAt(date), PageRequest.of(1, 1, Sort.by("firstName")));
+        Slice<DoctorSummary> atTen = underTest.findSummarySlice(DoctorSpecifications.worksAt(MONDAY.atTime(10, 0)), PageRequest.of(0, 10, Sort.by("id")));
+
+        // Assert
+        assertEquals(List.of(early), first.map(DoctorSummary::id).getContent());
+        assertTrue(first.hasNext());
+        assertEquals(List.of(allDay), second.map(DoctorSummary::id).getContent());
+        assertFalse(second.hasNext());
+        assertEquals(List.of(late, allDay), atTen.map(DoctorSummary::id).getContent());
+    }
+
+    private Long persistDoctor(String firstName, Schedule schedule) {
+        Doctor doctor = new Doctor();
+        doctor.setFirstName(firstName);
+        doctor.setLastName("Smith");
+        doctor.setEmail(firstName.toLowerCase() + "@mail.com");
+        doctor.setPassword("hash");
+        doctor.setRole(Role.DOCTOR);
+        doctor.setVerified(true);
+        doctor.setSchedule(schedule);
+        return entityManager.persistAndFlush(doctor).getId();
+    }
+}
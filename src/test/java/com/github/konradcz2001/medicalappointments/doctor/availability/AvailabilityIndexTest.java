@@ -0,0 +1,120 @@
+package com.github.konradcz2001.medicalappointments.doctor.availability;
+
+import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.leave.LeaveRepository;
+import com.github.konradcz2001.medicalappointments.visit.VisitRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityIndexTest {
+    @Mock
+    private DoctorRepository doctorRepository;
+    @Mock
+    private LeaveRepository leaveRepository;
+    @Mock
+    private VisitRepository visitRepository;
+
+    @InjectMocks
+    private AvailabilityIndex underTest;
+
+    private static DoctorSchedule workingHours(Long doctorId, LocalTime start, LocalTime end) {
+        return new DoctorSchedule(doctorId, start, end, start, end, start, end, start, end, start, end, start, end, start, end);
+    }
+
+    @Test
+    void shouldBuildAvailabilityFromScheduleLeavesAndVisits() {
+        // Arrange
+        Long doctorId = 1L;
+        LocalDate day = LocalDate.now().plusDays(1);
+
+        when(doctorRepository.findAllSchedulesByIdIn(List.of(doctorId))).thenReturn(List.of(workingHours(doctorId, LocalTime.of(9, 0), LocalTime.of(17, 0))));
+        when(leaveRepository.findAllBusyPeriods(any(), any(), any())).thenReturn(List.of(new BusyPeriod(doctorId, day.minusDays(3).atStartOfDay(), day.atTime(10, 0))));
+        when(visitRepository.findAllBusyPeriods(any(), any(), any())).thenReturn(List.of(new BusyPeriod(doctorId, day.atTime(13, 0), day.atTime(13, 30))));
+
+        // Act
+        DayAvailability availability = underTest.forDoctor(doctorId, day, day).get(day);
+
+        // Assert
+        assertFalse(availability.isFreeAt(LocalTime.of(8, 59)));
+        assertFalse(availability.isFreeAt(LocalTime.of(9, 30)));
+        assertTrue(availability.isFreeAt(LocalTime.of(10, 0)));
+        assertFalse(availability.isFreeAt(LocalTime.of(13, 15)));
+        assertTrue(availability.isFreeAt(LocalTime.of(13, 30)));
+        assertFalse(availability.isFreeAt(LocalTime.of(17, 0)));
+        assertEquals(LocalTime.of(10, 0), availability.startTimes(60).get(0));
+        assertEquals(LocalTime.of(12, 0), availability.startTimes(60).get(2));
+        assertEquals(LocalTime.of(13, 30), availability.startTimes(60).get(3));
+    }
+
+    @Test
+    void shouldTreatDoctorWithoutScheduleAsUnavailable() {
+        // Arrange
+        Long doctorId = 1L;
+        LocalDate day = LocalDate.now().plusDays(1);
+
+        when(doctorRepository.findAllSchedulesByIdIn(List.of(doctorId))).thenReturn(List.of(workingHours(doctorId, null, null)));
+
+        // Act
+        SortedMap<LocalDate, DayAvailability> result = underTest.forDoctor(doctorId, day, day.plusDays(6));
+
+        // Assert
+        assertEquals(7, result.size());
+        assertTrue(result.values().stream().allMatch(DayAvailability::isFullyBooked));
+    }
+
+    @Test
+    void shouldServeCachedDaysWithoutQueryingDatabase() {
+        // Arrange
+        Long doctorId = 1L;
+        LocalDate day = LocalDate.now().plusDays(1);
+
+        when(doctorRepository.findAllSchedulesByIdIn(List.of(doctorId))).thenReturn(List.of(workingHours(doctorId, LocalTime.of(9, 0), LocalTime.of(17, 0))));
+
+        // Act
+        underTest.forDoctor(doctorId, day, day.plusDays(2));
+        SortedMap<LocalDate, DayAvailability> result = underTest.forDoctor(doctorId, day, day.plusDays(2));
+
+        // Assert
+        assertEquals(3, result.size());
+        verify(doctorRepository, times(1)).findAllSchedulesByIdIn(any());
+        verify(visitRepository, times(1)).findAllBusyPeriods(any(), any(), any());
+    }
+
+    @Test
+    void shouldReloadInvalidatedDay() {
+        // Arrange
+        Long doctorId = 1L;
+        LocalDate day = LocalDate.now().plusDays(1);
+        LocalDateTime visitStart = day.atTime(10, 0);
+
+        when(doctorRepository.findAllSchedulesByIdIn(List.of(doctorId))).thenReturn(List.of(workingHours(doctorId, LocalTime.of(9, 0), LocalTime.of(17, 0))));
+        when(visitRepository.findAllBusyPeriods(any(), any(), any()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new BusyPeriod(doctorId, visitStart, visitStart.plusMinutes(30))));
+
+        // Act
+        long versionBefore = underTest.version(doctorId);
+        assertTrue(underTest.forDoctor(doctorId, day, day).get(day).isFreeAt(LocalTime.of(10, 0)));
+        underTest.invalidate(doctorId, visitStart, visitStart.plusMinutes(30));
+        DayAvailability reloaded = underTest.forDoctor(doctorId, day, day).get(day);
+
+        // Assert
+        assertFalse(reloaded.isFreeAt(LocalTime.of(10, 0)));
+        assertNotEquals(versionBefore, underTest.version(doctorId));
+        verify(visitRepository, times(2)).findAllBusyPeriods(any(), any(), any());
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.konradcz2001.medicalappointments.doctor.availability;
+
+import com.github.konradcz2001.medicalappointments.doctor.schedule.WeekDay;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NextFreeSlotIndexTest {
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @InjectMocks
+    private NextFreeSlotIndex underTest;
+
+    private static TreeMap<LocalDate, DayAvailability> week(LocalDate firstDay, WeekDay workingDay, List<BusyPeriod> busy) {
+        TreeMap<LocalDate, DayAvailability> days = new TreeMap<>();
+        for (int i = 0; i < 7; i++)
+            days.put(firstDay.plusDays(i), DayAvailability.of(firstDay.plusDays(i), workingDay, busy));
+        return days;
+    }
+
+    @Test
+    void shouldFindFirstFreeSlotAfterGivenTime() {
+        // Arrange
+        Long doctorId = 1L;
+        LocalDate day = LocalDate.now().plusDays(1);
+        LocalDateTime from = day.atTime(9, 10);
+        List<BusyPeriod> busy = List.of(new BusyPeriod(doctorId, day.atTime(9, 30), day.atTime(10, 0)));
+
+        when(availabilityIndex.forDoctor(eq(doctorId), eq(day), any())).thenReturn(week(day, new WeekDay(LocalTime.of(9, 0), LocalTime.of(12, 0)), busy));
+
+        // Act
+        Map<Long, LocalDateTime> result = underTest.nextFreeSlots(Map.of(doctorId, 30), from);
+
+        // Assert
+        assertEquals(day.atTime(10, 0), result.get(doctorId));
+    }
+
+    @Test
+    void shouldReuseSlotUntilAvailabilityChanges() {
+        // Arrange
+        Long doctorId = 1L;
+        LocalDate day = LocalDate.now().plusDays(1);
+        LocalDateTime from = day.atTime(8, 0);
+
+        when(availabilityIndex.version(doctorId)).thenReturn(1L, 1L, 2L);
+        when(availabilityIndex.forDoctor(eq(doctorId), eq(day), any())).thenReturn(week(day, new WeekDay(LocalTime.of(9, 0), LocalTime.of(12, 0)), List.of()));
+
+        // Act
+        LocalDateTime first = underTest.nextFreeSlots(Map.of(doctorId, 30), from).get(doctorId);
+        LocalDateTime reused = underTest.nextFreeSlots(Map.of(doctorId, 30), from.plusMinutes(30)).get(doctorId);
+        LocalDateTime recomputed = underTest.nextFreeSlots(Map.of(doctorId, 30), from.plusMinutes(30)).get(doctorId);
+
+        // Assert
+        assertEquals(day.atTime(9, 0), first);
+        assertEquals(day.atTime(9, 0), reused);
+        assertEquals(day.atTime(9, 0), recomputed);
+        verify(availabilityIndex, times(2)).forDoctor(eq(doctorId), eq(day), any());
+    }
+
+    @Test
+    void shouldSkipDoctorWithoutFreeSlotWithinHorizon() {
+        // Arrange
+        Long doctorId = 1L;
+        when(availabilityIndex.forDoctor(eq(doctorId), any(), any())).thenReturn(new TreeMap<>());
+
+        // Act
+        Map<Long, LocalDateTime> result = underTest.nextFreeSlots(Map.of(doctorId, 30), LocalDateTime.now());
+
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+}
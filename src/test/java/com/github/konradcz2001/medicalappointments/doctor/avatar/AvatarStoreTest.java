@@ -0,0 +1,114 @@
+package com.github.konradcz2001.medicalappointments.doctor.avatar;
+
+import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongAvatarException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvatarStoreTest {
+    @TempDir
+    private Path root;
+
+    private AvatarStore underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new AvatarStore(root.toString(), 1024 * 1024);
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(width / 2, height / 2, 0xFF0000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    void shouldStoreImageUnderItsHashWithSquareThumbnail() throws IOException {
+        // Arrange
+        byte[] image = png(300, 200);
+
+        // Act
+        StoredAvatar stored = underTest.store(new ByteArrayInputStream(image));
+
+        // Assert
+        assertEquals("image/png", stored.contentType());
+        Path original = underTest.findOriginal(stored.hash()).orElseThrow();
+        assertEquals(root.resolve(stored.hash().substring(0, 2)).resolve(stored.hash()), original);
+        assertArrayEquals(image, Files.readAllBytes(original));
+
+        BufferedImage thumbnail = ImageIO.read(underTest.findThumbnail(stored.hash()).orElseThrow().toFile());
+        assertEquals(AvatarStore.THUMBNAIL_SIZE, thumbnail.getWidth());
+        assertEquals(AvatarStore.THUMBNAIL_SIZE, thumbnail.getHeight());
+    }
+
+    @Test
+    void shouldStoreSameImageOnlyOnce() throws IOException {
+        // Arrange
+        byte[] image = png(64, 64);
+
+        // Act
+        StoredAvatar first = underTest.store(new ByteArrayInputStream(image));
+        StoredAvatar second = underTest.store(new ByteArrayInputStream(image));
+
+        // Assert
+        assertEquals(first, second);
+        assertEquals(2, countFiles());
+    }
+
+    @Test
+    void shouldTransferStoredImageToStream() throws IOException {
+        // Arrange
+        byte[] image = png(32, 32);
+        StoredAvatar stored = underTest.store(new ByteArrayInputStream(image));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        underTest.transferTo(underTest.findOriginal(stored.hash()).orElseThrow(), out);
+
+        // Assert
+        assertArrayEquals(image, out.toByteArray());
+    }
+
+    @Test
+    void shouldRejectDataThatIsNotAnImage() throws IOException {
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.store(new ByteArrayInputStream("not an image".getBytes())))
+                .isInstanceOf(WrongAvatarException.class)
+                .hasMessage("The avatar must be a PNG, JPEG or GIF image");
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void shouldRejectEmptyAndTooLargeImages() {
+        // Arrange
+        AvatarStore small = new AvatarStore(root.toString(), 10);
+
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.store(new ByteArrayInputStream(new byte[0])))
+                .isInstanceOf(WrongAvatarException.class)
+                .hasMessage("The avatar must not be empty");
+        assertThatThrownBy(() -> small.store(new ByteArrayInputStream(png(32, 32))))
+                .isInstanceOf(WrongAvatarException.class)
+                .hasMessage("The avatar must not be larger than 10 bytes");
+    }
+}
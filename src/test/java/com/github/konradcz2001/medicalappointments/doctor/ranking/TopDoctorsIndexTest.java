@@ -0,0 +1,179 @@
+package com.github.konradcz2001.medicalappointments.doctor.ranking;
+
+import com.github.konradcz2001.medicalappointments.doctor.Doctor;
+import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.doctor.DoctorSpecialization;
+import com.github.konradcz2001.medicalappointments.doctor.search.SearchableDoctor;
+import com.github.konradcz2001.medicalappointments.review.DoctorRatingStats;
+import com.github.konradcz2001.medicalappointments.review.DoctorRatingStatsRepository;
+import com.github.konradcz2001.medicalappointments.review.Rating;
+import com.github.konradcz2001.medicalappointments.specialization.Specialization;
+import com.github.konradcz2001.medicalappointments.specialization.SpecializationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TopDoctorsIndexTest {
+    @Mock
+    private DoctorRepository doctorRepository;
+    @Mock
+    private SpecializationRepository specializationRepository;
+    @Mock
+    private DoctorRatingStatsRepository ratingStatsRepository;
+
+    private TopDoctorsIndex underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new TopDoctorsIndex(doctorRepository, specializationRepository, ratingStatsRepository, 2);
+    }
+
+    private static SearchableDoctor doctor(Long id) {
+        return new SearchableDoctor(id, "Name" + id, "Surname" + id, null, null, null, null, null, null);
+    }
+
+    private static DoctorRatingStats stats(Long doctorId, long oneStar, long fiveStars) {
+        return new DoctorRatingStats(doctorId, oneStar, 0, 0, 0, fiveStars, oneStar + fiveStars, null);
+    }
+
+    private void buildWithDoctors() {
+        when(doctorRepository.findAllSearchable()).thenReturn(List.of(doctor(1L), doctor(2L), doctor(3L), doctor(4L)));
+        when(specializationRepository.findAllIds()).thenReturn(List.of(1, 2, 3));
+        when(doctorRepository.findAllSpecializations()).thenReturn(List.of(
+                new DoctorSpecialization(1L, 1, "Cardiology"),
+                new DoctorSpecialization(2L, 1, "Cardiology"),
+                new DoctorSpecialization(3L, 1, "Cardiology"),
+                new DoctorSpecialization(4L, 1, "Cardiology"),
+                new DoctorSpecialization(1L, 2, "Dermatology")));
+        when(ratingStatsRepository.findAll()).thenReturn(List.of(stats(1L, 0, 1), stats(2L, 0, 10), stats(3L, 2, 0)));
+        underTest.build();
+    }
+
+    private List<Long> top(Integer specializationId) {
+        return underTest.top(specializationId, TopDoctorsIndex.MAX_LIMIT).orElseThrow().stream().map(RankedDoctor::doctorId).toList();
+    }
+
+    @Test
+    void shouldRankReviewedDoctorsByBayesianAverage() {
+        // Arrange
+        buildWithDoctors();
+
+        // Act
+        List<RankedDoctor> top = underTest.top(1, 10).orElseThrow();
+
+        // Assert
+        assertEquals(List.of(2L, 1L, 3L), top.stream().map(RankedDoctor::doctorId).toList());
+        // the prior is 2 virtual reviews with the average of all 13 reviews, 57 / 13 stars
+        assertEquals((2 * 57 / 13.0 + 5) / 3, top.get(1).score(), 1e-9);
+        assertEquals(new BigDecimal("5.00"), top.get(1).averageRating());
+        assertEquals(1, top.get(1).reviewCount());
+        assertEquals("Name1", top.get(1).firstName());
+        assertEquals(List.of(1L), top(2));
+        assertEquals(List.of(), top(3));
+        assertEquals(List.of(2L), underTest.top(1, 1).orElseThrow().stream().map(RankedDoctor::doctorId).toList());
+    }
+
+    @Test
+    void shouldNotAnswerBeforeBuildOrForUnknownSpecialization() {
+        // Act
+        // Assert
+        assertEquals(Optional.empty(), underTest.top(1, 10));
+        buildWithDoctors();
+        assertEquals(Optional.empty(), underTest.top(9, 10));
+    }
+
+    @Test
+    void shouldRerankDoctorWhenRatingsChange() {
+        // Arrange
+        buildWithDoctors();
+
+        // Act
+        underTest.addRating(4L, Rating.FIVE_STARS);
+        underTest.removeRating(3L, Rating.ONE_STAR);
+        underTest.removeRating(3L, Rating.ONE_STAR);
+        for (int i = 0; i < 5; i++)
+            underTest.addRating(1L, Rating.FIVE_STARS);
+
+        // Assert
+        assertEquals(List.of(2L, 1L, 4L), top(1));
+        assertEquals(6, underTest.top(1, 10).orElseThrow().get(1).reviewCount());
+    }
+
+    @Test
+    void shouldFollowNamesAndSpecializationsOfDoctors() {
+        // Arrange
+        buildWithDoctors();
+        Specialization dermatology = new Specialization();
+        dermatology.setId(2);
+        Doctor doctor = new Doctor();
+        doctor.setId(2L);
+        doctor.setFirstName("Renamed");
+        doctor.getSpecializations().add(dermatology);
+
+        // Act
+        underTest.index(doctor);
+
+        // Assert
+        assertEquals(List.of(1L, 3L), top(1));
+        assertEquals(List.of(2L, 1L), top(2));
+        assertEquals("Renamed", underTest.top(2, 1).orElseThrow().get(0).firstName());
+
+        underTest.remove(2L);
+        assertEquals(List.of(1L), top(2));
+    }
+
+    @Test
+    void shouldManageBoardsOfSpecializations() {
+        // Arrange
+        buildWithDoctors();
+
+        // Act
+        underTest.addSpecialization(5);
+        underTest.removeSpecialization(2);
+
+        // Assert
+        assertEquals(List.of(), top(5));
+        assertEquals(Optional.empty(), underTest.top(2, 10));
+        assertEquals(List.of(2L, 1L, 3L), top(1));
+    }
+
+    @Test
+    void shouldRefillFullBoardWhenLeaderDropsOff() {
+        // Arrange
+        int doctors = TopDoctorsIndex.MAX_LIMIT + 1;
+        List<SearchableDoctor> searchable = new ArrayList<>();
+        List<DoctorSpecialization> specializations = new ArrayList<>();
+        List<DoctorRatingStats> stats = new ArrayList<>();
+        for (long id = 1; id <= doctors; id++) {
+            searchable.add(doctor(id));
+            specializations.add(new DoctorSpecialization(id, 1, "Cardiology"));
+            stats.add(stats(id, 0, id));
+        }
+        when(doctorRepository.findAllSearchable()).thenReturn(searchable);
+        when(specializationRepository.findAllIds()).thenReturn(List.of(1));
+        when(doctorRepository.findAllSpecializations()).thenReturn(specializations);
+        when(ratingStatsRepository.findAll()).thenReturn(stats);
+        underTest.build();
+        assertEquals(LongStream.iterate(doctors, id -> id - 1).limit(TopDoctorsIndex.MAX_LIMIT).boxed().toList(), top(1));
+
+        // Act
+        for (int i = 0; i < doctors; i++)
+            underTest.removeRating((long) doctors, Rating.FIVE_STARS);
+        underTest.addRating((long) doctors, Rating.ONE_STAR);
+
+        // Assert
+        assertEquals(LongStream.iterate(doctors - 1, id -> id - 1).limit(TopDoctorsIndex.MAX_LIMIT).boxed().toList(), top(1));
+    }
+}
@@ -0,0 +1,238 @@
+package com.github.konradcz2001.medicalappointments.doctor.search;
+
+import com.github.konradcz2001.medicalappointments.doctor.Address;
+import com.github.konradcz2001.medicalappointments.doctor.Doctor;
+import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.specialization.Specialization;
+import com.github.konradcz2001.medicalappointments.specialization.SpecializationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DoctorSearchIndexTest {
+    @Mock
+    private DoctorRepository doctorRepository;
+    @Mock
+    private SpecializationRepository specializationRepository;
+
+    private DoctorSearchIndex underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new DoctorSearchIndex(doctorRepository, specializationRepository, true);
+    }
+
+    private void buildWithDoctors() {
+        when(doctorRepository.findAllSearchable()).thenReturn(List.of(
+                new SearchableDoctor(1L, "John", "Doe", "Poland", "Mazowieckie", "Warsaw", "00-001", "Marszalkowska", "1"),
+                new SearchableDoctor(2L, "Anna", "Johnson", "Poland", "Malopolskie", "Krakow", "30-001", "Florianska", "2"),
+                new SearchableDoctor(3L, "Adam", "Smith", "Poland", "Mazowieckie", "Warsaw", "00-002", "Nowy Swiat", "3")));
+        when(doctorRepository.findAllSpecializationNames()).thenReturn(List.of(
+                new DoctorSpecializationName(1L, "Cardiology"),
+                new DoctorSpecializationName(3L, "Dermatology")));
+        when(specializationRepository.findAllNames()).thenReturn(List.of("Cardiology", "Dermatology", "Dentistry"));
+        underTest.build();
+    }
+
+    private List<Long> search(List<String> words, String specialization) {
+        return underTest.search(words, specialization, PageRequest.of(0, 10)).orElseThrow().getContent();
+    }
+
+    @Test
+    void shouldFindDoctorsContainingAllWordsOrderedByFirstName() {
+        // Arrange
+        buildWithDoctors();
+
+        // Act
+        // Assert
+        assertEquals(List.of(2L, 1L), search(List.of("JOHN"), null));
+        assertEquals(List.of(1L), search(List.of("ohn", "warsaw"), null));
+        assertEquals(List.of(3L, 1L), search(List.of("Warsaw"), null));
+        assertEquals(List.of(), search(List.of("warsawa"), null));
+    }
+
+    @Test
+    void shouldNotMatchWordsSharingOnlyTrigramsOrSpanningFields() {
+        // Arrange
+        buildWithDoctors();
+
+        // Act
+        // Assert
+        assertEquals(List.of(), search(List.of("johnjohn"), null));
+        assertEquals(List.of(), search(List.of("johndoe"), null));
+    }
+
+    @Test
+    void shouldNotMatchSpecializationNamesWhichAreNotInSearchDocument() {
+        // Arrange
+        buildWithDoctors();
+
+        // Act
+        // Assert
+        assertEquals(List.of(), search(List.of("derma"), null));
+        assertEquals(List.of(3L), search(List.of("smith"), "Dermatology"));
+    }
+
+    @Test
+    void shouldOrderByFirstNameIgnoringCase() {
+        // Arrange
+        when(doctorRepository.findAllSearchable()).thenReturn(List.of(
+                new SearchableDoctor(1L, "bob", "Doe", "Poland", null, "Warsaw", null, null, null),
+                new SearchableDoctor(2L, "Adam", "Doe", "Poland", null, "Warsaw", null, null, null),
+                new SearchableDoctor(3L, "anna", "Doe", "Poland", null, "Warsaw", null, null, null),
+                new SearchableDoctor(4L, "Anna", "Doe", "Poland", null, "Warsaw", null, null, null)));
+        underTest.build();
+
+        // Act
+        Page<Long> page = underTest.search(List.of("doe"), null, PageRequest.of(0, 10, DoctorSearchIndex.DEFAULT_SORT)).orElseThrow();
+
+        // Assert
+        assertEquals(List.of(2L, 3L, 4L, 1L), page.getContent());
+    }
+
+    @Test
+    void shouldReuseOrdinalsOfRemovedDoctors() {
+        // Arrange
+        buildWithDoctors();
+        Doctor doctor = new Doctor();
+        doctor.setId(4L);
+        doctor.setFirstName("Zoe");
+        doctor.setLastName("Nowak");
+        doctor.setAddress(new Address("Poland", "Pomorskie", "Gdansk", "Dluga", "5", "80-001"));
+
+        // Act
+        underTest.remove(1L);
+        underTest.index(doctor);
+
+        // Assert
+        assertEquals(List.of(), search(List.of("marszalkowska"), null));
+        assertEquals(List.of(3L, 2L, 4L), search(List.of("poland"), null));
+        assertEquals(List.of(4L), search(List.of("gdansk"), null));
+        assertEquals(List.of(), search(List.of("zoe"), "Cardiology"));
+    }
+
+    @Test
+    void shouldFilterBySpecializationIgnoringCase() {
+        // Arrange
+        buildWithDoctors();
+
+        // Act
+        // Assert
+        assertEquals(List.of(3L), search(List.of("warsaw"), "dermatology"));
+        assertEquals(List.of(), search(List.of("anna"), "Cardiology"));
+    }
+
+    @Test
+    void shouldPageResults() {
+        // Arrange
+        buildWithDoctors();
+
+        // Act
+        Page<Long> page = underTest.search(List.of("o"), null, PageRequest.of(1, 2)).orElseThrow();
+
+        // Assert
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of(1L), page.getContent());
+    }
+
+    @Test
+    void shouldApplyUpdatesAndRemovals() {
+        // Arrange
+        buildWithDoctors();
+        Specialization specialization = new Specialization(1, "Neurology", Set.of());
+        Doctor doctor = new Doctor();
+        doctor.setId(2L);
+        doctor.setFirstName("Anna");
+        doctor.setLastName("Nowak");
+        doctor.setAddress(new Address("Poland", "Pomorskie", "Gdansk", "Dluga", "5", "80-001"));
+        doctor.setSpecializations(Set.of(specialization));
+
+        // Act
+        underTest.index(doctor);
+        underTest.remove(1L);
+        underTest.renameSpecialization("Neurology", "Neurosurgery");
+
+        // Assert
+        assertEquals(List.of(), search(List.of("john"), null));
+        assertEquals(List.of(2L), search(List.of("gdansk", "nowak"), null));
+        assertEquals(List.of(2L), search(List.of("anna"), "neurosurgery"));
+        assertEquals(List.of(), search(List.of("anna"), "neurology"));
+    }
+
+    @Test
+    void shouldNotAnswerWhenDisabledOrSortIsNotSupported() {
+        // Arrange
+        buildWithDoctors();
+        DoctorSearchIndex disabled = new DoctorSearchIndex(doctorRepository, specializationRepository, false);
+        Pageable sortedByLastName = PageRequest.of(0, 10, Sort.by("lastName"));
+        Pageable sortedByFirstNameWithCase = PageRequest.of(0, 10, Sort.by("firstName"));
+
+        // Act
+        disabled.build();
+
+        // Assert
+        assertTrue(disabled.search(List.of("john"), null, PageRequest.of(0, 10)).isEmpty());
+        assertTrue(underTest.search(List.of("john"), null, sortedByLastName).isEmpty());
+        assertTrue(underTest.search(List.of("john"), null, sortedByFirstNameWithCase).isEmpty());
+        assertEquals(List.of(new Suggestion("John", SuggestionType.FIRST_NAME, 1)), disabled.suggest("jo", 1));
+    }
+
+    @Test
+    void shouldSuggestMostCommonCompletionsOfPrefix() {
+        // Arrange
+        buildWithDoctors();
+
+        // Act
+        // Assert
+        assertEquals(List.of(
+                new Suggestion("Warsaw", SuggestionType.CITY, 2)
+        ), underTest.suggest("WAR", 10));
+        assertEquals(List.of(
+                new Suggestion("Dermatology", SuggestionType.SPECIALIZATION, 1),
+                new Suggestion("Dentistry", SuggestionType.SPECIALIZATION, 0)
+        ), underTest.suggest("de", 10));
+        assertEquals(List.of(
+                new Suggestion("John", SuggestionType.FIRST_NAME, 1)
+        ), underTest.suggest("jo", 1));
+    }
+
+    @Test
+    void shouldUpdateSuggestionsWhenDoctorsAndSpecializationsChange() {
+        // Arrange
+        buildWithDoctors();
+        Doctor doctor = new Doctor();
+        doctor.setId(3L);
+        doctor.setFirstName("Adam");
+        doctor.setLastName("Smith");
+        doctor.setAddress(new Address("Poland", "Pomorskie", "Gdansk", "Dluga", "5", "80-001"));
+
+        // Act
+        underTest.index(doctor);
+        underTest.renameSpecialization("Cardiology", "Cardiac surgery");
+        underTest.removeSpecialization("Dentistry");
+        underTest.addSpecialization("Dietetics");
+
+        // Assert
+        assertEquals(List.of(new Suggestion("Warsaw", SuggestionType.CITY, 1)), underTest.suggest("war", 10));
+        assertEquals(List.of(new Suggestion("Gdansk", SuggestionType.CITY, 1)), underTest.suggest("gd", 10));
+        assertEquals(List.of(new Suggestion("Cardiac surgery", SuggestionType.SPECIALIZATION, 1)), underTest.suggest("card", 10));
+        assertEquals(List.of(
+                new Suggestion("Dietetics", SuggestionType.SPECIALIZATION, 0),
+                new Suggestion("Dermatology", SuggestionType.SPECIALIZATION, 0)
+        ), underTest.suggest("d", 10).stream()
+                .filter(suggestion -> suggestion.type() == SuggestionType.SPECIALIZATION).toList());
+    }
+}
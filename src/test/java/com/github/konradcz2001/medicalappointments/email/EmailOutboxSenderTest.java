@@ -0,0 +1,107 @@
+package com.github.konradcz2001.medicalappointments.email;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxSenderTest {
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private OutboxEmailRepository repository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailOutboxSender sender(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        return new EmailOutboxSender(repository, mailSender, transactionManager, "app@mail.com", 10, 3,
+                Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofHours(1));
+    }
+
+    private static OutboxEmail email(long id, String recipient, int attempts) {
+        OutboxEmail email = new OutboxEmail(recipient, "Subject " + id, "Body " + id, LocalDateTime.now().minusMinutes(1));
+        email.setId(id);
+        email.setAttempts(attempts);
+        return email;
+    }
+
+    @Test
+    void shouldSendBatchOverSmtpAndDeleteSentEmails() throws Exception {
+        // Arrange
+        OutboxEmail first = email(1L, "first@mail.com", 0);
+        OutboxEmail second = email(2L, "second@mail.com", 1);
+        when(repository.findAllDueForUpdate(any(), any())).thenReturn(List.of(first, second));
+
+        // Act
+        int claimed = sender(greenMail.getSmtp().getPort()).sendBatch();
+
+        // Assert
+        assertEquals(2, claimed);
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(2, received.length);
+        assertEquals("Subject 1", received[0].getSubject());
+        assertEquals("first@mail.com", received[0].getAllRecipients()[0].toString());
+        assertEquals("app@mail.com", received[0].getFrom()[0].toString());
+        assertEquals("Body 2", GreenMailUtil.getBody(received[1]));
+        verify(repository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(repository).saveAll(List.of());
+    }
+
+    @Test
+    void shouldRetryWithBackoffAndMarkDeadAfterMaxAttemptsWhenServerIsUnreachable() {
+        // Arrange
+        OutboxEmail retried = email(1L, "first@mail.com", 0);
+        OutboxEmail dead = email(2L, "second@mail.com", 2);
+        when(repository.findAllDueForUpdate(any(), any())).thenReturn(List.of(retried, dead));
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        sender(greenMail.getSmtp().getPort() + 1).sendBatch();
+
+        // Assert
+        verify(repository, never()).deleteAllByIdInBatch(anyList());
+        ArgumentCaptor<List<OutboxEmail>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(captor.capture());
+        assertEquals(List.of(retried, dead), captor.getValue());
+        assertEquals(1, retried.getAttempts());
+        assertEquals(EmailStatus.PENDING, retried.getStatus());
+        assertFalse(retried.getNextAttemptAt().isBefore(before.plusSeconds(30)));
+        assertNotNull(retried.getLastError());
+        assertEquals(3, dead.getAttempts());
+        assertEquals(EmailStatus.DEAD, dead.getStatus());
+        assertEquals(0, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    void shouldDoubleBackoffUpToMaximum() {
+        // Arrange
+        EmailOutboxSender underTest = sender(greenMail.getSmtp().getPort());
+
+        // Act & Assert
+        assertEquals(Duration.ofSeconds(30), underTest.backoff(1));
+        assertEquals(Duration.ofSeconds(120), underTest.backoff(3));
+        assertEquals(Duration.ofHours(1), underTest.backoff(20));
+    }
+}
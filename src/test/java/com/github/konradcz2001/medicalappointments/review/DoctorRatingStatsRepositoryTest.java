@@ -0,0 +1,78 @@
+package com.github.konradcz2001.medicalappointments.review;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs the decrement of DoctorRatingStatsRepository against the constraints of the doctor_rating_stats table.
+ * The upsert of add uses ON CONFLICT DO UPDATE, which H2 does not support, so the rows are inserted directly.
+ */
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=none"})
+@Sql("/db/doctor_rating_stats.sql")
+class DoctorRatingStatsRepositoryTest {
+    @Autowired
+    private DoctorRatingStatsRepository underTest;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldRemoveRatingFromExistingStats() {
+        // Arrange
+        jdbcTemplate.update("INSERT INTO doctor_rating_stats (doctor_id, one_star, four_stars, five_stars) VALUES (1, 1, 1, 2)");
+
+        // Act
+        underTest.remove(1L, Rating.FIVE_STARS);
+
+        // Assert
+        DoctorRatingStats stats = underTest.findById(1L).orElseThrow();
+        assertEquals(1, stats.getOneStar());
+        assertEquals(1, stats.getFourStars());
+        assertEquals(1, stats.getFiveStars());
+        assertEquals(3, stats.getReviewCount());
+        assertEquals(new BigDecimal("3.33"), stats.getAverageRating());
+    }
+
+    @Test
+    void shouldRemoveLastRatingDownToZero() {
+        // Arrange
+        jdbcTemplate.update("INSERT INTO doctor_rating_stats (doctor_id, two_stars) VALUES (1, 1)");
+
+        // Act
+        underTest.remove(1L, Rating.TWO_STARS);
+
+        // Assert
+        DoctorRatingStats stats = underTest.findById(1L).orElseThrow();
+        assertEquals(0, stats.getTwoStars());
+        assertEquals(0, stats.getReviewCount());
+        assertNull(stats.getAverageRating());
+    }
+
+    @Test
+    void shouldNotCreateStatsWhenRemovingRatingOfDoctorWithoutStats() {
+        // Act
+        underTest.remove(1L, Rating.ONE_STAR);
+
+        // Assert
+        assertFalse(underTest.existsById(1L));
+    }
+
+    @Test
+    void shouldRejectRemovingRatingBelowZero() {
+        // Arrange
+        jdbcTemplate.update("INSERT INTO doctor_rating_stats (doctor_id, one_star) VALUES (1, 1)");
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> underTest.remove(1L, Rating.THREE_STARS));
+    }
+}
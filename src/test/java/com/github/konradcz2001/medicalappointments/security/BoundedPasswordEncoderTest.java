@@ -0,0 +1,82 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import com.github.konradcz2001.medicalappointments.exception.exceptions.PasswordHashingOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+    private final CountDownLatch started = new CountDownLatch(2);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedPasswordEncoder underTest;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        underTest.close();
+    }
+
+    private PasswordEncoder blockingEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash-" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals(encode(rawPassword));
+            }
+        };
+    }
+
+    @Test
+    void shouldHashOnPoolAndReturnResult() {
+        // Arrange
+        underTest = new BoundedPasswordEncoder(blockingEncoder(), 1, 1);
+        release.countDown();
+
+        // Act
+        String hash = underTest.encode("password");
+        boolean matches = underTest.matches("password", hash);
+
+        // Assert
+        assertEquals("hash-password", hash);
+        assertTrue(matches);
+    }
+
+    @Test
+    void shouldRejectHashingAtOnceWhenPoolAndQueueAreFull() throws Exception {
+        // Arrange
+        underTest = new BoundedPasswordEncoder(blockingEncoder(), 1, 1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> underTest.encode("first"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> underTest.encode("second"));
+        while (started.getCount() == 2 || !queuedUp())
+            Thread.sleep(10);
+
+        // Act & Assert
+        assertThrows(PasswordHashingOverloadedException.class, () -> underTest.encode("third"));
+        release.countDown();
+        assertEquals("hash-first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash-second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private boolean queuedUp() {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(underTest, "executor");
+        return !executor.getQueue().isEmpty();
+    }
+}
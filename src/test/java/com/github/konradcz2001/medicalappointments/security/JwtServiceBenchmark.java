@@ -0,0 +1,88 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import com.github.konradcz2001.medicalappointments.doctor.Doctor;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many tokens per second the filter can verify.
+ * <p>
+ * perRequestParsing reproduces the former path, which decoded the key and built a parser on each of the three parses
+ * made by extractUsername and isValid, singleParse is the current path of JwtService.
+ * It is not a test, run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     "-Dexec.args=-cp %classpath com.github.konradcz2001.medicalappointments.security.JwtServiceBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+    private String secretKey;
+    private JwtService jwtService;
+    private Doctor doctor;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        secretKey = Encoders.BASE64URL.encode(new byte[32]);
+        jwtService = new JwtService(new CredentialEpochs(), secretKey);
+        doctor = new Doctor();
+        doctor.setId(7L);
+        doctor.setEmail("doctor@mail.com");
+        doctor.setRole(Role.DOCTOR);
+        token = jwtService.generateToken(doctor);
+    }
+
+    @Benchmark
+    public boolean perRequestParsing() {
+        String username = parse(token).getSubject();
+        return username.equals(doctor.getUsername())
+                && parse(token).getSubject().equals(doctor.getUsername())
+                && !parse(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        Claims claims = jwtService.verify(token);
+        return jwtService.isValid(claims, doctor);
+    }
+
+    private Claims parse(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64URL.decode(secretKey)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
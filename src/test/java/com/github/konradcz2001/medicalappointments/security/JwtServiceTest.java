@@ -0,0 +1,111 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import com.github.konradcz2001.medicalappointments.client.Client;
+import com.github.konradcz2001.medicalappointments.doctor.Doctor;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.io.Encoders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+    private CredentialEpochs credentialEpochs;
+    private JwtService underTest;
+
+    @BeforeEach
+    void setUp() {
+        credentialEpochs = new CredentialEpochs();
+        underTest = new JwtService(credentialEpochs, Encoders.BASE64URL.encode(new byte[32]));
+    }
+
+    private static Doctor doctor() {
+        Doctor doctor = new Doctor();
+        doctor.setId(7L);
+        doctor.setEmail("doctor@mail.com");
+        doctor.setRole(Role.DOCTOR);
+        return doctor;
+    }
+
+    @Test
+    void shouldAuthenticateUserFromTokenClaims() {
+        // Arrange
+        String token = underTest.generateToken(doctor());
+
+        // Act
+        Optional<AuthenticatedUser> user = underTest.extractAuthenticatedUser(token);
+
+        // Assert
+        assertEquals(Optional.of(new AuthenticatedUser(7L, "doctor@mail.com", Role.DOCTOR)), user);
+        assertEquals("doctor@mail.com", user.get().getName());
+    }
+
+    @Test
+    void shouldRejectTokensIssuedBeforeCredentialsChanged() {
+        // Arrange
+        Client client = new Client();
+        client.setId(3L);
+        client.setEmail("client@mail.com");
+        client.setRole(Role.CLIENT);
+        String before = underTest.generateToken(client);
+        String otherUser = underTest.generateToken(doctor());
+
+        // Act
+        credentialEpochs.onCredentialsChanged(new UserCredentialsChangedEvent("client@mail.com"));
+        String after = underTest.generateToken(client);
+
+        // Assert
+        assertEquals(Optional.empty(), underTest.extractAuthenticatedUser(before));
+        assertTrue(underTest.extractAuthenticatedUser(after).isPresent());
+        assertTrue(underTest.extractAuthenticatedUser(otherUser).isPresent());
+    }
+
+    @Test
+    void shouldKeepEpochsGrowingWhenCredentialsChangeAgain() {
+        // Arrange
+        credentialEpochs.onCredentialsChanged(new UserCredentialsChangedEvent("client@mail.com"));
+        long first = credentialEpochs.current("client@mail.com");
+
+        // Act
+        credentialEpochs.onCredentialsChanged(new UserCredentialsChangedEvent("client@mail.com"));
+
+        // Assert
+        assertTrue(credentialEpochs.current("client@mail.com") > first);
+        assertTrue(credentialEpochs.isRevoked("client@mail.com", first));
+        assertEquals(0, credentialEpochs.current("doctor@mail.com"));
+    }
+
+    @Test
+    void shouldValidateVerifiedClaimsAgainstUserDetails() {
+        // Arrange
+        Doctor doctor = doctor();
+        Doctor other = doctor();
+        other.setEmail("other@mail.com");
+
+        // Act
+        Claims claims = underTest.verify(underTest.generateToken(doctor));
+
+        // Assert
+        assertEquals("doctor@mail.com", claims.getSubject());
+        assertTrue(underTest.isValid(claims, doctor));
+        assertFalse(underTest.isValid(claims, other));
+    }
+
+    @Test
+    void shouldRejectTokensIssuedBeforeAccountPasswordChanged() {
+        // Arrange
+        UserAccount account = new UserAccount("doctor@mail.com", AccountKind.DOCTOR, 7L, "hash", Role.DOCTOR, 0);
+        Claims before = underTest.verify(underTest.generateToken(account));
+
+        // Act
+        account.setCredentialEpoch(System.currentTimeMillis());
+        Claims after = underTest.verify(underTest.generateToken(account));
+
+        // Assert
+        assertFalse(underTest.isValid(before, account));
+        assertTrue(underTest.isValid(after, account));
+        assertEquals(7, after.get("id", Number.class).longValue());
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import com.github.konradcz2001.medicalappointments.exception.exceptions.TooManyLoginAttemptsException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+    private final LoginThrottle underTest = new LoginThrottle(3, Duration.ofMinutes(15), 100);
+
+    @Test
+    void shouldRejectAccountAfterMaxFailures() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            underTest.checkAllowed("client@mail.com");
+            underTest.recordFailure("client@mail.com");
+        }
+
+        // Act
+        TooManyLoginAttemptsException exception = assertThrows(TooManyLoginAttemptsException.class,
+                () -> underTest.checkAllowed("client@mail.com"));
+
+        // Assert
+        assertTrue(exception.getRetryAfterSeconds() > 0 && exception.getRetryAfterSeconds() <= 15 * 60);
+        assertDoesNotThrow(() -> underTest.checkAllowed("doctor@mail.com"));
+    }
+
+    @Test
+    void shouldClearFailuresAfterSuccessfulLogin() {
+        // Arrange
+        underTest.recordFailure("client@mail.com");
+        underTest.recordFailure("client@mail.com");
+
+        // Act
+        underTest.reset("client@mail.com");
+        underTest.recordFailure("client@mail.com");
+        underTest.recordFailure("client@mail.com");
+
+        // Assert
+        assertDoesNotThrow(() -> underTest.checkAllowed("client@mail.com"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import com.github.konradcz2001.medicalappointments.exception.exceptions.PasswordHashingOverloadedException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures logins against bookings under a mixed load, with BCrypt running on the request threads or on a BoundedPasswordEncoder.
+ * <p>
+ * In the mixed group LOGIN_THREADS threads check passwords while BOOKING_THREADS threads run a fixed amount of CPU work standing
+ * for a booking request, the sample times of the login show its throughput and the ones of the booking its latency percentiles.
+ * The queue of the bounded pool takes every login thread, so no login is rejected. It is not a test, run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     "-Dexec.args=-cp %classpath com.github.konradcz2001.medicalappointments.security.PasswordHashingBenchmark"
+ * </pre>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class PasswordHashingBenchmark {
+    private static final int LOGIN_THREADS = 16;
+    private static final int BOOKING_THREADS = 4;
+    private static final long BOOKING_WORK = 200_000;
+
+    @Param({"direct", "bounded"})
+    public String encoder;
+
+    private PasswordEncoder passwordEncoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+        hash = bcrypt.encode("password");
+        passwordEncoder = encoder.equals("bounded")
+                ? new BoundedPasswordEncoder(bcrypt, Math.max(1, Runtime.getRuntime().availableProcessors() / 2), LOGIN_THREADS)
+                : bcrypt;
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (passwordEncoder instanceof BoundedPasswordEncoder bounded)
+            bounded.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(LOGIN_THREADS)
+    public boolean login() {
+        try {
+            return passwordEncoder.matches("password", hash);
+        } catch (PasswordHashingOverloadedException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(BOOKING_THREADS)
+    public void booking() {
+        Blackhole.consumeCPU(BOOKING_WORK);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PasswordHashingBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
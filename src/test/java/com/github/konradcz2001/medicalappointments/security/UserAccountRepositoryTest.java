@@ -0,0 +1,104 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import com.github.konradcz2001.medicalappointments.client.Client;
+import com.github.konradcz2001.medicalappointments.doctor.Doctor;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.DuplicateEmailException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+class UserAccountRepositoryTest {
+    @Autowired
+    private UserAccountRepository underTest;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void shouldChangePasswordOfTheUserOnly() {
+        // Arrange
+        underTest.saveAndFlush(new UserAccount("client@mail.com", AccountKind.CLIENT, 1L, "client-hash", Role.CLIENT, 0));
+        underTest.saveAndFlush(new UserAccount("doctor@mail.com", AccountKind.DOCTOR, 1L, "doctor-hash", Role.DOCTOR, 0));
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        doctor.setEmail("client@mail.com");
+        doctor.setPassword("new-hash");
+
+        // Act
+        boolean changed = underTest.changePassword(doctor);
+        entityManager.clear();
+
+        // Assert
+        assertTrue(changed);
+        UserAccount client = underTest.findById("client@mail.com").orElseThrow();
+        UserAccount changedDoctor = underTest.findById("doctor@mail.com").orElseThrow();
+        assertEquals("client-hash", client.getPassword());
+        assertEquals(0, client.getCredentialEpoch());
+        assertEquals("new-hash", changedDoctor.getPassword());
+        assertTrue(changedDoctor.getCredentialEpoch() > 0);
+    }
+
+    @Test
+    void shouldRemoveTheUserOnly() {
+        // Arrange
+        underTest.saveAndFlush(new UserAccount("client@mail.com", AccountKind.CLIENT, 1L, "client-hash", Role.CLIENT, 0));
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        doctor.setEmail("client@mail.com");
+        Client client = new Client();
+        client.setId(1L);
+
+        // Act & Assert
+        assertFalse(underTest.remove(doctor));
+        assertTrue(underTest.existsById("client@mail.com"));
+        assertTrue(underTest.remove(client));
+        assertFalse(underTest.existsById("client@mail.com"));
+    }
+
+    @Test
+    void shouldAddTheUser() {
+        // Arrange
+        Client client = new Client();
+        client.setId(1L);
+        client.setEmail("client@mail.com");
+        client.setPassword("client-hash");
+        client.setRole(Role.CLIENT);
+
+        // Act
+        underTest.add(client);
+        entityManager.clear();
+
+        // Assert
+        UserAccount account = underTest.findById("client@mail.com").orElseThrow();
+        assertEquals(AccountKind.CLIENT, account.getKind());
+        assertEquals(1L, account.getUserId());
+        assertEquals("client-hash", account.getPassword());
+        assertEquals(Role.CLIENT, account.getRole());
+    }
+
+    @Test
+    void shouldNotOverwriteTheUserOwningTheEmail() {
+        // Arrange
+        underTest.saveAndFlush(new UserAccount("client@mail.com", AccountKind.CLIENT, 1L, "client-hash", Role.CLIENT, 0));
+        Doctor doctor = new Doctor();
+        doctor.setId(2L);
+        doctor.setEmail("client@mail.com");
+        doctor.setPassword("doctor-hash");
+        doctor.setRole(Role.DOCTOR);
+
+        // Act
+        // Assert
+        assertThatThrownBy(() -> underTest.add(doctor))
+                .isInstanceOf(DuplicateEmailException.class);
+        entityManager.clear();
+        UserAccount account = underTest.findById("client@mail.com").orElseThrow();
+        assertEquals(AccountKind.CLIENT, account.getKind());
+        assertEquals("client-hash", account.getPassword());
+    }
+}
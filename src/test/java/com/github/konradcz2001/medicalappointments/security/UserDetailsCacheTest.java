@@ -0,0 +1,79 @@
+package com.github.konradcz2001.medicalappointments.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserDetailsCacheTest {
+    @Mock
+    private UserDetailsServiceImp userDetailsService;
+    private MeterRegistry meterRegistry;
+    private UserDetailsCache underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new UserDetailsCache(userDetailsService, meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    private static UserAccount client(String password) {
+        return new UserAccount("client@mail.com", AccountKind.CLIENT, 3L, password, Role.CLIENT, 0);
+    }
+
+    @Test
+    void shouldLoadUserOnceAndRecordHitsAndMisses() {
+        // Arrange
+        when(userDetailsService.loadUserByUsername("client@mail.com")).thenReturn(client("hash"));
+
+        // Act
+        UserDetails first = underTest.loadUserByUsername("client@mail.com");
+        UserDetails second = underTest.loadUserByUsername("client@mail.com");
+
+        // Assert
+        verify(userDetailsService, times(1)).loadUserByUsername("client@mail.com");
+        assertSame(first, second);
+        assertEquals("client@mail.com", first.getUsername());
+        assertEquals("hash", first.getPassword());
+        assertEquals("CLIENT", first.getAuthorities().iterator().next().getAuthority());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", UserDetailsCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", UserDetailsCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void shouldReloadUserAfterCredentialsChanged() {
+        // Arrange
+        when(userDetailsService.loadUserByUsername("client@mail.com")).thenReturn(client("old"), client("new"));
+        underTest.loadUserByUsername("client@mail.com");
+
+        // Act
+        underTest.onCredentialsChanged(new UserCredentialsChangedEvent("client@mail.com"));
+        UserDetails reloaded = underTest.loadUserByUsername("client@mail.com");
+
+        // Assert
+        verify(userDetailsService, times(2)).loadUserByUsername("client@mail.com");
+        assertEquals("new", reloaded.getPassword());
+    }
+
+    @Test
+    void shouldNotCacheMissingUser() {
+        // Arrange
+        when(userDetailsService.loadUserByUsername("nobody@mail.com")).thenThrow(new UsernameNotFoundException("nobody@mail.com"));
+
+        // Act & Assert
+        assertThrows(UsernameNotFoundException.class, () -> underTest.loadUserByUsername("nobody@mail.com"));
+        assertThrows(UsernameNotFoundException.class, () -> underTest.loadUserByUsername("nobody@mail.com"));
+        verify(userDetailsService, times(2)).loadUserByUsername("nobody@mail.com");
+    }
+}
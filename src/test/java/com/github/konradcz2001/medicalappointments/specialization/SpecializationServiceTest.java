@@ -1,7 +1,12 @@
 package com.github.konradcz2001.medicalappointments.specialization;
 
+import com.github.konradcz2001.medicalappointments.doctor.ranking.RankedDoctor;
+import com.github.konradcz2001.medicalappointments.doctor.ranking.TopDoctorsIndex;
+import com.github.konradcz2001.medicalappointments.doctor.search.DoctorSearchIndex;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongSpecializationException;
 import com.github.konradcz2001.medicalappointments.specialization.DTO.SpecializationDTO;
+import com.github.konradcz2001.medicalappointments.specialization.DTO.TopDoctorDTO;
 import com.github.konradcz2001.medicalappointments.specialization.DTO.SpecializationDTOMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,7 +17,9 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatusCode;
 
+import java.math.BigDecimal;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -26,9 +33,39 @@ class SpecializationServiceTest {
     private SpecializationRepository repository;
     @Spy
     private SpecializationDTOMapper dtoMapper;
+    @Mock
+    private DoctorSearchIndex searchIndex;
+    @Mock
+    private TopDoctorsIndex topDoctorsIndex;
     @InjectMocks
     private SpecializationService underTest;
 
+    @Test
+    void shouldReadTopDoctorsFromIndexWithLimitCapped() {
+        // Arrange
+        RankedDoctor doctor = new RankedDoctor(4L, "John", "Doe", new BigDecimal("4.50"), 2, 3.4166);
+        when(topDoctorsIndex.top(1, TopDoctorsIndex.MAX_LIMIT)).thenReturn(Optional.of(List.of(doctor)));
+
+        // Act
+        var response = underTest.readTopDoctors(1, 1000);
+
+        // Assert
+        assertEquals(HttpStatusCode.valueOf(200), response.getStatusCode());
+        assertEquals(List.of(new TopDoctorDTO(4L, "John", "Doe", new BigDecimal("4.50"), 2, new BigDecimal("3.42"))), response.getBody());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void shouldThrowResourceNotFoundExceptionWhenTopDoctorsOfUnknownSpecializationAreRead() {
+        // Arrange
+        when(topDoctorsIndex.top(7, 10)).thenReturn(Optional.empty());
+        when(repository.existsById(7)).thenReturn(false);
+
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.readTopDoctors(7, null))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
     @Test
     void shouldFindSpecializationById() {
         // Arrange
@@ -98,6 +135,7 @@ class SpecializationServiceTest {
         assertEquals("spec", response.getBody().specialization());
         verify(specialization).setId(null);
         verify(specialization).setDoctors(new HashSet<>());
+        verify(searchIndex).addSpecialization("spec");
 
     }
 
@@ -125,6 +163,7 @@ class SpecializationServiceTest {
         Specialization specialization2 = new Specialization();
         specialization1.setId(1);
         specialization2.setId(id);
+        specialization2.setSpecialization("old");
 
         SpecializationDTO toUpdate = new SpecializationDTO(3, "spec");
 
@@ -141,6 +180,7 @@ class SpecializationServiceTest {
 
         assertEquals(2, spec.getId());
         assertEquals("spec", spec.getSpecialization());
+        verify(searchIndex).renameSpecialization("old", "spec");
     }
 
     @Test
@@ -0,0 +1,133 @@
+package com.github.konradcz2001.medicalappointments.visit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongVisitException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VisitExportServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 2, 1, 0, 0);
+
+    @Mock
+    private VisitRepository repository;
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private VisitExportService underTest;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        underTest = new VisitExportService(repository, doctorRepository, objectMapper, transactionManager);
+    }
+
+    @Test
+    void shouldStreamVisitsAsNdjson() throws IOException {
+        // Arrange
+        when(doctorRepository.existsById(1L)).thenReturn(true);
+        when(repository.streamAllByDoctorIdForExport(1L, FROM, TO)).thenReturn(Stream.of(
+                row(1L, "Consultation", null),
+                row(2L, "Check-up", "Bring results")));
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = underTest.exportVisits(1L, FROM, TO, "ndjson");
+        String body = write(response);
+
+        // Assert
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"date\":\"2024-01-10T09:00:00\""));
+        assertTrue(lines[1].contains("\"notes\":\"Bring results\""));
+        assertEquals("application/x-ndjson;charset=UTF-8", Objects.requireNonNull(response.getHeaders().getContentType()).toString());
+        assertEquals("attachment; filename=\"visits-1.ndjson\"", response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void shouldStreamVisitsAsCsvWithQuotedFields() throws IOException {
+        // Arrange
+        when(doctorRepository.existsById(1L)).thenReturn(true);
+        when(repository.streamAllByDoctorIdForExport(1L, FROM, TO)).thenReturn(Stream.of(
+                row(1L, "Consultation, extended", "Said \"hello\"")));
+
+        // Act
+        String body = write(underTest.exportVisits(1L, FROM, TO, "CSV"));
+
+        // Assert
+        assertEquals("id,date,end_date,type,price,currency,client_id,is_cancelled,notes\r\n" +
+                "1,2024-01-10T09:00,2024-01-10T09:30,\"Consultation, extended\",150.00,PLN,7,false,\"Said \"\"hello\"\"\"\r\n", body);
+    }
+
+    @Test
+    void shouldRejectUnsupportedFormat() {
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.exportVisits(1L, FROM, TO, "xml"))
+                .isInstanceOf(WrongVisitException.class)
+                .hasMessage("The export format must be ndjson or csv");
+        verify(repository, never()).streamAllByDoctorIdForExport(any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectEmptyRange() {
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.exportVisits(1L, TO, FROM, "csv"))
+                .isInstanceOf(WrongVisitException.class)
+                .hasMessage("The beginning of the export range must be before its end");
+    }
+
+    @Test
+    void shouldThrowResourceNotFoundExceptionWhenDoctorDoesNotExist() {
+        // Arrange
+        when(doctorRepository.existsById(1L)).thenReturn(false);
+
+        // Act & Assert
+        assertThatThrownBy(() -> underTest.exportVisits(1L, FROM, TO, "ndjson"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(repository, never()).streamAllByDoctorIdForExport(any(), any(), any());
+    }
+
+    private static VisitExportRow row(Long id, String type, String notes) {
+        LocalDateTime date = LocalDateTime.of(2024, 1, 10, 9, 0);
+        return new VisitExportRow(id, date, date.plusMinutes(30), type, new BigDecimal("150.00"), "PLN", 7L, false, notes);
+    }
+
+    private static String write(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Objects.requireNonNull(response.getBody()).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
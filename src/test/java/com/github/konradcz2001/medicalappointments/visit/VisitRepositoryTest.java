@@ -0,0 +1,87 @@
+package com.github.konradcz2001.medicalappointments.visit;
+
+import com.github.konradcz2001.medicalappointments.client.Client;
+import com.github.konradcz2001.medicalappointments.doctor.Doctor;
+import com.github.konradcz2001.medicalappointments.security.Role;
+import com.github.konradcz2001.medicalappointments.visit.type.TypeOfVisit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+class VisitRepositoryTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2100, 3, 4, 12, 0);
+
+    @Autowired
+    private VisitRepository underTest;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void shouldSkipRemindersOfVisitsWhichAlreadyStartedInBatches() {
+        // Arrange
+        Long first = persistVisit(NOW.minusHours(3), false, null);
+        Long second = persistVisit(NOW.minusHours(2), false, null);
+        Long third = persistVisit(NOW, false, null);
+        Long cancelled = persistVisit(NOW.minusHours(4), true, null);
+        Long reminded = persistVisit(NOW.minusHours(5), false, NOW.minusHours(6));
+        Long upcoming = persistVisit(NOW.plusHours(1), false, null);
+
+        // Act
+        int firstBatch = underTest.skipMissedReminders(NOW, 2);
+        int secondBatch = underTest.skipMissedReminders(NOW, 2);
+        int thirdBatch = underTest.skipMissedReminders(NOW, 2);
+        entityManager.clear();
+
+        // Assert
+        assertEquals(2, firstBatch);
+        assertEquals(1, secondBatch);
+        assertEquals(0, thirdBatch);
+        assertEquals(NOW.minusHours(3), reminderSentAt(first));
+        assertEquals(NOW.minusHours(2), reminderSentAt(second));
+        assertEquals(NOW, reminderSentAt(third));
+        assertNull(reminderSentAt(cancelled));
+        assertEquals(NOW.minusHours(6), reminderSentAt(reminded));
+        assertNull(reminderSentAt(upcoming));
+    }
+
+    private LocalDateTime reminderSentAt(Long id) {
+        return underTest.findById(id).orElseThrow().getReminderSentAt();
+    }
+
+    private Long persistVisit(LocalDateTime date, boolean cancelled, LocalDateTime reminderSentAt) {
+        Doctor doctor = new Doctor();
+        doctor.setFirstName("John");
+        doctor.setLastName("Smith");
+        doctor.setEmail("doctor" + date.getHour() + "@mail.com");
+        doctor.setPassword("hash");
+        doctor.setRole(Role.DOCTOR);
+        entityManager.persist(doctor);
+
+        Client client = new Client();
+        client.setFirstName("Emily");
+        client.setLastName("Brown");
+        client.setEmail("client" + date.getHour() + "@mail.com");
+        client.setPassword("hash");
+        client.setRole(Role.CLIENT);
+        entityManager.persist(client);
+
+        TypeOfVisit type = new TypeOfVisit();
+        type.setType("Consultation");
+        type.setPrice(BigDecimal.TEN);
+        type.setCurrency("PLN");
+        type.setDuration(30);
+        type.setDoctor(doctor);
+        entityManager.persist(type);
+
+        Visit visit = new Visit(null, date, date.plusMinutes(30), null, type, cancelled, doctor, client, reminderSentAt);
+        return entityManager.persistAndFlush(visit).getId();
+    }
+}
@@ -1,11 +1,16 @@
 package com.github.konradcz2001.medicalappointments.visit;
 
+import com.github.konradcz2001.medicalappointments.calendar.CalendarOwner;
+import com.github.konradcz2001.medicalappointments.calendar.CalendarService;
 import com.github.konradcz2001.medicalappointments.client.Client;
 import com.github.konradcz2001.medicalappointments.client.ClientRepository;
+import com.github.konradcz2001.medicalappointments.common.CountMode;
 import com.github.konradcz2001.medicalappointments.doctor.Doctor;
 import com.github.konradcz2001.medicalappointments.doctor.DoctorRepository;
+import com.github.konradcz2001.medicalappointments.doctor.availability.AvailabilityIndex;
 import com.github.konradcz2001.medicalappointments.doctor.schedule.Schedule;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.ResourceNotFoundException;
+import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongCountModeException;
 import com.github.konradcz2001.medicalappointments.exception.exceptions.WrongVisitException;
 import com.github.konradcz2001.medicalappointments.leave.Leave;
 import com.github.konradcz2001.medicalappointments.visit.DTO.TypeOfVisitDTO;
@@ -22,6 +27,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
@@ -32,7 +39,9 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +56,12 @@ class VisitServiceTest {
     @Mock
     private ClientRepository clientRepository;
 
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private CalendarService calendarService;
+
     @Spy
     private VisitDTOMapper dtoMapper;
 
@@ -83,6 +98,9 @@ class VisitServiceTest {
         verify(repository).save(visitCaptor.capture());
         assertEquals(client, visitCaptor.getValue().getClient());
         assertEquals(doctor, visitCaptor.getValue().getTypeOfVisit().getDoctor());
+        assertEquals(doctor, visitCaptor.getValue().getDoctor());
+        assertEquals(LocalDateTime.of(3000,1,1,10,31,1), visitCaptor.getValue().getEndDate());
+        verify(availabilityIndex).invalidate(doctorId, LocalDateTime.of(3000,1,1,10,1,1), LocalDateTime.of(3000,1,1,10,31,1));
     }
 
     @Test
@@ -112,16 +130,35 @@ class VisitServiceTest {
         TypeOfVisitDTO typeOfVisitDTO = new TypeOfVisitDTO(1L, "consultation", BigDecimal.TEN, "USD", 30, true, doctorId);
         VisitDTO visitDTO = new VisitDTO(null, visitDate, "consultation", typeOfVisitDTO, false, clientId);
         Doctor doctor = new Doctor();
-        Visit existingVisit = new Visit();
-        existingVisit.setDate(visitDate);
-        existingVisit.setTypeOfVisit(new TypeOfVisit(1L, "consultation", BigDecimal.TEN, "USD", 30, true, doctor));
+        doctor.setLeaves(List.of());
 
         when(doctorRepository.findById(doctorId)).thenReturn(Optional.of(doctor));
         when(clientRepository.findById(clientId)).thenReturn(Optional.of(new Client()));
-        when(repository.findAllByTypeOfVisit_Doctor_Id(doctorId)).thenReturn(List.of(existingVisit));
+        when(repository.existsActiveVisitOfDoctorOverlapping(doctorId, visitDate, visitDate.plusMinutes(30))).thenReturn(true);
 
         // Act & Assert
-        assertThrows(WrongVisitException.class, () -> underTest.createVisit(visitDTO));
+        WrongVisitException exception = assertThrows(WrongVisitException.class, () -> underTest.createVisit(visitDTO));
+        assertEquals("The visit conflicts with another doctor's visit", exception.getMessage());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenVisitConflictsWithAnotherClientVisit() {
+        // Arrange
+        Long doctorId = 1L;
+        Long clientId = 2L;
+        LocalDateTime visitDate = LocalDateTime.now().plusDays(1);
+        TypeOfVisitDTO typeOfVisitDTO = new TypeOfVisitDTO(1L, "consultation", BigDecimal.TEN, "USD", 30, true, doctorId);
+        VisitDTO visitDTO = new VisitDTO(null, visitDate, "consultation", typeOfVisitDTO, false, clientId);
+        Doctor doctor = new Doctor();
+        doctor.setLeaves(List.of());
+
+        when(doctorRepository.findById(doctorId)).thenReturn(Optional.of(doctor));
+        when(clientRepository.findById(clientId)).thenReturn(Optional.of(new Client()));
+        when(repository.existsActiveVisitOfClientOverlapping(clientId, visitDate, visitDate.plusMinutes(30))).thenReturn(true);
+
+        // Act & Assert
+        WrongVisitException exception = assertThrows(WrongVisitException.class, () -> underTest.createVisit(visitDTO));
+        assertEquals("The visit conflicts with another of your visits", exception.getMessage());
     }
 
     @Test
@@ -200,12 +237,98 @@ class VisitServiceTest {
         when(repository.findAll(pageRequest)).thenReturn(visits);
 
         // Act
-        ResponseEntity<Page<VisitDTO>> response = underTest.readAll(pageRequest);
+        ResponseEntity<Slice<VisitDTO>> response = underTest.readAll(pageRequest, CountMode.EXACT);
 
         // Assert
         assertEquals(200, response.getStatusCodeValue());
         assertNotNull(response.getBody());
-        assertEquals(2, response.getBody().getTotalElements());
+        assertEquals(2, assertInstanceOf(Page.class, response.getBody()).getTotalElements());
+    }
+
+    @Test
+    void shouldReadAllVisitsAsSliceWithoutCountingThem() {
+        // Arrange
+        TypeOfVisit typeOfVisit = new TypeOfVisit();
+        typeOfVisit.setDoctor(new Doctor());
+        Client client = new Client();
+        client.setId(1L);
+
+        Visit visit = new Visit();
+        visit.setTypeOfVisit(typeOfVisit);
+        visit.setClient(client);
+
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        when(repository.findAllBy(pageRequest)).thenReturn(new SliceImpl<>(List.of(visit), pageRequest, true));
+
+        // Act
+        ResponseEntity<Slice<VisitDTO>> response = underTest.readAll(pageRequest, CountMode.NONE);
+
+        // Assert
+        assertNotNull(response.getBody());
+        assertFalse(response.getBody() instanceof Page);
+        assertTrue(response.getBody().hasNext());
+        verify(repository, never()).findAll(pageRequest);
+        verify(repository, never()).estimateCount();
+    }
+
+    @Test
+    void shouldReadAllVisitsWithEstimatedTotal() {
+        // Arrange
+        TypeOfVisit typeOfVisit = new TypeOfVisit();
+        typeOfVisit.setDoctor(new Doctor());
+        Client client = new Client();
+        client.setId(1L);
+
+        Visit visit = new Visit();
+        visit.setTypeOfVisit(typeOfVisit);
+        visit.setClient(client);
+
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        when(repository.findAllBy(pageRequest)).thenReturn(new SliceImpl<>(List.of(visit), pageRequest, true));
+        when(repository.estimateCount()).thenReturn(1000L);
+
+        // Act
+        ResponseEntity<Slice<VisitDTO>> response = underTest.readAll(pageRequest, CountMode.ESTIMATED);
+
+        // Assert
+        assertEquals(1000, assertInstanceOf(Page.class, response.getBody()).getTotalElements());
+        verify(repository, never()).findAll(pageRequest);
+    }
+
+    @Test
+    void shouldReadAllVisitsByClientIdAsSliceWhenCountIsSkipped() {
+        // Arrange
+        Long clientId = 1L;
+        TypeOfVisit typeOfVisit = new TypeOfVisit();
+        typeOfVisit.setDoctor(new Doctor());
+        Client client = new Client();
+        client.setId(clientId);
+
+        Visit visit = new Visit();
+        visit.setTypeOfVisit(typeOfVisit);
+        visit.setClient(client);
+
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(repository.findSliceByClientId(clientId, pageRequest)).thenReturn(new SliceImpl<>(List.of(visit), pageRequest, false));
+
+        // Act
+        ResponseEntity<Slice<VisitDTO>> response = underTest.readAllByClientId(clientId, pageRequest, CountMode.NONE);
+
+        // Assert
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().getNumberOfElements());
+        verify(repository, never()).findAllByClientId(clientId, pageRequest);
+    }
+
+    @Test
+    void shouldRejectEstimatedCountOfVisitsByClientId() {
+        // Arrange
+        PageRequest pageRequest = PageRequest.of(0, 10);
+
+        // Act & Assert
+        assertThrows(WrongCountModeException.class, () -> underTest.readAllByClientId(1L, pageRequest, CountMode.ESTIMATED));
+        assertThrows(WrongCountModeException.class, () -> underTest.readAllByDoctorId(1L, pageRequest, CountMode.ESTIMATED));
+        verifyNoInteractions(repository);
     }
 
     @Test
@@ -247,12 +370,23 @@ class VisitServiceTest {
     void shouldUpdateVisit() {
         // Arrange
         Long visitId = 1L;
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        LocalDateTime previousDate = LocalDateTime.now().plusDays(1);
         Visit visit = new Visit();
         visit.setId(visitId);
+        visit.setDoctor(doctor);
+        visit.setDate(previousDate);
+        visit.setEndDate(previousDate.plusMinutes(30));
+        visit.setReminderSentAt(LocalDateTime.now());
         TypeOfVisit typeOfVisit = new TypeOfVisit();
         visit.setTypeOfVisit(typeOfVisit);
+        Client client = new Client();
+        client.setId(2L);
+        visit.setClient(client);
         TypeOfVisitDTO typeOfVisitDTO = new TypeOfVisitDTO(1L, "consultation", BigDecimal.TEN, "USD", 30, true, 1L);
-        VisitDTO visitDTO = new VisitDTO(visitId, LocalDateTime.now(), "updated notes", typeOfVisitDTO, false, 2L);
+        LocalDateTime newDate = LocalDateTime.now().plusDays(2);
+        VisitDTO visitDTO = new VisitDTO(visitId, newDate, "updated notes", typeOfVisitDTO, false, 2L);
 
         when(repository.findById(visitId)).thenReturn(Optional.of(visit));
         when(repository.save(any(Visit.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -265,6 +399,9 @@ class VisitServiceTest {
         ArgumentCaptor<Visit> visitCaptor = ArgumentCaptor.forClass(Visit.class);
         verify(repository).save(visitCaptor.capture());
         assertEquals("updated notes", visitCaptor.getValue().getNotes());
+        assertNull(visitCaptor.getValue().getReminderSentAt());
+        verify(availabilityIndex).invalidate(1L, previousDate, previousDate.plusMinutes(30));
+        verify(availabilityIndex).invalidate(1L, newDate, newDate.plusMinutes(30));
     }
 
     @Test
@@ -284,9 +421,18 @@ class VisitServiceTest {
     void shouldDeleteVisit() {
         // Arrange
         Long visitId = 1L;
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        LocalDateTime date = LocalDateTime.now().plusDays(1);
         Visit visit = new Visit();
         visit.setId(visitId);
+        visit.setDoctor(doctor);
+        visit.setDate(date);
+        visit.setEndDate(date.plusMinutes(30));
         visit.setTypeOfVisit(new TypeOfVisit());
+        Client client = new Client();
+        client.setId(2L);
+        visit.setClient(client);
 
         when(repository.findById(visitId)).thenReturn(Optional.of(visit));
 
@@ -296,6 +442,9 @@ class VisitServiceTest {
         // Assert
         assertEquals(204, response.getStatusCodeValue());
         verify(repository).deleteById(visitId);
+        verify(availabilityIndex).invalidate(1L, date, date.plusMinutes(30));
+        verify(calendarService).touch(CalendarOwner.DOCTOR, 1L);
+        verify(calendarService).touch(CalendarOwner.CLIENT, 2L);
     }
 
     @Test
@@ -313,9 +462,18 @@ class VisitServiceTest {
     void shouldCancelVisit() {
         // Arrange
         Long visitId = 1L;
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        LocalDateTime date = LocalDateTime.now().plusDays(1);
         Visit visit = new Visit();
         visit.setId(visitId);
+        visit.setDoctor(doctor);
+        visit.setDate(date);
+        visit.setEndDate(date.plusMinutes(30));
         visit.setTypeOfVisit(new TypeOfVisit());
+        Client client = new Client();
+        client.setId(2L);
+        visit.setClient(client);
 
         when(repository.findById(visitId)).thenReturn(Optional.of(visit));
         when(repository.save(any(Visit.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -328,6 +486,9 @@ class VisitServiceTest {
         ArgumentCaptor<Visit> visitCaptor = ArgumentCaptor.forClass(Visit.class);
         verify(repository).save(visitCaptor.capture());
         assertTrue(visitCaptor.getValue().isCancelled());
+        verify(availabilityIndex).invalidate(1L, date, date.plusMinutes(30));
+        verify(calendarService).touch(CalendarOwner.DOCTOR, 1L);
+        verify(calendarService).touch(CalendarOwner.CLIENT, 2L);
     }
 
     @Test
@@ -519,12 +680,12 @@ class VisitServiceTest {
         when(repository.findAllByTypeOfVisit_Doctor_Id(doctorId, pageRequest)).thenReturn(visits);
 
         // Act
-        ResponseEntity<Page<VisitDTO>> response = underTest.readAllByDoctorId(doctorId, pageRequest);
+        ResponseEntity<Slice<VisitDTO>> response = underTest.readAllByDoctorId(doctorId, pageRequest, CountMode.EXACT);
 
         // Assert
         assertEquals(200, response.getStatusCodeValue());
         assertNotNull(response.getBody());
-        assertEquals(2, response.getBody().getTotalElements());
+        assertEquals(2, assertInstanceOf(Page.class, response.getBody()).getTotalElements());
     }
 
     @Test
@@ -596,12 +757,12 @@ class VisitServiceTest {
         when(repository.findAllByClientId(clientId, pageRequest)).thenReturn(visits);
 
         // Act
-        ResponseEntity<Page<VisitDTO>> response = underTest.readAllByClientId(clientId, pageRequest);
+        ResponseEntity<Slice<VisitDTO>> response = underTest.readAllByClientId(clientId, pageRequest, CountMode.EXACT);
 
         // Assert
         assertEquals(200, response.getStatusCodeValue());
         assertNotNull(response.getBody());
-        assertEquals(2, response.getBody().getTotalElements());
+        assertEquals(2, assertInstanceOf(Page.class, response.getBody()).getTotalElements());
     }
 
     @Test
@@ -0,0 +1,104 @@
+package com.github.konradcz2001.medicalappointments.visit.reminder;
+
+import com.github.konradcz2001.medicalappointments.email.EmailOutbox;
+import com.github.konradcz2001.medicalappointments.visit.VisitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitReminderDispatcherTest {
+    @Mock
+    private VisitRepository visitRepository;
+    @Mock
+    private EmailOutbox emailOutbox;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private VisitReminderDispatcher underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new VisitReminderDispatcher(visitRepository, emailOutbox, transactionManager, Duration.ofHours(24), 2);
+    }
+
+    private static VisitReminder reminder(long id, LocalDateTime date) {
+        return new VisitReminder(id, date, "Consultation", "client" + id + "@mail.com", "Emily", "John", "Smith");
+    }
+
+    @Test
+    void shouldClaimDueVisitsAndQueueTheirReminders() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.of(2024, 9, 2, 10, 0);
+        when(visitRepository.findAllReminderDueIdsForUpdate(now, now.plusHours(24), 2)).thenReturn(List.of(1L, 2L));
+        when(visitRepository.findAllRemindersByIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(reminder(1L, now.plusHours(2)), reminder(2L, now.plusHours(20))));
+
+        // Act
+        int claimed = underTest.dispatchBatch(now);
+
+        // Assert
+        assertEquals(2, claimed);
+        verify(visitRepository).markRemindersSent(List.of(1L, 2L), now);
+        verify(emailOutbox).enqueue(eq("client1@mail.com"), eq("Reminder: Consultation on 2024-09-02 12:00"),
+                contains("with Dr. John Smith on 2024-09-02 12:00"));
+        verify(emailOutbox).enqueue(eq("client2@mail.com"), eq("Reminder: Consultation on 2024-09-03 06:00"), anyString());
+    }
+
+    @Test
+    void shouldClaimBatchesUntilOneIsNotFull() {
+        // Arrange
+        when(visitRepository.findAllReminderDueIdsForUpdate(any(), any(), eq(2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(visitRepository.findAllRemindersByIdIn(anyList())).thenReturn(List.of());
+
+        // Act
+        underTest.dispatchDue();
+
+        // Assert
+        verify(visitRepository).skipMissedReminders(any(), eq(2));
+        verify(visitRepository, times(2)).findAllReminderDueIdsForUpdate(any(), any(), eq(2));
+        verify(visitRepository).markRemindersSent(eq(List.of(1L, 2L)), any());
+        verify(visitRepository).markRemindersSent(eq(List.of(3L)), any());
+    }
+
+    @Test
+    void shouldSkipMissedVisitsInBatchesBeforeClaimingDueOnes() {
+        // Arrange
+        when(visitRepository.skipMissedReminders(any(), eq(2))).thenReturn(2, 2, 1);
+        when(visitRepository.findAllReminderDueIdsForUpdate(any(), any(), eq(2))).thenReturn(List.of());
+
+        // Act
+        underTest.dispatchDue();
+
+        // Assert
+        var inOrder = inOrder(visitRepository);
+        inOrder.verify(visitRepository, times(3)).skipMissedReminders(any(), eq(2));
+        inOrder.verify(visitRepository).findAllReminderDueIdsForUpdate(any(), any(), eq(2));
+        verify(visitRepository, never()).markRemindersSent(anyCollection(), any());
+    }
+
+    @Test
+    void shouldNotMarkAnythingWhenNoVisitIsDue() {
+        // Arrange
+        when(visitRepository.findAllReminderDueIdsForUpdate(any(), any(), anyInt())).thenReturn(List.of());
+
+        // Act
+        int claimed = underTest.dispatchBatch(LocalDateTime.now());
+
+        // Assert
+        assertEquals(0, claimed);
+        verify(visitRepository, never()).markRemindersSent(anyCollection(), any());
+        verifyNoInteractions(emailOutbox);
+    }
+}
@@ -0,0 +1,17 @@
+-- The doctor_rating_stats table of V29 in the dialect of H2, without the foreign key to doctors
+DROP TABLE IF EXISTS doctor_rating_stats;
+
+CREATE TABLE doctor_rating_stats (
+                       doctor_id BIGINT PRIMARY KEY,
+                       one_star BIGINT NOT NULL DEFAULT 0 CHECK (one_star >= 0),
+                       two_stars BIGINT NOT NULL DEFAULT 0 CHECK (two_stars >= 0),
+                       three_stars BIGINT NOT NULL DEFAULT 0 CHECK (three_stars >= 0),
+                       four_stars BIGINT NOT NULL DEFAULT 0 CHECK (four_stars >= 0),
+                       five_stars BIGINT NOT NULL DEFAULT 0 CHECK (five_stars >= 0),
+                       review_count BIGINT GENERATED ALWAYS AS (one_star + two_stars + three_stars + four_stars + five_stars),
+                       average_rating NUMERIC(3, 2) GENERATED ALWAYS AS (
+                           CASE WHEN one_star + two_stars + three_stars + four_stars + five_stars = 0 THEN NULL
+                                ELSE ROUND(CAST(one_star + 2 * two_stars + 3 * three_stars + 4 * four_stars + 5 * five_stars AS NUMERIC(20, 2))
+                                           / (one_star + two_stars + three_stars + four_stars + five_stars), 2)
+                           END)
+);